@@ -0,0 +1,200 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.metrics.MetricsRegistry;
+import com.portlogistics.repository.BerthOccupancyIndex;
+import com.portlogistics.repository.BerthScheduleRepository;
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.CargoStatsRollup;
+import com.portlogistics.repository.PortRepository;
+import com.portlogistics.repository.SearchIndex;
+import com.portlogistics.repository.ShipRepository;
+import com.portlogistics.repository.SuggestIndex;
+import com.portlogistics.repository.TableVersions;
+import com.portlogistics.repository.VoyagePlanRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded H2 database in MySQL mode, seeded with a fixed random seed, plus the repositories
+ * wired the way Spring wires them. Every instance gets its own in-memory database.
+ */
+final class BenchDatabase implements AutoCloseable {
+    static final int PORTS = 20;
+    static final int BERTHS_PER_PORT = 16;
+    static final int SHIPS = 500;
+    static final int BOOKINGS = 20_000;
+    static final int VOYAGES = 20_000;
+    static final int CARGO = 50_000;
+    static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final AtomicInteger NEXT_DATABASE = new AtomicInteger();
+    private static final int BATCH = 1_000;
+    private static final String[] STATUSES = {"SCHEDULED", "ARRIVED", "DEPARTED", "CANCELLED"};
+    private static final String[] CARGO_STATUSES = {"PENDING", "IN_TRANSIT", "DELIVERED"};
+    private static final String[] DESTINATIONS = {"上海", "宁波", "深圳", "青岛", "天津", "广州", "厦门", "大连"};
+
+    final DatabaseManager databaseManager;
+    final ShipRepository ships;
+    final PortRepository ports;
+    final BerthScheduleRepository berths;
+    final VoyagePlanRepository voyages;
+    final CargoRepository cargo;
+
+    BenchDatabase() throws Exception {
+        String url = "jdbc:h2:mem:bench" + NEXT_DATABASE.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DAY,MONTH,YEAR,VALUE,USER;DB_CLOSE_DELAY=-1";
+        databaseManager = new DatabaseManager(new MetricsRegistry(null));
+        // 与application.properties中的连接池配置一致
+        set(databaseManager, "url", url);
+        set(databaseManager, "username", "sa");
+        set(databaseManager, "password", "");
+        set(databaseManager, "poolEnabled", true);
+        set(databaseManager, "maxPoolSize", 10);
+        set(databaseManager, "minIdle", 2);
+        set(databaseManager, "borrowTimeoutMs", 5_000L);
+        set(databaseManager, "idleTimeoutMs", 600_000L);
+        set(databaseManager, "maxLifetimeMs", 1_800_000L);
+        set(databaseManager, "validationTimeoutSeconds", 2);
+        set(databaseManager, "statementCacheSize", 64);
+        databaseManager.init();
+
+        createSchema();
+        seed(new Random(42));
+
+        TableVersions versions = new TableVersions();
+        SearchIndex searchIndex = new SearchIndex(500);
+        SuggestIndex suggestIndex = new SuggestIndex();
+        ships = new ShipRepository(databaseManager, versions, searchIndex, suggestIndex, 10_000);
+        ports = new PortRepository(databaseManager, versions, suggestIndex, 2_000);
+        berths = new BerthScheduleRepository(databaseManager, new BerthOccupancyIndex(), ships, ports, versions);
+        voyages = new VoyagePlanRepository(databaseManager, new CargoStatsRollup(), ships, ports, versions);
+        cargo = new CargoRepository(databaseManager, new CargoStatsRollup(), ships, searchIndex, suggestIndex);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection conn = databaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        } finally {
+            databaseManager.shutdown();
+        }
+    }
+
+    private void createSchema() throws SQLException, IOException {
+        String script;
+        try (InputStream in = BenchDatabase.class.getResourceAsStream("/bench-schema.sql")) {
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Connection conn = databaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    private void seed(Random random) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO port (port_code, port_name, country, city, total_berths) VALUES (?, ?, ?, ?, ?)")) {
+                for (int p = 1; p <= PORTS; p++) {
+                    stmt.setString(1, "P" + p);
+                    stmt.setString(2, "港口" + p);
+                    stmt.setString(3, "中国");
+                    stmt.setString(4, DESTINATIONS[p % DESTINATIONS.length]);
+                    stmt.setInt(5, BERTHS_PER_PORT);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO ship (name, imo, capacity_teu, status) VALUES (?, ?, ?, ?)")) {
+                for (int s = 1; s <= SHIPS; s++) {
+                    stmt.setString(1, "船舶" + s);
+                    stmt.setString(2, "IMO" + (9_000_000 + s));
+                    stmt.setInt(3, 500 + random.nextInt(20_000));
+                    stmt.setString(4, "AT_SEA");
+                    addBatch(stmt, s);
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO berth (berth_number, port_id, current_vessel_id, max_length, max_draft, status, arrival_time, departure_time) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int b = 1; b <= BOOKINGS; b++) {
+                    int berth = 1 + random.nextInt(BERTHS_PER_PORT);
+                    LocalDateTime arrival = EPOCH.plusHours(random.nextInt(24 * 365));
+                    stmt.setString(1, "B" + berth);
+                    stmt.setInt(2, 1 + random.nextInt(PORTS));
+                    stmt.setInt(3, 1 + random.nextInt(SHIPS));
+                    stmt.setBigDecimal(4, BigDecimal.valueOf(200 + berth * 15L));
+                    stmt.setBigDecimal(5, BigDecimal.valueOf(10 + berth / 3));
+                    stmt.setString(6, STATUSES[random.nextInt(STATUSES.length)]);
+                    stmt.setTimestamp(7, Timestamp.valueOf(arrival));
+                    stmt.setTimestamp(8, Timestamp.valueOf(arrival.plusHours(6 + random.nextInt(42))));
+                    addBatch(stmt, b);
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO voyage_plan (voyage_number, ship_id, departure_port_id, arrival_port_id, planned_departure, planned_arrival, voyage_status) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int v = 1; v <= VOYAGES; v++) {
+                    LocalDateTime departure = EPOCH.plusHours(random.nextInt(24 * 365));
+                    stmt.setString(1, "V" + v);
+                    stmt.setInt(2, 1 + random.nextInt(SHIPS));
+                    stmt.setInt(3, 1 + random.nextInt(PORTS));
+                    stmt.setInt(4, 1 + random.nextInt(PORTS));
+                    stmt.setTimestamp(5, Timestamp.valueOf(departure));
+                    stmt.setTimestamp(6, Timestamp.valueOf(departure.plusHours(24 + random.nextInt(24 * 20))));
+                    stmt.setString(7, "SCHEDULED");
+                    addBatch(stmt, v);
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO cargo (description, weight, destination, voyage_plan_id, status, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int c = 1; c <= CARGO; c++) {
+                    stmt.setString(1, "货物" + c);
+                    stmt.setBigDecimal(2, BigDecimal.valueOf(1 + random.nextInt(50_000), 2));
+                    stmt.setString(3, DESTINATIONS[random.nextInt(DESTINATIONS.length)]);
+                    stmt.setInt(4, 1 + random.nextInt(VOYAGES));
+                    stmt.setString(5, CARGO_STATUSES[random.nextInt(CARGO_STATUSES.length)]);
+                    stmt.setTimestamp(6, Timestamp.valueOf(EPOCH.plusMinutes(random.nextInt(60 * 24 * 365))));
+                    addBatch(stmt, c);
+                }
+                stmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    private static void addBatch(PreparedStatement stmt, int row) throws SQLException {
+        stmt.addBatch();
+        if (row % BATCH == 0) {
+            stmt.executeBatch();
+        }
+    }
+
+    // DatabaseManager的配置平时由Spring按@Value注入
+    static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,116 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.service.BerthAllocator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve time for a synthetic week of 10,000 voyages over 80 ports with 16 berths each (three
+ * existing bookings per berth), single-threaded. The search benchmark runs with a fixed budget,
+ * so its useful output is the wait-time counters next to the score rather than the time itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BerthAllocatorBenchmark {
+    private static final long WEEK_SECONDS = 7 * 86_400L;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Param({"10000"})
+    public int voyages;
+
+    @Param({"80"})
+    public int ports;
+
+    @Param({"16"})
+    public int berthsPerPort;
+
+    private final List<List<BerthAllocator.Berth>> berths = new ArrayList<>();
+    private final List<List<BerthAllocator.Vessel>> vessels = new ArrayList<>();
+
+    /**
+     * Voyages placed and total wait, summed over the solves of an iteration and reported by JMH
+     * next to the timing; waitMinutes / assigned is the average wait.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Quality {
+        public long assigned;
+        public long waitMinutes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int p = 0; p < ports; p++) {
+            List<BerthAllocator.Berth> portBerths = new ArrayList<>();
+            for (int b = 0; b < berthsPerPort; b++) {
+                List<long[]> busy = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    long start = nextLong(random, WEEK_SECONDS);
+                    busy.add(new long[]{start, start + 3_600L * (4 + random.nextInt(12))});
+                }
+                portBerths.add(new BerthAllocator.Berth("B" + b, 200 + b * 15, 11 + b * 0.4, busy));
+            }
+            berths.add(portBerths);
+            vessels.add(new ArrayList<>());
+        }
+        for (int v = 0; v < voyages; v++) {
+            int teu = 500 + random.nextInt(12_000);
+            double length = teu < 3_000 ? 215 : teu < 8_000 ? 300 : 366;
+            double draft = teu < 3_000 ? 11.0 : teu < 8_000 ? 13.5 : 15.2;
+            long duration = Math.max(6 * 3_600L, (long) (teu * 0.4 / 150 * 3_600));
+            vessels.get(random.nextInt(ports))
+                    .add(new BerthAllocator.Vessel(v, nextLong(random, WEEK_SECONDS), duration, length, draft));
+        }
+    }
+
+    @Benchmark
+    public void greedyWeek(Quality quality) {
+        for (int p = 0; p < ports; p++) {
+            BerthAllocator allocator = new BerthAllocator(berths.get(p), vessels.get(p));
+            allocator.placeGreedy(System.nanoTime() + NO_DEADLINE);
+            record(quality, allocator.solution());
+        }
+    }
+
+    // 每个港口局部搜索25ms，80个港口合计2秒，与接口默认时间预算相同
+    @Benchmark
+    public void greedyAndSearchWeek(Quality quality) {
+        long budgetPerPort = TimeUnit.MILLISECONDS.toNanos(25);
+        for (int p = 0; p < ports; p++) {
+            BerthAllocator allocator = new BerthAllocator(berths.get(p), vessels.get(p));
+            allocator.placeGreedy(System.nanoTime() + NO_DEADLINE);
+            allocator.improve(System.nanoTime() + budgetPerPort, p);
+            record(quality, allocator.solution());
+        }
+    }
+
+    private static void record(Quality quality, BerthAllocator.Solution solution) {
+        quality.assigned += solution.assignments().size();
+        quality.waitMinutes += solution.totalWaitSeconds() / 60;
+    }
+
+    private static long nextLong(Random random, long bound) {
+        return (long) (random.nextDouble() * bound);
+    }
+}
@@ -0,0 +1,78 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.service.ChangeEventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out cost of one committed change to many /api/events subscribers. Each invocation
+ * publishes a burst smaller than the subscriber buffer and then drains every buffer, the way
+ * the SSE writer threads would, so no subscriber is dropped and the fan-out width stays fixed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeEventBusBenchmark {
+    private static final int BUFFER_SIZE = 256;
+    private static final int BURST = 128;
+
+    @Param({"100", "1000"})
+    public int subscribers;
+
+    // 只订阅泊位事件的订阅者比例，其余订阅全部实体
+    @Param({"0", "50"})
+    public int berthOnlyPercent;
+
+    private ChangeEventBus bus;
+    private final List<ChangeEventBus.Subscription> subscriptions = new ArrayList<>();
+    private final Map<String, Object> row = Map.of("id", 1, "status", "ARRIVED");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bus = new ChangeEventBus(BUFFER_SIZE, subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            Set<String> entities = i * 100 < subscribers * berthOnlyPercent ? Set.of(ChangeEventBus.BERTH) : Set.of();
+            subscriptions.add(bus.subscribe(entities));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.forEach(ChangeEventBus.Subscription::close);
+        subscriptions.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void publishAndDrain() throws InterruptedException {
+        for (int i = 0; i < BURST; i++) {
+            bus.publish(i % 2 == 0 ? ChangeEventBus.BERTH : ChangeEventBus.VOYAGE, ChangeEventBus.UPDATED, i, row);
+        }
+        for (ChangeEventBus.Subscription subscription : subscriptions) {
+            while (subscription.poll(0, TimeUnit.MILLISECONDS) != null) {
+                // 只取出，不做序列化
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.metrics.MetricsRegistry;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One short query per call (getConnection, SELECT 1, close) with the connection pool on and off
+ * ({@code db.pool.enabled}), from 16 threads against a limit of 10 connections, the production
+ * setting. The database is an H2 TCP server on localhost, so the per-call mode pays a real socket
+ * connect and login handshake; a MySQL connect with TLS and authentication costs more than that,
+ * so the gap measured here is a lower bound. Sample mode reports p50/p99 per mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ConnectionAcquisitionBenchmark {
+    private static final AtomicInteger NEXT_DATABASE = new AtomicInteger();
+
+    @Param({"true", "false"})
+    public boolean pooled;
+
+    private Server server;
+    private DatabaseManager databaseManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:acquire" + NEXT_DATABASE.incrementAndGet()
+                + ";DB_CLOSE_DELAY=-1";
+        databaseManager = new DatabaseManager(new MetricsRegistry(null));
+        // 与application.properties中的连接池配置一致，只切换db.pool.enabled
+        BenchDatabase.set(databaseManager, "url", url);
+        BenchDatabase.set(databaseManager, "username", "sa");
+        BenchDatabase.set(databaseManager, "password", "");
+        BenchDatabase.set(databaseManager, "poolEnabled", pooled);
+        BenchDatabase.set(databaseManager, "maxPoolSize", 10);
+        BenchDatabase.set(databaseManager, "minIdle", 2);
+        BenchDatabase.set(databaseManager, "borrowTimeoutMs", 5_000L);
+        BenchDatabase.set(databaseManager, "idleTimeoutMs", 600_000L);
+        BenchDatabase.set(databaseManager, "maxLifetimeMs", 1_800_000L);
+        BenchDatabase.set(databaseManager, "validationTimeoutSeconds", 2);
+        BenchDatabase.set(databaseManager, "statementCacheSize", 64);
+        databaseManager.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        databaseManager.shutdown();
+        server.stop();
+    }
+
+    @Benchmark
+    public int selectOne() throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
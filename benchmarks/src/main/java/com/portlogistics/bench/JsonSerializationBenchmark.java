@@ -0,0 +1,93 @@
+package com.portlogistics.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.VoyagePlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of list responses the way the controllers return them, with the ObjectMapper
+ * settings Spring MVC uses. Output goes to a discarding stream, as a response body would be
+ * streamed, so buffer growth is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private ObjectMapper mapper;
+    private List<VoyagePlan> voyagePlans;
+    private List<BerthSchedule> berthSchedules;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        voyagePlans = new ArrayList<>(rows);
+        berthSchedules = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            LocalDateTime departure = BenchDatabase.EPOCH.plusHours(random.nextInt(24 * 365));
+            VoyagePlan plan = new VoyagePlan();
+            plan.setPlanId(i);
+            plan.setVoyageNumber("V" + i);
+            plan.setShipId(1 + random.nextInt(500));
+            plan.setShipName("船舶" + plan.getShipId());
+            plan.setDeparturePortId(1 + random.nextInt(20));
+            plan.setDeparturePortName("港口" + plan.getDeparturePortId());
+            plan.setArrivalPortId(1 + random.nextInt(20));
+            plan.setArrivalPortName("港口" + plan.getArrivalPortId());
+            plan.setPlannedDeparture(departure);
+            plan.setPlannedArrival(departure.plusHours(24 + random.nextInt(480)));
+            plan.setVoyageStatus("SCHEDULED");
+            plan.setCreatedAt(BenchDatabase.EPOCH);
+            voyagePlans.add(plan);
+
+            BerthSchedule schedule = new BerthSchedule(i, plan.getShipId(), plan.getArrivalPortId(),
+                    "B" + (1 + random.nextInt(16)), plan.getPlannedArrival(), plan.getPlannedArrival().plusHours(12),
+                    "SCHEDULED");
+            schedule.setShipName(plan.getShipName());
+            schedule.setPortName(plan.getArrivalPortName());
+            berthSchedules.add(schedule);
+        }
+    }
+
+    @Benchmark
+    public void voyagePlans() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), voyagePlans);
+    }
+
+    @Benchmark
+    public void berthSchedules() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), berthSchedules);
+    }
+
+    // 对照：先写成字节数组再输出（缓冲整个响应体）
+    @Benchmark
+    public byte[] voyagePlansToBytes() throws IOException {
+        return mapper.writeValueAsBytes(voyagePlans);
+    }
+}
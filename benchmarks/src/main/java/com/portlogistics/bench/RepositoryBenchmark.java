@@ -0,0 +1,86 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.Cargo;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
+import com.portlogistics.model.VoyagePlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end repository calls (pool, statement cache, SQL, mapping, name lookup) against the
+ * seeded H2 database. H2 runs in-process, so these numbers exclude network round trips and
+ * compare code paths between builds rather than predicting MySQL latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+    private BenchDatabase database;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchDatabase();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    // 依次轮换港口和ID，避免每次都命中同一批数据
+    private int nextValue(int bound) {
+        next = next == Integer.MAX_VALUE ? 0 : next + 1;
+        return 1 + next % bound;
+    }
+
+    @Benchmark
+    public PageResult<BerthSchedule> berthFirstPage() throws SQLException {
+        return database.berths.findPage(ListQuery.of(null, 50, null, null, null, null));
+    }
+
+    @Benchmark
+    public PageResult<BerthSchedule> berthPageByPortAndMonth() throws SQLException {
+        int month = 1 + nextValue(11);
+        return database.berths.findPage(ListQuery.of(null, 50, null, nextValue(BenchDatabase.PORTS),
+                "2024-" + (month < 10 ? "0" : "") + month + "-01", null));
+    }
+
+    @Benchmark
+    public PageResult<VoyagePlan> voyageFirstPage() throws SQLException {
+        return database.voyages.findPage(ListQuery.of(null, 50, null, null, null, null));
+    }
+
+    @Benchmark
+    public VoyagePlan voyageById() throws SQLException {
+        return database.voyages.findById(nextValue(BenchDatabase.VOYAGES));
+    }
+
+    @Benchmark
+    public PageResult<Cargo> cargoFirstPage() throws SQLException {
+        return database.cargo.findPage(ListQuery.of(null, 50, null, null, null, null));
+    }
+
+    @Benchmark
+    public PageResult<Cargo> cargoPageByStatus() throws SQLException {
+        return database.cargo.findPage(ListQuery.of(null, 50, "IN_TRANSIT", null, null, null));
+    }
+}
@@ -0,0 +1,83 @@
+package com.portlogistics.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (including parameters) and prints
+ * the score change as tab-separated values. Changes inside the combined error margins are
+ * marked "~" instead of "+"/"-". Usage: {@code ResultDiff baseline.json candidate.json}.
+ */
+public final class ResultDiff {
+    private ResultDiff() {
+    }
+
+    private record Score(double score, double error, String unit, String mode) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法：ResultDiff <基线结果.json> <对比结果.json>");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> candidate = read(new File(args[1]));
+        System.out.println("benchmark\tmode\tunit\tbaseline\tcandidate\tchange%\tverdict");
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score after = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%s\t%s\t%s\t-\t%.3f\t-\tnew%n", entry.getKey(), after.mode(), after.unit(), after.score());
+                continue;
+            }
+            double change = before.score() == 0 ? 0 : (after.score() - before.score()) / before.score() * 100;
+            String verdict;
+            if (Math.abs(after.score() - before.score()) <= before.error() + after.error()) {
+                verdict = "~";
+            } else {
+                // 吞吐类模式分数越大越好，耗时类模式越小越好
+                boolean higherIsBetter = "thrpt".equals(after.mode());
+                verdict = (after.score() > before.score()) == higherIsBetter ? "+" : "-";
+            }
+            System.out.printf("%s\t%s\t%s\t%.3f\t%.3f\t%.1f\t%s%n", entry.getKey(), after.mode(), after.unit(),
+                    before.score(), after.score(), change, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!candidate.containsKey(key)) {
+                System.out.printf("%s\t-\t-\t%.3f\t-\t-\tremoved%n", key, baseline.get(key).score());
+            }
+        }
+    }
+
+    // 键为“基准名[参数=值,...]”
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                key.append('[');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    key.append(field.getKey()).append('=').append(field.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(',');
+                    }
+                }
+                key.append(']');
+            }
+            JsonNode metric = result.get("primaryMetric");
+            double error = metric.get("scoreError").asDouble();
+            scores.put(key.toString(), new Score(metric.get("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                    metric.get("scoreUnit").asText(), result.get("mode").asText()));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,142 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.Cargo;
+import com.portlogistics.model.VoyagePlan;
+import com.portlogistics.repository.BerthScheduleRepository;
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.VoyagePlanRepository;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the repositories' private {@code mapRow} methods over an in-memory result set, without
+ * any driver or network time. The result set carries the same column labels as the real queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+    private static final MethodHandle BERTH_MAP_ROW;
+    private static final MethodHandle CARGO_MAP_ROW;
+    private static final MethodHandle VOYAGE_MAP_ROW;
+
+    static {
+        try {
+            BERTH_MAP_ROW = mapRow(BerthScheduleRepository.class, MethodType.methodType(BerthSchedule.class, ResultSet.class));
+            CARGO_MAP_ROW = mapRow(CargoRepository.class, MethodType.methodType(Cargo.class, ResultSet.class, List.class));
+            VOYAGE_MAP_ROW = mapRow(VoyagePlanRepository.class, MethodType.methodType(VoyagePlan.class, ResultSet.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"1000"})
+    public int rows;
+
+    private BerthScheduleRepository berthRepository;
+    private CargoRepository cargoRepository;
+    private VoyagePlanRepository voyageRepository;
+    private SimpleResultSet berthRows;
+    private SimpleResultSet cargoRows;
+    private SimpleResultSet voyageRows;
+
+    @Setup
+    public void setUp() {
+        // mapRow不访问依赖，构造时全部传null
+        berthRepository = new BerthScheduleRepository(null, null, null, null, null);
+        cargoRepository = new CargoRepository(null, null, null, null, null);
+        voyageRepository = new VoyagePlanRepository(null, null, null, null, null);
+
+        Random random = new Random(42);
+        Timestamp base = Timestamp.valueOf(BenchDatabase.EPOCH);
+        berthRows = resultSet("berth_id", Types.INTEGER, "ship_id", Types.INTEGER, "port_id", Types.INTEGER,
+                "berth_number", Types.VARCHAR, "arrival_time", Types.TIMESTAMP, "departure_time", Types.TIMESTAMP,
+                "status", Types.VARCHAR);
+        cargoRows = resultSet("cargo_id", Types.INTEGER, "description", Types.VARCHAR, "weight", Types.DECIMAL,
+                "destination", Types.VARCHAR, "ship_id", Types.INTEGER, "voyage_ship_id", Types.INTEGER);
+        voyageRows = resultSet("plan_id", Types.INTEGER, "voyage_number", Types.VARCHAR, "ship_id", Types.INTEGER,
+                "departure_port_id", Types.INTEGER, "arrival_port_id", Types.INTEGER, "assigned_berth_id", Types.INTEGER,
+                "planned_departure", Types.TIMESTAMP, "planned_arrival", Types.TIMESTAMP,
+                "actual_departure", Types.TIMESTAMP, "actual_arrival", Types.TIMESTAMP, "voyage_status", Types.VARCHAR,
+                "created_by", Types.INTEGER, "created_at", Types.TIMESTAMP);
+        for (int i = 1; i <= rows; i++) {
+            Timestamp arrival = new Timestamp(base.getTime() + random.nextInt(365 * 24) * 3_600_000L);
+            Timestamp departure = new Timestamp(arrival.getTime() + (6 + random.nextInt(42)) * 3_600_000L);
+            // 约三分之一的行离港时间为空，覆盖空值分支
+            berthRows.addRow(i, 1 + random.nextInt(500), 1 + random.nextInt(20), "B" + (1 + random.nextInt(16)),
+                    arrival, i % 3 == 0 ? null : departure, "SCHEDULED");
+            cargoRows.addRow(i, "货物" + i, BigDecimal.valueOf(random.nextInt(50_000), 2), "上海",
+                    i % 4 == 0 ? null : 1 + random.nextInt(20_000), 1 + random.nextInt(500));
+            voyageRows.addRow(i, "V" + i, 1 + random.nextInt(500), 1 + random.nextInt(20), 1 + random.nextInt(20),
+                    i % 2 == 0 ? null : 1 + random.nextInt(20_000), arrival, departure,
+                    null, null, "SCHEDULED", null, base);
+        }
+    }
+
+    @Benchmark
+    public void berthSchedule(Blackhole blackhole) throws Throwable {
+        berthRows.beforeFirst();
+        while (berthRows.next()) {
+            blackhole.consume((BerthSchedule) BERTH_MAP_ROW.invoke(berthRepository, (ResultSet) berthRows));
+        }
+    }
+
+    @Benchmark
+    public void cargo(Blackhole blackhole) throws Throwable {
+        List<Integer> voyageShipIds = new ArrayList<>(rows);
+        cargoRows.beforeFirst();
+        while (cargoRows.next()) {
+            blackhole.consume((Cargo) CARGO_MAP_ROW.invoke(cargoRepository, (ResultSet) cargoRows, voyageShipIds));
+        }
+        blackhole.consume(voyageShipIds);
+    }
+
+    @Benchmark
+    public void voyagePlan(Blackhole blackhole) throws Throwable {
+        voyageRows.beforeFirst();
+        while (voyageRows.next()) {
+            blackhole.consume((VoyagePlan) VOYAGE_MAP_ROW.invoke(voyageRepository, (ResultSet) voyageRows));
+        }
+    }
+
+    // 列定义成对传入：列名、java.sql.Types类型
+    private static SimpleResultSet resultSet(Object... columns) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        for (int i = 0; i < columns.length; i += 2) {
+            rs.addColumn((String) columns[i], (Integer) columns[i + 1], 0, 0);
+        }
+        return rs;
+    }
+
+    private static MethodHandle mapRow(Class<?> repository, MethodType type) throws ReflectiveOperationException {
+        return MethodHandles.privateLookupIn(repository, MethodHandles.lookup()).findVirtual(repository, "mapRow", type);
+    }
+}
@@ -0,0 +1,70 @@
+package com.portlogistics.bench;
+
+import com.portlogistics.repository.SearchIndex;
+import com.portlogistics.repository.SearchIndexFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword search latency on the in-memory index over one million generated cargo rows
+ * (description and destination, same vocabulary as the dashboard's data). Runs in sample mode,
+ * so JMH reports p50/p90/p99 per query shape; the target is p99 under 20 ms. Queries cover a
+ * single common Chinese character, a bigram, a Latin prefix, a two-word query, a number and a
+ * miss. The list endpoint asks for search.max-results (500) hits, the search API for 20.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchIndexBenchmark {
+    private static final String[] GOODS = {"冷冻海鲜", "电子产品", "汽车配件", "纺织服装", "钢材", "家具", "粮食", "化工原料",
+            "机械设备", "医药用品", "塑料制品", "纸浆"};
+    private static final String[] PACKING = {"container", "reefer", "bulk", "pallet", "tank", "crate"};
+    private static final String[] CITIES = {"上海", "宁波", "深圳", "青岛", "天津", "广州", "厦门", "大连",
+            "Rotterdam", "Singapore", "Hamburg", "Busan", "Los Angeles", "Antwerp"};
+
+    @Param({"1000000"})
+    public int documents;
+
+    @Param({"海", "海鲜", "cont", "reefer 青岛", "12345", "不存在的货"})
+    public String query;
+
+    @Param({"500"})
+    public int limit;
+
+    private SearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        index = new SearchIndex(limit);
+        Random random = new Random(42);
+        String[][] rows = new String[documents + 1][];
+        for (int id = 1; id <= documents; id++) {
+            String description = GOODS[random.nextInt(GOODS.length)] + " " + PACKING[random.nextInt(PACKING.length)]
+                    + " 批次" + (10_000 + random.nextInt(90_000));
+            rows[id] = new String[]{description, CITIES[random.nextInt(CITIES.length)]};
+        }
+        SearchIndexFixture.load(index, SearchIndex.Type.CARGO, documents, id -> rows[id]);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Hit> search() {
+        return index.search(SearchIndex.Type.CARGO, query, limit);
+    }
+}
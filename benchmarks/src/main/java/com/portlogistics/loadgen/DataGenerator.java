@@ -0,0 +1,348 @@
+package com.portlogistics.loadgen;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills a port_logistics database created from complete_schema.sql with production-sized
+ * synthetic traffic (at scale 1: 200 ports, 100k ships, 1M voyage plans, 5M cargo and roughly
+ * 2M berth bookings). Rows are written in parallel chunks through multi-row INSERTs with
+ * explicit ids, so foreign keys line up without lookups and reruns with the same seed and
+ * anchor produce the same data.
+ *
+ * <p>Usage: {@code DataGenerator --url jdbc:mysql://... --user root --password ... [--scale 1]
+ * [--seed 42] [--anchor 2025-06-01] [--threads 4] [--truncate] [--drop-berth-unique]}
+ */
+public final class DataGenerator {
+    private static final int CHUNK = 50_000;
+    private static final int ROWS_PER_STATEMENT = 1_000;
+    private static final long HOUR = 3_600;
+    private static final long DAY = 86_400;
+    // 数据覆盖基准日期前一年到后90天
+    private static final long HISTORY_DAYS = 365;
+    private static final long FUTURE_DAYS = 90;
+    private static final double CANCELLED_OVERLAP_RATE = 0.04;
+    private static final String[] TABLES = {"transport_task", "cargo", "voyage_plan", "berth", "warehouse", "ship", "port"};
+    // 迁移V2建的归档表；生成器写固定ID，旧归档行会与新热表行撞ID
+    private static final String[] ARCHIVE_TABLES = {"transport_task_archive", "cargo_archive"};
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final TrafficModel model;
+    private final int threads;
+    private final boolean mysql;
+
+    DataGenerator(String url, String username, String password, TrafficModel model, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads 必须大于0");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.model = model;
+        this.threads = threads;
+        this.mysql = url.startsWith("jdbc:mysql:");
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            Options options = new Options(args);
+            DataGenerator generator = new DataGenerator(
+                    options.string("url", "jdbc:mysql://localhost:3306/port_logistics?allowPublicKeyRetrieval=true"),
+                    options.string("user", "root"),
+                    options.string("password", ""),
+                    TrafficModel.from(options),
+                    options.integer("threads", Runtime.getRuntime().availableProcessors()));
+            generator.run(options.flag("truncate"), options.flag("drop-berth-unique"));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    void run(boolean truncate, boolean dropBerthUnique) throws SQLException, InterruptedException {
+        prepare(truncate, dropBerthUnique);
+        System.out.printf("开始生成：种子=%d，基准时间=%s，港口%d个，船舶%,d艘，航次%,d条，货物%,d条，线程%d%n",
+                model.seed, model.anchor, model.ports, model.ships, model.voyages, model.cargo, threads);
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 按外键依赖顺序逐表装载，表内按块并行
+            load(executor, "port", "port_id, port_code, port_name, country, city, latitude, longitude, total_berths, max_vessel_size",
+                    chunks(model.ports), this::ports);
+            load(executor, "ship", "ship_id, name, imo, capacity_teu, status", chunks(model.ships), this::ships);
+            load(executor, "warehouse", "warehouse_id, warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location",
+                    chunks(model.warehouses()), this::warehouses);
+            load(executor, "berth", "berth_number, port_id, current_vessel_id, berth_type, max_length, max_draft, status, arrival_time, departure_time",
+                    model.ports, this::berths);
+            load(executor, "voyage_plan", "plan_id, voyage_number, ship_id, departure_port_id, arrival_port_id, planned_departure, "
+                    + "planned_arrival, actual_departure, actual_arrival, voyage_status", chunks(model.voyages), this::voyages);
+            load(executor, "cargo", "cargo_id, description, weight, destination, voyage_plan_id, warehouse_id, cargo_type, status, created_at",
+                    chunks(model.cargo), this::cargo);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (mysql) {
+            try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+                // 批量写入后刷新统计信息，否则优化器会按空表估算
+                stmt.execute("ANALYZE TABLE port, ship, warehouse, berth, voyage_plan, cargo");
+            }
+        }
+        System.out.printf("生成完成，共用时 %.1f 秒；请重启应用以重建内存索引%n", (System.nanoTime() - started) / 1e9);
+    }
+
+    private void prepare(boolean truncate, boolean dropBerthUnique) throws SQLException {
+        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+            if (mysql && berthUniqueKeyExists(conn)) {
+                // berth表的每一行是一次靠泊，同一泊位必然有多行
+                if (!dropBerthUnique) {
+                    throw new IllegalStateException("berth表上存在唯一键uk_port_berth，无法写入同一泊位的多次靠泊；"
+                            + "先启动一次应用执行迁移V3，或追加--drop-berth-unique删除该键后再生成");
+                }
+                stmt.execute("ALTER TABLE berth DROP INDEX uk_port_berth");
+                System.out.println("已删除berth表唯一键uk_port_berth");
+            }
+            if (truncate) {
+                if (mysql) {
+                    // 被外键引用的表在检查开启时不能TRUNCATE
+                    stmt.execute("SET SESSION foreign_key_checks = 0");
+                }
+                for (String table : TABLES) {
+                    stmt.execute((mysql ? "TRUNCATE TABLE " : "DELETE FROM ") + table);
+                }
+                for (String table : ARCHIVE_TABLES) {
+                    if (tableExists(conn, table)) {
+                        stmt.execute((mysql ? "TRUNCATE TABLE " : "DELETE FROM ") + table);
+                    }
+                }
+                System.out.println("已清空：" + String.join(", ", TABLES) + "（及已有的归档表）");
+            } else {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM port")) {
+                    rs.next();
+                    if (rs.getLong(1) > 0) {
+                        throw new IllegalStateException("目标库已有数据（生成器写入固定ID）；追加--truncate清空后再生成");
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private boolean berthUniqueKeyExists(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = 'berth' AND index_name = 'uk_port_berth'");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1) > 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(MultiRowInsert insert, int chunk) throws SQLException;
+    }
+
+    private void load(ExecutorService executor, String table, String columns, int chunks, ChunkWriter writer)
+            throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int current = chunk;
+            futures.add(executor.submit(() -> {
+                try (Connection conn = connect()) {
+                    conn.setAutoCommit(false);
+                    if (mysql) {
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute("SET SESSION foreign_key_checks = 0, unique_checks = 0");
+                        }
+                    }
+                    try (MultiRowInsert insert = new MultiRowInsert(conn, table, columns, ROWS_PER_STATEMENT)) {
+                        writer.write(insert, current);
+                        insert.flush();
+                        rows.addAndGet(insert.written());
+                    }
+                    conn.commit();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw new IllegalStateException("生成" + table + "失败：" + e.getCause(), e.getCause());
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%s：%,d 行，用时 %.1f 秒（%,.0f 行/秒）%n", table, rows.get(), seconds, rows.get() / seconds);
+    }
+
+    private static int chunks(int rows) {
+        return (rows + CHUNK - 1) / CHUNK;
+    }
+
+    private static int firstId(int chunk) {
+        return chunk * CHUNK + 1;
+    }
+
+    private void ports(MultiRowInsert insert, int chunk) throws SQLException {
+        SplittableRandom random = model.random(TrafficModel.PORTS, chunk);
+        for (int id = firstId(chunk); id <= Math.min(model.ports, firstId(chunk) + CHUNK - 1); id++) {
+            String city = model.city(id);
+            // 城市用完一轮后按作业区编号区分
+            String name = id <= TrafficModel.CITIES.length ? city + "港" : city + "港" + ((id - 1) / TrafficModel.CITIES.length) + "号作业区";
+            insert.add(id, String.format("PT%04d", id), name, model.country(id), city,
+                    BigDecimal.valueOf(random.nextDouble(-60, 60)).setScale(7, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(random.nextDouble(-180, 180)).setScale(7, RoundingMode.HALF_UP),
+                    TrafficModel.BERTHS_PER_PORT, TrafficModel.berthLength(TrafficModel.BERTHS_PER_PORT));
+        }
+    }
+
+    private void ships(MultiRowInsert insert, int chunk) throws SQLException {
+        SplittableRandom random = model.random(TrafficModel.SHIPS, chunk);
+        for (int id = firstId(chunk); id <= Math.min(model.ships, firstId(chunk) + CHUNK - 1); id++) {
+            String name = TrafficModel.SHIP_PREFIXES[random.nextInt(TrafficModel.SHIP_PREFIXES.length)]
+                    + TrafficModel.SHIP_SUFFIXES[random.nextInt(TrafficModel.SHIP_SUFFIXES.length)] + id;
+            double state = random.nextDouble();
+            String status = state < 0.55 ? "AT_SEA" : state < 0.8 ? "ARRIVED" : state < 0.95 ? "SCHEDULED" : "MAINTENANCE";
+            insert.add(id, name, "IMO" + (9_000_000 + id), TrafficModel.capacityTeu(random), status);
+        }
+    }
+
+    private void warehouses(MultiRowInsert insert, int chunk) throws SQLException {
+        SplittableRandom random = model.random(TrafficModel.WAREHOUSES, chunk);
+        for (int id = firstId(chunk); id <= Math.min(model.warehouses(), firstId(chunk) + CHUNK - 1); id++) {
+            int portId = (id - 1) / TrafficModel.WAREHOUSES_PER_PORT + 1;
+            long capacity = 5_000 + random.nextInt(95_000);
+            insert.add(id, model.city(portId) + "仓库" + id, portId,
+                    TrafficModel.WAREHOUSE_TYPES[random.nextInt(TrafficModel.WAREHOUSE_TYPES.length)],
+                    BigDecimal.valueOf(capacity).setScale(2), BigDecimal.valueOf((long) (capacity * random.nextDouble(0.2, 0.95))).setScale(2),
+                    model.city(portId) + "港区" + (1 + random.nextInt(9)) + "号库区");
+        }
+    }
+
+    // 每块是一个港口：各泊位的靠泊首尾相接排开，枢纽港利用率高、间隔短；
+    // 另有约4%的已取消预订与相邻靠泊重叠，和生产数据里冲突检查要跳过的行一致
+    private void berths(MultiRowInsert insert, int chunk) throws SQLException {
+        int portId = chunk + 1;
+        SplittableRandom random = model.random(TrafficModel.BERTHS, chunk);
+        double utilization = 0.85 - 0.4 * chunk / Math.max(1, model.ports - 1);
+        LocalDateTime start = model.anchor.minusDays(HISTORY_DAYS);
+        long horizon = (HISTORY_DAYS + FUTURE_DAYS) * DAY;
+        for (int berth = 1; berth <= TrafficModel.BERTHS_PER_PORT; berth++) {
+            String berthNumber = TrafficModel.berthNumber(berth);
+            String berthType = berth % 4 == 0 ? "BULK" : "CONTAINER";
+            long at = random.nextLong(2 * DAY);
+            while (at < horizon) {
+                long dwell = dwellSeconds(random);
+                addBooking(insert, random, portId, berthNumber, berthType, berth, start, at, at + dwell, false);
+                if (random.nextDouble() < CANCELLED_OVERLAP_RATE) {
+                    long overlapStart = at + random.nextLong(dwell);
+                    addBooking(insert, random, portId, berthNumber, berthType, berth, start, overlapStart,
+                            overlapStart + dwellSeconds(random), true);
+                }
+                // 间隔服从指数分布，均值使泊位利用率接近目标值
+                double meanGap = dwell * (1 - utilization) / utilization;
+                at += dwell + (long) (-Math.log(1 - random.nextDouble()) * meanGap);
+            }
+        }
+    }
+
+    private void addBooking(MultiRowInsert insert, SplittableRandom random, int portId, String berthNumber, String berthType,
+                            int berth, LocalDateTime start, long from, long to, boolean cancelled) throws SQLException {
+        LocalDateTime arrival = start.plusSeconds(from);
+        LocalDateTime departure = start.plusSeconds(to);
+        String status = cancelled ? "CANCELLED"
+                : !departure.isAfter(model.anchor) ? "DEPARTED"
+                : !arrival.isAfter(model.anchor) ? "ARRIVED" : "SCHEDULED";
+        insert.add(berthNumber, portId, 1 + random.nextInt(model.ships), berthType, TrafficModel.berthLength(berth),
+                TrafficModel.berthDraft(berth), status, arrival, departure);
+    }
+
+    // 与泊位分配的估算一致：至少6小时，按每小时150TEU装卸量的40%计，再加0到6小时的波动
+    private static long dwellSeconds(SplittableRandom random) {
+        return Math.max(6 * HOUR, (long) (TrafficModel.capacityTeu(random) * 0.4 / 150 * HOUR)) + random.nextLong(6 * HOUR);
+    }
+
+    private void voyages(MultiRowInsert insert, int chunk) throws SQLException {
+        SplittableRandom random = model.random(TrafficModel.VOYAGES, chunk);
+        LocalDateTime start = model.anchor.minusDays(HISTORY_DAYS);
+        for (int id = firstId(chunk); id <= Math.min(model.voyages, firstId(chunk) + CHUNK - 1); id++) {
+            int from = model.port(random);
+            int to = model.port(random);
+            while (to == from) {
+                to = model.port(random);
+            }
+            LocalDateTime departure = start.plusSeconds(random.nextLong((HISTORY_DAYS + FUTURE_DAYS) * DAY));
+            LocalDateTime arrival = departure.plusSeconds(12 * HOUR + random.nextLong(20 * DAY));
+            LocalDateTime actualDeparture = null;
+            LocalDateTime actualArrival = null;
+            String status;
+            if (random.nextDouble() < 0.03) {
+                status = "CANCELLED";
+            } else if (arrival.isBefore(model.anchor)) {
+                status = "COMPLETED";
+                actualDeparture = departure.plusMinutes(random.nextInt(360));
+                actualArrival = arrival.plusMinutes(random.nextInt(720));
+            } else if (departure.isBefore(model.anchor)) {
+                status = "IN_PROGRESS";
+                actualDeparture = departure.plusMinutes(random.nextInt(360));
+            } else {
+                status = "SCHEDULED";
+            }
+            insert.add(id, String.format("VY%08d", id), 1 + random.nextInt(model.ships), from, to, departure, arrival,
+                    actualDeparture, actualArrival, status);
+        }
+    }
+
+    private void cargo(MultiRowInsert insert, int chunk) throws SQLException {
+        SplittableRandom random = model.random(TrafficModel.CARGO, chunk);
+        for (int id = firstId(chunk); id <= Math.min(model.cargo, firstId(chunk) + CHUNK - 1); id++) {
+            String goods = TrafficModel.GOODS[random.nextInt(TrafficModel.GOODS.length)];
+            // 重量呈对数正态分布：多数几吨到几十吨，少数上千吨
+            long weightCents = Math.max(100, Math.min(999_999_999L, (long) (Math.exp(5 + random.nextGaussian()) * 100)));
+            Integer voyage = random.nextDouble() < 0.85 ? 1 + random.nextInt(model.voyages) : null;
+            Integer warehouse = random.nextDouble() < 0.6 ? 1 + random.nextInt(model.warehouses()) : null;
+            String status;
+            double state = random.nextDouble();
+            if (voyage == null) {
+                status = state < 0.95 ? "PENDING" : "CANCELLED";
+            } else {
+                status = state < 0.5 ? "DELIVERED" : state < 0.7 ? "IN_TRANSIT" : state < 0.95 ? "PENDING" : "CANCELLED";
+            }
+            insert.add(id, goods + " 批次" + (id % 10_000), BigDecimal.valueOf(weightCents, 2), model.city(model.port(random)),
+                    voyage, warehouse, TrafficModel.CARGO_TYPES[random.nextInt(TrafficModel.CARGO_TYPES.length)], status,
+                    model.anchor.minusSeconds(random.nextLong(HISTORY_DAYS * DAY)));
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+}
@@ -0,0 +1,280 @@
+package com.portlogistics.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Scripted HTTP load against a running server with the request mix the dashboard produces:
+ * berth and voyage list pages, cargo keyword search and pages, global search, the dashboard
+ * summary, and cargo/berth writes. Requests are issued at a fixed arrival rate (open model) and
+ * latency is measured from each request's scheduled start, so a server that falls behind shows
+ * up as queueing in the percentiles instead of silently lowering the offered load.
+ *
+ * <p>The request sequence is drawn from the same seed and scale as {@link DataGenerator}, so
+ * ids and keywords hit existing rows and two runs send identical requests. Usage:
+ * {@code LoadProfile [--base-url http://localhost:8080] [--rate 200] [--duration 60] [--warmup 10]
+ * [--max-in-flight 512] [--only berths.,cargo.] [--label name] [--out loadgen-report.tsv]}
+ */
+public final class LoadProfile {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] CARGO_STATUSES = {"PENDING", "IN_TRANSIT", "DELIVERED"};
+
+    private record Operation(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        void record(long micros, int status) {
+            latency.record(micros);
+            if (status >= 200 && status < 400) {
+                ok.increment();
+            } else if (status >= 400 && status < 500) {
+                rejected.increment();
+            } else {
+                failed.increment();
+            }
+        }
+
+        LoadReport.Row row(String endpoint) {
+            return new LoadReport.Row(endpoint, latency.count(), ok.sum(), rejected.sum(), failed.sum(),
+                    latency.percentile(50) / 1000.0, latency.percentile(95) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.max() / 1000.0);
+        }
+    }
+
+    private final String baseUrl;
+    private final TrafficModel model;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+    private final List<Operation> operations;
+    private final int totalWeight;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final Stats overall = new Stats();
+
+    LoadProfile(String baseUrl, TrafficModel model, String only) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.model = model;
+        // 固定HTTP/1.1，避免对明文连接做h2c升级协商
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Operation> selected = new ArrayList<>();
+        for (Operation operation : mix()) {
+            if (only == null || Arrays.stream(only.split(",")).anyMatch(prefix -> operation.name().startsWith(prefix.trim()))) {
+                selected.add(operation);
+                stats.put(operation.name(), new Stats());
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("--only 没有匹配任何接口：" + only);
+        }
+        this.operations = selected;
+        this.totalWeight = selected.stream().mapToInt(Operation::weight).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            Options options = new Options(args);
+            LoadProfile profile = new LoadProfile(options.string("base-url", "http://localhost:8080"),
+                    TrafficModel.from(options), options.string("only", null));
+            LoadReport report = profile.run(options.decimal("rate", 200), options.integer("duration", 60),
+                    options.integer("warmup", 10), options.integer("max-in-flight", 512), options.string("label", "run"));
+            report.print(System.out);
+            Path out = Path.of(options.string("out", "loadgen-report.tsv"));
+            report.write(out);
+            System.out.println("报告已写入：" + out.toAbsolutePath());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    // 权重合计100，大致对应控制台的访问构成：读多写少，列表页与搜索占大头
+    private List<Operation> mix() {
+        return List.of(
+                new Operation("berths.page", 25, r -> get("/api/berths?limit=50&portId=" + model.port(r)
+                        + (r.nextInt(3) == 0 ? monthWindow(r) : ""))),
+                new Operation("berths.freeSlots", 5, r -> get("/api/berths/free-slots?portId=" + model.port(r) + "&minDuration=720")),
+                new Operation("cargo.search", 15, r -> get("/api/cargo?q=" + encode(pick(r, TrafficModel.GOODS)))),
+                new Operation("cargo.page", 15, r -> get("/api/cargo?limit=50&status=" + pick(r, CARGO_STATUSES)
+                        + (r.nextBoolean() ? "&portId=" + model.port(r) : ""))),
+                new Operation("search", 5, r -> get("/api/search?q=" + encode(r.nextBoolean()
+                        ? pick(r, TrafficModel.GOODS) : pick(r, TrafficModel.SHIP_PREFIXES)))),
+                new Operation("dashboard", 10, r -> get("/api/dashboard/summary")),
+                new Operation("voyages.page", 8, r -> get("/api/voyages?limit=50&portId=" + model.port(r))),
+                new Operation("voyages.byId", 5, r -> get("/api/voyages/" + (1 + r.nextInt(model.voyages)))),
+                new Operation("cargo.create", 8, this::createCargo),
+                new Operation("berths.create", 4, this::createBerth));
+    }
+
+    LoadReport run(double rate, int durationSeconds, int warmupSeconds, int maxInFlight, String label) throws InterruptedException {
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("--rate、--duration、--max-in-flight 必须大于0，--warmup 不能为负");
+        }
+        String serverThreads = serverThreadMode();
+        System.out.printf("压测开始：%s，目标%.0f请求/秒，预热%d秒，测量%d秒，服务端线程模式：%s%n",
+                baseUrl, rate, warmupSeconds, durationSeconds, serverThreads);
+        SplittableRandom random = model.random(TrafficModel.LOAD, 0);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * 1e9 / rate);
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                // 请求序列只由种子决定，与响应快慢无关
+                Operation operation = pick(random);
+                HttpRequest request = operation.request().apply(random);
+                boolean measured = scheduled >= measureFrom;
+                workers.execute(() -> send(operation, request, scheduled, measured, inFlight));
+            }
+        }
+        Map<String, String> header = new LinkedHashMap<>();
+        header.put("label", label);
+        header.put("serverThreads", serverThreads);
+        header.put("baseUrl", baseUrl);
+        header.put("rate", String.valueOf(rate));
+        header.put("durationSeconds", String.valueOf(durationSeconds));
+        header.put("achievedRate", String.format("%.1f", overall.latency.count() / (double) durationSeconds));
+        header.put("seed", String.valueOf(model.seed));
+        header.put("anchor", model.anchor.toLocalDate().toString());
+        List<LoadReport.Row> rows = new ArrayList<>();
+        stats.forEach((name, endpoint) -> rows.add(endpoint.row(name)));
+        rows.add(overall.row("ALL"));
+        return new LoadReport(header, rows);
+    }
+
+    // 排队等待并发名额的时间也计入延迟
+    private void send(Operation operation, HttpRequest request, long scheduled, boolean measured, Semaphore inFlight) {
+        int status;
+        try {
+            inFlight.acquire();
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } finally {
+                inFlight.release();
+            }
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measured) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+            stats.get(operation.name()).record(micros, status);
+            overall.record(micros, status);
+        }
+    }
+
+    private String serverThreadMode() {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/system/db-pool"))
+                    .timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+            JsonNode virtualThreads = mapper.readTree(response.body()).get("virtualThreads");
+            return virtualThreads == null ? "unknown" : virtualThreads.asBoolean() ? "virtual" : "platform";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private HttpRequest createCargo(SplittableRandom random) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("description", pick(random, TrafficModel.GOODS) + " 压测");
+        body.put("weight", 1 + random.nextInt(50_000) / 100.0);
+        body.put("destination", model.city(model.port(random)));
+        body.put("voyagePlanId", 1 + random.nextInt(model.voyages));
+        return post("/api/cargo", body);
+    }
+
+    // 随机落在未来90天内，与已有排程冲突时服务端返回400，计入rejected
+    private HttpRequest createBerth(SplittableRandom random) {
+        LocalDateTime arrival = model.anchor.plusHours(random.nextInt(90 * 24));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("shipId", 1 + random.nextInt(model.ships));
+        body.put("portId", model.port(random));
+        body.put("berthNumber", TrafficModel.berthNumber(1 + random.nextInt(TrafficModel.BERTHS_PER_PORT)));
+        body.put("arrivalTime", arrival.toString());
+        body.put("departureTime", arrival.plusHours(6 + random.nextInt(42)).toString());
+        body.put("status", "SCHEDULED");
+        return post("/api/berths", body);
+    }
+
+    private String monthWindow(SplittableRandom random) {
+        LocalDateTime from = model.anchor.minusMonths(random.nextInt(12));
+        return "&from=" + from.toLocalDate() + "&to=" + from.plusMonths(1).minusDays(1).toLocalDate();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("请求体序列化失败：" + e.getMessage(), e);
+        }
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
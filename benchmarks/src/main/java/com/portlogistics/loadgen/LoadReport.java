@@ -0,0 +1,103 @@
+package com.portlogistics.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-endpoint result of a {@link LoadProfile} run, stored as TSV with {@code # key=value}
+ * header lines describing the run. Run as a program it compares two reports, e.g. the same
+ * profile against the server in platform-thread and virtual-thread mode:
+ * {@code LoadReport platform.tsv virtual.tsv}.
+ */
+public final class LoadReport {
+    private static final String COLUMNS = "endpoint\tcount\tok\trejected\tfailed\tp50_ms\tp95_ms\tp99_ms\tmax_ms";
+
+    /** One endpoint; rejected counts 4xx answers, failed counts 5xx, timeouts and I/O errors. */
+    record Row(String endpoint, long count, long ok, long rejected, long failed,
+               double p50, double p95, double p99, double max) {
+    }
+
+    final Map<String, String> header;
+    final List<Row> rows;
+
+    LoadReport(Map<String, String> header, List<Row> rows) {
+        this.header = header;
+        this.rows = rows;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法：LoadReport <基线报告.tsv> <对比报告.tsv>");
+            System.exit(2);
+        }
+        LoadReport baseline = read(Path.of(args[0]));
+        LoadReport candidate = read(Path.of(args[1]));
+        System.out.printf("基线：%s%n对比：%s%n", baseline.header, candidate.header);
+        System.out.println("endpoint\tp50_ms\tp95_ms\tp99_ms\tp99_change%\terrors");
+        Map<String, Row> before = new LinkedHashMap<>();
+        baseline.rows.forEach(row -> before.put(row.endpoint(), row));
+        for (Row after : candidate.rows) {
+            Row base = before.get(after.endpoint());
+            if (base == null) {
+                System.out.printf("%s\t-/%.1f\t-/%.1f\t-/%.1f\t-\t%d%n", after.endpoint(), after.p50(), after.p95(), after.p99(), after.failed());
+                continue;
+            }
+            double change = base.p99() == 0 ? 0 : (after.p99() - base.p99()) / base.p99() * 100;
+            System.out.printf("%s\t%.1f/%.1f\t%.1f/%.1f\t%.1f/%.1f\t%+.1f\t%d/%d%n", after.endpoint(),
+                    base.p50(), after.p50(), base.p95(), after.p95(), base.p99(), after.p99(), change,
+                    base.failed(), after.failed());
+        }
+    }
+
+    void print(PrintStream out) {
+        header.forEach((key, value) -> out.println(key + "=" + value));
+        out.printf("%-18s %8s %8s %8s %8s %9s %9s %9s %9s%n", "endpoint", "count", "ok", "rejected", "failed",
+                "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)");
+        for (Row row : rows) {
+            out.printf("%-18s %8d %8d %8d %8d %9.1f %9.1f %9.1f %9.1f%n", row.endpoint(), row.count(), row.ok(),
+                    row.rejected(), row.failed(), row.p50(), row.p95(), row.p99(), row.max());
+        }
+    }
+
+    void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        header.forEach((key, value) -> lines.add("# " + key + "=" + value));
+        lines.add(COLUMNS);
+        for (Row row : rows) {
+            lines.add(String.join("\t", row.endpoint(), Long.toString(row.count()), Long.toString(row.ok()),
+                    Long.toString(row.rejected()), Long.toString(row.failed()), format(row.p50()), format(row.p95()),
+                    format(row.p99()), format(row.max())));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    static LoadReport read(Path file) throws IOException {
+        Map<String, String> header = new LinkedHashMap<>();
+        List<Row> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith("# ")) {
+                int eq = line.indexOf('=');
+                if (eq > 0) {
+                    header.put(line.substring(2, eq), line.substring(eq + 1));
+                }
+            } else if (!line.isBlank() && !line.equals(COLUMNS)) {
+                String[] f = line.split("\t");
+                rows.add(new Row(f[0], Long.parseLong(f[1]), Long.parseLong(f[2]), Long.parseLong(f[3]), Long.parseLong(f[4]),
+                        Double.parseDouble(f[5]), Double.parseDouble(f[6]), Double.parseDouble(f[7]), Double.parseDouble(f[8])));
+            }
+        }
+        return new LoadReport(header, rows);
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+}
@@ -0,0 +1,88 @@
+package com.portlogistics.loadgen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Buffers rows and writes them as one {@code INSERT ... VALUES (...), (...), ...} statement per
+ * {@code rowsPerStatement} rows. The full-size statement is prepared once and reused; only the
+ * final partial flush prepares a shorter one.
+ */
+final class MultiRowInsert implements AutoCloseable {
+    private final Connection conn;
+    private final String prefix;
+    private final String rowPlaceholders;
+    private final int columns;
+    private final int rowsPerStatement;
+    private final Object[] buffer;
+    private PreparedStatement fullStatement;
+    private int buffered;
+    private long written;
+
+    MultiRowInsert(Connection conn, String table, String columnList, int rowsPerStatement) {
+        this.conn = conn;
+        this.columns = columnList.split(",").length;
+        this.prefix = "INSERT INTO " + table + " (" + columnList + ") VALUES ";
+        this.rowPlaceholders = "(" + "?, ".repeat(columns - 1) + "?)";
+        this.rowsPerStatement = rowsPerStatement;
+        this.buffer = new Object[columns * rowsPerStatement];
+    }
+
+    void add(Object... values) throws SQLException {
+        if (values.length != columns) {
+            throw new IllegalArgumentException("列数不匹配：需要" + columns + "列，实际" + values.length + "列");
+        }
+        System.arraycopy(values, 0, buffer, buffered * columns, columns);
+        if (++buffered == rowsPerStatement) {
+            if (fullStatement == null) {
+                fullStatement = conn.prepareStatement(sql(rowsPerStatement));
+            }
+            execute(fullStatement, rowsPerStatement);
+        }
+    }
+
+    long written() {
+        return written;
+    }
+
+    void flush() throws SQLException {
+        if (buffered > 0) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql(buffered))) {
+                execute(stmt, buffered);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+    }
+
+    private void execute(PreparedStatement stmt, int rows) throws SQLException {
+        for (int i = 0; i < rows * columns; i++) {
+            stmt.setObject(i + 1, buffer[i]);
+            buffer[i] = null;
+        }
+        stmt.executeUpdate();
+        written += rows;
+        buffered = 0;
+    }
+
+    private String sql(int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (rowPlaceholders.length() + 2)).append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+}
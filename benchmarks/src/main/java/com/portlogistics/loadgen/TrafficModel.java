@@ -0,0 +1,129 @@
+package com.portlogistics.loadgen;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Shape of the synthetic port traffic shared by {@link DataGenerator} and {@link LoadProfile}:
+ * table volumes for a scale factor, the vocabulary, port popularity and the seeding scheme.
+ * Every chunk of rows draws from its own generator derived from (seed, table, chunk), so the
+ * data is identical for a given seed and anchor no matter how many loader threads run.
+ */
+final class TrafficModel {
+    static final int BERTHS_PER_PORT = 20;
+    static final int WAREHOUSES_PER_PORT = 5;
+
+    static final String[] CITIES = {"上海", "宁波", "深圳", "青岛", "天津", "广州", "厦门", "大连", "香港", "新加坡",
+            "釜山", "鹿特丹", "汉堡", "洛杉矶", "迪拜", "东京"};
+    static final String[] COUNTRIES = {"中国", "中国", "中国", "中国", "中国", "中国", "中国", "中国", "中国", "新加坡",
+            "韩国", "荷兰", "德国", "美国", "阿联酋", "日本"};
+    static final String[] GOODS = {"电子产品", "冷冻海鲜", "化工原料", "服装纺织品", "机械设备", "汽车配件", "家具",
+            "钢材", "塑料颗粒", "纸浆", "咖啡豆", "医疗器械", "光伏组件", "锂电池", "玩具", "粮食"};
+    static final String[] CARGO_TYPES = {"GENERAL", "CONTAINER", "COLD", "DANGEROUS", "BULK"};
+    static final String[] SHIP_PREFIXES = {"东方", "远洋", "海洋", "长江", "中远", "海丰", "长荣", "马士基", "达飞", "地中海"};
+    static final String[] SHIP_SUFFIXES = {"之星", "先锋", "巨人", "号", "明珠", "希望", "开拓者", "荣耀"};
+    static final String[] WAREHOUSE_TYPES = {"GENERAL", "COLD", "DANGEROUS", "BONDED", "BULK"};
+
+    // 各表的种子盐值，新增表时追加，不要改动已有值
+    static final long PORTS = 1;
+    static final long SHIPS = 2;
+    static final long WAREHOUSES = 3;
+    static final long BERTHS = 4;
+    static final long VOYAGES = 5;
+    static final long CARGO = 6;
+    static final long LOAD = 7;
+
+    final long seed;
+    final LocalDateTime anchor;
+    final int ports;
+    final int ships;
+    final int voyages;
+    final int cargo;
+    // 港口热度按Zipf分布：少数枢纽港承担大部分航次和货物
+    private final double[] portWeights;
+
+    TrafficModel(long seed, double scale, LocalDate anchor) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("--scale 必须大于0");
+        }
+        this.seed = seed;
+        this.anchor = anchor.atStartOfDay();
+        this.ports = Math.max(2, (int) Math.round(200 * Math.min(1, scale)));
+        this.ships = Math.max(10, (int) Math.round(100_000 * scale));
+        this.voyages = Math.max(10, (int) Math.round(1_000_000 * scale));
+        this.cargo = Math.max(10, (int) Math.round(5_000_000 * scale));
+        this.portWeights = new double[ports];
+        double total = 0;
+        for (int i = 0; i < ports; i++) {
+            total += 1.0 / (i + 1);
+            portWeights[i] = total;
+        }
+        for (int i = 0; i < ports; i++) {
+            portWeights[i] /= total;
+        }
+    }
+
+    static TrafficModel from(Options options) {
+        String anchor = options.string("anchor", null);
+        // 默认以本月1日为基准：同一个月内重复生成结果相同，时间分布又贴近当前日期
+        LocalDate date = anchor != null ? LocalDate.parse(anchor) : LocalDate.now().withDayOfMonth(1);
+        return new TrafficModel(options.longValue("seed", 42), options.decimal("scale", 1.0), date);
+    }
+
+    SplittableRandom random(long table, long chunk) {
+        return new SplittableRandom(mix(mix(seed ^ table * 0x9E3779B97F4A7C15L) + chunk));
+    }
+
+    int warehouses() {
+        return ports * WAREHOUSES_PER_PORT;
+    }
+
+    // 按热度抽取港口ID（1起）
+    int port(SplittableRandom random) {
+        int index = Arrays.binarySearch(portWeights, random.nextDouble());
+        return (index >= 0 ? index : Math.min(-index - 1, ports - 1)) + 1;
+    }
+
+    String city(int portId) {
+        return CITIES[(portId - 1) % CITIES.length];
+    }
+
+    String country(int portId) {
+        return COUNTRIES[(portId - 1) % COUNTRIES.length];
+    }
+
+    // 船型分布：支线船60%、巴拿马型30%、超大型10%
+    static int capacityTeu(SplittableRandom random) {
+        double tier = random.nextDouble();
+        if (tier < 0.6) {
+            return 500 + random.nextInt(2_500);
+        }
+        if (tier < 0.9) {
+            return 3_000 + random.nextInt(5_000);
+        }
+        return 8_000 + random.nextInt(16_000);
+    }
+
+    static String berthNumber(int berth) {
+        return String.format("B-%02d", berth);
+    }
+
+    // 泊位编号越大，可停靠的船越大
+    static BigDecimal berthLength(int berth) {
+        return BigDecimal.valueOf(200 + berth * 9L).setScale(2);
+    }
+
+    static BigDecimal berthDraft(int berth) {
+        return BigDecimal.valueOf(100 + berth * 3L, 1).setScale(2);
+    }
+
+    // SplitMix64的收尾混合
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,24 @@
+package com.portlogistics.repository;
+
+import java.sql.SQLException;
+import java.util.function.IntFunction;
+
+/**
+ * Loads generated documents into a {@link SearchIndex} without a database, through the same
+ * rebuild path the repositories use at startup. Lives in the repository package because
+ * loading is package-private in the application.
+ */
+public final class SearchIndexFixture {
+    private SearchIndexFixture() {
+    }
+
+    // 文档ID从1到count，fields与仓储层传给索引的字段顺序一致
+    public static void load(SearchIndex index, SearchIndex.Type type, int count, IntFunction<String[]> fields)
+            throws SQLException {
+        index.rebuild(type, sink -> {
+            for (int id = 1; id <= count; id++) {
+                sink.add(id, fields.apply(id));
+            }
+        });
+    }
+}
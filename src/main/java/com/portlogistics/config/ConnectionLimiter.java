@@ -0,0 +1,99 @@
+package com.portlogistics.config;
+
+import com.portlogistics.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps concurrent direct connections when the pool is disabled, with the same permit count
+ * and timeout as the pool. Without it every virtual thread would open its own MySQL
+ * connection under burst load. The permit is released when the connection is closed.
+ */
+final class ConnectionLimiter {
+    @FunctionalInterface
+    interface Opener {
+        Connection open() throws SQLException;
+    }
+
+    private final int limit;
+    private final long timeoutMs;
+    private final Semaphore permits;
+    private final LongAdder timeouts = new LongAdder();
+    private final MetricsRegistry metrics;
+
+    ConnectionLimiter(int limit, long timeoutMs, MetricsRegistry metrics) {
+        this.limit = Math.max(limit, 1);
+        this.timeoutMs = timeoutMs;
+        this.metrics = metrics;
+        this.permits = new Semaphore(this.limit, true);
+    }
+
+    Connection acquire(Opener opener) throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("Timed out after " + timeoutMs
+                    + "ms waiting for a database connection (limit " + limit + ")");
+        }
+        try {
+            return releasingOnClose(opener.open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limit);
+        stats.put("active", limit - permits.availablePermits());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("timeouts", timeouts.sum());
+        return stats;
+    }
+
+    // close() 只归还一次许可，重复关闭不会多放行；预编译语句包一层执行计时
+    private Connection releasingOnClose(Connection physical) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            physical.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                        return MeteredStatement.wrap(statement, metrics.sqlMeter((String) args[0]));
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,382 @@
+package com.portlogistics.config;
+
+import com.portlogistics.metrics.LatencyHistogram;
+import com.portlogistics.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool behind {@link DatabaseManager}.
+ * Connections are validated on borrow, evicted when idle too long or past their max lifetime,
+ * and handed out as proxies whose {@code close()} returns them to the pool.
+ * Each physical connection carries its own {@link StatementCache}.
+ */
+class ConnectionPool implements AutoCloseable {
+    // 距上次归还不足该时间的连接跳过校验，避免每次借出都多一次往返
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final long HOUSEKEEPING_PERIOD_MS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final MetricsRegistry metrics;
+
+    // 许可数即连接上限，借出前先拿许可，超时则失败
+    private final Semaphore permits;
+    // 头部为最近归还的连接（LIFO），空闲淘汰从尾部开始
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String username, String password, int maxSize, int minIdle,
+                   long borrowTimeoutMs, long idleTimeoutMs, long maxLifetimeMs, int validationTimeoutSeconds,
+                   int statementCacheSize, MetricsRegistry metrics) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("db.pool.max-size must be positive");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(Math.max(minIdle, 0), maxSize);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+        this.metrics = metrics;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            borrowTimeouts.increment();
+            throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMs
+                    + "ms waiting for a database connection (pool size " + maxSize + ")");
+        }
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            active.incrementAndGet();
+            borrowLatency.recordNanos(System.nanoTime() - start);
+            return pooled.lease(this);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // 取一个可用的空闲连接，过期或校验失败的直接销毁
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (isExpired(pooled, now)) {
+                destroy(pooled);
+                continue;
+            }
+            if (now - pooled.lastReturnedAt > VALIDATION_BYPASS_MS && !pooled.isValid(validationTimeoutSeconds)) {
+                destroy(pooled);
+                continue;
+            }
+            return pooled;
+        }
+        return null;
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        total.incrementAndGet();
+        created.increment();
+        StatementCache cache = statementCacheSize > 0
+                ? new StatementCache(physical, statementCacheSize, statementHits, statementMisses, statementEvictions, metrics)
+                : null;
+        return new PooledConnection(physical, cache);
+    }
+
+    void giveBack(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || pooled.broken || isExpired(pooled, System.currentTimeMillis())) {
+                destroy(pooled);
+                return;
+            }
+            try {
+                pooled.reset();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } catch (SQLException e) {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return maxLifetimeMs > 0 && now - pooled.createdAt > maxLifetimeMs;
+    }
+
+    private void destroy(PooledConnection pooled) {
+        total.decrementAndGet();
+        destroyed.increment();
+        pooled.closeQuietly();
+    }
+
+    // 定期淘汰空闲超时/超过最大寿命的连接，并补足最小空闲数
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int idleCount = idle.size();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            boolean idleTooLong = idleTimeoutMs > 0 && now - pooled.lastReturnedAt > idleTimeoutMs && idleCount > minIdle;
+            if ((idleTooLong || isExpired(pooled, now)) && idle.remove(pooled)) {
+                idleCount--;
+                destroy(pooled);
+            }
+        }
+        while (!closed && idle.size() < minIdle && total.get() < maxSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = open();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } catch (SQLException e) {
+                // 数据库暂不可用时下一轮再补
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxSize", maxSize);
+        stats.put("minIdle", minIdle);
+        stats.put("total", total.get());
+        stats.put("active", active.get());
+        stats.put("idle", idle.size());
+        stats.put("waiting", waiting.get());
+        stats.put("created", created.sum());
+        stats.put("destroyed", destroyed.sum());
+        stats.put("borrowTimeouts", borrowTimeouts.sum());
+        stats.put("borrowLatency", borrowLatency.snapshot());
+        Map<String, Object> statements = new LinkedHashMap<>();
+        long hits = statementHits.sum();
+        long misses = statementMisses.sum();
+        statements.put("maxSizePerConnection", statementCacheSize);
+        statements.put("hits", hits);
+        statements.put("misses", misses);
+        statements.put("evictions", statementEvictions.sum());
+        statements.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("statementCache", statements);
+        return stats;
+    }
+
+    LatencyHistogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * One physical connection owned by the pool.
+     */
+    static final class PooledConnection {
+        final Connection physical;
+        final StatementCache statementCache;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastReturnedAt = createdAt;
+        volatile boolean broken;
+
+        PooledConnection(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+        }
+
+        Connection lease(ConnectionPool pool) {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(pool, this));
+        }
+
+        boolean isValid(int timeoutSeconds) {
+            try {
+                return physical.isValid(timeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // 归还前回滚未提交的事务并恢复自动提交，保证下一个借用者拿到干净的连接
+        void reset() throws SQLException {
+            if (statementCache != null) {
+                statementCache.reclaim();
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+        }
+
+        void closeQuietly() {
+            if (statementCache != null) {
+                statementCache.closeAll();
+            }
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // 连接可能已被服务端断开
+            }
+        }
+    }
+
+    /**
+     * Handle given to a single borrower; closing it returns the connection exactly once.
+     */
+    private static final class Lease implements InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledConnection pooled;
+        private boolean released;
+
+        Lease(ConnectionPool pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        pool.giveBack(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (released ? ", released]" : "]");
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                PreparedStatement cached = prepareCached(method, args);
+                if (cached != null) {
+                    return cached;
+                }
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof PreparedStatement statement && "prepareStatement".equals(method.getName())) {
+                    return MeteredStatement.wrap(statement, pool.metrics.sqlMeter((String) args[0]));
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState 08xxx 表示连接级错误，归还时直接销毁
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        // 只缓存 prepareStatement(sql) 和 prepareStatement(sql, autoGeneratedKeys)，带游标参数的语句照常创建
+        private PreparedStatement prepareCached(Method method, Object[] args) throws SQLException {
+            if (pooled.statementCache == null || !"prepareStatement".equals(method.getName())) {
+                return null;
+            }
+            Class<?>[] types = method.getParameterTypes();
+            if (types.length == 1) {
+                return pooled.statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+            }
+            if (types.length == 2 && types[1] == int.class) {
+                return pooled.statementCache.prepare((String) args[0], (Integer) args[1]);
+            }
+            return null;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.portlogistics.config;
+import com.portlogistics.metrics.MetricsRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
@@ -7,11 +9,15 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 
 /**
- * Central place for loading database configuration and creating MySQL connections.
+ * Central place for loading database configuration and handing out MySQL connections.
+ * Connections come from a bounded {@link ConnectionPool}; callers keep using try-with-resources
+ * and {@code close()} returns the connection to the pool.
  */
 @Component
 public  class DatabaseManager {
@@ -23,12 +29,68 @@ public  class DatabaseManager {
 
     @Value("${db.password:}")    
     private String password;
+
+    // 连接池配置（可在application.properties中覆盖）
+    @Value("${db.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${db.pool.max-size:10}")
+    private int maxPoolSize;
+
+    @Value("${db.pool.min-idle:2}")
+    private int minIdle;
+
+    @Value("${db.pool.borrow-timeout-ms:5000}")
+    private long borrowTimeoutMs;
+
+    @Value("${db.pool.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    @Value("${db.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Value("${db.pool.validation-timeout-seconds:2}")
+    private int validationTimeoutSeconds;
+
+    // 每个物理连接缓存的预编译语句上限，0 表示关闭缓存
+    @Value("${db.pool.statement-cache-size:64}")
+    private int statementCacheSize;
+
+    // 虚拟线程模式（Spring Boot原生开关，Tomcat请求线程与异步任务都改用虚拟线程）
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final MetricsRegistry metrics;
+    private ConnectionPool pool;
+    private ConnectionLimiter directLimiter;
     //private static final DatabaseManager INSTANCE = new DatabaseManager();
    // private final Properties properties = new Properties();
+
+    public DatabaseManager(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
     
     @PostConstruct  //在构造函数执行完，并且所有@Value属性都注入好之后，立刻执行这个方法
     public void init() throws ClassNotFoundException {
         Class.forName("com.mysql.cj.jdbc.Driver");
+        if (poolEnabled) {
+            pool = new ConnectionPool(url, username, password, maxPoolSize, minIdle,
+                    borrowTimeoutMs, idleTimeoutMs, maxLifetimeMs, validationTimeoutSeconds, statementCacheSize, metrics);
+        } else {
+            // 不用连接池时也按池大小限制并发连接数，虚拟线程下请求数不再受Tomcat线程数约束
+            directLimiter = new ConnectionLimiter(maxPoolSize, borrowTimeoutMs, metrics);
+        }
+        metrics.gauge("db_connections_active", "Connections currently lent out", () -> poolStat("active"));
+        metrics.gauge("db_connections_waiting", "Requests waiting for a connection", () -> poolStat("waiting"));
+        metrics.gauge("db_connections_max", "Connection limit", () -> maxPoolSize);
+        System.out.println("数据库并发上限：" + maxPoolSize + "，请求线程模式：" + (virtualThreads ? "虚拟线程" : "平台线程池"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.close();
+        }
     }
     /* 
     private DatabaseManager() {
@@ -53,6 +115,35 @@ public  class DatabaseManager {
         String username = Objects.requireNonNull(properties.getProperty("db.username"), "db.username must be set");
         String password = properties.getProperty("db.password", "");
         */
-        return DriverManager.getConnection(url, username, password);
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            if (pool == null) {
+                // db.pool.enabled=false 时退回每次直连，便于对比压测
+                connection = directLimiter.acquire(() -> DriverManager.getConnection(url, username, password));
+            } else {
+                connection = pool.borrow();
+            }
+        } catch (SQLException e) {
+            metrics.recordConnectionFailure();
+            throw e;
+        }
+        metrics.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    // 连接池运行指标：活跃/空闲/等待数及借用耗时分布
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", pool != null);
+        stats.put("virtualThreads", virtualThreads);
+        stats.putAll(pool != null ? pool.stats() : directLimiter.stats());
+        return stats;
+    }
+
+    private long poolStat(String key) {
+        Map<String, Object> stats = pool != null ? pool.stats() : directLimiter.stats();
+        Object value = stats.get(key);
+        return value instanceof Number number ? number.longValue() : 0;
     }
 }
@@ -0,0 +1,65 @@
+package com.portlogistics.config;
+
+import com.portlogistics.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+
+/**
+ * Times the execute calls of a prepared statement that is not served from a
+ * {@link StatementCache} (pool disabled, cache off, nested use of the same SQL).
+ */
+final class MeteredStatement implements InvocationHandler {
+    private final PreparedStatement statement;
+    private final MetricsRegistry.SqlMeter meter;
+
+    private MeteredStatement(PreparedStatement statement, MetricsRegistry.SqlMeter meter) {
+        this.statement = statement;
+        this.meter = meter;
+    }
+
+    static PreparedStatement wrap(PreparedStatement statement, MetricsRegistry.SqlMeter meter) {
+        return (PreparedStatement) Proxy.newProxyInstance(MeteredStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new MeteredStatement(statement, meter));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "MeteredStatement[" + statement + "]";
+            default:
+                break;
+        }
+        Object result = invoke(statement, method, args, meter);
+        return result == statement ? proxy : result;
+    }
+
+    // execute/executeQuery/executeUpdate/executeBatch计时，其余方法直接转发
+    static Object invoke(PreparedStatement statement, Method method, Object[] args, MetricsRegistry.SqlMeter meter)
+            throws Throwable {
+        if (!method.getName().startsWith("execute")) {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = method.invoke(statement, args);
+            meter.record(System.nanoTime() - start, false);
+            return result;
+        } catch (InvocationTargetException e) {
+            meter.record(System.nanoTime() - start, true);
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.portlogistics.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts under classpath:sql/migration (V{version}__{description}.sql)
+ * in version order and records each one with its SHA-256 checksum in the schema_migration
+ * ledger; an applied script whose content changed stops the run. On MySQL, ALTER TABLE,
+ * CREATE INDEX and DROP INDEX are tried as ALGORITHM=INSTANT, then INPLACE with LOCK=NONE,
+ * and a statement that needs a table lock is refused when the table holds more than
+ * db.migration.max-blocking-rows rows. With db.migration.async=true the scripts run on a
+ * background thread while the application serves.
+ */
+@Component
+public class SchemaMigrator {
+    private static final String LOCATION = "classpath*:sql/migration/V*__*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String CREATE_LEDGER = """
+            CREATE TABLE IF NOT EXISTS schema_migration (
+                version INT NOT NULL PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                script VARCHAR(255) NOT NULL,
+                checksum CHAR(64) NOT NULL,
+                success BOOLEAN NOT NULL,
+                error_message VARCHAR(1000),
+                execution_ms BIGINT NOT NULL,
+                applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )""";
+    private static final String SELECT_LEDGER =
+            "SELECT version, script, checksum, success, error_message FROM schema_migration ORDER BY version";
+    private static final String INSERT_LEDGER =
+            "INSERT INTO schema_migration (version, description, script, checksum, success, error_message, execution_ms) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_TABLE_ROWS =
+            "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    // 多个实例同时启动时只有一个执行迁移，其余等它完成后核对台账
+    private static final String ADVISORY_LOCK = "port_logistics.schema_migration";
+    private static final int ADVISORY_LOCK_TIMEOUT_SECONDS = 600;
+
+    private static final Pattern ALTER_TABLE = Pattern.compile("(?is)^ALTER\\s+TABLE\\s+`?(\\w+)`?\\s.*");
+    private static final Pattern INDEX_DDL =
+            Pattern.compile("(?is)^(?:CREATE\\s+(?:UNIQUE\\s+)?INDEX|DROP\\s+INDEX)\\s+`?\\w+`?\\s+ON\\s+`?(\\w+)`?.*");
+    // 脚本里自带的ALGORITHM=/LOCK=子句（必须写等号），由执行器按在线程度逐级重新追加
+    private static final Pattern DDL_OPTIONS = Pattern.compile("(?i),?\\s*\\b(?:ALGORITHM|LOCK)\\s*=\\s*\\w+");
+    // ER_ALTER_OPERATION_NOT_SUPPORTED(_REASON)：该操作不支持指定的算法或锁级别；ER_PARSE_ERROR：该语句不接受这些子句
+    private static final Set<Integer> NOT_ONLINE = Set.of(1845, 1846, 1064);
+    // ER_CANT_DROP_FIELD_OR_KEY：要删除的索引已不存在（例如V3之前用数据生成器的--drop-berth-unique删过），视为已执行
+    private static final int CANT_DROP_KEY = 1091;
+    private static final Pattern DROP_INDEX = Pattern.compile("(?is).*\\bDROP\\s+(?:INDEX|KEY)\\b.*");
+    private static final int LOCK_WAIT_TIMEOUT = 1205;
+    private static final int LOCK_WAIT_ATTEMPTS = 3;
+
+    private final DatabaseManager databaseManager;
+    private final boolean enabled;
+    private final boolean async;
+    private final long maxBlockingRows;
+    private final int lockWaitTimeoutSeconds;
+
+    private volatile String state = "PENDING";
+    private volatile String currentScript;
+    private volatile String lastError;
+    private final List<String> appliedScripts = new ArrayList<>();
+    private final List<String> pendingScripts = new ArrayList<>();
+
+    public SchemaMigrator(DatabaseManager databaseManager,
+                          @Value("${db.migration.enabled:true}") boolean enabled,
+                          @Value("${db.migration.async:false}") boolean async,
+                          @Value("${db.migration.max-blocking-rows:100000}") long maxBlockingRows,
+                          @Value("${db.migration.lock-wait-timeout-seconds:10}") int lockWaitTimeoutSeconds) {
+        this.databaseManager = databaseManager;
+        this.enabled = enabled;
+        this.async = async;
+        this.maxBlockingRows = maxBlockingRows;
+        this.lockWaitTimeoutSeconds = lockWaitTimeoutSeconds;
+    }
+
+    // 同步模式在其他组件加载数据之前执行，失败即中止启动；异步模式交给后台线程，应用照常对外服务
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            state = "DISABLED";
+            return;
+        }
+        if (!async) {
+            migrate();
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                migrate();
+            } catch (IllegalStateException e) {
+                System.out.println("后台迁移中止：" + e.getMessage());
+            }
+        }, "schema-migrator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // 迁移状态：当前阶段、正在执行的脚本、已执行与待执行的脚本
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("async", async);
+        status.put("state", state);
+        status.put("currentScript", currentScript);
+        status.put("applied", List.copyOf(appliedScripts));
+        status.put("pending", List.copyOf(pendingScripts));
+        status.put("maxBlockingRows", maxBlockingRows);
+        status.put("error", lastError);
+        return status;
+    }
+
+    private void migrate() {
+        List<Script> scripts;
+        try {
+            scripts = loadScripts();
+        } catch (IOException e) {
+            throw fail("读取迁移脚本失败：" + e.getMessage(), e);
+        }
+        Connection conn;
+        try {
+            conn = databaseManager.getConnection();
+        } catch (SQLException e) {
+            // 与其他启动加载一致：数据库不可用时不阻止启动，下次启动再迁移
+            state = "SKIPPED";
+            lastError = e.getMessage();
+            System.out.println("数据库不可用，跳过迁移：" + e.getMessage());
+            return;
+        }
+        state = "RUNNING";
+        try (conn; Statement stmt = conn.createStatement()) {
+            boolean mysql = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            stmt.execute(CREATE_LEDGER);
+            if (mysql) {
+                lockLedger(stmt);
+            }
+            Integer savedLockWait = null;
+            try {
+                if (mysql) {
+                    savedLockWait = setLockWaitTimeout(stmt);
+                }
+                List<Script> pending = pendingScripts(conn, scripts);
+                for (Script script : pending) {
+                    apply(conn, stmt, script, mysql);
+                }
+                state = "DONE";
+                currentScript = null;
+                System.out.println("数据库迁移完成：执行" + pending.size() + "个脚本，共" + scripts.size() + "个版本");
+            } finally {
+                // 连接会归还连接池，会话变量和命名锁都要恢复
+                if (savedLockWait != null) {
+                    stmt.execute("SET SESSION lock_wait_timeout = " + savedLockWait);
+                }
+                if (mysql) {
+                    stmt.execute("DO RELEASE_LOCK('" + ADVISORY_LOCK + "')");
+                }
+            }
+        } catch (SQLException e) {
+            throw fail("数据库迁移失败：" + e.getMessage(), e);
+        }
+    }
+
+    private void lockLedger(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT GET_LOCK('" + ADVISORY_LOCK + "', " + ADVISORY_LOCK_TIMEOUT_SECONDS + ")")) {
+            if (!rs.next() || rs.getInt(1) != 1) {
+                throw fail("等待其他实例完成迁移超时", null);
+            }
+        }
+    }
+
+    // 迁移连接上的元数据锁等待设短：在线DDL开始和结束时要短暂独占表的元数据锁，
+    // 排在长事务后面等待时会挡住该表的所有新查询，宁可超时重试也不拖住业务
+    private Integer setLockWaitTimeout(Statement stmt) throws SQLException {
+        int saved;
+        try (ResultSet rs = stmt.executeQuery("SELECT @@SESSION.lock_wait_timeout")) {
+            rs.next();
+            saved = rs.getInt(1);
+        }
+        stmt.execute("SET SESSION lock_wait_timeout = " + lockWaitTimeoutSeconds);
+        return saved;
+    }
+
+    // 核对台账：已执行脚本的校验和必须一致，上次执行到一半失败的版本需人工处理后才能继续
+    private List<Script> pendingScripts(Connection conn, List<Script> scripts) throws SQLException {
+        Map<Integer, Script> byVersion = new HashMap<>();
+        scripts.forEach(script -> byVersion.put(script.version(), script));
+        Map<Integer, String> applied = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_LEDGER);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int version = rs.getInt("version");
+                String name = rs.getString("script");
+                if (!rs.getBoolean("success")) {
+                    throw fail(name + "上次执行到一半失败（" + rs.getString("error_message")
+                            + "），已生效的DDL无法回滚；请手工补齐或撤销后删除schema_migration中version=" + version + "的记录再启动", null);
+                }
+                Script script = byVersion.get(version);
+                if (script == null) {
+                    System.out.println("迁移台账中的" + name + "已没有对应脚本，忽略");
+                } else if (!script.checksum().equals(rs.getString("checksum"))) {
+                    throw fail(script.name() + "已执行过但内容被修改（校验和不一致）；已发布的迁移不能改，请新增更高版本的脚本", null);
+                }
+                applied.put(version, name);
+            }
+        }
+        List<Script> pending = new ArrayList<>();
+        synchronized (this) {
+            appliedScripts.clear();
+            appliedScripts.addAll(applied.values());
+            pendingScripts.clear();
+            for (Script script : scripts) {
+                if (!applied.containsKey(script.version())) {
+                    pending.add(script);
+                    pendingScripts.add(script.name());
+                }
+            }
+        }
+        return pending;
+    }
+
+    private void apply(Connection conn, Statement stmt, Script script, boolean mysql) throws SQLException {
+        currentScript = script.name();
+        System.out.println("开始迁移：" + script.name() + "，" + script.statements().size() + "条语句");
+        long start = System.nanoTime();
+        int executed = 0;
+        try {
+            for (String sql : script.statements()) {
+                if (mysql) {
+                    executeOnline(stmt, sql);
+                } else {
+                    executeWithRetry(stmt, sql);
+                }
+                executed++;
+            }
+        } catch (SQLException | IllegalStateException e) {
+            // MySQL的DDL会隐式提交；已有语句生效时记下失败，避免下次从头重放
+            if (executed > 0) {
+                record(conn, script, false, e.getMessage(), elapsedMs(start));
+            }
+            throw fail(script.name() + "第" + (executed + 1) + "条语句执行失败：" + e.getMessage(), e);
+        }
+        long ms = elapsedMs(start);
+        record(conn, script, true, null, ms);
+        synchronized (this) {
+            pendingScripts.remove(script.name());
+            appliedScripts.add(script.name());
+        }
+        System.out.println("迁移完成：" + script.name() + "，用时" + ms + "毫秒");
+    }
+
+    // 依次尝试INSTANT、INPLACE+LOCK=NONE；都不支持时说明要锁表，只对小表放行
+    private void executeOnline(Statement stmt, String sql) throws SQLException {
+        Matcher alter = ALTER_TABLE.matcher(sql);
+        Matcher index = INDEX_DDL.matcher(sql);
+        String table;
+        List<String> attempts;
+        String base = DDL_OPTIONS.matcher(sql).replaceAll("");
+        if (alter.matches()) {
+            table = alter.group(1);
+            attempts = List.of(base + ", ALGORITHM=INSTANT", base + ", ALGORITHM=INPLACE, LOCK=NONE");
+        } else if (index.matches()) {
+            table = index.group(1);
+            attempts = List.of(base + " ALGORITHM=INPLACE LOCK=NONE");
+        } else {
+            executeWithRetry(stmt, sql);
+            return;
+        }
+        for (String attempt : attempts) {
+            try {
+                executeWithRetry(stmt, attempt);
+                return;
+            } catch (SQLException e) {
+                if (e.getErrorCode() == CANT_DROP_KEY && DROP_INDEX.matcher(base).matches()) {
+                    System.out.println("索引已不存在，跳过：" + abbreviate(base));
+                    return;
+                }
+                if (!NOT_ONLINE.contains(e.getErrorCode())) {
+                    throw e;
+                }
+            }
+        }
+        long rows = tableRows(stmt, table);
+        if (rows > maxBlockingRows) {
+            throw new IllegalStateException("该语句不能在线执行，需要锁表；" + table + "约" + rows + "行，超过db.migration.max-blocking-rows="
+                    + maxBlockingRows + "，拒绝执行。请在维护窗口手工执行后补记台账，或调大该上限");
+        }
+        System.out.println("该语句不能在线执行，" + table + "约" + rows + "行，锁表执行：" + abbreviate(base));
+        executeWithRetry(stmt, base);
+    }
+
+    private void executeWithRetry(Statement stmt, String sql) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                stmt.execute(sql);
+                return;
+            } catch (SQLException e) {
+                if (e.getErrorCode() != LOCK_WAIT_TIMEOUT || attempt == LOCK_WAIT_ATTEMPTS) {
+                    throw e;
+                }
+                System.out.println("等待表元数据锁超时，第" + attempt + "次重试：" + abbreviate(sql));
+            }
+        }
+    }
+
+    // information_schema里的行数是统计估算值，用来判断量级足够
+    private static long tableRows(Statement stmt, String table) throws SQLException {
+        try (PreparedStatement ps = stmt.getConnection().prepareStatement(SELECT_TABLE_ROWS)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static void record(Connection conn, Script script, boolean success, String error, long ms) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_LEDGER)) {
+            ps.setInt(1, script.version());
+            ps.setString(2, script.description());
+            ps.setString(3, script.name());
+            ps.setString(4, script.checksum());
+            ps.setBoolean(5, success);
+            ps.setString(6, error == null ? null : error.substring(0, Math.min(error.length(), 1000)));
+            ps.setLong(7, ms);
+            ps.executeUpdate();
+        }
+    }
+
+    private IllegalStateException fail(String message, Exception cause) {
+        state = "FAILED";
+        lastError = message;
+        return new IllegalStateException(message, cause);
+    }
+
+    private static List<Script> loadScripts() throws IOException {
+        List<Script> scripts = new ArrayList<>();
+        Map<Integer, String> versions = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            String name = resource.getFilename();
+            Matcher matcher = name == null ? null : SCRIPT_NAME.matcher(name);
+            if (matcher == null || !matcher.matches()) {
+                throw new IOException("迁移脚本命名应为V<版本>__<说明>.sql：" + name);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String duplicate = versions.put(version, name);
+            if (duplicate != null) {
+                throw new IOException("迁移版本重复：" + duplicate + " 与 " + name);
+            }
+            String content;
+            try (InputStream in = resource.getInputStream()) {
+                // 统一换行符，避免检出时的换行转换改变校验和
+                content = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            }
+            scripts.add(new Script(version, matcher.group(2).replace('_', ' '), name, sha256(content), split(content)));
+        }
+        scripts.sort(Comparator.comparingInt(Script::version));
+        return scripts;
+    }
+
+    // 按分号拆分语句，跳过注释和引号内的分号
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (quote != 0) {
+                current.append(c);
+                if (c == '\\' && quote != '`' && i + 1 < script.length()) {
+                    // 字符串里的反斜杠转义（如 'it\'s'），下一个字符原样保留
+                    current.append(script.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '-' && isLineComment(script, i) || c == '#') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end;
+                current.append('\n');
+            } else if (c == '/' && script.startsWith("/*", i)) {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? script.length() : end + 1;
+                current.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    // MySQL只把后面跟空白（或在行尾）的 -- 当作注释，1--1 是 1 - -1
+    private static boolean isLineComment(String script, int i) {
+        return script.startsWith("--", i)
+                && (i + 2 == script.length() || Character.isWhitespace(script.charAt(i + 2)));
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String sql = current.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        current.setLength(0);
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long elapsedMs(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ");
+        return flat.length() > 120 ? flat.substring(0, 120) + "…" : flat;
+    }
+
+    private record Script(int version, String description, String name, String checksum, List<String> statements) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.portlogistics.config;
+
+import com.portlogistics.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements owned by one pooled connection, keyed by SQL text.
+ * Callers get a proxy whose {@code close()} parks the statement back in the cache
+ * instead of deallocating it, so repeated repository calls skip the re-prepare. Each entry
+ * keeps the SQL meter it was prepared with, so timing an execute needs no lookup.
+ * Only accessed by the thread currently holding the connection.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final MetricsRegistry metrics;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions,
+                   MetricsRegistry metrics) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                StatementCache.this.evictions.increment();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.increment();
+            return entry.checkOut();
+        }
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // 同一条SQL在同一连接上嵌套使用时，第二个语句不进缓存，用完即关
+            return MeteredStatement.wrap(statement, entry.meter);
+        }
+        entry = new Entry(statement, metrics.sqlMeter(sql));
+        entries.put(key, entry);
+        return entry.checkOut();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // 连接归还时收回借用者忘记关闭的语句，避免它们一直处于占用状态
+    void reclaim() throws SQLException {
+        for (Entry entry : entries.values()) {
+            if (entry.inUse) {
+                entry.checkIn();
+            }
+        }
+    }
+
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.evict();
+        }
+        entries.clear();
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+        Key {
+            Objects.requireNonNull(sql, "sql");
+        }
+    }
+
+    /**
+     * A cached physical statement plus the bookkeeping needed to hand it out again.
+     */
+    private static final class Entry implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final MetricsRegistry.SqlMeter meter;
+        private final List<ResultSet> openResults = new ArrayList<>();
+        private boolean inUse;
+        private boolean evicted;
+        private PreparedStatement current;
+
+        Entry(PreparedStatement statement, MetricsRegistry.SqlMeter meter) {
+            this.statement = statement;
+            this.meter = meter;
+        }
+
+        PreparedStatement checkOut() {
+            inUse = true;
+            current = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+            return current;
+        }
+
+        // 逻辑关闭：关掉本次打开的结果集、清空参数，语句本身留在缓存里
+        private void checkIn() throws SQLException {
+            inUse = false;
+            current = null;
+            try {
+                for (ResultSet rs : openResults) {
+                    rs.close();
+                }
+            } finally {
+                openResults.clear();
+            }
+            if (evicted) {
+                statement.close();
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // 连接已断开时语句随之失效
+                }
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (proxy == current) {
+                        checkIn();
+                    }
+                    return null;
+                case "isClosed":
+                    return proxy != current || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+            if (proxy != current) {
+                throw new SQLException("Statement has already been closed");
+            }
+            Object result = MeteredStatement.invoke(statement, method, args, meter);
+            if (result instanceof ResultSet rs) {
+                openResults.add(rs);
+            } else if (result == statement) {
+                return proxy;
+            }
+            return result;
+        }
+    }
+}
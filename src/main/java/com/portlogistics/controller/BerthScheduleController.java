@@ -4,7 +4,11 @@ import com.portlogistics.exception.InvalidScheduleException;
 import com.portlogistics.exception.InvalidTimeFormatException;
 import com.portlogistics.exception.ScheduleConflictException;
 import com.portlogistics.exception.ShipNotFoundException;
+import com.portlogistics.model.BerthAllocationRequest;
 import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.repository.TableVersions;
+import com.portlogistics.service.BerthAllocationService;
 import com.portlogistics.service.BerthScheduleService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,21 +16,89 @@ import org.springframework.web.bind.annotation.*;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/berths")
 public class BerthScheduleController {
 
     private final BerthScheduleService scheduleService;
+    private final TableVersions tableVersions;
+    private final BerthAllocationService allocationService;
 
-    public BerthScheduleController(BerthScheduleService scheduleService) {
+    public BerthScheduleController(BerthScheduleService scheduleService, TableVersions tableVersions,
+                                   BerthAllocationService allocationService) {
         this.scheduleService = scheduleService;
+        this.tableVersions = tableVersions;
+        this.allocationService = allocationService;
     }
 
-    // 查询所有排程（前端表格加载）
+    // 查询排程：默认游标分页，all=true 返回全部（前端表格加载）；ETag未变时直接返回304，不查库
     @GetMapping
-    public List<BerthSchedule> list() throws SQLException {
-        return scheduleService.getAllSchedules();
+    public ResponseEntity<?> list(@RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) Integer portId,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(defaultValue = "false") boolean all,
+                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) throws SQLException {
+        // 版本号在查询之前读取：查询期间发生的写入会让下一次请求拿到新标签
+        // 删除港口会级联删除泊位（fk_berth_port），删除船舶会把 current_vessel_id 置空（fk_berth_vessel）
+        String etag = tableVersions.etag(TableVersions.BERTH, TableVersions.SHIP, TableVersions.PORT);
+        if (ConditionalGet.matches(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        if (all) {
+            return ConditionalGet.ok(etag, scheduleService.getAllSchedules());
+        }
+        try {
+            return ConditionalGet.ok(etag, scheduleService.getSchedulePage(ListQuery.of(after, limit, status, portId, from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 空闲时段：某港口各泊位在时间范围内不短于minDuration的空档，按开始时间排序
+    @GetMapping("/free-slots")
+    public ResponseEntity<?> freeSlots(@RequestParam(required = false) Integer portId,
+                                       @RequestParam(required = false) String from,
+                                       @RequestParam(required = false) String to,
+                                       @RequestParam(required = false) String minDuration) {
+        try {
+            return ResponseEntity.ok(scheduleService.findFreeSlots(portId, from, to, minDuration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SQLException e) {
+            System.out.println("数据库错误：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+
+    // 批量导入排程：返回逐行的接受/拒绝结果
+    @PostMapping("/import")
+    public ResponseEntity<?> importSchedules(@RequestBody List<BerthSchedule> schedules) {
+        try {
+            return ResponseEntity.ok(scheduleService.importSchedules(schedules));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SQLException e) {
+            System.out.println("数据库错误：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+
+    // 泊位分配建议：为窗口内未分配泊位的航次（或指定航次）计算排程方案，只返回建议不写库
+    @PostMapping("/allocation")
+    public ResponseEntity<?> proposeAllocation(@RequestBody(required = false) BerthAllocationRequest request) {
+        try {
+            return ResponseEntity.ok(allocationService.propose(request != null ? request : new BerthAllocationRequest()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SQLException e) {
+            System.out.println("数据库错误：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
     }
 
     // 创建排程（接收前端JSON，与Apifox格式一致）
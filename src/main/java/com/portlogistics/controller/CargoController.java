@@ -1,29 +1,97 @@
 package com.portlogistics.controller;
 
 import com.portlogistics.model.Cargo;
+import com.portlogistics.model.CargoAssignment;
+import com.portlogistics.model.ImportReport;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.service.CargoIngestService;
+import com.portlogistics.service.CargoStatsService;
+import com.portlogistics.service.ExportService;
 import com.portlogistics.service.PortLogisticsService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/cargo")
 public class CargoController {
     private final PortLogisticsService service;
+    private final ExportService exportService;
+    private final CargoIngestService ingestService;
+    private final CargoStatsService statsService;
 
-    public CargoController(PortLogisticsService service) {
+    public CargoController(PortLogisticsService service, ExportService exportService, CargoIngestService ingestService,
+                           CargoStatsService statsService) {
         this.service = service;
+        this.exportService = exportService;
+        this.ingestService = ingestService;
+        this.statsService = statsService;
     }
 
+    // 默认游标分页；all=true 返回全量列表（旧行为），关键字搜索仍返回列表；includeArchived=true 时分页包含已归档货物
     @GetMapping
-    public List<Cargo> list(@RequestParam(value = "q", required = false) String keyword) throws SQLException {
-        return service.listPendingCargo(keyword);
+    public ResponseEntity<?> list(@RequestParam(value = "q", required = false) String keyword,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) Integer portId,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(defaultValue = "false") boolean all,
+                                  @RequestParam(defaultValue = "false") boolean includeArchived) throws SQLException {
+        if (all || (keyword != null && !keyword.isBlank())) {
+            return ResponseEntity.ok(service.listPendingCargo(keyword));
+        }
+        try {
+            ListQuery query = ListQuery.of(after, limit, status, portId, from, to);
+            query.setIncludeArchived(includeArchived);
+            return ResponseEntity.ok(service.listCargoPage(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 全量导出：format=ndjson|csv，边查边写，支持gzip
+    @GetMapping("/export")
+    public ResponseEntity<?> export(@RequestParam(defaultValue = "ndjson") String format,
+                                    @RequestParam(required = false) Boolean gzip,
+                                    @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        return ExportResponses.stream("cargo", format, gzip, acceptEncoding, exportService::exportCargo);
     }
 
     @GetMapping("/stats/monthly")
     public List<java.util.Map<String, Object>> getMonthlyStats() throws SQLException {
-        return service.getCargoMonthlyStats();
+        return statsService.getMonthlyStats();
+    }
+
+    // 按天/周/月的货物统计，可按到达港（portId=0表示未分配航次）和目的地筛选
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam(required = false) String granularity,
+                                      @RequestParam(required = false) String from,
+                                      @RequestParam(required = false) String to,
+                                      @RequestParam(required = false) Integer portId,
+                                      @RequestParam(required = false) String destination) throws SQLException {
+        try {
+            return ResponseEntity.ok(statsService.getStats(granularity, from, to, portId, destination));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 从货物表全量重建统计汇总
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildStats() {
+        try {
+            return ResponseEntity.ok(statsService.rebuild());
+        } catch (SQLException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
     }
 
     @PostMapping
@@ -31,6 +99,41 @@ public class CargoController {
         service.createCargo(cargo);
     }
 
+    // 批量导入货物清单：JSON数组，或Content-Type为application/x-ndjson的逐行JSON；
+    // strict=true时任一行出错整单不写入
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBatch(HttpServletRequest request,
+                                         @RequestParam(required = false) Integer batchSize,
+                                         @RequestParam(defaultValue = "false") boolean strict) {
+        String contentType = request.getContentType();
+        boolean ndjson = contentType != null && contentType.toLowerCase().contains("ndjson");
+        try {
+            ImportReport report = ingestService.ingest(request.getInputStream(), ndjson, batchSize, strict);
+            if (strict && report.getRejected() > 0) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(report);
+            }
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "读取请求体失败：" + e.getMessage()));
+        } catch (SQLException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+
+    // 批量分配航次：{voyagePlanId, cargoIds} 或 {voyagePlanId, destination, status, unassignedOnly}
+    @PostMapping("/assign")
+    public ResponseEntity<?> assign(@RequestBody CargoAssignment request) {
+        try {
+            return ResponseEntity.ok(service.assignCargoToVoyage(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SQLException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{cargoId}")
     public void update(@PathVariable int cargoId, @RequestBody Cargo cargo) throws SQLException {
         service.updateCargo(cargoId, cargo);
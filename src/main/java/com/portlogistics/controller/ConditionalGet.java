@@ -0,0 +1,40 @@
+package com.portlogistics.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * If-None-Match handling for list endpoints whose ETag comes from
+ * {@link com.portlogistics.repository.TableVersions}.
+ */
+final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    // 支持 * 、逗号分隔的多个标签以及弱标签前缀 W/
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    // no-cache：浏览器可以缓存，但每次使用前都要带着ETag回来验证
+    static ResponseEntity<?> ok(String etag, Object body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.portlogistics.controller;
+
+import com.portlogistics.service.DashboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // 总览页一次取齐：各实体总数、状态分布和最近记录
+    @GetMapping("/summary")
+    public ResponseEntity<?> summary() {
+        try {
+            return ResponseEntity.ok(dashboardService.getSummary());
+        } catch (SQLException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.portlogistics.controller;
+
+import com.portlogistics.service.ChangeEventBus;
+import com.portlogistics.service.ChangeEventBus.ChangeEvent;
+import com.portlogistics.service.ChangeEventBus.Subscription;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Server-sent change stream. Each connection gets a subscription on {@link ChangeEventBus}
+ * and a virtual thread that copies the subscription's buffer to the socket, so a slow client
+ * only ever blocks its own thread.
+ */
+@RestController
+@RequestMapping("/api/events")
+public class EventController {
+    private static final Set<String> ENTITIES =
+            Set.of(ChangeEventBus.BERTH, ChangeEventBus.VOYAGE, ChangeEventBus.TRANSPORT_TASK);
+
+    private final ChangeEventBus changeEventBus;
+
+    @Value("${events.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${events.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    public EventController(ChangeEventBus changeEventBus) {
+        this.changeEventBus = changeEventBus;
+    }
+
+    // entities=berth,voyage 只订阅指定实体，不传则订阅全部
+    @GetMapping
+    public ResponseEntity<?> stream(@RequestParam(required = false) String entities) {
+        Set<String> wanted;
+        Subscription subscription;
+        try {
+            wanted = parseEntities(entities);
+            subscription = changeEventBus.subscribe(wanted);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        Thread.ofVirtual().name("sse-events").start(() -> pump(subscription, emitter));
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(changeEventBus.stats());
+    }
+
+    private void pump(Subscription subscription, SseEmitter emitter) {
+        try (subscription) {
+            while (!subscription.isDropped()) {
+                ChangeEvent event = subscription.poll(heartbeatSeconds, TimeUnit.SECONDS);
+                if (event == null) {
+                    // 心跳：及时发现已断开的连接并释放订阅
+                    emitter.send(SseEmitter.event().comment("ping"));
+                    continue;
+                }
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.seq()))
+                        .name(event.entity())
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+            // 缓冲区溢出被摘除：通知客户端全量重新加载，随后断开由浏览器自动重连
+            emitter.send(SseEmitter.event().name("resync").data("buffer overflow"));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    private static Set<String> parseEntities(String entities) {
+        if (entities == null || entities.isBlank()) {
+            return Set.of();
+        }
+        Set<String> wanted = Arrays.stream(entities.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        for (String entity : wanted) {
+            if (!ENTITIES.contains(entity)) {
+                throw new IllegalArgumentException("不支持的实体类型：" + entity);
+            }
+        }
+        return wanted;
+    }
+}
@@ -0,0 +1,68 @@
+package com.portlogistics.controller;
+
+import com.portlogistics.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds the streaming response shared by the export endpoints: format negotiation,
+ * attachment headers and optional gzip.
+ */
+final class ExportResponses {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    interface Exporter {
+        void export(ExportService.Format format, OutputStream out) throws SQLException, IOException;
+    }
+
+    private ExportResponses() {
+    }
+
+    static ResponseEntity<?> stream(String name, String formatParam, Boolean gzipParam,
+                                    String acceptEncoding, Exporter exporter) {
+        ExportService.Format format;
+        try {
+            format = ExportService.Format.parse(formatParam);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        // 未显式指定gzip时按Accept-Encoding协商
+        boolean gzip = gzipParam != null
+                ? gzipParam
+                : acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            // syncFlush：导出每隔若干行的flush要把已压缩的数据真正推给客户端，否则压缩时整份导出都积在缓冲里
+            OutputStream target = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true) : out;
+            try {
+                exporter.export(format, target);
+            } catch (SQLException e) {
+                // 响应头已发出，只能中断连接，客户端会收到不完整的内容
+                throw new IOException("导出失败：" + e.getMessage(), e);
+            }
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            target.flush();
+        };
+
+        // gzip只是传输编码，浏览器保存前会解压，文件名不带.gz
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, format.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+}
@@ -1,5 +1,6 @@
 package com.portlogistics.controller;
 
+import com.portlogistics.model.ListQuery;
 import com.portlogistics.model.Port;
 import com.portlogistics.service.PortService;
 import org.springframework.http.HttpStatus;
@@ -20,11 +21,19 @@ public class PortController {
         this.portService = portService;
     }
 
+    // 默认游标分页，all=true 返回全量列表
     @GetMapping
-    public ResponseEntity<?> list() {
+    public ResponseEntity<?> list(@RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(defaultValue = "false") boolean all) {
         try {
-            List<Port> ports = portService.getAllPorts();
-            return ResponseEntity.ok(ports);
+            if (all) {
+                List<Port> ports = portService.getAllPorts();
+                return ResponseEntity.ok(ports);
+            }
+            return ResponseEntity.ok(portService.getPortPage(ListQuery.of(after, limit, null, null, null, null)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (SQLException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "数据库错误：" + e.getMessage()));
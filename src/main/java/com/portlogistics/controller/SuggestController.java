@@ -0,0 +1,89 @@
+package com.portlogistics.controller;
+
+import com.portlogistics.repository.SuggestIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead for form dropdowns, answered from {@link SuggestIndex} without touching MySQL.
+ */
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+    private static final int MAX_LIMIT = 50;
+    private static final int MAX_LOOKUP_IDS = 200;
+
+    private final SuggestIndex suggestIndex;
+
+    public SuggestController(SuggestIndex suggestIndex) {
+        this.suggestIndex = suggestIndex;
+    }
+
+    // type=ship|port|cargo|warehouse，prefix为空时返回字典序最前的limit条
+    @GetMapping
+    public ResponseEntity<?> suggest(@RequestParam String type,
+                                     @RequestParam(defaultValue = "") String prefix,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        try {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit必须在1到" + MAX_LIMIT + "之间");
+            }
+            SuggestIndex.Type suggestType = SuggestIndex.Type.parse(type);
+            if (!suggestIndex.ensureReady(suggestType)) {
+                return notReady();
+            }
+            return ResponseEntity.ok(suggestIndex.suggest(suggestType, prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 按ID回显已选中的条目：ids=1,2,3
+    @GetMapping("/lookup")
+    public ResponseEntity<?> lookup(@RequestParam String type, @RequestParam String ids) {
+        try {
+            SuggestIndex.Type suggestType = SuggestIndex.Type.parse(type);
+            if (!suggestIndex.ensureReady(suggestType)) {
+                return notReady();
+            }
+            return ResponseEntity.ok(suggestIndex.lookup(suggestType, parseIds(ids)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(suggestIndex.stats());
+    }
+
+    private static ResponseEntity<?> notReady() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "联想索引正在加载，请稍后重试"));
+    }
+
+    private static List<Integer> parseIds(String ids) {
+        List<Integer> parsed = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (id.isBlank()) {
+                continue;
+            }
+            if (parsed.size() >= MAX_LOOKUP_IDS) {
+                throw new IllegalArgumentException("一次最多查询" + MAX_LOOKUP_IDS + "个ID");
+            }
+            try {
+                parsed.add(Integer.parseInt(id.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ID格式不正确：" + id);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,86 @@
+package com.portlogistics.controller;
+
+import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.config.SchemaMigrator;
+import com.portlogistics.metrics.MetricsRegistry;
+import com.portlogistics.repository.PortRepository;
+import com.portlogistics.repository.ShipRepository;
+import com.portlogistics.service.ArchiveService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/system")
+public class SystemController {
+    private final DatabaseManager databaseManager;
+    private final ShipRepository shipRepository;
+    private final PortRepository portRepository;
+    private final MetricsRegistry metricsRegistry;
+    private final SchemaMigrator schemaMigrator;
+    private final ArchiveService archiveService;
+
+    public SystemController(DatabaseManager databaseManager, ShipRepository shipRepository, PortRepository portRepository,
+                            MetricsRegistry metricsRegistry, SchemaMigrator schemaMigrator, ArchiveService archiveService) {
+        this.databaseManager = databaseManager;
+        this.shipRepository = shipRepository;
+        this.portRepository = portRepository;
+        this.metricsRegistry = metricsRegistry;
+        this.schemaMigrator = schemaMigrator;
+        this.archiveService = archiveService;
+    }
+
+    // 数据库连接池指标
+    @GetMapping("/db-pool")
+    public Map<String, Object> dbPool() {
+        return databaseManager.getPoolStats();
+    }
+
+    // 船舶/港口引用数据缓存的命中率
+    @GetMapping("/reference-cache")
+    public Map<String, Object> referenceCache() {
+        return Map.of("ships", shipRepository.getCacheStats(), "ports", portRepository.getCacheStats());
+    }
+
+    // Prometheus抓取接口：各接口/SQL耗时直方图、错误数、取连接耗时与JVM指标
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String metrics() {
+        return metricsRegistry.scrape();
+    }
+
+    // 同一批指标的分位数汇总，按调用次数排序，便于直接查看
+    @GetMapping("/metrics/summary")
+    public Map<String, Object> metricsSummary() {
+        return metricsRegistry.summary();
+    }
+
+    // 版本化迁移的执行状态，后台迁移时可据此查看进度
+    @GetMapping("/migrations")
+    public Map<String, Object> migrations() {
+        return schemaMigrator.status();
+    }
+
+    // 归档任务配置与上一轮结果
+    @GetMapping("/archive")
+    public Map<String, Object> archive() {
+        return archiveService.status();
+    }
+
+    // 立即执行一轮归档（与定时任务互斥）
+    @PostMapping("/archive")
+    public ResponseEntity<?> runArchive() {
+        try {
+            return ResponseEntity.ok(archiveService.archive());
+        } catch (SQLException e) {
+            System.out.println("数据库错误：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "数据库错误：" + e.getMessage()));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.portlogistics.controller;
 
+import com.portlogistics.model.ListQuery;
 import com.portlogistics.model.TransportTask;
+import com.portlogistics.service.ExportService;
 import com.portlogistics.service.TransportTaskService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,26 +17,52 @@ import java.util.Map;
 public class TransportTaskController {
 
     private final TransportTaskService transportTaskService;
+    private final ExportService exportService;
 
-    public TransportTaskController(TransportTaskService transportTaskService) {
+    public TransportTaskController(TransportTaskService transportTaskService, ExportService exportService) {
         this.transportTaskService = transportTaskService;
+        this.exportService = exportService;
     }
 
+    // 默认游标分页，all=true 返回全量列表；includeArchived=true 时分页结果包含已归档的任务
     @GetMapping
-    public ResponseEntity<?> list() {
+    public ResponseEntity<?> list(@RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(defaultValue = "false") boolean all,
+                                  @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            List<TransportTask> tasks = transportTaskService.getAllTasks();
-            return ResponseEntity.ok(tasks);
+            if (all) {
+                List<TransportTask> tasks = transportTaskService.getAllTasks();
+                return ResponseEntity.ok(tasks);
+            }
+            ListQuery query = ListQuery.of(after, limit, status, null, from, to);
+            query.setIncludeArchived(includeArchived);
+            return ResponseEntity.ok(transportTaskService.getTaskPage(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (SQLException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "数据库错误：" + e.getMessage()));
         }
     }
 
+    // 全量导出：format=ndjson|csv，边查边写，支持gzip
+    @GetMapping("/export")
+    public ResponseEntity<?> export(@RequestParam(defaultValue = "ndjson") String format,
+                                    @RequestParam(required = false) Boolean gzip,
+                                    @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        return ExportResponses.stream("transport-tasks", format, gzip, acceptEncoding,
+                exportService::exportTransportTasks);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable int id) {
+    public ResponseEntity<?> getById(@PathVariable int id,
+                                     @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            TransportTask task = transportTaskService.getTaskById(id);
+            TransportTask task = transportTaskService.getTaskById(id, includeArchived);
             if (task == null) {
                 return ResponseEntity.notFound().build();
             }
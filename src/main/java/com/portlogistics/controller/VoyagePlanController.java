@@ -1,6 +1,8 @@
 package com.portlogistics.controller;
 
+import com.portlogistics.model.ListQuery;
 import com.portlogistics.model.VoyagePlan;
+import com.portlogistics.repository.TableVersions;
 import com.portlogistics.service.VoyagePlanService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,16 +17,35 @@ import java.util.Map;
 public class VoyagePlanController {
 
     private final VoyagePlanService voyagePlanService;
+    private final TableVersions tableVersions;
 
-    public VoyagePlanController(VoyagePlanService voyagePlanService) {
+    public VoyagePlanController(VoyagePlanService voyagePlanService, TableVersions tableVersions) {
         this.voyagePlanService = voyagePlanService;
+        this.tableVersions = tableVersions;
     }
 
+    // 默认游标分页，all=true 返回全量列表；ETag未变时直接返回304
     @GetMapping
-    public ResponseEntity<?> list() {
+    public ResponseEntity<?> list(@RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) Integer portId,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(defaultValue = "false") boolean all,
+                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = currentEtag();
+        if (ConditionalGet.matches(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
-            List<VoyagePlan> plans = voyagePlanService.getAllPlans();
-            return ResponseEntity.ok(plans);
+            if (all) {
+                List<VoyagePlan> plans = voyagePlanService.getAllPlans();
+                return ConditionalGet.ok(etag, plans);
+            }
+            return ConditionalGet.ok(etag, voyagePlanService.getPlanPage(ListQuery.of(after, limit, status, portId, from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (SQLException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "数据库错误：" + e.getMessage()));
@@ -32,13 +53,19 @@ public class VoyagePlanController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable int id) {
+    public ResponseEntity<?> getById(@PathVariable int id,
+                                     @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        // 标签按整表版本计算：任一航次变化都会让详情缓存失效，换来的是无需逐行记录版本
+        String etag = currentEtag();
+        if (ConditionalGet.matches(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             VoyagePlan plan = voyagePlanService.getPlanById(id);
             if (plan == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(plan);
+            return ConditionalGet.ok(etag, plan);
         } catch (SQLException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "数据库错误：" + e.getMessage()));
@@ -85,6 +112,12 @@ public class VoyagePlanController {
         }
     }
 
+    // 航次列表与详情都显示船名和港口名；删除船舶会级联删除航次（fk_voyage_ship），
+    // 删除泊位会把 assigned_berth_id 置空（fk_voyage_berth），这几张表任一变化都换新标签
+    private String currentEtag() {
+        return tableVersions.etag(TableVersions.VOYAGE_PLAN, TableVersions.SHIP, TableVersions.PORT, TableVersions.BERTH);
+    }
+
     private VoyagePlan mapRequestToPlan(Map<String, Object> request) {
         VoyagePlan plan = new VoyagePlan();
         plan.setVoyageNumber((String) request.get("voyageNumber"));
@@ -1,5 +1,6 @@
 package com.portlogistics.controller;
 
+import com.portlogistics.model.ListQuery;
 import com.portlogistics.model.Warehouse;
 import com.portlogistics.service.WarehouseService;
 import org.springframework.http.HttpStatus;
@@ -21,16 +22,25 @@ public class WarehouseController {
         this.warehouseService = warehouseService;
     }
 
+    // 默认游标分页；all=true 返回全量列表，关键字搜索仍返回列表
     @GetMapping
-    public ResponseEntity<?> list(@RequestParam(required = false) String q) {
+    public ResponseEntity<?> list(@RequestParam(required = false) String q,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) Integer portId,
+                                  @RequestParam(defaultValue = "false") boolean all) {
         try {
             List<Warehouse> warehouses;
             if (q != null && !q.trim().isEmpty()) {
                 warehouses = warehouseService.searchWarehouses(q);
-            } else {
+            } else if (all) {
                 warehouses = warehouseService.getAllWarehouses();
+            } else {
+                return ResponseEntity.ok(warehouseService.getWarehousePage(ListQuery.of(after, limit, null, portId, null, null)));
             }
             return ResponseEntity.ok(warehouses);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (SQLException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "数据库错误：" + e.getMessage()));
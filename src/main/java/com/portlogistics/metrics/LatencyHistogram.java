@@ -0,0 +1,99 @@
+package com.portlogistics.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram backed by striped counters, safe to record from many threads.
+ */
+public class LatencyHistogram {
+    // 桶上界（微秒），最后一个桶为 +Inf
+    private static final long[] BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = nanos / 1_000;
+        buckets[bucketIndex(micros)].increment();
+        count.increment();
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    public static long[] getBoundsMicros() {
+        return BOUNDS_MICROS.clone();
+    }
+
+    /** 各桶的非累计计数，长度为 bounds.length + 1。 */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /** 按桶上界估算分位数（微秒），不超过观测到的最大值。 */
+    public long percentileMicros(double quantile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MICROS.length ? Math.min(BOUNDS_MICROS[i], maxMicros.get()) : maxMicros.get();
+            }
+        }
+        return maxMicros.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long n = getCount();
+        snapshot.put("count", n);
+        snapshot.put("meanMicros", n == 0 ? 0 : getSumMicros() / n);
+        snapshot.put("p50Micros", percentileMicros(0.50));
+        snapshot.put("p95Micros", percentileMicros(0.95));
+        snapshot.put("p99Micros", percentileMicros(0.99));
+        snapshot.put("maxMicros", maxMicros.get());
+        return snapshot;
+    }
+
+    private static int bucketIndex(long micros) {
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            if (micros <= BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_MICROS.length;
+    }
+}
@@ -0,0 +1,373 @@
+package com.portlogistics.metrics;
+
+import com.portlogistics.repository.SqlConstants;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide request, SQL and connection metrics, rendered in the Prometheus text format.
+ * Meters are created once (controller methods at startup, SQL statements when first prepared)
+ * and recording only touches striped counters, so the hot path allocates nothing.
+ */
+@Component
+public class MetricsRegistry {
+    // 动态SQL（IN列表长度不同等）按归一化文本合并；超过上限后归入other
+    private static final int MAX_SQL_METERS = 500;
+    private static final int MAX_SQL_ALIASES = 5000;
+    private static final int MAX_LABEL_LENGTH = 160;
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\.\\.\\.\\)(\\s*,\\s*\\(\\?\\.\\.\\.\\))+");
+
+    /**
+     * Counters for one controller method; the request count is the histogram count.
+     */
+    public static final class EndpointMeter {
+        private final String handler;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder asyncStarted = new LongAdder();
+
+        EndpointMeter(String handler) {
+            this.handler = handler;
+        }
+
+        public void record(long nanos, int status) {
+            latency.recordNanos(nanos);
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+
+        // 流式导出、SSE等异步响应：处理方法返回时连接仍在写，只计数不计耗时
+        public void recordAsyncStarted() {
+            asyncStarted.increment();
+        }
+    }
+
+    /**
+     * Execution counters for one SQL statement.
+     */
+    public static final class SqlMeter {
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        SqlMeter(String sql) {
+            this.sql = sql;
+        }
+
+        public void record(long nanos, boolean failed) {
+            latency.recordNanos(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    private record Gauge(String name, String help, LongSupplier value) {
+    }
+
+    private final ApplicationContext context;
+    private final long startedAt = System.currentTimeMillis();
+    private final EndpointMeter unmapped = new EndpointMeter("other");
+    private final SqlMeter otherSql = new SqlMeter("other");
+    // 启动完成后一次性发布，之后只读
+    private volatile Map<Method, EndpointMeter> endpoints = Map.of();
+    private volatile Map<String, String> statementNames = Map.of();
+    // 键为原始SQL或归一化SQL，多个键可能指向同一个计量器
+    private final ConcurrentHashMap<String, SqlMeter> sqlMeters = new ConcurrentHashMap<>();
+    private final LongAdder distinctSql = new LongAdder();
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+    private final LongAdder connectionFailures = new LongAdder();
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    public MetricsRegistry(ApplicationContext context) {
+        this.context = context;
+    }
+
+    // 为每个控制器方法预先注册计量器，并记下各仓库SQL常量的名字
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerMeters() {
+        Map<Method, EndpointMeter> registered = new HashMap<>();
+        for (HandlerMethod handlerMethod : context.getBean(RequestMappingHandlerMapping.class).getHandlerMethods().values()) {
+            Method method = handlerMethod.getMethod();
+            registered.putIfAbsent(method, new EndpointMeter(handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+        }
+        endpoints = registered;
+
+        Map<String, String> names = new HashMap<>();
+        SqlConstants.of(context).forEach((name, sql) -> names.putIfAbsent(normalize(sql), name));
+        statementNames = names;
+        System.out.println("指标注册完成：接口" + registered.size() + "个，SQL常量" + names.size() + "个");
+    }
+
+    // 请求结束时由过滤器调用；handler不是控制器方法（静态资源、404）时记到other
+    public EndpointMeter endpoint(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            EndpointMeter meter = endpoints.get(handlerMethod.getMethod());
+            if (meter != null) {
+                return meter;
+            }
+        }
+        return unmapped;
+    }
+
+    // 语句预编译时调用一次，之后每次执行直接记到返回的计量器上
+    public SqlMeter sqlMeter(String sql) {
+        SqlMeter meter = sqlMeters.get(sql);
+        if (meter != null) {
+            return meter;
+        }
+        String normalized = normalize(sql);
+        meter = sqlMeters.get(normalized);
+        if (meter == null) {
+            if (distinctSql.sum() >= MAX_SQL_METERS) {
+                return otherSql;
+            }
+            meter = sqlMeters.computeIfAbsent(normalized, key -> {
+                distinctSql.increment();
+                return new SqlMeter(key);
+            });
+        }
+        if (sqlMeters.size() < MAX_SQL_ALIASES) {
+            sqlMeters.putIfAbsent(sql, meter);
+        }
+        return meter;
+    }
+
+    public void recordConnectionAcquire(long nanos) {
+        connectionAcquire.recordNanos(nanos);
+    }
+
+    public void recordConnectionFailure() {
+        connectionFailures.increment();
+    }
+
+    // 抓取时才读取的瞬时值（连接池活跃数等）
+    public synchronized void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    /**
+     * Per-endpoint and per-statement latency snapshots, busiest first.
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("uptimeSeconds", (System.currentTimeMillis() - startedAt) / 1000);
+        List<Map<String, Object>> endpointRows = new ArrayList<>();
+        for (EndpointMeter meter : endpointMeters()) {
+            if (meter.latency.getCount() == 0 && meter.asyncStarted.sum() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("handler", meter.handler);
+            row.putAll(meter.latency.snapshot());
+            row.put("clientErrors", meter.clientErrors.sum());
+            row.put("serverErrors", meter.serverErrors.sum());
+            row.put("asyncStarted", meter.asyncStarted.sum());
+            endpointRows.add(row);
+        }
+        endpointRows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+        summary.put("endpoints", endpointRows);
+        List<Map<String, Object>> statementRows = new ArrayList<>();
+        for (SqlMeter meter : sqlMetersInUse()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("statement", statementLabel(meter));
+            row.putAll(meter.latency.snapshot());
+            row.put("errors", meter.errors.sum());
+            statementRows.add(row);
+        }
+        statementRows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+        summary.put("statements", statementRows);
+        Map<String, Object> connections = new LinkedHashMap<>(connectionAcquire.snapshot());
+        connections.put("failures", connectionFailures.sum());
+        summary.put("connectionAcquire", connections);
+        return summary;
+    }
+
+    /**
+     * Prometheus text exposition (version 0.0.4) of every meter plus JVM memory, GC and thread stats.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(64 * 1024);
+        header(out, "http_server_requests_seconds", "histogram", "Request latency per controller method");
+        for (EndpointMeter meter : endpointMeters()) {
+            histogram(out, "http_server_requests_seconds", "handler", meter.handler, meter.latency);
+        }
+        header(out, "http_server_errors_total", "counter", "Responses with a 4xx (client) or 5xx (server) status");
+        for (EndpointMeter meter : endpointMeters()) {
+            sample(out, "http_server_errors_total", "handler=\"" + meter.handler + "\",type=\"client\"", meter.clientErrors.sum());
+            sample(out, "http_server_errors_total", "handler=\"" + meter.handler + "\",type=\"server\"", meter.serverErrors.sum());
+        }
+        header(out, "http_server_async_started_total", "counter", "Streaming or SSE responses handed off to async processing");
+        for (EndpointMeter meter : endpointMeters()) {
+            sample(out, "http_server_async_started_total", "handler=\"" + meter.handler + "\"", meter.asyncStarted.sum());
+        }
+
+        List<SqlMeter> statements = sqlMetersInUse();
+        header(out, "db_statement_seconds", "histogram", "Execution time per SQL statement, excluding result set fetches");
+        for (SqlMeter meter : statements) {
+            histogram(out, "db_statement_seconds", "statement", statementLabel(meter), meter.latency);
+        }
+        header(out, "db_statement_errors_total", "counter", "SQL executions that threw");
+        for (SqlMeter meter : statements) {
+            sample(out, "db_statement_errors_total", "statement=\"" + escape(statementLabel(meter)) + "\"", meter.errors.sum());
+        }
+        header(out, "db_connection_acquire_seconds", "histogram", "Time to obtain a database connection");
+        histogram(out, "db_connection_acquire_seconds", null, null, connectionAcquire);
+        header(out, "db_connection_acquire_failures_total", "counter", "Failed or timed-out connection requests");
+        sample(out, "db_connection_acquire_failures_total", null, connectionFailures.sum());
+        List<Gauge> registeredGauges;
+        synchronized (this) {
+            registeredGauges = new ArrayList<>(gauges);
+        }
+        for (Gauge gauge : registeredGauges) {
+            header(out, gauge.name(), "gauge", gauge.help());
+            sample(out, gauge.name(), null, gauge.value().getAsLong());
+        }
+
+        jvm(out);
+        return out.toString();
+    }
+
+    private void jvm(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(out, "jvm_memory_used_bytes", "gauge", "Used JVM memory");
+        sample(out, "jvm_memory_used_bytes", "area=\"heap\"", heap.getUsed());
+        sample(out, "jvm_memory_used_bytes", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "jvm_memory_committed_bytes", "gauge", "Committed JVM memory");
+        sample(out, "jvm_memory_committed_bytes", "area=\"heap\"", heap.getCommitted());
+        sample(out, "jvm_memory_committed_bytes", "area=\"nonheap\"", nonHeap.getCommitted());
+        header(out, "jvm_memory_max_bytes", "gauge", "Maximum heap size (-1 when undefined)");
+        sample(out, "jvm_memory_max_bytes", "area=\"heap\"", heap.getMax());
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        header(out, "jvm_gc_collections_total", "counter", "GC runs per collector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            sample(out, "jvm_gc_collections_total", "gc=\"" + escape(gc.getName()) + "\"", Math.max(gc.getCollectionCount(), 0));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in GC per collector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            sample(out, "jvm_gc_collection_seconds_total", "gc=\"" + escape(gc.getName()) + "\"",
+                    Math.max(gc.getCollectionTime(), 0) / 1000.0);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        header(out, "jvm_threads_live", "gauge", "Live platform threads");
+        sample(out, "jvm_threads_live", null, threads.getThreadCount());
+        header(out, "jvm_threads_daemon", "gauge", "Live daemon threads");
+        sample(out, "jvm_threads_daemon", null, threads.getDaemonThreadCount());
+        header(out, "jvm_threads_peak", "gauge", "Peak live platform threads");
+        sample(out, "jvm_threads_peak", null, threads.getPeakThreadCount());
+        header(out, "process_uptime_seconds", "gauge", "Time since the application started");
+        sample(out, "process_uptime_seconds", null, (System.currentTimeMillis() - startedAt) / 1000.0);
+        header(out, "system_load_average_1m", "gauge", "System load average over the last minute");
+        sample(out, "system_load_average_1m", null, ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+    }
+
+    private List<EndpointMeter> endpointMeters() {
+        List<EndpointMeter> meters = new ArrayList<>(endpoints.values());
+        meters.sort(Comparator.comparing(meter -> meter.handler));
+        meters.add(unmapped);
+        return meters;
+    }
+
+    // 去掉别名重复，按标签排序
+    private List<SqlMeter> sqlMetersInUse() {
+        Set<SqlMeter> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        unique.addAll(sqlMeters.values());
+        unique.add(otherSql);
+        List<SqlMeter> meters = new ArrayList<>();
+        for (SqlMeter meter : unique) {
+            if (meter.latency.getCount() > 0) {
+                meters.add(meter);
+            }
+        }
+        meters.sort(Comparator.comparing(this::statementLabel));
+        return meters;
+    }
+
+    // 仓库SQL常量显示为“类名.常量名”，拼接出来的SQL显示截断后的文本
+    private String statementLabel(SqlMeter meter) {
+        String name = statementNames.get(meter.sql);
+        if (name != null) {
+            return name;
+        }
+        return meter.sql.length() > MAX_LABEL_LENGTH ? meter.sql.substring(0, MAX_LABEL_LENGTH) + "..." : meter.sql;
+    }
+
+    // 占位符列表和多行VALUES折叠成一项，IN列表长度不同的同一查询归到一起
+    static String normalize(String sql) {
+        String collapsed = PLACEHOLDER_LIST.matcher(sql.trim().replaceAll("\\s+", " ")).replaceAll("?...");
+        return ROW_LIST.matcher(collapsed).replaceAll("(?...)...");
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labelName, String labelValue,
+                                  LatencyHistogram histogram) {
+        String labels = labelName == null ? "" : labelName + "=\"" + escape(labelValue) + "\"";
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long[] bounds = LatencyHistogram.getBoundsMicros();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < bounds.length ? Double.toString(bounds[i] / 1_000_000.0) : "+Inf";
+            sample(out, name + "_bucket", prefix + "le=\"" + le + "\"", cumulative);
+        }
+        // count取各桶之和，保证与+Inf桶一致
+        sample(out, name + "_sum", labels.isEmpty() ? null : labels, histogram.getSumMicros() / 1_000_000.0);
+        sample(out, name + "_count", labels.isEmpty() ? null : labels, cumulative);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,47 @@
+package com.portlogistics.metrics;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every request and records it on the meter of the controller method that handled it.
+ * The handler is read from the request after the dispatcher has run, so the lookup is one
+ * map get on the method registered at startup.
+ */
+@Component
+public class RequestMetricsFilter implements Filter {
+    private final MetricsRegistry metrics;
+
+    public RequestMetricsFilter(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            MetricsRegistry.EndpointMeter meter =
+                    metrics.endpoint(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+            if (request.isAsyncStarted()) {
+                meter.recordAsyncStarted();
+            } else {
+                // 异常抛出到容器时按500计
+                int status = failed ? 500 : ((HttpServletResponse) response).getStatus();
+                meter.record(System.nanoTime() - start, status);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.portlogistics.model;
+
+import java.util.List;
+
+/**
+ * Request body for a berth allocation proposal: explicit voyage plan ids, or every scheduled
+ * voyage without a berth arriving between {@code from} and {@code to}.
+ */
+public class BerthAllocationRequest {
+    private List<Integer> voyagePlanIds;
+    private Integer portId;
+    // yyyy-MM-dd 或 ISO 日期时间；不传时从现在起7天
+    private String from;
+    private String to;
+    private Long timeBudgetMs;
+
+    public List<Integer> getVoyagePlanIds() { return voyagePlanIds; }
+    public void setVoyagePlanIds(List<Integer> voyagePlanIds) { this.voyagePlanIds = voyagePlanIds; }
+
+    public Integer getPortId() { return portId; }
+    public void setPortId(Integer portId) { this.portId = portId; }
+
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+
+    public Long getTimeBudgetMs() { return timeBudgetMs; }
+    public void setTimeBudgetMs(Long timeBudgetMs) { this.timeBudgetMs = timeBudgetMs; }
+}
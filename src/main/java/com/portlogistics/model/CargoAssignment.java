@@ -0,0 +1,31 @@
+package com.portlogistics.model;
+
+import java.util.List;
+
+/**
+ * Request body for assigning many cargo rows to one voyage plan, either by explicit ids or by
+ * a destination/status filter.
+ */
+public class CargoAssignment {
+    private Integer voyagePlanId;
+    private List<Integer> cargoIds;
+    private String destination;
+    private String status;
+    // 按条件分配时默认只挑选尚未分配航次的货物
+    private boolean unassignedOnly = true;
+
+    public Integer getVoyagePlanId() { return voyagePlanId; }
+    public void setVoyagePlanId(Integer voyagePlanId) { this.voyagePlanId = voyagePlanId; }
+
+    public List<Integer> getCargoIds() { return cargoIds; }
+    public void setCargoIds(List<Integer> cargoIds) { this.cargoIds = cargoIds; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public boolean isUnassignedOnly() { return unassignedOnly; }
+    public void setUnassignedOnly(boolean unassignedOnly) { this.unassignedOnly = unassignedOnly; }
+}
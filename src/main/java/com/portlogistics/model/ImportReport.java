@@ -0,0 +1,54 @@
+package com.portlogistics.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-line outcome of a bulk import. Lines are 1-based in the order they were submitted.
+ */
+public class ImportReport {
+
+    public static class Line {
+        private final int line;
+        private final boolean accepted;
+        private final Integer id;
+        private final String error;
+
+        Line(int line, boolean accepted, Integer id, String error) {
+            this.line = line;
+            this.accepted = accepted;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getLine() { return line; }
+
+        public boolean isAccepted() { return accepted; }
+
+        public Integer getId() { return id; }
+
+        public String getError() { return error; }
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private int accepted;
+    private int rejected;
+
+    public void accept(int line, int id) {
+        lines.add(new Line(line, true, id, null));
+        accepted++;
+    }
+
+    public void reject(int line, String error) {
+        lines.add(new Line(line, false, null, error));
+        rejected++;
+    }
+
+    public List<Line> getLines() { return lines; }
+
+    public int getTotal() { return lines.size(); }
+
+    public int getAccepted() { return accepted; }
+
+    public int getRejected() { return rejected; }
+}
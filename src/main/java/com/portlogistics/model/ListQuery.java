@@ -0,0 +1,82 @@
+package com.portlogistics.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset paging and filter parameters shared by the list endpoints.
+ * Each repository applies the filters that exist on its table and ignores the rest.
+ */
+public class ListQuery {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private PageCursor after;
+    private int limit = DEFAULT_LIMIT;
+    private String status;
+    private Integer portId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // 运输任务、货物默认只查热表；为true时连同归档表一起查（历史查询）
+    private boolean includeArchived;
+
+    public ListQuery() {}
+
+    // 解析请求参数；时间支持 yyyy-MM-dd 或 ISO 日期时间，to 为日期时取当天结束（开区间）
+    public static ListQuery of(String after, Integer limit, String status, Integer portId, String from, String to) {
+        ListQuery query = new ListQuery();
+        query.after = PageCursor.decode(after);
+        if (limit != null) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit必须大于0");
+            }
+            query.limit = Math.min(limit, MAX_LIMIT);
+        }
+        query.status = status == null || status.isBlank() ? null : status.trim();
+        query.portId = portId != null && portId > 0 ? portId : null;
+        query.from = parseBound(from, false);
+        query.to = parseBound(to, true);
+        if (query.from != null && query.to != null && query.to.isBefore(query.from)) {
+            throw new IllegalArgumentException("结束时间不能早于开始时间");
+        }
+        return query;
+    }
+
+    private static LocalDateTime parseBound(String value, boolean upper) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                LocalDate date = LocalDate.parse(text);
+                return upper ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("时间格式错误：" + value);
+        }
+    }
+
+    public PageCursor getAfter() { return after; }
+    public void setAfter(PageCursor after) { this.after = after; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getPortId() { return portId; }
+    public void setPortId(Integer portId) { this.portId = portId; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public boolean isIncludeArchived() { return includeArchived; }
+    public void setIncludeArchived(boolean includeArchived) { this.includeArchived = includeArchived; }
+}
@@ -0,0 +1,41 @@
+package com.portlogistics.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key of the last row on a page plus its id as tie-breaker.
+ * Encoded as URL-safe Base64 so clients treat it as a token.
+ */
+public record PageCursor(LocalDateTime sortTime, int id) {
+
+    public static PageCursor ofId(int id) {
+        return new PageCursor(null, id);
+    }
+
+    public String encode() {
+        String raw = sortTime == null
+                ? Integer.toString(id)
+                : sortTime.toEpochSecond(ZoneOffset.UTC) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep < 0) {
+                return ofId(Integer.parseInt(raw));
+            }
+            LocalDateTime time = LocalDateTime.ofEpochSecond(Long.parseLong(raw.substring(0, sep)), 0, ZoneOffset.UTC);
+            return new PageCursor(time, Integer.parseInt(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("分页游标无效：" + token);
+        }
+    }
+}
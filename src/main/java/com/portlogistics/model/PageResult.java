@@ -0,0 +1,26 @@
+package com.portlogistics.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is null on the last page.
+ */
+public class PageResult<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final int limit;
+
+    public PageResult(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public int getLimit() { return limit; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
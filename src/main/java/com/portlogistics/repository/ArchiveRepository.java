@@ -0,0 +1,251 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.config.DatabaseManager;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves closed transport tasks and cargo from the hot tables into the monthly-partitioned,
+ * compressed archive tables, one short transaction per batch, and maintains those partitions:
+ * months are added ahead of the rows being archived and whole months past retention are dropped.
+ */
+@Repository
+public class ArchiveRepository {
+    public static final String TRANSPORT_TASK_ARCHIVE = "transport_task_archive";
+    public static final String CARGO_ARCHIVE = "cargo_archive";
+
+    private static final String TASK_COLUMNS = "task_id, task_number, cargo_id, truck_license, driver_name, driver_phone, "
+            + "pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status, created_at";
+    private static final String CARGO_COLUMNS =
+            "cargo_id, description, weight, destination, voyage_plan_id, warehouse_id, cargo_type, status, created_at";
+    // 按(status, created_at)索引逐个状态取最早的候选行，用来决定要补到哪个月的分区
+    private static final String SELECT_OLDEST_CLOSED_TASK =
+            "SELECT MIN(created_at) FROM transport_task WHERE status = ? AND created_at < ?";
+    private static final String SELECT_OLDEST_CLOSED_CARGO =
+            "SELECT MIN(created_at) FROM cargo WHERE status = ? AND created_at < ?";
+    // 锁定本批要搬的行，提交前状态不会再被改
+    private static final String LOCK_CLOSED_TASKS =
+            "SELECT task_id FROM transport_task WHERE status = ? AND created_at < ? LIMIT ? FOR UPDATE";
+    // 先按快照排除仍被运输任务引用的货物，免得它们一直占着每批的前几行
+    private static final String LOCK_CLOSED_CARGO =
+            "SELECT c.cargo_id FROM cargo c WHERE c.status = ? AND c.created_at < ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM transport_task t WHERE t.cargo_id = c.cargo_id) LIMIT ? FOR UPDATE OF c";
+    private static final String SELECT_PARTITIONS =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                    + "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final List<String> CLOSED_STATUSES = List.of("DELIVERED", "CANCELLED");
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final DatabaseManager databaseManager;
+    private final SearchIndex searchIndex;
+    private final SuggestIndex suggestIndex;
+
+    public ArchiveRepository(DatabaseManager databaseManager, SearchIndex searchIndex, SuggestIndex suggestIndex) {
+        this.databaseManager = databaseManager;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+    }
+
+    // 归档一批运输任务，返回搬走的行数
+    public int archiveTasks(LocalDateTime cutoff, int batchSize) throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> ids = lockCandidates(connection, LOCK_CLOSED_TASKS, cutoff, batchSize);
+                move(connection, "transport_task", TRANSPORT_TASK_ARCHIVE, TASK_COLUMNS, "task_id", ids);
+                connection.commit();
+                return ids.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // 归档一批货物；仍有运输任务（未归档）引用的货物留在热表，删除它会级联删掉那些任务
+    public int archiveCargo(LocalDateTime cutoff, int batchSize) throws SQLException {
+        List<Integer> moved;
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> ids = lockCandidates(connection, LOCK_CLOSED_CARGO, cutoff, batchSize);
+                // 货物行已加排他锁，新任务插入时的外键检查会等本事务结束；这里用加锁读看到已提交的最新任务
+                Set<Integer> referenced = new HashSet<>();
+                if (!ids.isEmpty()) {
+                    String sql = "SELECT DISTINCT cargo_id FROM transport_task WHERE cargo_id IN ("
+                            + placeholders(ids.size()) + ") FOR SHARE";
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        bindIds(statement, ids, 1);
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                referenced.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+                moved = new ArrayList<>(ids);
+                moved.removeIf(referenced::contains);
+                move(connection, "cargo", CARGO_ARCHIVE, CARGO_COLUMNS, "cargo_id", moved);
+                connection.commit();
+                if (moved.size() < ids.size()) {
+                    System.out.println("归档跳过仍有运输任务引用的货物" + (ids.size() - moved.size()) + "条");
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        // 归档的货物不再出现在默认搜索和联想里；统计汇总包含归档表，不用调整
+        for (Integer cargoId : moved) {
+            searchIndex.remove(SearchIndex.Type.CARGO, cargoId);
+            suggestIndex.remove(SuggestIndex.Type.CARGO, cargoId);
+        }
+        return moved.size();
+    }
+
+    // 每种状态各取一部分，合计不超过batchSize
+    private static List<Integer> lockCandidates(Connection connection, String sql, LocalDateTime cutoff,
+                                                int batchSize) throws SQLException {
+        List<Integer> ids = new ArrayList<>(batchSize);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (String status : CLOSED_STATUSES) {
+                if (ids.size() >= batchSize) {
+                    break;
+                }
+                statement.setString(1, status);
+                statement.setTimestamp(2, Timestamp.valueOf(cutoff));
+                statement.setInt(3, batchSize - ids.size());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void move(Connection connection, String table, String archive, String columns, String idColumn,
+                             List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String in = " WHERE " + idColumn + " IN (" + placeholders(ids.size()) + ")";
+        try (PreparedStatement copy = connection.prepareStatement(
+                "INSERT INTO " + archive + " (" + columns + ") SELECT " + columns + " FROM " + table + in);
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + in)) {
+            bindIds(copy, ids, 1);
+            copy.executeUpdate();
+            bindIds(delete, ids, 1);
+            delete.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds monthly partitions to the archive table until rows created before the cutoff fit.
+     * The first added partition also covers everything from its predecessor's bound up to the
+     * month of the oldest row waiting to be archived. Returns the names of added partitions.
+     */
+    public List<String> ensurePartitions(String archive, LocalDateTime cutoff) throws SQLException {
+        String oldestSql = TRANSPORT_TASK_ARCHIVE.equals(archive) ? SELECT_OLDEST_CLOSED_TASK : SELECT_OLDEST_CLOSED_CARGO;
+        List<String> added = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection()) {
+            LocalDateTime oldest = null;
+            try (PreparedStatement statement = connection.prepareStatement(oldestSql)) {
+                for (String status : CLOSED_STATUSES) {
+                    statement.setString(1, status);
+                    statement.setTimestamp(2, Timestamp.valueOf(cutoff));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        Timestamp min = rs.next() ? rs.getTimestamp(1) : null;
+                        if (min != null && (oldest == null || min.toLocalDateTime().isBefore(oldest))) {
+                            oldest = min.toLocalDateTime();
+                        }
+                    }
+                }
+            }
+            if (oldest == null) {
+                return added;
+            }
+            List<Partition> partitions = partitions(connection, archive);
+            LocalDate bound = partitions.get(partitions.size() - 1).bound();
+            LocalDate needed = cutoff.toLocalDate().withDayOfMonth(1).plusMonths(1);
+            LocalDate oldestMonth = oldest.toLocalDate().withDayOfMonth(1);
+            try (Statement statement = connection.createStatement()) {
+                while (bound.isBefore(needed)) {
+                    bound = bound.isBefore(oldestMonth) ? oldestMonth.plusMonths(1) : bound.plusMonths(1);
+                    String name = bound.minusMonths(1).format(PARTITION_NAME);
+                    statement.execute("ALTER TABLE " + archive + " ADD PARTITION (PARTITION " + name
+                            + " VALUES LESS THAN ('" + bound + "'))");
+                    added.add(name);
+                }
+            }
+        }
+        return added;
+    }
+
+    // 删除整月都早于keepFrom的分区（元数据操作，不逐行删除）；至少保留最后一个分区
+    public List<String> dropPartitionsBefore(String archive, LocalDate keepFrom) throws SQLException {
+        List<String> dropped = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection()) {
+            List<Partition> partitions = partitions(connection, archive);
+            for (Partition partition : partitions.subList(0, partitions.size() - 1)) {
+                if (!partition.bound().isAfter(keepFrom)) {
+                    dropped.add(partition.name());
+                }
+            }
+            if (!dropped.isEmpty()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ALTER TABLE " + archive + " DROP PARTITION " + String.join(", ", dropped));
+                }
+            }
+        }
+        return dropped;
+    }
+
+    private record Partition(String name, LocalDate bound) {
+    }
+
+    // PARTITION_DESCRIPTION形如 '2026-11-01'（带引号，DATETIME列可能带时间部分）
+    private static List<Partition> partitions(Connection connection, String archive) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_PARTITIONS)) {
+            statement.setString(1, archive);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String description = rs.getString(2).replace("'", "").trim();
+                    partitions.add(new Partition(rs.getString(1), LocalDate.parse(description.substring(0, 10))));
+                }
+            }
+        }
+        if (partitions.isEmpty()) {
+            throw new SQLException(archive + "不是分区表，请先执行迁移V2__archive_tables.sql");
+        }
+        return partitions;
+    }
+
+    private static void bindIds(PreparedStatement statement, List<Integer> ids, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (Integer id : ids) {
+            statement.setInt(index++, id);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
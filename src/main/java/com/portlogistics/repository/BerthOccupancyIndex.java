@@ -0,0 +1,141 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.BerthSchedule;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of berth occupancy, one interval tree per (port, berth number).
+ * Kept in sync by {@link BerthScheduleRepository}; the database check inside the write
+ * transaction stays the final authority in case the index is stale.
+ */
+@Component
+public class BerthOccupancyIndex {
+    private static final String CANCELLED = "CANCELLED";
+
+    private record BerthKey(int portId, String berthNumber) {
+    }
+
+    private record Entry(BerthKey key, IntervalTree.Interval interval) {
+    }
+
+    private final Map<BerthKey, IntervalTree> trees = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 全量重建（启动时从数据库加载）
+    synchronized void replaceAll(Collection<BerthSchedule> schedules) {
+        trees.clear();
+        entries.clear();
+        for (BerthSchedule schedule : schedules) {
+            add(schedule);
+        }
+        loaded = true;
+    }
+
+    // 插入或替换一条排程；取消或没有到港时间的排程不占用泊位
+    synchronized void put(BerthSchedule schedule) {
+        removeEntry(schedule.getId());
+        add(schedule);
+    }
+
+    synchronized void remove(int scheduleId) {
+        removeEntry(scheduleId);
+    }
+
+    // 索引失效时退回SQL检查，直到下次重建
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Same semantics as the SQL conflict check: an open departure on an existing booking
+     * occupies the berth indefinitely, an open departure on the request means ten years.
+     */
+    public boolean hasConflict(int portId, String berthNumber, LocalDateTime arrivalTime,
+                               LocalDateTime departureTime, int excludeId) {
+        IntervalTree tree = trees.get(new BerthKey(normalizePort(portId), berthNumber));
+        if (tree == null) {
+            return false;
+        }
+        long from = toEpochSecond(arrivalTime);
+        long to = toEpochSecond(departureTime != null ? departureTime : LocalDateTime.now().plusYears(10));
+        synchronized (tree) {
+            return tree.findOverlap(from, to, excludeId) >= 0;
+        }
+    }
+
+    // 某港口各泊位与[from, to)重叠的占用区间，按泊位号分组、按开始时间排序
+    Map<String, List<IntervalTree.Interval>> overlapsByBerth(int portId, LocalDateTime from, LocalDateTime to) {
+        int port = normalizePort(portId);
+        long start = toEpochSecond(from);
+        long end = toEpochSecond(to);
+        Map<String, List<IntervalTree.Interval>> result = new HashMap<>();
+        trees.forEach((key, tree) -> {
+            if (key.portId() != port) {
+                return;
+            }
+            List<IntervalTree.Interval> overlaps = new ArrayList<>();
+            synchronized (tree) {
+                tree.collectOverlaps(start, end, overlaps);
+            }
+            if (!overlaps.isEmpty()) {
+                result.put(key.berthNumber(), overlaps);
+            }
+        });
+        return result;
+    }
+
+    private void add(BerthSchedule schedule) {
+        if (schedule.getArrivalTime() == null || CANCELLED.equalsIgnoreCase(schedule.getStatus())) {
+            return;
+        }
+        BerthKey key = new BerthKey(normalizePort(schedule.getPortId()), schedule.getBerthNumber());
+        long start = toEpochSecond(schedule.getArrivalTime());
+        long end = schedule.getDepartureTime() != null ? toEpochSecond(schedule.getDepartureTime()) : Long.MAX_VALUE;
+        IntervalTree.Interval interval = new IntervalTree.Interval(schedule.getId(), start, end);
+        IntervalTree tree = trees.computeIfAbsent(key, k -> new IntervalTree());
+        synchronized (tree) {
+            tree.insert(interval);
+        }
+        entries.put(schedule.getId(), new Entry(key, interval));
+    }
+
+    private void removeEntry(int scheduleId) {
+        Entry entry = entries.remove(scheduleId);
+        if (entry == null) {
+            return;
+        }
+        IntervalTree tree = trees.get(entry.key());
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(scheduleId, entry.interval().start());
+            }
+        }
+    }
+
+    // 与仓库层保持一致：未指定港口时落到1号港口
+    private static int normalizePort(int portId) {
+        return portId > 0 ? portId : 1;
+    }
+
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
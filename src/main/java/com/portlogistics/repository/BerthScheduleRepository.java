@@ -2,22 +2,43 @@ package com.portlogistics.repository;
 
 import com.portlogistics.config.DatabaseManager;
 import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Repository
 public class BerthScheduleRepository {
     private final DatabaseManager databaseManager;
+    private final BerthOccupancyIndex occupancyIndex;
+    private final ShipRepository shipRepository;
+    private final PortRepository portRepository;
+    private final TableVersions tableVersions;
 
-    // SQL常量（使用新的berth表，current_vessel_id代替ship_id，包含port_id、港口名称和船舶名称）
+    // 死锁被InnoDB回滚时整笔预订重试的次数上限
+    private static final int MAX_BOOKING_ATTEMPTS = 3;
+    // 批量导入每次executeBatch的行数（配合rewriteBatchedStatements合并成多值INSERT）
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // SQL常量（使用新的berth表，current_vessel_id代替ship_id；港口名称和船舶名称从引用数据缓存填充，不再JOIN）
     private static final String INSERT = "INSERT INTO berth (berth_number, port_id, current_vessel_id, arrival_time, departure_time, status) VALUES (?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_UPCOMING = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, p.port_name, s.name as ship_name, b.berth_number, b.arrival_time, b.departure_time, b.status " +
-            "FROM berth b LEFT JOIN port p ON b.port_id = p.port_id LEFT JOIN ship s ON b.current_vessel_id = s.ship_id " +
+    private static final String SELECT_UPCOMING = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, b.berth_number, b.arrival_time, b.departure_time, b.status " +
+            "FROM berth b " +
             "WHERE b.arrival_time > NOW() AND b.status NOT IN ('CANCELLED') ORDER BY b.arrival_time LIMIT 20";
     private static final String SELECT_CONFLICTS = "SELECT berth_id FROM berth " +
             "WHERE berth_number = ? " +
@@ -25,15 +46,42 @@ public class BerthScheduleRepository {
             "AND status NOT IN ('CANCELLED') " +
             "AND arrival_time < ? " +
             "AND (departure_time IS NULL OR departure_time > ?)";
-    private static final String SELECT_BY_DATE = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, p.port_name, s.name as ship_name, b.berth_number, b.arrival_time, b.departure_time, b.status " +
-            "FROM berth b LEFT JOIN port p ON b.port_id = p.port_id LEFT JOIN ship s ON b.current_vessel_id = s.ship_id " +
-            "WHERE DATE(b.arrival_time) = ? " +
+    // 按天查询写成到港时间的半开区间：DATE(arrival_time) = ? 对每行求值，用不上arrival_time上的索引
+    private static final String SELECT_BY_DATE = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, b.berth_number, b.arrival_time, b.departure_time, b.status " +
+            "FROM berth b " +
+            "WHERE b.arrival_time >= ? AND b.arrival_time < ? " +
             "ORDER BY b.arrival_time";
     private static final String UPDATE_STATUS = "UPDATE berth SET status = ? WHERE berth_id = ?";
-    private static final String SELECT_ALL = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, p.port_name, s.name as ship_name, b.berth_number, b.arrival_time, b.departure_time, b.status " +
-            "FROM berth b LEFT JOIN port p ON b.port_id = p.port_id LEFT JOIN ship s ON b.current_vessel_id = s.ship_id ORDER BY b.berth_id";
+    private static final String SELECT_BASE = "SELECT b.berth_id, b.current_vessel_id as ship_id, b.port_id, b.berth_number, b.arrival_time, b.departure_time, b.status " +
+            "FROM berth b";
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY b.berth_id";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY b.berth_id DESC LIMIT ?";
     private static final String UPDATE = "UPDATE berth SET current_vessel_id = ?, berth_number = ?, port_id = ?, arrival_time = ?, departure_time = ?, status = ? WHERE berth_id = ?";
     private static final String DELETE = "DELETE FROM berth WHERE berth_id = ?";
+    // 占用索引加载：只取参与冲突判断的字段
+    private static final String SELECT_OCCUPANCY = "SELECT berth_id, current_vessel_id as ship_id, port_id, berth_number, arrival_time, departure_time, status " +
+            "FROM berth WHERE arrival_time IS NOT NULL AND status NOT IN ('CANCELLED')";
+    private static final String SELECT_OCCUPANCY_BY_ID = "SELECT berth_id, current_vessel_id as ship_id, port_id, berth_number, arrival_time, departure_time, status " +
+            "FROM berth WHERE berth_id = ?";
+    // 批量导入：一次取出某泊位在导入时间范围内的全部有效预订
+    private static final String SELECT_BOOKINGS_IN_RANGE = "SELECT berth_id, arrival_time, departure_time FROM berth " +
+            "WHERE port_id = ? " +
+            "AND berth_number = ? " +
+            "AND status NOT IN ('CANCELLED') " +
+            "AND arrival_time < ? " +
+            "AND (departure_time IS NULL OR departure_time > ?)";
+    // 泊位分配：各港口的泊位号及其记录过的最大船长/吃水限制
+    private static final String SELECT_BERTH_SPECS = "SELECT port_id, berth_number, MAX(max_length) AS max_length, MAX(max_draft) AS max_draft " +
+            "FROM berth WHERE port_id IN (";
+    private static final String SELECT_PORT_OCCUPANCY = "SELECT berth_id, berth_number, arrival_time, departure_time FROM berth " +
+            "WHERE port_id = ? " +
+            "AND status NOT IN ('CANCELLED') " +
+            "AND arrival_time < ? " +
+            "AND (departure_time IS NULL OR departure_time > ?) " +
+            "ORDER BY arrival_time";
+    // 泊位锁行：先锁(港口, 泊位号)对应的行，再做冲突复查和写入
+    private static final String SELECT_BERTH_LOCK = "SELECT port_id FROM berth_lock WHERE port_id = ? AND berth_number = ? FOR UPDATE";
+    private static final String INSERT_BERTH_LOCK = "INSERT IGNORE INTO berth_lock (port_id, berth_number) VALUES (?, ?)";
     private static final String SELECT_CONFLICTS_EXCLUDING_SELF = "SELECT berth_id FROM berth " +
             "WHERE berth_number = ? " +
             "AND port_id = ? " +
@@ -42,53 +90,387 @@ public class BerthScheduleRepository {
             "AND arrival_time < ? " +
             "AND (departure_time IS NULL OR departure_time > ?)";
 
-    // 构造器注入DatabaseManager
-    public BerthScheduleRepository(DatabaseManager databaseManager) {
+    // 构造器注入DatabaseManager、内存占用索引，以及提供名称缓存的船舶/港口仓库
+    public BerthScheduleRepository(DatabaseManager databaseManager, BerthOccupancyIndex occupancyIndex,
+                                   ShipRepository shipRepository, PortRepository portRepository,
+                                   TableVersions tableVersions) {
         this.databaseManager = databaseManager;
+        this.occupancyIndex = occupancyIndex;
+        this.shipRepository = shipRepository;
+        this.portRepository = portRepository;
+        this.tableVersions = tableVersions;
     }
 
-    // 保存排程
-    public void save(BerthSchedule schedule) throws SQLException {
-        System.out.println("Repository save方法执行，参数：" + schedule);
+    // 启动完成后把未取消的排程加载进内存索引；加载失败时冲突检测退回SQL
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOccupancyIndex() {
+        List<BerthSchedule> schedules = new ArrayList<>();
         try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT)) {
-            // 参数顺序：berth_number, port_id, current_vessel_id, arrival_time, departure_time, status
-            stmt.setString(1, schedule.getBerthNumber());           // berth_number
-            stmt.setInt(2, schedule.getPortId() > 0 ? schedule.getPortId() : 1); // port_id，默认1
-            // current_vessel_id 可以为空
-            if (schedule.getShipId() > 0) {
-                stmt.setInt(3, schedule.getShipId());
-            } else {
-                stmt.setNull(3, java.sql.Types.INTEGER);
-            }
-            // arrival_time 可以为空
-            if (schedule.getArrivalTime() != null) {
-                stmt.setTimestamp(4, Timestamp.valueOf(schedule.getArrivalTime()));
-            } else {
-                stmt.setNull(4, java.sql.Types.TIMESTAMP);
+             PreparedStatement stmt = conn.prepareStatement(SELECT_OCCUPANCY);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                schedules.add(mapRow(rs));
             }
-            stmt.setTimestamp(5, schedule.getDepartureTime() != null ? Timestamp.valueOf(schedule.getDepartureTime()) : null); // departure_time
-            stmt.setString(6, schedule.getStatus() != null ? schedule.getStatus() : "AVAILABLE"); // status
+            occupancyIndex.replaceAll(schedules);
+            System.out.println("泊位占用索引加载完成，排程数：" + occupancyIndex.size());
+        } catch (SQLException e) {
+            occupancyIndex.invalidate();
+            System.out.println("泊位占用索引加载失败，冲突检测改走数据库：" + e.getMessage());
+        }
+    }
 
-            int affectedRows = stmt.executeUpdate();
-            System.out.println("Repository执行影响行数：" + affectedRows);
+    // 保存排程：在泊位锁保护下冲突复查+插入，返回新排程ID；存在冲突时回滚并返回-1
+    public int save(BerthSchedule schedule) throws SQLException {
+        System.out.println("Repository save方法执行，参数：" + schedule);
+        int generatedId;
+        try {
+            generatedId = bookAtomically(schedule, 0, conn -> insert(conn, schedule));
         } catch (SQLException e) {
             System.out.println("Repository save报错：" + e.getMessage());
             throw e;
         }
+        if (generatedId < 0) {
+            return -1;
+        }
+        occupancyIndex.put(normalized(generatedId, schedule));
+        tableVersions.bump(TableVersions.BERTH);
+        return generatedId;
+    }
+
+    @FunctionalInterface
+    private interface BookingWrite {
+        int apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Runs the conflict re-check and the write as one transaction while holding the
+     * berth_lock row for the target (port, berth), so concurrent bookings of the same berth
+     * are serialised and cannot both pass the check. Returns -1 on conflict.
+     */
+    private int bookAtomically(BerthSchedule schedule, int excludeId, BookingWrite write) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = databaseManager.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (schedule.getArrivalTime() != null) {
+                        lockBerth(conn, schedule.getPortId(), schedule.getBerthNumber());
+                        // 锁到手之后才做第一次普通读，REPEATABLE READ的快照能看到前一个持锁者已提交的预订
+                        if (conflictExists(conn, excludeId, schedule.getBerthNumber(), schedule.getPortId(),
+                                schedule.getArrivalTime(), schedule.getDepartureTime())) {
+                            conn.rollback();
+                            return -1;
+                        }
+                    }
+                    int id = write.apply(conn);
+                    conn.commit();
+                    return id;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (attempt < MAX_BOOKING_ATTEMPTS && isDeadlock(e)) {
+                        continue;
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // 锁行已存在时直接加排他锁；首次预订的泊位先补一行再加锁
+    // （不先INSERT IGNORE：重复键会拿共享锁，两个事务同时升级排他锁会死锁）
+    private void lockBerth(Connection conn, int portId, String berthNumber) throws SQLException {
+        int lockPortId = portId > 0 ? portId : 1;
+        if (selectBerthLock(conn, lockPortId, berthNumber)) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_BERTH_LOCK)) {
+            stmt.setInt(1, lockPortId);
+            stmt.setString(2, berthNumber);
+            stmt.executeUpdate();
+        }
+        selectBerthLock(conn, lockPortId, berthNumber);
     }
 
-    // 泊位冲突检测
+    private boolean selectBerthLock(Connection conn, int portId, String berthNumber) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_BERTH_LOCK)) {
+            stmt.setInt(1, portId);
+            stmt.setString(2, berthNumber);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // 40001 / 1213：InnoDB检测到死锁并回滚了本事务
+    private static boolean isDeadlock(SQLException e) {
+        return "40001".equals(e.getSQLState()) || e.getErrorCode() == 1213;
+    }
+
+    // 与写入SQL一致的默认值，写入成功后用于更新内存索引
+    private static BerthSchedule normalized(int id, BerthSchedule schedule) {
+        return new BerthSchedule(id, schedule.getShipId(),
+                schedule.getPortId() > 0 ? schedule.getPortId() : 1, schedule.getBerthNumber(),
+                schedule.getArrivalTime(), schedule.getDepartureTime(),
+                schedule.getStatus() != null ? schedule.getStatus() : "AVAILABLE");
+    }
+
+    private int insert(Connection conn, BerthSchedule schedule) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(stmt, schedule);
+            int affectedRows = stmt.executeUpdate();
+            System.out.println("Repository执行影响行数：" + affectedRows);
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("插入排程未返回主键");
+                }
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, BerthSchedule schedule) throws SQLException {
+        // 参数顺序：berth_number, port_id, current_vessel_id, arrival_time, departure_time, status
+        stmt.setString(1, schedule.getBerthNumber());           // berth_number
+        stmt.setInt(2, schedule.getPortId() > 0 ? schedule.getPortId() : 1); // port_id，默认1
+        // current_vessel_id 可以为空
+        if (schedule.getShipId() > 0) {
+            stmt.setInt(3, schedule.getShipId());
+        } else {
+            stmt.setNull(3, java.sql.Types.INTEGER);
+        }
+        // arrival_time 可以为空
+        if (schedule.getArrivalTime() != null) {
+            stmt.setTimestamp(4, Timestamp.valueOf(schedule.getArrivalTime()));
+        } else {
+            stmt.setNull(4, java.sql.Types.TIMESTAMP);
+        }
+        stmt.setTimestamp(5, schedule.getDepartureTime() != null ? Timestamp.valueOf(schedule.getDepartureTime()) : null); // departure_time
+        stmt.setString(6, schedule.getStatus() != null ? schedule.getStatus() : "AVAILABLE"); // status
+    }
+
+    private record BerthSlot(int portId, String berthNumber) implements Comparable<BerthSlot> {
+        @Override
+        public int compareTo(BerthSlot other) {
+            int byPort = Integer.compare(portId, other.portId);
+            return byPort != 0 ? byPort : berthNumber.compareTo(other.berthNumber);
+        }
+    }
+
+    /**
+     * Bulk insert for schedules that are already valid and free of overlaps among themselves.
+     * Each berth is locked (in a fixed order, so concurrent imports cannot deadlock) and checked
+     * against existing bookings with one range query; the survivors go in as JDBC batches, all
+     * in one transaction. Returns the generated id per input position, or null where the row
+     * collided with an existing booking.
+     */
+    public List<Integer> saveAllIfFree(List<BerthSchedule> schedules) throws SQLException {
+        TreeMap<BerthSlot, List<Integer>> groups = new TreeMap<>();
+        for (int i = 0; i < schedules.size(); i++) {
+            BerthSchedule schedule = schedules.get(i);
+            BerthSlot slot = new BerthSlot(schedule.getPortId() > 0 ? schedule.getPortId() : 1, schedule.getBerthNumber());
+            groups.computeIfAbsent(slot, k -> new ArrayList<>()).add(i);
+        }
+        Integer[] ids = new Integer[schedules.size()];
+        List<Integer> survivors = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<BerthSlot, List<Integer>> group : groups.entrySet()) {
+                    BerthSlot slot = group.getKey();
+                    lockBerth(conn, slot.portId(), slot.berthNumber());
+                    IntervalTree booked = loadBookings(conn, slot, schedules, group.getValue());
+                    for (int index : group.getValue()) {
+                        BerthSchedule schedule = schedules.get(index);
+                        long start = BerthOccupancyIndex.toEpochSecond(schedule.getArrivalTime());
+                        long end = BerthOccupancyIndex.toEpochSecond(requestEnd(schedule.getDepartureTime()));
+                        if (booked.findOverlap(start, end, 0) < 0) {
+                            survivors.add(index);
+                        }
+                    }
+                }
+                insertBatch(conn, schedules, survivors, ids);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        for (int index : survivors) {
+            occupancyIndex.put(normalized(ids[index], schedules.get(index)));
+        }
+        if (!survivors.isEmpty()) {
+            tableVersions.bump(TableVersions.BERTH);
+        }
+        return Arrays.asList(ids);
+    }
+
+    // 取出与本组导入时间范围相交的已有预订，建成区间树供逐行比对
+    private IntervalTree loadBookings(Connection conn, BerthSlot slot, List<BerthSchedule> schedules,
+                                      List<Integer> indexes) throws SQLException {
+        LocalDateTime from = null;
+        LocalDateTime until = null;
+        for (int index : indexes) {
+            BerthSchedule schedule = schedules.get(index);
+            LocalDateTime end = requestEnd(schedule.getDepartureTime());
+            if (from == null || schedule.getArrivalTime().isBefore(from)) {
+                from = schedule.getArrivalTime();
+            }
+            if (until == null || end.isAfter(until)) {
+                until = end;
+            }
+        }
+        IntervalTree tree = new IntervalTree();
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_BOOKINGS_IN_RANGE)) {
+            stmt.setInt(1, slot.portId());
+            stmt.setString(2, slot.berthNumber());
+            stmt.setTimestamp(3, Timestamp.valueOf(until));
+            stmt.setTimestamp(4, Timestamp.valueOf(from));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp departure = rs.getTimestamp("departure_time");
+                    tree.insert(new IntervalTree.Interval(rs.getInt("berth_id"),
+                            BerthOccupancyIndex.toEpochSecond(rs.getTimestamp("arrival_time").toLocalDateTime()),
+                            departure != null ? BerthOccupancyIndex.toEpochSecond(departure.toLocalDateTime()) : Long.MAX_VALUE));
+                }
+            }
+        }
+        return tree;
+    }
+
+    private void insertBatch(Connection conn, List<BerthSchedule> schedules, List<Integer> indexes,
+                             Integer[] ids) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < indexes.size(); from += IMPORT_BATCH_SIZE) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + IMPORT_BATCH_SIZE, indexes.size()));
+                for (int index : chunk) {
+                    bindInsert(stmt, schedules.get(index));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                // 生成的主键与addBatch的顺序一致
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    for (int index : chunk) {
+                        if (!keys.next()) {
+                            throw new SQLException("批量插入排程未返回全部主键");
+                        }
+                        ids[index] = keys.getInt(1);
+                    }
+                }
+            }
+        }
+    }
+
+    // 与SQL冲突检查一致：未填离港时间的申请按占用十年计算
+    private static LocalDateTime requestEnd(LocalDateTime departureTime) {
+        return departureTime != null ? departureTime : LocalDateTime.now().plusYears(10);
+    }
+
+    // 泊位冲突检测：索引已加载时走内存区间树，否则查数据库
     public boolean hasConflict(String berthNumber, int portId, LocalDateTime arrivalTime, LocalDateTime departureTime) throws SQLException {
+        if (occupancyIndex.isLoaded()) {
+            return occupancyIndex.hasConflict(portId, berthNumber, arrivalTime, departureTime, 0);
+        }
+        try (Connection conn = databaseManager.getConnection()) {
+            return conflictExists(conn, 0, berthNumber, portId, arrivalTime, departureTime);
+        }
+    }
+
+    /**
+     * A physical berth of a port as the allocator sees it: the largest length and draft limits
+     * recorded on any of its rows, null when none is recorded (no limit).
+     */
+    public record BerthSpec(int portId, String berthNumber, Double maxLength, Double maxDraft) {
+    }
+
+    /**
+     * One existing booking; {@code end} is null when the departure is still open.
+     */
+    public record Occupancy(int scheduleId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    public List<BerthSpec> findBerthSpecs(Collection<Integer> portIds) throws SQLException {
+        List<BerthSpec> specs = new ArrayList<>();
+        if (portIds.isEmpty()) {
+            return specs;
+        }
+        String sql = SELECT_BERTH_SPECS + String.join(", ", Collections.nCopies(portIds.size(), "?"))
+                + ") GROUP BY port_id, berth_number ORDER BY port_id, berth_number";
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Integer portId : portIds) {
+                stmt.setInt(index++, portId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    double maxLength = rs.getDouble("max_length");
+                    Double length = rs.wasNull() ? null : maxLength;
+                    double maxDraft = rs.getDouble("max_draft");
+                    Double draft = rs.wasNull() ? null : maxDraft;
+                    specs.add(new BerthSpec(rs.getInt("port_id"), rs.getString("berth_number"), length, draft));
+                }
+            }
+        }
+        return specs;
+    }
+
+    // 某港口各泊位在[from, to)内的已有占用，按泊位号分组；索引已加载时不查库
+    public Map<String, List<Occupancy>> findOccupancy(int portId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        Map<String, List<Occupancy>> occupancy = new HashMap<>();
+        if (occupancyIndex.isLoaded()) {
+            occupancyIndex.overlapsByBerth(portId, from, to).forEach((berthNumber, intervals) -> {
+                List<Occupancy> list = new ArrayList<>(intervals.size());
+                for (IntervalTree.Interval interval : intervals) {
+                    list.add(new Occupancy(interval.id(), LocalDateTime.ofEpochSecond(interval.start(), 0, ZoneOffset.UTC),
+                            interval.end() == Long.MAX_VALUE ? null
+                                    : LocalDateTime.ofEpochSecond(interval.end(), 0, ZoneOffset.UTC)));
+                }
+                occupancy.put(berthNumber, list);
+            });
+            return occupancy;
+        }
         try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_CONFLICTS)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PORT_OCCUPANCY)) {
+            stmt.setInt(1, portId > 0 ? portId : 1);
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            stmt.setTimestamp(3, Timestamp.valueOf(from));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp departure = rs.getTimestamp("departure_time");
+                    occupancy.computeIfAbsent(rs.getString("berth_number"), k -> new ArrayList<>())
+                            .add(new Occupancy(rs.getInt("berth_id"), rs.getTimestamp("arrival_time").toLocalDateTime(),
+                                    departure != null ? departure.toLocalDateTime() : null));
+                }
+            }
+        }
+        return occupancy;
+    }
+
+    // 数据库冲突检测，scheduleId > 0 时排除自身
+    private boolean conflictExists(Connection conn, int scheduleId, String berthNumber, int portId,
+                                   LocalDateTime arrivalTime, LocalDateTime departureTime) throws SQLException {
+        // 冲突条件：当前排程的到达时间 < 已有排程的离开时间，且当前排程的离开时间 > 已有排程的到达时间
+        Timestamp until = Timestamp.valueOf(departureTime != null ? departureTime : LocalDateTime.now().plusYears(10));
+        if (scheduleId > 0) {
+            try (PreparedStatement stmt = conn.prepareStatement(SELECT_CONFLICTS_EXCLUDING_SELF)) {
+                stmt.setString(1, berthNumber);
+                stmt.setInt(2, portId > 0 ? portId : 1);
+                stmt.setInt(3, scheduleId);
+                stmt.setTimestamp(4, until);
+                stmt.setTimestamp(5, Timestamp.valueOf(arrivalTime));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_CONFLICTS)) {
             stmt.setString(1, berthNumber);
             stmt.setInt(2, portId > 0 ? portId : 1);
-            // 冲突条件：当前排程的到达时间 < 已有排程的离开时间，且当前排程的离开时间 > 已有排程的到达时间
-            stmt.setTimestamp(3, Timestamp.valueOf(departureTime != null ? departureTime : LocalDateTime.now().plusYears(10)));
+            stmt.setTimestamp(3, until);
             stmt.setTimestamp(4, Timestamp.valueOf(arrivalTime));
             // 若查询到结果，说明存在冲突
-            return stmt.executeQuery().next();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
         }
     }
 
@@ -97,22 +479,45 @@ public class BerthScheduleRepository {
         List<BerthSchedule> schedules = new ArrayList<>();
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_DATE)) {
-            stmt.setDate(1, Date.valueOf(date));
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                schedules.add(mapRow(rs));
+            stmt.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapRow(rs));
+                }
             }
         }
-        return schedules;
+        return withNames(schedules);
     }
 
-    // 更新排程状态
+    // 更新排程状态，并同步内存索引（取消即释放占用）
     public void updateStatus(int berthScheduleId, String newStatus) throws SQLException {
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS)) {
-            stmt.setString(1, newStatus);
-            stmt.setInt(2, berthScheduleId);
-            stmt.executeUpdate();
+        try (Connection conn = databaseManager.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS)) {
+                stmt.setString(1, newStatus);
+                stmt.setInt(2, berthScheduleId);
+                stmt.executeUpdate();
+            }
+            refreshIndexEntry(conn, berthScheduleId);
+        } finally {
+            tableVersions.bump(TableVersions.BERTH);
+        }
+    }
+
+    // 按数据库中的当前行刷新索引条目；刷新失败则让索引失效，避免用过期数据判冲突
+    private void refreshIndexEntry(Connection conn, int scheduleId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_OCCUPANCY_BY_ID)) {
+            stmt.setInt(1, scheduleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    occupancyIndex.put(mapRow(rs));
+                } else {
+                    occupancyIndex.remove(scheduleId);
+                }
+            }
+        } catch (SQLException e) {
+            occupancyIndex.invalidate();
+            throw e;
         }
     }
 
@@ -126,7 +531,7 @@ public class BerthScheduleRepository {
                 schedules.add(mapRow(rs));
             }
         }
-        return schedules;
+        return withNames(schedules);
     }
 
     // 查询所有排程（供前端表格加载）
@@ -139,7 +544,55 @@ public class BerthScheduleRepository {
                 schedules.add(mapRow(rs));
             }
         }
-        return schedules;
+        return withNames(schedules);
+    }
+
+    // 最近新增的前N条（总览页用）
+    public List<BerthSchedule> findRecent(int limit) throws SQLException {
+        List<BerthSchedule> schedules = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RECENT)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapRow(rs));
+                }
+            }
+        }
+        return withNames(schedules);
+    }
+
+    // 分页查询排程（按berth_id游标，可按状态、港口、到港时间范围过滤）
+    public PageResult<BerthSchedule> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = new KeysetQuery(SELECT_BASE);
+        if (query.getStatus() != null) {
+            keyset.where("b.status = ?", query.getStatus());
+        }
+        if (query.getPortId() != null) {
+            keyset.where("b.port_id = ?", query.getPortId());
+        }
+        if (query.getFrom() != null) {
+            keyset.where("b.arrival_time >= ?", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            keyset.where("b.arrival_time < ?", query.getTo());
+        }
+        if (query.getAfter() != null) {
+            keyset.where("b.berth_id > ?", query.getAfter().id());
+        }
+        keyset.orderByLimit("b.berth_id", query.getLimit());
+
+        List<BerthSchedule> schedules = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keyset.sql())) {
+            keyset.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapRow(rs));
+                }
+            }
+        }
+        return KeysetQuery.toPage(withNames(schedules), query.getLimit(), schedule -> PageCursor.ofId(schedule.getId()));
     }
 
     // 结果集映射：将数据库查询结果转为BerthSchedule实体
@@ -155,26 +608,55 @@ public class BerthScheduleRepository {
                 departureTs != null ? departureTs.toLocalDateTime() : null,
                 rs.getString("status")
         );
-        // 设置港口名称
-        try {
-            schedule.setPortName(rs.getString("port_name"));
-        } catch (SQLException e) {
-            // 某些查询可能没有port_name字段
+        return schedule;
+    }
+
+    // 结果集关闭后统一填充港口名称和船舶名称（走引用数据缓存）
+    private List<BerthSchedule> withNames(List<BerthSchedule> schedules) throws SQLException {
+        if (schedules.isEmpty()) {
+            return schedules;
         }
-        // 设置船舶名称
+        List<Integer> shipIds = new ArrayList<>(schedules.size());
+        List<Integer> portIds = new ArrayList<>(schedules.size());
+        for (BerthSchedule schedule : schedules) {
+            shipIds.add(schedule.getShipId());
+            portIds.add(schedule.getPortId());
+        }
+        Map<Integer, String> shipNames = shipRepository.findNames(shipIds);
+        Map<Integer, String> portNames = portRepository.findNames(portIds);
+        for (BerthSchedule schedule : schedules) {
+            schedule.setShipName(shipNames.get(schedule.getShipId()));
+            schedule.setPortName(portNames.get(schedule.getPortId()));
+        }
+        return schedules;
+    }
+
+    // 更新排程：在目标泊位的锁保护下冲突复查+更新，存在冲突时回滚并返回false
+    public boolean update(BerthSchedule schedule) throws SQLException {
+        System.out.println("Repository update方法执行，参数：" + schedule);
+        int updatedId;
         try {
-            schedule.setShipName(rs.getString("ship_name"));
+            // 行不存在时返回0，不往索引里放幽灵条目
+            updatedId = bookAtomically(schedule, schedule.getId(),
+                    conn -> updateRow(conn, schedule) > 0 ? schedule.getId() : 0);
         } catch (SQLException e) {
-            // 某些查询可能没有ship_name字段
+            System.out.println("Repository update报错：" + e.getMessage());
+            throw e;
         }
-        return schedule;
+        if (updatedId < 0) {
+            return false;
+        }
+        if (updatedId == 0) {
+            occupancyIndex.remove(schedule.getId());
+        } else {
+            occupancyIndex.put(normalized(updatedId, schedule));
+        }
+        tableVersions.bump(TableVersions.BERTH);
+        return true;
     }
 
-    // 更新排程
-    public void update(BerthSchedule schedule) throws SQLException {
-        System.out.println("Repository update方法执行，参数：" + schedule);
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
+    private int updateRow(Connection conn, BerthSchedule schedule) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
             // UPDATE: current_vessel_id, berth_number, port_id, arrival_time, departure_time, status WHERE berth_id
             // current_vessel_id 可以为空
             if (schedule.getShipId() > 0) {
@@ -196,9 +678,7 @@ public class BerthScheduleRepository {
 
             int affectedRows = stmt.executeUpdate();
             System.out.println("Repository update影响行数：" + affectedRows);
-        } catch (SQLException e) {
-            System.out.println("Repository update报错：" + e.getMessage());
-            throw e;
+            return affectedRows;
         }
     }
 
@@ -210,22 +690,22 @@ public class BerthScheduleRepository {
             stmt.setInt(1, scheduleId);
             int affectedRows = stmt.executeUpdate();
             System.out.println("Repository delete影响行数：" + affectedRows);
+            occupancyIndex.remove(scheduleId);
         } catch (SQLException e) {
             System.out.println("Repository delete报错：" + e.getMessage());
             throw e;
+        } finally {
+            tableVersions.bump(TableVersions.BERTH);
         }
     }
 
     // 泊位冲突检测（排除自身，用于更新时）
     public boolean hasConflictExcludingSelf(int scheduleId, String berthNumber, int portId, LocalDateTime arrivalTime, LocalDateTime departureTime) throws SQLException {
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_CONFLICTS_EXCLUDING_SELF)) {
-            stmt.setString(1, berthNumber);
-            stmt.setInt(2, portId > 0 ? portId : 1);
-            stmt.setInt(3, scheduleId);
-            stmt.setTimestamp(4, Timestamp.valueOf(departureTime != null ? departureTime : LocalDateTime.now().plusYears(10)));
-            stmt.setTimestamp(5, Timestamp.valueOf(arrivalTime));
-            return stmt.executeQuery().next();
+        if (occupancyIndex.isLoaded()) {
+            return occupancyIndex.hasConflict(portId, berthNumber, arrivalTime, departureTime, scheduleId);
+        }
+        try (Connection conn = databaseManager.getConnection()) {
+            return conflictExists(conn, scheduleId, berthNumber, portId, arrivalTime, departureTime);
         }
     }
 }
\ No newline at end of file
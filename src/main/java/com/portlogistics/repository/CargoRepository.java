@@ -1,62 +1,311 @@
 package com.portlogistics.repository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 import com.portlogistics.config.DatabaseManager;
 import com.portlogistics.model.Cargo;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class CargoRepository {
     private final DatabaseManager databaseManager;
-    public CargoRepository(DatabaseManager databaseManager){
+    private final CargoStatsRollup statsRollup;
+    private final ShipRepository shipRepository;
+    private final SearchIndex searchIndex;
+    private final SuggestIndex suggestIndex;
+    // 归档表建好后不会再消失，查到一次后不再检查
+    private volatile boolean archiveTablePresent;
+    public CargoRepository(DatabaseManager databaseManager, CargoStatsRollup statsRollup, ShipRepository shipRepository,
+                           SearchIndex searchIndex, SuggestIndex suggestIndex){
         this.databaseManager=databaseManager;
+        this.statsRollup=statsRollup;
+        this.shipRepository=shipRepository;
+        this.searchIndex=searchIndex;
+        this.suggestIndex=suggestIndex;
     }
-    // 使用voyage_plan_id作为ship_id的别名，并JOIN获取船舶名称
-    private static final String SELECT_ALL =
-            "SELECT c.cargo_id, c.description, c.weight, c.destination, c.voyage_plan_id as ship_id, s.name as ship_name " +
+    // 使用voyage_plan_id作为ship_id的别名；船舶名称按航次的ship_id从引用数据缓存填充，不再JOIN船舶表
+    private static final String SELECT_BASE =
+            "SELECT c.cargo_id, c.description, c.weight, c.destination, c.voyage_plan_id as ship_id, vp.ship_id as voyage_ship_id " +
             "FROM cargo c " +
-            "LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id " +
-            "LEFT JOIN ship s ON vp.ship_id = s.ship_id " +
-            "ORDER BY c.cargo_id";
-    private static final String SELECT_BY_KEYWORD =
-            "SELECT c.cargo_id, c.description, c.weight, c.destination, c.voyage_plan_id as ship_id, s.name as ship_name " +
-            "FROM cargo c " +
-            "LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id " +
-            "LEFT JOIN ship s ON vp.ship_id = s.ship_id " +
-            "WHERE LOWER(c.description) LIKE ? OR LOWER(c.destination) LIKE ? ORDER BY c.cargo_id";
+            "LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id";
+    // 已归档货物（按月分区的压缩表），历史查询时与热表UNION ALL
+    private static final String SELECT_ARCHIVE_BASE =
+            "SELECT c.cargo_id, c.description, c.weight, c.destination, c.voyage_plan_id as ship_id, vp.ship_id as voyage_ship_id " +
+            "FROM cargo_archive c " +
+            "LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id";
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY c.cargo_id";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY c.cargo_id DESC LIMIT ?";
+    private static final String SELECT_BY_KEYWORD = SELECT_BASE +
+            " WHERE LOWER(c.description) LIKE ? OR LOWER(c.destination) LIKE ? ORDER BY c.cargo_id";
+    private static final String SELECT_SEARCH_FIELDS = "SELECT cargo_id, description, destination FROM cargo";
+    private static final String SELECT_SUGGEST_FIELDS = "SELECT cargo_id, description, weight FROM cargo";
+    // 导出用：货物表全部字段，不做JOIN
+    private static final String SELECT_EXPORT =
+            "SELECT cargo_id, description, weight, destination, voyage_plan_id, warehouse_id, cargo_type, status, created_at " +
+            "FROM cargo ORDER BY cargo_id";
     private static final String INSERT =
             "INSERT INTO cargo (description, weight, destination, voyage_plan_id) VALUES (?, ?, ?, ?)";
+    // 批量入库：带上仓库、货物类型和状态，状态为空时按表默认值PENDING写入
+    private static final String INSERT_FULL =
+            "INSERT INTO cargo (description, weight, destination, voyage_plan_id, warehouse_id, cargo_type, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SUM_ASSIGNED_WEIGHT = "SELECT COALESCE(SUM(weight), 0) FROM cargo WHERE voyage_plan_id = ?";
+    // 按ID批量操作时每条语句的IN列表长度
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final String SELECT_IDS_FOR_ASSIGN = "SELECT cargo_id FROM cargo WHERE 1 = 1";
     private static final String ASSIGN = "UPDATE cargo SET voyage_plan_id = ? WHERE cargo_id = ?";
     private static final String UPDATE = "UPDATE cargo SET description = ?, weight = ?, destination = ?, voyage_plan_id = ? WHERE cargo_id = ?";
     private static final String DELETE = "DELETE FROM cargo WHERE cargo_id = ?";
-    private static final String SELECT_MONTHLY_STATS = 
-            "SELECT DATE_FORMAT(created_at, '%Y-%m') as month, " +
-            "SUM(weight) as total_weight, " +
-            "SUM(CASE WHEN voyage_plan_id IS NOT NULL THEN weight ELSE 0 END) as assigned_weight " +
-            "FROM cargo " +
-            "WHERE created_at >= DATE_SUB(CURDATE(), INTERVAL 12 MONTH) " +
-            "GROUP BY DATE_FORMAT(created_at, '%Y-%m') " +
-            "ORDER BY month";
+    // 统计汇总用：每条货物的统计维度（创建日期、所属航次的到达港、目的地）
+    private static final String SELECT_FACTS =
+            "SELECT c.cargo_id, DATE(c.created_at) AS day, COALESCE(vp.arrival_port_id, 0) AS port_id, " +
+            "c.destination, c.weight, c.voyage_plan_id " +
+            "FROM cargo c LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id";
+    // 统计汇总重建：按天/港口/目的地预先分组，一次扫描；归档表存在时归档的货物仍计入历史统计
+    private static final String DAILY_TOTALS_SELECT =
+            "SELECT DATE(c.created_at) AS day, COALESCE(vp.arrival_port_id, 0) AS port_id, c.destination, " +
+            "COUNT(*) AS cargo_count, SUM(c.weight) AS total_weight, " +
+            "SUM(CASE WHEN c.voyage_plan_id IS NOT NULL THEN c.weight ELSE 0 END) AS assigned_weight " +
+            "FROM (SELECT created_at, destination, weight, voyage_plan_id FROM cargo WHERE created_at IS NOT NULL";
+    private static final String DAILY_TOTALS_GROUP = ") c " +
+            "LEFT JOIN voyage_plan vp ON c.voyage_plan_id = vp.plan_id " +
+            "GROUP BY DATE(c.created_at), COALESCE(vp.arrival_port_id, 0), c.destination";
+    private static final String SELECT_DAILY_TOTALS = DAILY_TOTALS_SELECT + DAILY_TOTALS_GROUP;
+    private static final String SELECT_DAILY_TOTALS_WITH_ARCHIVE = DAILY_TOTALS_SELECT +
+            " UNION ALL SELECT created_at, destination, weight, voyage_plan_id FROM cargo_archive" + DAILY_TOTALS_GROUP;
+    // 归档表由V2迁移创建；迁移关闭、仍在后台执行或失败时还不存在
+    private static final String SELECT_ARCHIVE_TABLE =
+            "SELECT 1 FROM information_schema.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ?";
+
+    @FunctionalInterface
+    private interface CargoWrite {
+        int apply(Connection connection) throws SQLException;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStatsRollup() {
+        try {
+            rebuildStatsRollup();
+            System.out.println("货物统计汇总加载完成，单元格数：" + statsRollup.cellCount());
+        } catch (SQLException e) {
+            System.out.println("货物统计汇总加载失败，首次查询时重试：" + e.getMessage());
+        }
+    }
+
+    // 从货物表全量重建统计汇总
+    public void rebuildStatsRollup() throws SQLException {
+        statsRollup.rebuild(this::loadDailyTotals, false);
+    }
+
+    // 汇总被标记失效（航次到达港变更、航次删除、加载失败）时在读取前重建
+    public void refreshStatsRollupIfStale() throws SQLException {
+        if (statsRollup.isStale()) {
+            statsRollup.rebuild(this::loadDailyTotals, true);
+        }
+    }
+
+    // 启动后加载货物描述/目的地的全文索引，加载完成前搜索退回LIKE查询
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchIndex() {
+        try {
+            rebuildSearchIndex();
+        } catch (SQLException e) {
+            System.out.println("货物搜索索引加载失败：" + e.getMessage());
+        }
+    }
+
+    // 流式读取，百万行货物不会整表缓存在驱动里
+    public void rebuildSearchIndex() throws SQLException {
+        searchIndex.rebuild(SearchIndex.Type.CARGO, sink -> {
+            try (Connection connection = databaseManager.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(SELECT_SEARCH_FIELDS,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(Integer.MIN_VALUE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        sink.add(rs.getInt(1), rs.getString(2), rs.getString(3));
+                    }
+                }
+            }
+        });
+    }
+
+    // 表单联想：货物描述和货物编号前缀，明细为重量（吨）
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSuggestIndex() {
+        try {
+            suggestIndex.rebuild(SuggestIndex.Type.CARGO, sink -> {
+                try (Connection connection = databaseManager.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(SELECT_SUGGEST_FIELDS,
+                             ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            int cargoId = rs.getInt(1);
+                            String description = rs.getString(2);
+                            sink.add(cargoId, description, formatWeight(rs.getDouble(3)),
+                                    description, Integer.toString(cargoId));
+                        }
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("货物联想索引加载失败，下次联想请求时重试：" + e.getMessage());
+        }
+    }
+
+    private void indexCargo(int cargoId, Cargo cargo) {
+        searchIndex.put(SearchIndex.Type.CARGO, cargoId, cargo.getDescription(), cargo.getDestination());
+        suggestIndex.put(SuggestIndex.Type.CARGO, cargoId, cargo.getDescription(), formatWeight(cargo.getWeight()),
+                cargo.getDescription(), Integer.toString(cargoId));
+    }
+
+    private static String formatWeight(double weight) {
+        return BigDecimal.valueOf(weight).stripTrailingZeros().toPlainString();
+    }
+
+    private List<CargoStatsRollup.DailyTotal> loadDailyTotals() throws SQLException {
+        List<CargoStatsRollup.DailyTotal> totals = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     hasArchiveTable(connection) ? SELECT_DAILY_TOTALS_WITH_ARCHIVE : SELECT_DAILY_TOTALS);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                totals.add(new CargoStatsRollup.DailyTotal(rs.getDate("day").toLocalDate(), rs.getInt("port_id"),
+                        rs.getString("destination"), rs.getLong("cargo_count"),
+                        rs.getDouble("total_weight"), rs.getDouble("assigned_weight")));
+            }
+        }
+        return totals;
+    }
+
+    private boolean hasArchiveTable(Connection connection) throws SQLException {
+        if (!archiveTablePresent) {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_ARCHIVE_TABLE)) {
+                statement.setString(1, ArchiveRepository.CARGO_ARCHIVE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    archiveTablePresent = rs.next();
+                }
+            }
+        }
+        return archiveTablePresent;
+    }
 
     public List<Cargo> findPendingCargo() throws SQLException {
         List<Cargo> cargoList = new ArrayList<>();
+        List<Integer> voyageShipIds = new ArrayList<>();
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
              ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
-                cargoList.add(mapRow(resultSet));
+                cargoList.add(mapRow(resultSet, voyageShipIds));
+            }
+        }
+        return withShipNames(cargoList, voyageShipIds);
+    }
+
+    // 最近新增的前N条（总览页用）
+    public List<Cargo> findRecent(int limit) throws SQLException {
+        List<Cargo> cargoList = new ArrayList<>();
+        List<Integer> voyageShipIds = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_RECENT)) {
+            statement.setInt(1, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    cargoList.add(mapRow(resultSet, voyageShipIds));
+                }
+            }
+        }
+        return withShipNames(cargoList, voyageShipIds);
+    }
+
+    // 按cargo_id游标分页；portId按所属航次的到达港过滤，时间范围作用于created_at；includeArchived时合并归档表
+    public PageResult<Cargo> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = pageQuery(SELECT_BASE, query);
+        if (query.isIncludeArchived()) {
+            keyset = KeysetQuery.unionAll(keyset, pageQuery(SELECT_ARCHIVE_BASE, query), "cargo_id", query.getLimit());
+        }
+
+        List<Cargo> cargoList = new ArrayList<>();
+        List<Integer> voyageShipIds = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(keyset.sql())) {
+            keyset.bind(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    cargoList.add(mapRow(resultSet, voyageShipIds));
+                }
+            }
+        }
+        return KeysetQuery.toPage(withShipNames(cargoList, voyageShipIds), query.getLimit(), cargo -> PageCursor.ofId(cargo.getCargoId()));
+    }
+
+    private static KeysetQuery pageQuery(String select, ListQuery query) {
+        KeysetQuery keyset = new KeysetQuery(select);
+        if (query.getStatus() != null) {
+            keyset.where("c.status = ?", query.getStatus());
+        }
+        if (query.getPortId() != null) {
+            keyset.where("vp.arrival_port_id = ?", query.getPortId());
+        }
+        if (query.getFrom() != null) {
+            keyset.where("c.created_at >= ?", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            keyset.where("c.created_at < ?", query.getTo());
+        }
+        if (query.getAfter() != null) {
+            keyset.where("c.cargo_id > ?", query.getAfter().id());
+        }
+        return keyset.orderByLimit("c.cargo_id", query.getLimit());
+    }
+
+    // 流式读取全部货物：只读前向游标 + fetchSize=Integer.MIN_VALUE，MySQL驱动逐行返回而不是整表缓存在内存里
+    public void streamAll(RowHandler<Cargo> handler) throws SQLException, IOException {
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_EXPORT,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.handle(mapExportRow(resultSet));
+                }
             }
         }
-        return cargoList;
     }
 
+    // 按相关度排序；索引就绪后只按主键取行，不再全表LIKE扫描。
+    // 索引只认整词和词首前缀，没有命中时再用LIKE查一次，保留原来的任意片段匹配
     public List<Cargo> searchByKeyword(String keyword) throws SQLException {
+        if (searchIndex.isReady(SearchIndex.Type.CARGO)) {
+            List<Integer> ids = searchIndex.searchIds(SearchIndex.Type.CARGO, keyword);
+            if (!ids.isEmpty()) {
+                return findByIdsInOrder(ids);
+            }
+        }
         List<Cargo> cargoList = new ArrayList<>();
+        List<Integer> voyageShipIds = new ArrayList<>();
         String like = "%" + keyword.toLowerCase() + "%";
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_BY_KEYWORD)) {
@@ -64,59 +313,378 @@ public class CargoRepository {
             statement.setString(2, like);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    cargoList.add(mapRow(resultSet));
+                    cargoList.add(mapRow(resultSet, voyageShipIds));
                 }
             }
         }
-        return cargoList;
+        return withShipNames(cargoList, voyageShipIds);
+    }
+
+    // 按给定ID顺序返回货物，已不存在的ID跳过
+    private List<Cargo> findByIdsInOrder(List<Integer> cargoIds) throws SQLException {
+        Map<Integer, Cargo> found = new HashMap<>();
+        Map<Integer, Integer> foundShipIds = new HashMap<>();
+        try (Connection connection = databaseManager.getConnection()) {
+            for (int from = 0; from < cargoIds.size(); from += ID_CHUNK_SIZE) {
+                List<Integer> chunk = cargoIds.subList(from, Math.min(from + ID_CHUNK_SIZE, cargoIds.size()));
+                String sql = SELECT_BASE + " WHERE c.cargo_id IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Integer cargoId : chunk) {
+                        statement.setInt(index++, cargoId);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        List<Integer> rowShipIds = new ArrayList<>(1);
+                        while (resultSet.next()) {
+                            rowShipIds.clear();
+                            Cargo cargo = mapRow(resultSet, rowShipIds);
+                            found.put(cargo.getCargoId(), cargo);
+                            foundShipIds.put(cargo.getCargoId(), rowShipIds.get(0));
+                        }
+                    }
+                }
+            }
+        }
+        List<Cargo> cargoList = new ArrayList<>(found.size());
+        List<Integer> voyageShipIds = new ArrayList<>(found.size());
+        for (Integer cargoId : cargoIds) {
+            Cargo cargo = found.get(cargoId);
+            if (cargo != null) {
+                cargoList.add(cargo);
+                voyageShipIds.add(foundShipIds.get(cargoId));
+            }
+        }
+        return withShipNames(cargoList, voyageShipIds);
     }
 
     public void save(Cargo cargo) throws SQLException {
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(INSERT)) {
-            statement.setString(1, cargo.getDescription());
-            statement.setDouble(2, cargo.getWeight());
-            statement.setString(3, cargo.getDestination());
-            if (cargo.getShipId() == null) {
-                statement.setNull(4, java.sql.Types.INTEGER);
-            } else {
-                statement.setInt(4, cargo.getShipId());
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>(1);
+                try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                    statement.setString(1, cargo.getDescription());
+                    statement.setDouble(2, cargo.getWeight());
+                    statement.setString(3, cargo.getDestination());
+                    if (cargo.getShipId() == null) {
+                        statement.setNull(4, java.sql.Types.INTEGER);
+                    } else {
+                        statement.setInt(4, cargo.getShipId());
+                    }
+                    statement.executeUpdate();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            ids.add(keys.getInt(1));
+                        }
+                    }
+                }
+                commitWithRollup(connection, List.of(), ids);
+                for (Integer id : ids) {
+                    indexCargo(id, cargo);
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
-            statement.executeUpdate();
         }
     }
 
-    public void assignToShip(int cargoId, int shipId) throws SQLException {
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(ASSIGN)) {
-            statement.setInt(1, shipId);
-            statement.setInt(2, cargoId);
-            statement.executeUpdate();
+    /**
+     * Outcome of {@link #saveAll}: per input position either a generated id or an error message.
+     */
+    public record BatchInsertResult(List<Integer> ids, List<String> errors, boolean rolledBack) {
+        public boolean hasErrors() {
+            return errors.stream().anyMatch(error -> error != null);
+        }
+    }
+
+    /**
+     * Inserts all rows in one transaction, {@code batchSize} rows per executeBatch. When a batch
+     * fails it is rolled back to its savepoint and replayed row by row to find the offending
+     * lines; the rest of the batch still goes in. In strict mode the first failing row rolls the
+     * whole transaction back and nothing is written.
+     */
+    public BatchInsertResult saveAll(List<Cargo> cargos, int batchSize, boolean strict) throws SQLException {
+        Integer[] ids = new Integer[cargos.size()];
+        String[] errors = new String[cargos.size()];
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_FULL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < cargos.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, cargos.size());
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        for (int i = from; i < to; i++) {
+                            bindInsertFull(statement, cargos.get(i));
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                        readGeneratedKeys(statement, ids, from, to);
+                    } catch (SQLException e) {
+                        statement.clearBatch();
+                        connection.rollback(savepoint);
+                        if (!insertOneByOne(connection, statement, cargos, from, to, ids, errors, strict)) {
+                            connection.rollback();
+                            return new BatchInsertResult(Arrays.asList(new Integer[cargos.size()]), Arrays.asList(errors), true);
+                        }
+                    }
+                    connection.releaseSavepoint(savepoint);
+                }
+                List<Integer> inserted = new ArrayList<>(cargos.size());
+                for (Integer id : ids) {
+                    if (id != null) {
+                        inserted.add(id);
+                    }
+                }
+                commitWithRollup(connection, List.of(), inserted);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != null) {
+                indexCargo(ids[i], cargos.get(i));
+            }
+        }
+        return new BatchInsertResult(Arrays.asList(ids), Arrays.asList(errors), false);
+    }
+
+    // 逐行重放失败的批次，每行一个保存点；严格模式下遇到第一行错误即返回false
+    private boolean insertOneByOne(Connection connection, PreparedStatement statement, List<Cargo> cargos,
+                                   int from, int to, Integer[] ids, String[] errors, boolean strict) throws SQLException {
+        for (int i = from; i < to; i++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                bindInsertFull(statement, cargos.get(i));
+                statement.executeUpdate();
+                readGeneratedKeys(statement, ids, i, i + 1);
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                errors[i] = "写入失败：" + e.getMessage();
+                if (strict) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void readGeneratedKeys(PreparedStatement statement, Integer[] ids, int from, int to) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (int i = from; i < to; i++) {
+                if (!keys.next()) {
+                    throw new SQLException("批量插入货物未返回全部主键");
+                }
+                ids[i] = keys.getInt(1);
+            }
+        }
+    }
+
+    private static void bindInsertFull(PreparedStatement statement, Cargo cargo) throws SQLException {
+        statement.setString(1, cargo.getDescription());
+        statement.setDouble(2, cargo.getWeight());
+        statement.setString(3, cargo.getDestination());
+        if (cargo.getVoyagePlanId() == null) {
+            statement.setNull(4, Types.INTEGER);
+        } else {
+            statement.setInt(4, cargo.getVoyagePlanId());
+        }
+        if (cargo.getWarehouseId() == null) {
+            statement.setNull(5, Types.INTEGER);
+        } else {
+            statement.setInt(5, cargo.getWarehouseId());
+        }
+        statement.setString(6, cargo.getCargoType());
+        statement.setString(7, cargo.getStatus() != null ? cargo.getStatus() : "PENDING");
+    }
+
+    /**
+     * Outcome of a bulk assignment: rows changed and the voyage's total assigned weight afterwards.
+     */
+    public record AssignmentResult(int affected, double totalAssignedWeight) {
+    }
+
+    // 按ID列表批量分配到航次：每1000个ID一条UPDATE，同一事务内提交并返回航次的总重量
+    public AssignmentResult assignToVoyage(int voyagePlanId, List<Integer> cargoIds) throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                return assignInTransaction(connection, voyagePlanId, cargoIds);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // 按目的地/状态条件批量分配：先按条件锁定命中的货物，再按ID更新，统计汇总只需处理这些行
+    public AssignmentResult assignToVoyageByFilter(int voyagePlanId, String destination, String status,
+                                                   boolean unassignedOnly) throws SQLException {
+        StringBuilder sql = new StringBuilder(SELECT_IDS_FOR_ASSIGN);
+        List<Object> params = new ArrayList<>();
+        if (destination != null) {
+            sql.append(" AND destination = ?");
+            params.add(destination);
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            params.add(status);
+        }
+        if (unassignedOnly) {
+            sql.append(" AND voyage_plan_id IS NULL");
+        }
+        sql.append(" ORDER BY cargo_id FOR UPDATE");
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> cargoIds = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            cargoIds.add(rs.getInt(1));
+                        }
+                    }
+                }
+                return assignInTransaction(connection, voyagePlanId, cargoIds);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private AssignmentResult assignInTransaction(Connection connection, int voyagePlanId, List<Integer> cargoIds)
+            throws SQLException {
+        List<CargoStatsRollup.CargoFact> before = loadFacts(connection, cargoIds, true);
+        int affected = 0;
+        for (int from = 0; from < cargoIds.size(); from += ID_CHUNK_SIZE) {
+            List<Integer> chunk = cargoIds.subList(from, Math.min(from + ID_CHUNK_SIZE, cargoIds.size()));
+            String sql = "UPDATE cargo SET voyage_plan_id = ? WHERE cargo_id IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, voyagePlanId);
+                int index = 2;
+                for (Integer cargoId : chunk) {
+                    statement.setInt(index++, cargoId);
+                }
+                affected += statement.executeUpdate();
+            }
+        }
+        double total = sumAssignedWeight(connection, voyagePlanId);
+        commitWithRollup(connection, before, cargoIds);
+        return new AssignmentResult(affected, total);
+    }
+
+    private double sumAssignedWeight(Connection connection, int voyagePlanId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SUM_ASSIGNED_WEIGHT)) {
+            statement.setInt(1, voyagePlanId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getDouble(1) : 0;
+            }
         }
     }
 
+    public void assignToShip(int cargoId, int shipId) throws SQLException {
+        writeTracked(cargoId, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ASSIGN)) {
+                statement.setInt(1, shipId);
+                statement.setInt(2, cargoId);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
     public void update(int cargoId, Cargo cargo) throws SQLException {
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(UPDATE)) {
-            statement.setString(1, cargo.getDescription());
-            statement.setDouble(2, cargo.getWeight());
-            statement.setString(3, cargo.getDestination());
-            if (cargo.getShipId() == null) {
-                statement.setNull(4, java.sql.Types.INTEGER);
-            } else {
-                statement.setInt(4, cargo.getShipId());
+        int updated = writeTracked(cargoId, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                statement.setString(1, cargo.getDescription());
+                statement.setDouble(2, cargo.getWeight());
+                statement.setString(3, cargo.getDestination());
+                if (cargo.getShipId() == null) {
+                    statement.setNull(4, java.sql.Types.INTEGER);
+                } else {
+                    statement.setInt(4, cargo.getShipId());
+                }
+                statement.setInt(5, cargoId);
+                return statement.executeUpdate();
             }
-            statement.setInt(5, cargoId);
-            statement.executeUpdate();
+        });
+        // 未知或刚被归档的ID不写索引，免得联想和搜索里出现不存在的货物
+        if (updated > 0) {
+            indexCargo(cargoId, cargo);
         }
     }
 
     public void delete(int cargoId) throws SQLException {
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(DELETE)) {
-            statement.setInt(1, cargoId);
-            statement.executeUpdate();
+        writeTracked(cargoId, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+                statement.setInt(1, cargoId);
+                return statement.executeUpdate();
+            }
+        });
+        searchIndex.remove(SearchIndex.Type.CARGO, cargoId);
+        suggestIndex.remove(SuggestIndex.Type.CARGO, cargoId);
+    }
+
+    // 单行写入：事务内先锁定并读出改前的统计维度，写入后读出改后的，提交时一并更新统计汇总；返回影响行数
+    private int writeTracked(int cargoId, CargoWrite write) throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> ids = List.of(cargoId);
+                List<CargoStatsRollup.CargoFact> before = loadFacts(connection, ids, true);
+                int affected = write.apply(connection);
+                commitWithRollup(connection, before, ids);
+                return affected;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void commitWithRollup(Connection connection, List<CargoStatsRollup.CargoFact> before,
+                                  List<Integer> touchedIds) throws SQLException {
+        List<CargoStatsRollup.CargoFact> after = loadFacts(connection, touchedIds, false);
+        statsRollup.commitAndApply(connection, before, after);
+    }
+
+    // 读取指定货物的统计维度；forUpdate时同时加行锁，保证改前读到的就是被替换的值
+    private List<CargoStatsRollup.CargoFact> loadFacts(Connection connection, List<Integer> cargoIds,
+                                                       boolean forUpdate) throws SQLException {
+        List<CargoStatsRollup.CargoFact> facts = new ArrayList<>(cargoIds.size());
+        for (int from = 0; from < cargoIds.size(); from += ID_CHUNK_SIZE) {
+            List<Integer> chunk = cargoIds.subList(from, Math.min(from + ID_CHUNK_SIZE, cargoIds.size()));
+            String sql = SELECT_FACTS + " WHERE c.cargo_id IN (" + placeholders(chunk.size()) + ")"
+                    + (forUpdate ? " FOR UPDATE OF c" : "");
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (Integer cargoId : chunk) {
+                    statement.setInt(index++, cargoId);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        Date day = rs.getDate("day");
+                        if (day == null) {
+                            continue;
+                        }
+                        rs.getInt("voyage_plan_id");
+                        boolean assigned = !rs.wasNull();
+                        facts.add(new CargoStatsRollup.CargoFact(rs.getInt("cargo_id"), day.toLocalDate(),
+                                rs.getInt("port_id"), rs.getString("destination"), rs.getDouble("weight"), assigned));
+                    }
+                }
+            }
         }
+        return facts;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
     }
 
     public boolean existsById(int cargoId) throws SQLException {
@@ -130,24 +698,25 @@ public class CargoRepository {
         }
     }
 
-    // 获取月度货物统计数据
-    public List<java.util.Map<String, Object>> getMonthlyStats() throws SQLException {
-        List<java.util.Map<String, Object>> stats = new ArrayList<>();
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(SELECT_MONTHLY_STATS);
-             ResultSet rs = statement.executeQuery()) {
-            while (rs.next()) {
-                java.util.Map<String, Object> row = new java.util.HashMap<>();
-                row.put("month", rs.getString("month"));
-                row.put("totalWeight", rs.getDouble("total_weight"));
-                row.put("assignedWeight", rs.getDouble("assigned_weight"));
-                stats.add(row);
-            }
-        }
-        return stats;
+    private Cargo mapExportRow(ResultSet resultSet) throws SQLException {
+        Cargo cargo = new Cargo();
+        cargo.setCargoId(resultSet.getInt("cargo_id"));
+        cargo.setDescription(resultSet.getString("description"));
+        cargo.setWeight(resultSet.getDouble("weight"));
+        cargo.setDestination(resultSet.getString("destination"));
+        int voyagePlanId = resultSet.getInt("voyage_plan_id");
+        cargo.setVoyagePlanId(resultSet.wasNull() ? null : voyagePlanId);
+        int warehouseId = resultSet.getInt("warehouse_id");
+        cargo.setWarehouseId(resultSet.wasNull() ? null : warehouseId);
+        cargo.setCargoType(resultSet.getString("cargo_type"));
+        cargo.setStatus(resultSet.getString("status"));
+        Timestamp createdAt = resultSet.getTimestamp("created_at");
+        cargo.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return cargo;
     }
 
-    private Cargo mapRow(ResultSet resultSet) throws SQLException {
+    // voyageShipIds按行记录所属航次的船舶ID（未分配为0），结果集关闭后再统一填充船舶名称
+    private Cargo mapRow(ResultSet resultSet, List<Integer> voyageShipIds) throws SQLException {
         Cargo cargo = new Cargo();
         cargo.setCargoId(resultSet.getInt("cargo_id"));
         cargo.setDescription(resultSet.getString("description"));
@@ -155,8 +724,18 @@ public class CargoRepository {
         cargo.setDestination(resultSet.getString("destination"));
         Integer shipId = resultSet.getObject("ship_id") == null ? null : resultSet.getInt("ship_id");
         cargo.setShipId(shipId);
-        // 设置船舶名称（通过JOIN查询获取）
-        cargo.setShipName(resultSet.getString("ship_name"));
+        voyageShipIds.add(resultSet.getInt("voyage_ship_id"));
         return cargo;
     }
+
+    private List<Cargo> withShipNames(List<Cargo> cargoList, List<Integer> voyageShipIds) throws SQLException {
+        if (cargoList.isEmpty()) {
+            return cargoList;
+        }
+        Map<Integer, String> names = shipRepository.findNames(voyageShipIds);
+        for (int i = 0; i < cargoList.size(); i++) {
+            cargoList.get(i).setShipName(names.get(voyageShipIds.get(i)));
+        }
+        return cargoList;
+    }
 }
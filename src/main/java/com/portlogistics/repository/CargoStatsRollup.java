@@ -0,0 +1,194 @@
+package com.portlogistics.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pre-aggregated cargo totals by day, ISO week and month, each also split by arrival port and
+ * destination. Every cargo write applies its delta to a fixed set of cells, so reading one
+ * period is a single map lookup no matter how large the cargo table is.
+ * Maintained by {@link CargoRepository}; rebuilt from the table on startup and on demand.
+ */
+@Component
+public class CargoStatsRollup {
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return MONTH;
+            }
+            try {
+                return Granularity.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的统计粒度：" + value + "（可选 day、week、month）");
+            }
+        }
+
+        // 周以周一为起点，月以1号为起点
+        public LocalDate bucketOf(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        public LocalDate next(LocalDate bucket) {
+            return switch (this) {
+                case DAY -> bucket.plusDays(1);
+                case WEEK -> bucket.plusWeeks(1);
+                case MONTH -> bucket.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * One cargo row as far as the rollup is concerned. {@code portId} is the arrival port of the
+     * assigned voyage, 0 when the cargo has no voyage.
+     */
+    record CargoFact(int cargoId, LocalDate day, int portId, String destination, double weight, boolean assigned) {
+    }
+
+    /**
+     * Pre-grouped totals of one (day, port, destination) read back during a rebuild.
+     */
+    record DailyTotal(LocalDate day, int portId, String destination, long cargoCount,
+                      double totalWeight, double assignedWeight) {
+    }
+
+    @FunctionalInterface
+    interface DailyTotalsLoader {
+        Collection<DailyTotal> load() throws SQLException;
+    }
+
+    /**
+     * Totals of one cell as returned to callers.
+     */
+    public record Totals(long cargoCount, double totalWeight, double assignedWeight) {
+        static final Totals EMPTY = new Totals(0, 0, 0);
+    }
+
+    // portId为ALL_PORTS、destination为null表示该维度不区分
+    static final int ALL_PORTS = -1;
+
+    private record Key(Granularity granularity, LocalDate bucket, int portId, String destination) {
+    }
+
+    private static final class Cell {
+        final LongAdder count = new LongAdder();
+        final DoubleAdder totalWeight = new DoubleAdder();
+        final DoubleAdder assignedWeight = new DoubleAdder();
+
+        Totals totals() {
+            return new Totals(count.sum(), totalWeight.sum(), assignedWeight.sum());
+        }
+    }
+
+    private volatile Map<Key, Cell> cells = new ConcurrentHashMap<>();
+    private volatile boolean stale = true;
+    // 写入方提交事务并应用增量时持读锁，重建时持写锁：重建查询看到的已提交数据与增量不重不漏
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // 航次的到达港变化或被删除时，相关货物的港口归属随之改变，需要整体重建
+    public void markStale() {
+        stale = true;
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    void rebuild(DailyTotalsLoader loader, boolean onlyIfStale) throws SQLException {
+        rebuildLock.writeLock().lock();
+        try {
+            if (onlyIfStale && !stale) {
+                return;
+            }
+            // 先清标记再加载：加载期间再次被标记失效时保留该标记
+            stale = false;
+            Map<Key, Cell> rebuilt = new ConcurrentHashMap<>();
+            for (DailyTotal total : loader.load()) {
+                apply(rebuilt, total.day(), total.portId(), total.destination(),
+                        total.cargoCount(), total.totalWeight(), total.assignedWeight());
+            }
+            cells = rebuilt;
+        } catch (SQLException | RuntimeException e) {
+            stale = true;
+            throw e;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Commits the caller's transaction and then swaps the old facts of the touched rows for
+     * the new ones. Both happen under the shared side of the rebuild lock.
+     */
+    void commitAndApply(Connection connection, Collection<CargoFact> before, Collection<CargoFact> after)
+            throws SQLException {
+        rebuildLock.readLock().lock();
+        try {
+            connection.commit();
+            Map<Key, Cell> target = cells;
+            for (CargoFact fact : before) {
+                apply(target, fact.day(), fact.portId(), fact.destination(), -1, -fact.weight(),
+                        fact.assigned() ? -fact.weight() : 0);
+            }
+            for (CargoFact fact : after) {
+                apply(target, fact.day(), fact.portId(), fact.destination(), 1, fact.weight(),
+                        fact.assigned() ? fact.weight() : 0);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totals for the bucket containing {@code day}. Pass null for port or destination to
+     * aggregate over that dimension.
+     */
+    public Totals get(Granularity granularity, LocalDate day, Integer portId, String destination) {
+        Cell cell = cells.get(new Key(granularity, granularity.bucketOf(day),
+                portId != null ? portId : ALL_PORTS, destination));
+        return cell != null ? cell.totals() : Totals.EMPTY;
+    }
+
+    // 每组增量落到 3种粒度 × 4种维度组合 共12个单元格
+    private static void apply(Map<Key, Cell> target, LocalDate day, int portId, String destination,
+                              long count, double weight, double assigned) {
+        Objects.requireNonNull(day, "day");
+        for (Granularity granularity : Granularity.values()) {
+            LocalDate bucket = granularity.bucketOf(day);
+            bump(target, new Key(granularity, bucket, ALL_PORTS, null), count, weight, assigned);
+            bump(target, new Key(granularity, bucket, portId, null), count, weight, assigned);
+            bump(target, new Key(granularity, bucket, ALL_PORTS, destination), count, weight, assigned);
+            bump(target, new Key(granularity, bucket, portId, destination), count, weight, assigned);
+        }
+    }
+
+    private static void bump(Map<Key, Cell> target, Key key, long count, double weight, double assigned) {
+        Cell cell = target.computeIfAbsent(key, k -> new Cell());
+        cell.count.add(count);
+        cell.totalWeight.add(weight);
+        cell.assignedWeight.add(assigned);
+    }
+}
@@ -0,0 +1,86 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.config.DatabaseManager;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregate counts for the dashboard. Each breakdown is a single GROUP BY over an indexed
+ * column, so the result is a handful of rows regardless of table size.
+ */
+@Repository
+public class DashboardRepository {
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Table and column of each breakdown; fixed here so no caller input ends up in SQL.
+     */
+    public enum Breakdown {
+        SHIP_STATUS("ship", "status"),
+        CARGO_STATUS("cargo", "status"),
+        BERTH_STATUS("berth", "status"),
+        VOYAGE_STATUS("voyage_plan", "voyage_status"),
+        WAREHOUSE_TYPE("warehouse", "warehouse_type"),
+        TASK_STATUS("transport_task", "status");
+
+        private final String sql;
+
+        Breakdown(String table, String column) {
+            this.sql = "SELECT " + column + ", COUNT(*) FROM " + table + " GROUP BY " + column + " ORDER BY " + column;
+        }
+    }
+
+    private static final String COUNT_UNASSIGNED_CARGO = "SELECT COUNT(*) FROM cargo WHERE voyage_plan_id IS NULL";
+    private static final String COUNT_PORTS = "SELECT COUNT(*) FROM port";
+    private static final String SUM_WAREHOUSE_CAPACITY =
+            "SELECT COALESCE(SUM(total_capacity), 0), COALESCE(SUM(used_capacity), 0) FROM warehouse";
+
+    public DashboardRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    // 按分组列统计行数，空值归到UNKNOWN
+    public Map<String, Long> countBy(Breakdown breakdown) throws SQLException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(breakdown.sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String key = rs.getString(1);
+                counts.merge(key != null ? key : "UNKNOWN", rs.getLong(2), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    public long countUnassignedCargo() throws SQLException {
+        return count(COUNT_UNASSIGNED_CARGO);
+    }
+
+    public long countPorts() throws SQLException {
+        return count(COUNT_PORTS);
+    }
+
+    // 仓库总容量与已用容量
+    public double[] sumWarehouseCapacity() throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SUM_WAREHOUSE_CAPACITY);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? new double[]{rs.getDouble(1), rs.getDouble(2)} : new double[]{0, 0};
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
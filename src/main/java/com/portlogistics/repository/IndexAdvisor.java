@@ -0,0 +1,181 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.config.DatabaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in startup check that runs EXPLAIN on every repository SQL constant with a WHERE clause
+ * and warns about full table or full index scans over tables larger than a threshold.
+ * Placeholders are replaced by literals of the compared column's type, taken from the
+ * database metadata, so the plan matches what the bound statement would get.
+ */
+@Component
+public class IndexAdvisor {
+    private static final Pattern LIMIT = Pattern.compile("(?i)\\bLIMIT\\s*$");
+    private static final Pattern COMPARISON =
+            Pattern.compile("(?i)(?:\\w+\\.)?(\\w+)\\)?\\s*(=|!=|<>|<=|>=|<|>|\\bLIKE)\\s*$");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)(?:\\w+\\.)?(\\w+)\\s+IN\\s*\\([^()]*$");
+    private static final Pattern WHERE = Pattern.compile("(?i)\\bWHERE\\b");
+
+    private final DatabaseManager databaseManager;
+    private final ApplicationContext context;
+    private final boolean enabled;
+    private final long minRows;
+    private final Set<String> ignored;
+
+    public IndexAdvisor(DatabaseManager databaseManager, ApplicationContext context,
+                        @Value("${db.index-advisor.enabled:false}") boolean enabled,
+                        @Value("${db.index-advisor.min-rows:1000}") long minRows,
+                        @Value("${db.index-advisor.ignore:}") String ignored) {
+        this.databaseManager = databaseManager;
+        this.context = context;
+        this.enabled = enabled;
+        this.minRows = minRows;
+        this.ignored = Arrays.stream(ignored.split(",")).map(String::trim).filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void advise() {
+        if (!enabled) {
+            return;
+        }
+        int checked = 0;
+        int skipped = 0;
+        int warnings = 0;
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (!conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")) {
+                System.out.println("索引顾问只支持MySQL的EXPLAIN输出，已跳过");
+                return;
+            }
+            Map<String, Integer> columnTypes = columnTypes(conn.getMetaData(), conn.getCatalog());
+            for (Map.Entry<String, String> constant : SqlConstants.of(context).entrySet()) {
+                String name = constant.getKey();
+                String sql = constant.getValue().trim();
+                // 只看带WHERE的查询和修改；不带条件的语句本来就要读全表
+                if (ignored.contains(name) || !isExplainable(sql) || !WHERE.matcher(sql).find()) {
+                    skipped++;
+                    continue;
+                }
+                // 以"IN ("结尾之类的片段在运行时才拼完整，EXPLAIN会报语法错误
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN " + withLiterals(sql, columnTypes))) {
+                    checked++;
+                    while (rs.next()) {
+                        warnings += warnIfFullScan(name, rs) ? 1 : 0;
+                    }
+                } catch (SQLException e) {
+                    skipped++;
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("索引顾问执行失败：" + e.getMessage());
+            return;
+        }
+        System.out.println("索引顾问：检查SQL常量" + checked + "条，跳过" + skipped + "条，全表/全索引扫描警告" + warnings + "处");
+    }
+
+    private boolean warnIfFullScan(String name, ResultSet rs) throws SQLException {
+        String type = rs.getString("type");
+        long rows = rs.getLong("rows");
+        if (!("ALL".equals(type) || "index".equals(type)) || rows < minRows) {
+            return false;
+        }
+        String extra = rs.getString("Extra");
+        System.out.println("索引顾问警告：" + name + " 对" + rs.getString("table")
+                + ("ALL".equals(type) ? "全表扫描" : "全索引扫描（" + rs.getString("key") + "）")
+                + "，预计读取" + rows + "行；可用索引：" + (rs.getString("possible_keys") != null ? rs.getString("possible_keys") : "无")
+                + (extra != null ? "；" + extra : ""));
+        return true;
+    }
+
+    private static boolean isExplainable(String sql) {
+        String head = sql.substring(0, Math.min(sql.length(), 7)).toUpperCase(Locale.ROOT);
+        return head.startsWith("SELECT") || head.startsWith("UPDATE") || head.startsWith("DELETE");
+    }
+
+    // 列名 -> java.sql.Types；同名列在不同表里类型一致（*_id、status、created_at等）
+    private static Map<String, Integer> columnTypes(DatabaseMetaData metaData, String catalog) throws SQLException {
+        Map<String, Integer> types = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, null, "%", "%")) {
+            while (rs.next()) {
+                types.putIfAbsent(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), rs.getInt("DATA_TYPE"));
+            }
+        }
+        return types;
+    }
+
+    // 把每个?换成与比较列类型相符的字面量；推断不出列时按字符串处理
+    private static String withLiterals(String sql, Map<String, Integer> columnTypes) {
+        StringBuilder out = new StringBuilder(sql.length() + 32);
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c != '?' || quoted) {
+                out.append(c);
+                continue;
+            }
+            String before = out.toString();
+            if (LIMIT.matcher(before).find()) {
+                out.append("20");
+                continue;
+            }
+            String column = null;
+            boolean like = false;
+            Matcher comparison = COMPARISON.matcher(before);
+            if (comparison.find()) {
+                column = comparison.group(1);
+                like = "LIKE".equalsIgnoreCase(comparison.group(2));
+            } else {
+                Matcher inList = IN_LIST.matcher(before);
+                if (inList.find()) {
+                    column = inList.group(1);
+                }
+            }
+            Integer type = column != null ? columnTypes.get(column.toLowerCase(Locale.ROOT)) : null;
+            out.append(literal(type, like));
+        }
+        return out.toString();
+    }
+
+    private static String literal(Integer type, boolean like) {
+        if (like) {
+            return "'%x%'";
+        }
+        if (type == null) {
+            return "'x'";
+        }
+        return switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                 Types.FLOAT, Types.REAL, Types.DOUBLE, Types.BIT, Types.BOOLEAN -> "1";
+            case Types.DATE -> "'" + LocalDate.now() + "'";
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE, Types.TIME ->
+                    "'" + LocalDateTime.now().withNano(0).toString().replace('T', ' ') + "'";
+            default -> "'x'";
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package com.portlogistics.repository;
+
+import java.util.List;
+
+/**
+ * Augmented AVL tree of half-open intervals [start, end), ordered by (start, id).
+ * Every node tracks the largest end in its subtree, so overlap lookups prune whole
+ * branches and stay O(log n). Not thread-safe; callers synchronize on the tree.
+ */
+final class IntervalTree {
+
+    /**
+     * One occupied interval as stored in the tree.
+     */
+    record Interval(int id, long start, long end) {
+    }
+
+    private static final class Node {
+        final Interval interval;
+        Node left;
+        Node right;
+        int height = 1;
+        long maxEnd;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // 根节点高度；AVL保证不超过约1.44*log2(size)
+    int height() {
+        return height(root);
+    }
+
+    void insert(Interval interval) {
+        root = insert(root, interval);
+        size++;
+    }
+
+    // 按(start, id)定位删除，找不到时不做任何事
+    boolean remove(int id, long start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+
+    /**
+     * Returns the id of some interval overlapping [from, to) other than {@code excludeId}, or -1.
+     */
+    int findOverlap(long from, long to, int excludeId) {
+        return findOverlap(root, from, to, excludeId);
+    }
+
+    // 按开始时间顺序收集与[from, to)重叠的全部区间
+    void collectOverlaps(long from, long to, List<Interval> out) {
+        collect(root, from, to, out);
+    }
+
+    private static int findOverlap(Node node, long from, long to, int excludeId) {
+        if (node == null || node.maxEnd <= from) {
+            return -1;
+        }
+        int found = findOverlap(node.left, from, to, excludeId);
+        if (found >= 0) {
+            return found;
+        }
+        Interval interval = node.interval;
+        if (interval.start() >= to) {
+            // 右子树的开始时间只会更晚，不可能重叠
+            return -1;
+        }
+        if (interval.end() > from && interval.id() != excludeId) {
+            return interval.id();
+        }
+        return findOverlap(node.right, from, to, excludeId);
+    }
+
+    private static void collect(Node node, long from, long to, List<Interval> out) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, out);
+        Interval interval = node.interval;
+        if (interval.start() >= to) {
+            return;
+        }
+        if (interval.end() > from) {
+            out.add(interval);
+        }
+        collect(node.right, from, to, out);
+    }
+
+    private static int compare(long start, int id, Interval interval) {
+        int byStart = Long.compare(start, interval.start());
+        return byStart != 0 ? byStart : Integer.compare(id, interval.id());
+    }
+
+    private static Node insert(Node node, Interval interval) {
+        if (node == null) {
+            return new Node(interval);
+        }
+        if (compare(interval.start(), interval.id(), node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, int id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.interval);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // 用右子树最小节点顶替被删节点
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.interval);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.interval.end();
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
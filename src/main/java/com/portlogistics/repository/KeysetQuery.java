@@ -0,0 +1,79 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Small builder for the filtered, keyset-paginated SELECTs behind the list endpoints.
+ * Conditions are appended as bind parameters so the generated SQL only varies by which
+ * filters are present, which keeps the statement cache effective.
+ */
+final class KeysetQuery {
+    private final StringBuilder sql;
+    private final List<Object> params = new ArrayList<>();
+    private boolean hasWhere;
+
+    KeysetQuery(String select) {
+        this.sql = new StringBuilder(select);
+    }
+
+    KeysetQuery where(String condition, Object... values) {
+        sql.append(hasWhere ? " AND " : " WHERE ").append(condition);
+        hasWhere = true;
+        for (Object value : values) {
+            params.add(value);
+        }
+        return this;
+    }
+
+    // 多取一行用于判断是否还有下一页
+    KeysetQuery orderByLimit(String orderBy, int limit) {
+        sql.append(" ORDER BY ").append(orderBy).append(" LIMIT ?");
+        params.add(limit + 1);
+        return this;
+    }
+
+    /**
+     * UNION ALL of two queries that already have their ORDER BY and LIMIT, re-sorted and limited
+     * again on the combined rows. Each branch stops at its own limit, so the archive side reads
+     * one page from its index instead of being materialized in full.
+     */
+    static KeysetQuery unionAll(KeysetQuery first, KeysetQuery second, String orderBy, int limit) {
+        KeysetQuery union = new KeysetQuery("(" + first.sql + ") UNION ALL (" + second.sql + ")");
+        union.params.addAll(first.params);
+        union.params.addAll(second.params);
+        return union.orderByLimit(orderBy, limit);
+    }
+
+    String sql() {
+        return sql.toString();
+    }
+
+    // 截掉多取的一行，并用本页最后一行生成下一页游标
+    static <T> PageResult<T> toPage(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResult<>(rows, null, limit);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new PageResult<>(items, cursorOf.apply(items.get(limit - 1)).encode(), limit);
+    }
+
+    void bind(PreparedStatement stmt) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof LocalDateTime time) {
+                stmt.setTimestamp(i + 1, Timestamp.valueOf(time));
+            } else {
+                stmt.setObject(i + 1, value);
+            }
+        }
+    }
+}
@@ -1,27 +1,71 @@
 package com.portlogistics.repository;
 
 import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.Port;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class PortRepository {
     private final DatabaseManager databaseManager;
 
     private static final String INSERT = "INSERT INTO port (port_code, port_name, country, city, latitude, longitude, total_berths, max_vessel_size) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_ALL = "SELECT port_id, port_code, port_name, country, city, latitude, longitude, total_berths, max_vessel_size, created_at FROM port ORDER BY port_name";
+    private static final String SELECT_BASE = "SELECT port_id, port_code, port_name, country, city, latitude, longitude, total_berths, max_vessel_size, created_at FROM port";
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY port_name";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY port_id DESC LIMIT ?";
     private static final String SELECT_BY_ID = "SELECT port_id, port_code, port_name, country, city, latitude, longitude, total_berths, max_vessel_size, created_at FROM port WHERE port_id = ?";
     private static final String UPDATE = "UPDATE port SET port_code = ?, port_name = ?, country = ?, city = ?, latitude = ?, longitude = ?, total_berths = ?, max_vessel_size = ? WHERE port_id = ?";
     private static final String DELETE = "DELETE FROM port WHERE port_id = ?";
     private static final String CHECK_PORT_CODE = "SELECT port_id FROM port WHERE port_code = ? AND port_id != ?";
+    private static final String SELECT_BY_IDS = SELECT_BASE + " WHERE port_id IN (";
+    private static final String SELECT_SUGGEST_FIELDS = "SELECT port_id, port_name, port_code FROM port";
 
-    public PortRepository(DatabaseManager databaseManager) {
+    // 港口基本不变：按ID缓存，修改和删除时失效
+    private final LruCache<Integer, Port> cache;
+    private final TableVersions tableVersions;
+    private final SuggestIndex suggestIndex;
+
+    public PortRepository(DatabaseManager databaseManager, TableVersions tableVersions, SuggestIndex suggestIndex,
+                          @Value("${reference.cache.port-max-size:2000}") int cacheSize) {
         this.databaseManager = databaseManager;
+        this.tableVersions = tableVersions;
+        this.suggestIndex = suggestIndex;
+        this.cache = new LruCache<>("port", cacheSize);
+    }
+
+    // 表单联想：港口名称和港口代码前缀
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSuggestIndex() {
+        try {
+            suggestIndex.rebuild(SuggestIndex.Type.PORT, sink -> {
+                try (Connection conn = databaseManager.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(SELECT_SUGGEST_FIELDS);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString(2);
+                        String code = rs.getString(3);
+                        sink.add(rs.getInt(1), name, code, name, code);
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("港口联想索引加载失败，下次联想请求时重试：" + e.getMessage());
+        }
     }
 
     public void save(Port port) throws SQLException {
@@ -40,8 +84,11 @@ public class PortRepository {
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
                 port.setPortId(rs.getInt(1));
+                suggestIndex.put(SuggestIndex.Type.PORT, port.getPortId(), port.getPortName(), port.getPortCode(),
+                        port.getPortName(), port.getPortCode());
             }
         }
+        tableVersions.bump(TableVersions.PORT);
     }
 
     public List<Port> findAll() throws SQLException {
@@ -56,19 +103,113 @@ public class PortRepository {
         return ports;
     }
 
+    // 最近新增的前N条（总览页用）
+    public List<Port> findRecent(int limit) throws SQLException {
+        List<Port> ports = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RECENT)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ports.add(mapRow(rs));
+                }
+            }
+        }
+        return ports;
+    }
+
+    // 分页查询：按port_id游标（分页时不按名称排序，保证游标稳定）
+    public PageResult<Port> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = new KeysetQuery(SELECT_BASE);
+        if (query.getAfter() != null) {
+            keyset.where("port_id > ?", query.getAfter().id());
+        }
+        keyset.orderByLimit("port_id", query.getLimit());
 
+        List<Port> ports = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keyset.sql())) {
+            keyset.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ports.add(mapRow(rs));
+                }
+            }
+        }
+        return KeysetQuery.toPage(ports, query.getLimit(), port -> PageCursor.ofId(port.getPortId()));
+    }
+
+    // 按ID读取港口：先查缓存，未命中再查库并回填
     public Port findById(int portId) throws SQLException {
+        Port cached = cache.get(portId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID)) {
             stmt.setInt(1, portId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return mapRow(rs);
+                Port port = mapRow(rs);
+                cache.putIfUnchanged(portId, port, generation);
+                return port;
             }
         }
         return null;
     }
 
+    /**
+     * Ports for the given ids, from the cache where possible and one IN query for the rest.
+     * The returned instances are shared with the cache and must not be modified.
+     */
+    public Map<Integer, Port> findByIds(Collection<Integer> portIds) throws SQLException {
+        Map<Integer, Port> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer portId : new LinkedHashSet<>(portIds)) {
+            if (portId == null || portId <= 0) {
+                continue;
+            }
+            Port cached = cache.get(portId);
+            if (cached != null) {
+                found.put(portId, cached);
+            } else {
+                missing.add(portId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long generation = cache.generation();
+        String sql = SELECT_BY_IDS + String.join(", ", Collections.nCopies(missing.size(), "?")) + ")";
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Integer portId : missing) {
+                stmt.setInt(index++, portId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Port port = mapRow(rs);
+                    found.put(port.getPortId(), port);
+                    cache.putIfUnchanged(port.getPortId(), port, generation);
+                }
+            }
+        }
+        return found;
+    }
+
+    // 列表查询填充港口名称用
+    public Map<Integer, String> findNames(Collection<Integer> portIds) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        findByIds(portIds).forEach((id, port) -> names.put(id, port.getPortName()));
+        return names;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return cache.stats();
+    }
+
     public void update(Port port) throws SQLException {
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
@@ -82,6 +223,11 @@ public class PortRepository {
             stmt.setBigDecimal(8, port.getMaxVesselSize());
             stmt.setInt(9, port.getPortId());
             stmt.executeUpdate();
+            suggestIndex.put(SuggestIndex.Type.PORT, port.getPortId(), port.getPortName(), port.getPortCode(),
+                    port.getPortName(), port.getPortCode());
+        } finally {
+            cache.invalidate(port.getPortId());
+            tableVersions.bump(TableVersions.PORT);
         }
     }
 
@@ -90,6 +236,10 @@ public class PortRepository {
              PreparedStatement stmt = conn.prepareStatement(DELETE)) {
             stmt.setInt(1, portId);
             stmt.executeUpdate();
+            suggestIndex.remove(SuggestIndex.Type.PORT, portId);
+        } finally {
+            cache.invalidate(portId);
+            tableVersions.bump(TableVersions.PORT);
         }
     }
 
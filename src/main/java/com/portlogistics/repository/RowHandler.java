@@ -0,0 +1,11 @@
+package com.portlogistics.repository;
+
+import java.io.IOException;
+
+/**
+ * Callback for rows read from a streaming result set; each row is handed over as soon as it is mapped.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+    void handle(T row) throws IOException;
+}
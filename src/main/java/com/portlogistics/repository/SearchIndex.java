@@ -0,0 +1,576 @@
+package com.portlogistics.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * In-process inverted index over the free-text columns users search: cargo description and
+ * destination, ship name and IMO, warehouse name and location. Chinese text is indexed as single
+ * characters plus character bigrams, other text as lower-cased words; the last word of a query
+ * also matches as a prefix, so the same index serves typeahead. Results are ranked by field
+ * weight times inverse document frequency.
+ * Loaded by the owning repositories on startup and updated by them after every committed write.
+ */
+@Component
+public class SearchIndex {
+    // 前缀词最多展开的索引词数，避免单个字母展开成上万个词
+    private static final int MAX_PREFIX_EXPANSIONS = 128;
+    // 前缀命中的得分折扣，完整词命中排在前面
+    private static final double PREFIX_FACTOR = 0.7;
+    // 求交集时长度比超过该值改用二分查找
+    private static final int GALLOP_RATIO = 16;
+
+    /**
+     * Searchable entity and the weight of each of its indexed fields, in the order the fields
+     * are passed to {@link #put}.
+     */
+    public enum Type {
+        CARGO(2.0, 1.0),      // description, destination
+        SHIP(3.0, 3.0),       // name, imo
+        WAREHOUSE(3.0, 1.0);  // warehouse_name, location
+
+        private final double[] fieldWeights;
+
+        Type(double... fieldWeights) {
+            this.fieldWeights = fieldWeights;
+        }
+
+        public static Type parse(String value) {
+            try {
+                return Type.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的搜索类型：" + value + "（可选 cargo、ship、warehouse）");
+            }
+        }
+    }
+
+    /**
+     * One match; {@code fields} are the indexed values in field order.
+     */
+    public record Hit(Type type, int id, double score, List<String> fields) {
+    }
+
+    @FunctionalInterface
+    interface DocumentSink {
+        void add(int id, String... fields);
+    }
+
+    @FunctionalInterface
+    interface DocumentLoader {
+        void load(DocumentSink sink) throws SQLException;
+    }
+
+    private final Map<Type, Segment> segments = new EnumMap<>(Type.class);
+    private final int maxResults;
+
+    public SearchIndex(@Value("${search.max-results:500}") int maxResults) {
+        this.maxResults = maxResults;
+        for (Type type : Type.values()) {
+            segments.put(type, new Segment(type));
+        }
+    }
+
+    public boolean isReady(Type type) {
+        return segments.get(type).ready;
+    }
+
+    /**
+     * Best matches of one type, highest score first; ties go to the newer (higher) id.
+     */
+    public List<Hit> search(Type type, String query, int limit) {
+        List<QueryTerm> terms = parseQuery(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return segments.get(type).search(terms, limit);
+    }
+
+    // 列表页关键字搜索用：按相关度排序的ID，最多search.max-results条
+    List<Integer> searchIds(Type type, String query) {
+        List<Integer> ids = new ArrayList<>();
+        for (Hit hit : search(type, query, maxResults)) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    // 跨类型搜索：各类型分别取前limit条再按得分合并
+    public List<Hit> search(Collection<Type> types, String query, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        for (Type type : types) {
+            hits.addAll(search(type, query, limit));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        segments.forEach((type, segment) -> stats.put(type.name().toLowerCase(), segment.stats()));
+        return stats;
+    }
+
+    // 写入提交之后调用；已存在的文档先按旧内容移除再重新索引
+    void put(Type type, int id, String... fields) {
+        segments.get(type).put(id, fields);
+    }
+
+    void remove(Type type, int id) {
+        segments.get(type).put(id, null);
+    }
+
+    /**
+     * Replaces the segment with a fresh load. Writes arriving during the load are applied to the
+     * live segment and replayed onto the new one before it is swapped in.
+     */
+    void rebuild(Type type, DocumentLoader loader) throws SQLException {
+        segments.get(type).rebuild(loader);
+    }
+
+    // ---------------------------------------------------------------- 分词
+
+    private record QueryTerm(String text, boolean prefix) {
+    }
+
+    // 中文按单字+相邻双字切分，其余按字母数字连续段切成小写词；sink的第二个参数为字段序号
+    static void tokenize(String text, int field, ObjIntConsumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        String lower = text.toLowerCase();
+        int i = 0;
+        while (i < lower.length()) {
+            int cp = lower.codePointAt(i);
+            if (Character.isIdeographic(cp)) {
+                int previous = -1;
+                while (i < lower.length() && Character.isIdeographic(cp = lower.codePointAt(i))) {
+                    int end = i + Character.charCount(cp);
+                    sink.accept(lower.substring(i, end), field);
+                    if (previous >= 0) {
+                        sink.accept(lower.substring(previous, end), field);
+                    }
+                    previous = i;
+                    i = end;
+                }
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < lower.length() && Character.isLetterOrDigit(cp = lower.codePointAt(i))
+                        && !Character.isIdeographic(cp)) {
+                    i += Character.charCount(cp);
+                }
+                String word = lower.substring(start, i);
+                sink.accept(word, field);
+                // 字母数字混排（如IMO9321483）再拆出纯数字和纯字母段，按编号本身也能搜到
+                int partStart = 0;
+                for (int p = 1; p <= word.length(); p++) {
+                    if (p == word.length() || Character.isDigit(word.charAt(p)) != Character.isDigit(word.charAt(p - 1))) {
+                        if (partStart > 0 || p < word.length()) {
+                            sink.accept(word.substring(partStart, p), field);
+                        }
+                        partStart = p;
+                    }
+                }
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    /**
+     * Query words: a Chinese run of one character is looked up as a unigram, longer runs as their
+     * bigrams; other words exactly, except that the last word is a prefix unless the query ends
+     * with whitespace (the user has finished typing it).
+     */
+    private static List<QueryTerm> parseQuery(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null || query.isBlank()) {
+            return terms;
+        }
+        String lower = query.toLowerCase();
+        int i = 0;
+        while (i < lower.length()) {
+            int cp = lower.codePointAt(i);
+            if (Character.isIdeographic(cp)) {
+                int start = i;
+                while (i < lower.length() && Character.isIdeographic(lower.codePointAt(i))) {
+                    i += Character.charCount(lower.codePointAt(i));
+                }
+                String run = lower.substring(start, i);
+                if (run.codePointCount(0, run.length()) == 1) {
+                    terms.add(new QueryTerm(run, false));
+                } else {
+                    for (int p = 0, next; (next = run.offsetByCodePoints(p, 1)) < run.length(); p = next) {
+                        terms.add(new QueryTerm(run.substring(p, run.offsetByCodePoints(next, 1)), false));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < lower.length() && Character.isLetterOrDigit(cp = lower.codePointAt(i))
+                        && !Character.isIdeographic(cp)) {
+                    i += Character.charCount(cp);
+                }
+                terms.add(new QueryTerm(lower.substring(start, i), i == lower.length()));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return terms;
+    }
+
+    // ---------------------------------------------------------------- 倒排表
+
+    /**
+     * Sorted doc ids with a bit mask per doc of the fields the term occurs in. Ids mostly arrive
+     * in increasing order, so adds are appends.
+     */
+    private static final class PostingList {
+        int[] docs = new int[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        void add(int doc, int fieldMask) {
+            int pos = size > 0 && docs[size - 1] < doc ? -size - 1 : Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                fields[pos] |= (byte) fieldMask;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            System.arraycopy(fields, pos, fields, pos + 1, size - pos);
+            docs[pos] = doc;
+            fields[pos] = (byte) fieldMask;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            System.arraycopy(fields, pos + 1, fields, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Docs matching one query word, sorted by id, with the word's score contribution per doc.
+     * A single-term match reads the posting list in place and scores by field mask on access.
+     */
+    private static final class Matches {
+        final int[] docs;
+        final int size;
+        private final double[] scores;
+        private final byte[] fields;
+        private final double[] maskScores;
+
+        Matches(int[] docs, double[] scores, int size) {
+            this.docs = docs;
+            this.scores = scores;
+            this.size = size;
+            this.fields = null;
+            this.maskScores = null;
+        }
+
+        Matches(PostingList postings, double[] maskScores) {
+            this.docs = postings.docs;
+            this.size = postings.size;
+            this.scores = null;
+            this.fields = postings.fields;
+            this.maskScores = maskScores;
+        }
+
+        double score(int i) {
+            return scores != null ? scores[i] : maskScores[fields[i]];
+        }
+    }
+
+    private static final class Segment {
+        private final Type type;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private Map<Integer, String[]> documents = new HashMap<>();
+        private TreeMap<String, PostingList> terms = new TreeMap<>();
+        private List<Object[]> replayLog;
+        private volatile boolean ready;
+
+        Segment(Type type) {
+            this.type = type;
+        }
+
+        void put(int id, String[] fields) {
+            lock.writeLock().lock();
+            try {
+                apply(documents, terms, id, fields);
+                if (replayLog != null) {
+                    replayLog.add(new Object[]{id, fields});
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void rebuild(DocumentLoader loader) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                replayLog = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Map<Integer, String[]> loadedDocs = new HashMap<>();
+            TreeMap<String, PostingList> loadedTerms = new TreeMap<>();
+            try {
+                loader.load((id, fields) -> apply(loadedDocs, loadedTerms, id, fields));
+            } catch (SQLException | RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    replayLog = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Object[] entry : replayLog) {
+                    apply(loadedDocs, loadedTerms, (Integer) entry[0], (String[]) entry[1]);
+                }
+                replayLog = null;
+                documents = loadedDocs;
+                terms = loadedTerms;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("搜索索引加载完成：" + type.name().toLowerCase() + "，文档数：" + loadedDocs.size()
+                    + "，词项数：" + loadedTerms.size());
+        }
+
+        // fields为null表示删除
+        private static void apply(Map<Integer, String[]> documents, TreeMap<String, PostingList> terms,
+                                  int id, String[] fields) {
+            String[] previous = documents.remove(id);
+            if (previous != null) {
+                for (String term : termMasks(previous).keySet()) {
+                    PostingList postings = terms.get(term);
+                    if (postings != null) {
+                        postings.remove(id);
+                        if (postings.size == 0) {
+                            terms.remove(term);
+                        }
+                    }
+                }
+            }
+            if (fields == null) {
+                return;
+            }
+            documents.put(id, fields);
+            termMasks(fields).forEach((term, mask) -> terms.computeIfAbsent(term, t -> new PostingList()).add(id, mask));
+        }
+
+        private static Map<String, Integer> termMasks(String[] fields) {
+            Map<String, Integer> masks = new HashMap<>();
+            for (int f = 0; f < fields.length; f++) {
+                tokenize(fields[f], f, (term, field) -> masks.merge(term, 1 << field, (a, b) -> a | b));
+            }
+            return masks;
+        }
+
+        List<Hit> search(List<QueryTerm> queryTerms, int limit) {
+            lock.readLock().lock();
+            try {
+                List<Matches> perTerm = new ArrayList<>(queryTerms.size());
+                for (QueryTerm queryTerm : queryTerms) {
+                    Matches matches = match(queryTerm);
+                    if (matches.size == 0) {
+                        return List.of();
+                    }
+                    perTerm.add(matches);
+                }
+                // 从最短的结果开始求交集
+                perTerm.sort(Comparator.comparingInt(matches -> matches.size));
+                Matches result = perTerm.get(0);
+                for (int i = 1; i < perTerm.size() && result.size > 0; i++) {
+                    result = intersect(result, perTerm.get(i));
+                }
+                return topHits(result, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // 一个查询词命中的文档：前缀词合并所有展开词的倒排表，同一文档取最高分
+        private Matches match(QueryTerm queryTerm) {
+            List<Map.Entry<String, PostingList>> expanded = new ArrayList<>();
+            if (queryTerm.prefix()) {
+                NavigableMap<String, PostingList> range =
+                        terms.subMap(queryTerm.text(), true, queryTerm.text() + Character.MAX_VALUE, false);
+                for (Map.Entry<String, PostingList> entry : range.entrySet()) {
+                    if (expanded.size() >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    expanded.add(entry);
+                }
+            } else {
+                PostingList postings = terms.get(queryTerm.text());
+                if (postings != null) {
+                    expanded.add(Map.entry(queryTerm.text(), postings));
+                }
+            }
+            if (expanded.size() == 1) {
+                Map.Entry<String, PostingList> entry = expanded.get(0);
+                return new Matches(entry.getValue(), maskScores(queryTerm, entry));
+            }
+            return mergeExpanded(queryTerm, expanded);
+        }
+
+        private Matches mergeExpanded(QueryTerm queryTerm, List<Map.Entry<String, PostingList>> expanded) {
+            int total = 0;
+            for (Map.Entry<String, PostingList> entry : expanded) {
+                total += entry.getValue().size;
+            }
+            // 多路归并：堆中为(展开词序号, 当前位置)
+            PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator.comparingInt(
+                    (int[] cursor) -> expanded.get(cursor[0]).getValue().docs[cursor[1]]));
+            double[][] maskScores = new double[expanded.size()][];
+            for (int k = 0; k < expanded.size(); k++) {
+                Map.Entry<String, PostingList> entry = expanded.get(k);
+                maskScores[k] = maskScores(queryTerm, entry);
+                if (entry.getValue().size > 0) {
+                    heap.add(new int[]{k, 0});
+                }
+            }
+            int[] docs = new int[total];
+            double[] scores = new double[total];
+            int size = 0;
+            while (!heap.isEmpty()) {
+                int[] cursor = heap.poll();
+                PostingList postings = expanded.get(cursor[0]).getValue();
+                int doc = postings.docs[cursor[1]];
+                double score = maskScores[cursor[0]][postings.fields[cursor[1]]];
+                if (size > 0 && docs[size - 1] == doc) {
+                    scores[size - 1] = Math.max(scores[size - 1], score);
+                } else {
+                    docs[size] = doc;
+                    scores[size] = score;
+                    size++;
+                }
+                if (++cursor[1] < postings.size) {
+                    heap.add(cursor);
+                }
+            }
+            return new Matches(docs, scores, size);
+        }
+
+        // 有序数组求交集：长度相差悬殊时短的一方逐个在长的一方中二分查找，否则双指针归并
+        private static Matches intersect(Matches small, Matches large) {
+            int[] docs = new int[small.size];
+            double[] scores = new double[small.size];
+            int size = 0;
+            if (large.size / small.size >= GALLOP_RATIO) {
+                int from = 0;
+                for (int i = 0; i < small.size && from < large.size; i++) {
+                    int pos = Arrays.binarySearch(large.docs, from, large.size, small.docs[i]);
+                    if (pos >= 0) {
+                        docs[size] = small.docs[i];
+                        scores[size++] = small.score(i) + large.score(pos);
+                        from = pos + 1;
+                    } else {
+                        from = -pos - 1;
+                    }
+                }
+            } else {
+                for (int i = 0, j = 0; i < small.size && j < large.size; ) {
+                    if (small.docs[i] < large.docs[j]) {
+                        i++;
+                    } else if (small.docs[i] > large.docs[j]) {
+                        j++;
+                    } else {
+                        docs[size] = small.docs[i];
+                        scores[size++] = small.score(i++) + large.score(j++);
+                    }
+                }
+            }
+            return new Matches(docs, scores, size);
+        }
+
+        private List<Hit> topHits(Matches matches, int limit) {
+            // 小顶堆保留得分最高的limit条；从ID大的一端往回扫，同分时先入堆的较新记录不会被挤掉，
+            // 堆满后只有得分严格更高的才需要入堆
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> {
+                int byScore = Double.compare(matches.score(a), matches.score(b));
+                return byScore != 0 ? byScore : Integer.compare(matches.docs[a], matches.docs[b]);
+            });
+            for (int i = matches.size - 1; i >= 0; i--) {
+                if (heap.size() < limit) {
+                    heap.add(i);
+                } else if (matches.score(i) > matches.score(heap.peek())) {
+                    heap.poll();
+                    heap.add(i);
+                }
+            }
+            Hit[] hits = new Hit[heap.size()];
+            for (int k = hits.length - 1; k >= 0; k--) {
+                int i = heap.poll();
+                int id = matches.docs[i];
+                hits[k] = new Hit(type, id, matches.score(i), Arrays.asList(documents.get(id)));
+            }
+            return Arrays.asList(hits);
+        }
+
+        // 按字段掩码预先算好一个索引词的得分：idf × 命中字段中的最高权重，前缀命中再打折
+        private double[] maskScores(QueryTerm queryTerm, Map.Entry<String, PostingList> entry) {
+            double idf = Math.log(1.0 + (double) documents.size() / entry.getValue().size);
+            double factor = entry.getKey().equals(queryTerm.text()) ? idf : idf * PREFIX_FACTOR;
+            double[] scores = new double[1 << type.fieldWeights.length];
+            for (int mask = 1; mask < scores.length; mask++) {
+                double weight = 0;
+                for (int f = 0; f < type.fieldWeights.length; f++) {
+                    if ((mask & (1 << f)) != 0) {
+                        weight = Math.max(weight, type.fieldWeights[f]);
+                    }
+                }
+                scores[mask] = factor * weight;
+            }
+            return scores;
+        }
+
+        Map<String, Object> stats() {
+            lock.readLock().lock();
+            try {
+                long postings = 0;
+                for (PostingList list : terms.values()) {
+                    postings += list.size;
+                }
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("ready", ready);
+                stats.put("documents", documents.size());
+                stats.put("terms", terms.size());
+                stats.put("postings", postings);
+                return stats;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -1,4 +1,7 @@
 package com.portlogistics.repository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 import com.portlogistics.config.DatabaseManager;
 import com.portlogistics.model.Ship;
@@ -8,7 +11,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 // 找到文件开头的import部分，添加下面这行
 import java.sql.Statement;
 
@@ -16,14 +26,72 @@ import java.sql.Statement;
 public class ShipRepository {
     private final DatabaseManager databaseManager;
     private static final String SELECT_ALL = "SELECT ship_id, name, imo, capacity_teu, status FROM ship ORDER BY ship_id";
+    private static final String SELECT_RECENT = "SELECT ship_id, name, imo, capacity_teu, status FROM ship ORDER BY ship_id DESC LIMIT ?";
     private static final String SELECT_BY_KEYWORD = "SELECT ship_id, name, imo, capacity_teu, status FROM ship " +
             "WHERE LOWER(name) LIKE ? OR LOWER(imo) LIKE ? ORDER BY ship_id";
     private static final String INSERT = "INSERT INTO ship (name, imo, capacity_teu, status) VALUES (?, ?, ?, ?)";
     private static final String UPDATE_STATUS = "UPDATE ship SET status = ? WHERE ship_id = ?";
     private static final String UPDATE="UPDATE ship SET name=?,imo=?,capacity_teu=?,status=? WHERE ship_id=?";
     private static final String DELETE="DELETE FROM ship WHERE ship_id=?";
-    public ShipRepository(DatabaseManager databaseManager){
+    private static final String SELECT_BY_IDS = "SELECT ship_id, name, imo, capacity_teu, status FROM ship WHERE ship_id IN (";
+    private static final String SELECT_SEARCH_FIELDS = "SELECT ship_id, name, imo FROM ship";
+    // 缓存未命中时每条IN查询的ID数量
+    private static final int ID_CHUNK_SIZE = 1000;
+    // 船舶很少变化：按ID缓存，写操作时失效
+    private final LruCache<Integer, Ship> cache;
+    private final TableVersions tableVersions;
+    private final SearchIndex searchIndex;
+    private final SuggestIndex suggestIndex;
+    public ShipRepository(DatabaseManager databaseManager, TableVersions tableVersions, SearchIndex searchIndex,
+                          SuggestIndex suggestIndex,
+                          @Value("${reference.cache.ship-max-size:10000}") int cacheSize){
         this.databaseManager=databaseManager;
+        this.tableVersions=tableVersions;
+        this.searchIndex=searchIndex;
+        this.suggestIndex=suggestIndex;
+        this.cache=new LruCache<>("ship", cacheSize);
+    }
+
+    // 启动后加载船名/IMO的全文索引，加载完成前搜索退回LIKE查询
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchIndex() {
+        try {
+            rebuildSearchIndex();
+        } catch (SQLException e) {
+            System.out.println("船舶搜索索引加载失败：" + e.getMessage());
+        }
+    }
+
+    public void rebuildSearchIndex() throws SQLException {
+        searchIndex.rebuild(SearchIndex.Type.SHIP, sink -> {
+            try (Connection connection = databaseManager.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(SELECT_SEARCH_FIELDS);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sink.add(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3));
+                }
+            }
+        });
+    }
+
+    // 表单联想：船名和IMO前缀
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSuggestIndex() {
+        try {
+            suggestIndex.rebuild(SuggestIndex.Type.SHIP, sink -> {
+                try (Connection connection = databaseManager.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(SELECT_SEARCH_FIELDS);
+                     ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String name = resultSet.getString(2);
+                        String imo = resultSet.getString(3);
+                        sink.add(resultSet.getInt(1), name, imo, name, imo);
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("船舶联想索引加载失败，下次联想请求时重试：" + e.getMessage());
+        }
     }
     public List<Ship> findAll() throws SQLException {
         List<Ship> ships = new ArrayList<>();
@@ -37,7 +105,38 @@ public class ShipRepository {
         return ships;
     }
 
+    // 最近新增的前N条（总览页用）
+    public List<Ship> findRecent(int limit) throws SQLException {
+        List<Ship> ships = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_RECENT)) {
+            statement.setInt(1, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ships.add(mapRow(resultSet));
+                }
+            }
+        }
+        return ships;
+    }
+
+    // 按相关度排序；索引就绪后只按主键取行，不再全表LIKE扫描。
+    // 索引只认整词和词首前缀，没有命中时再用LIKE查一次，词中间的片段（如船名的一部分）仍能搜到
     public List<Ship> searchByKeyword(String keyword) throws SQLException {
+        if (searchIndex.isReady(SearchIndex.Type.SHIP)) {
+            List<Integer> ids = searchIndex.searchIds(SearchIndex.Type.SHIP, keyword);
+            if (!ids.isEmpty()) {
+                Map<Integer, Ship> found = findByIds(ids);
+                List<Ship> ships = new ArrayList<>(ids.size());
+                for (Integer id : ids) {
+                    Ship ship = found.get(id);
+                    if (ship != null) {
+                        ships.add(ship);
+                    }
+                }
+                return ships;
+            }
+        }
         List<Ship> ships = new ArrayList<>();
         String like = "%" + keyword.toLowerCase() + "%";
         try (Connection connection = databaseManager.getConnection();
@@ -61,7 +160,15 @@ public class ShipRepository {
             statement.setInt(3, ship.getCapacityTeu());
             statement.setString(4, ship.getStatus());
             statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    searchIndex.put(SearchIndex.Type.SHIP, keys.getInt(1), ship.getName(), ship.getImo());
+                    suggestIndex.put(SuggestIndex.Type.SHIP, keys.getInt(1), ship.getName(), ship.getImo(),
+                            ship.getName(), ship.getImo());
+                }
+            }
         }
+        tableVersions.bump(TableVersions.SHIP);
     }
 
     public void updateStatus(int shipId, String status) throws SQLException {
@@ -70,6 +177,9 @@ public class ShipRepository {
             statement.setString(1, status);
             statement.setInt(2, shipId);
             statement.executeUpdate();
+        } finally {
+            cache.invalidate(shipId);
+            tableVersions.bump(TableVersions.SHIP);
         }
     }
 
@@ -92,6 +202,11 @@ public class ShipRepository {
                 statement.setString(4,ship.getStatus());
                 statement.setInt(5,shipId);
                 statement.executeUpdate();
+                searchIndex.put(SearchIndex.Type.SHIP, shipId, ship.getName(), ship.getImo());
+                suggestIndex.put(SuggestIndex.Type.SHIP, shipId, ship.getName(), ship.getImo(), ship.getName(), ship.getImo());
+             } finally {
+                cache.invalidate(shipId);
+                tableVersions.bump(TableVersions.SHIP);
              }
     }
 
@@ -100,15 +215,82 @@ public class ShipRepository {
             PreparedStatement statement=connection.prepareStatement(DELETE)){
                 statement.setInt(1,shipId);
                 statement.executeUpdate();
+                searchIndex.remove(SearchIndex.Type.SHIP, shipId);
+                suggestIndex.remove(SuggestIndex.Type.SHIP, shipId);
+            } finally {
+                cache.invalidate(shipId);
+                tableVersions.bump(TableVersions.SHIP);
             }
     }
 
+    // 批量校验船舶是否存在：缓存未命中的ID合并成一次IN查询
+    public Set<Integer> findExistingIds(Collection<Integer> shipIds) throws SQLException {
+        return new HashSet<>(findByIds(shipIds).keySet());
+    }
+
     public boolean existsById(int shipId) throws SQLException {
-        String FIND_BY_ID = "SELECT ship_id FROM ship WHERE ship_id = ?";
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID)) {
-            stmt.setInt(1, shipId);
-            return stmt.executeQuery().next();
+        return findById(shipId) != null;
+    }
+
+    // 按ID读取船舶：先查缓存，未命中再查库并回填
+    public Ship findById(int shipId) throws SQLException {
+        return findByIds(List.of(shipId)).get(shipId);
+    }
+
+    /**
+     * Ships for the given ids, served from the cache where possible; the misses are loaded
+     * with chunked IN queries and written back. Ids that do not exist are simply absent.
+     * The returned instances are shared with the cache and must not be modified.
+     */
+    public Map<Integer, Ship> findByIds(Collection<Integer> shipIds) throws SQLException {
+        Map<Integer, Ship> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer shipId : new LinkedHashSet<>(shipIds)) {
+            // 0或空表示未指定船舶
+            if (shipId == null || shipId <= 0) {
+                continue;
+            }
+            Ship cached = cache.get(shipId);
+            if (cached != null) {
+                found.put(shipId, cached);
+            } else {
+                missing.add(shipId);
+            }
         }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long generation = cache.generation();
+        try (Connection conn = databaseManager.getConnection()) {
+            for (int from = 0; from < missing.size(); from += ID_CHUNK_SIZE) {
+                List<Integer> chunk = missing.subList(from, Math.min(from + ID_CHUNK_SIZE, missing.size()));
+                String sql = SELECT_BY_IDS + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Integer shipId : chunk) {
+                        stmt.setInt(index++, shipId);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Ship ship = mapRow(rs);
+                            found.put(ship.getId(), ship);
+                            cache.putIfUnchanged(ship.getId(), ship, generation);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // 列表查询填充船舶名称用
+    public Map<Integer, String> findNames(Collection<Integer> shipIds) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        findByIds(shipIds).forEach((id, ship) -> names.put(id, ship.getName()));
+        return names;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return cache.stats();
     }
 }
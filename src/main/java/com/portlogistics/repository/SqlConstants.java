@@ -0,0 +1,38 @@
+package com.portlogistics.repository;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The SQL text held in the repositories' static final String constants, keyed by
+ * "Repository.CONSTANT". Used to name statement metrics and by the index advisor.
+ */
+public final class SqlConstants {
+    private SqlConstants() {
+    }
+
+    public static Map<String, String> of(ApplicationContext context) {
+        Map<String, String> constants = new LinkedHashMap<>();
+        for (Object repository : context.getBeansWithAnnotation(Repository.class).values()) {
+            Class<?> type = repository.getClass();
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (field.getType() != String.class || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    constants.put(type.getSimpleName() + "." + field.getName(), (String) field.get(null));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // 取不到的常量直接跳过
+                }
+            }
+        }
+        return constants;
+    }
+}
@@ -0,0 +1,252 @@
+package com.portlogistics.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sorted in-memory prefix index for form typeahead: ship names and IMO numbers, port names and
+ * codes, cargo descriptions and ids, warehouse names. Every key is kept once in a sorted set, so a
+ * prefix lookup is one seek plus a short forward scan. Loaded by the owning repositories on
+ * startup and updated by them after every committed write. A type whose startup load failed is
+ * loaded again on a later request; otherwise the database is never queried here.
+ */
+@Component
+public class SuggestIndex {
+    // 加载失败后两次重试之间的最短间隔，数据库不可用时不会每次按键都去连一次
+    private static final long RETRY_INTERVAL_NANOS = 5_000_000_000L;
+
+    public enum Type {
+        SHIP, PORT, CARGO, WAREHOUSE;
+
+        public static Type parse(String value) {
+            try {
+                return Type.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的联想类型：" + value);
+            }
+        }
+    }
+
+    /**
+     * One suggestion: the display name and a short detail (IMO, port code, weight in tons or
+     * location, depending on the type).
+     */
+    public record Suggestion(int id, String name, String detail) {
+    }
+
+    @FunctionalInterface
+    interface EntrySink {
+        void add(int id, String name, String detail, String... keys);
+    }
+
+    @FunctionalInterface
+    interface EntryLoader {
+        void load(EntrySink sink) throws SQLException;
+    }
+
+    private final Map<Type, Table> tables = new EnumMap<>(Type.class);
+    private final long retryIntervalNanos;
+
+    public SuggestIndex() {
+        this(RETRY_INTERVAL_NANOS);
+    }
+
+    SuggestIndex(long retryIntervalNanos) {
+        this.retryIntervalNanos = retryIntervalNanos;
+        for (Type type : Type.values()) {
+            tables.put(type, new Table());
+        }
+    }
+
+    public boolean isReady(Type type) {
+        return tables.get(type).ready;
+    }
+
+    /**
+     * Returns whether the type is ready, first retrying a failed load in the calling thread.
+     * Returns false at once while another load of the type is running, before the owning
+     * repository has made its first attempt, and within the retry interval after a failure.
+     */
+    public boolean ensureReady(Type type) {
+        Table table = tables.get(type);
+        if (table.ready) {
+            return true;
+        }
+        EntryLoader loader = table.loader;
+        if (loader == null || System.nanoTime() - table.lastAttempt < retryIntervalNanos
+                || !table.loading.tryLock()) {
+            return false;
+        }
+        try {
+            if (!table.ready) {
+                table.load(loader);
+                System.out.println("联想索引重新加载完成：" + type.name().toLowerCase() + "，条目数：" + table.items.size());
+            }
+        } catch (SQLException e) {
+            System.out.println("联想索引重新加载失败：" + type.name().toLowerCase() + "，" + e.getMessage());
+        } finally {
+            table.loading.unlock();
+        }
+        return table.ready;
+    }
+
+    // 按键的字典序返回前limit条，同一条记录多个键命中时只出现一次；前缀为空时从头返回
+    public List<Suggestion> suggest(Type type, String prefix, int limit) {
+        return tables.get(type).suggest(normalize(prefix), limit);
+    }
+
+    // 按ID取已索引的条目（编辑表单回显当前选中项用），不存在的ID跳过
+    public List<Suggestion> lookup(Type type, Collection<Integer> ids) {
+        Table table = tables.get(type);
+        List<Suggestion> found = new ArrayList<>();
+        for (Integer id : ids) {
+            Item item = id == null ? null : table.items.get(id);
+            if (item != null) {
+                found.add(item.suggestion);
+            }
+        }
+        return found;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        tables.forEach((type, table) -> {
+            Map<String, Object> tableStats = new LinkedHashMap<>();
+            tableStats.put("ready", table.ready);
+            tableStats.put("entries", table.items.size());
+            tableStats.put("keys", table.keys.size());
+            stats.put(type.name().toLowerCase(), tableStats);
+        });
+        return stats;
+    }
+
+    // 写入提交之后调用；旧的键先移除再写入新键
+    void put(Type type, int id, String name, String detail, String... keys) {
+        tables.get(type).write(id, new Item(new Suggestion(id, name, detail), normalizeKeys(keys)));
+    }
+
+    void remove(Type type, int id) {
+        tables.get(type).write(id, null);
+    }
+
+    /**
+     * Loads all entries of a type. Rows written while the load is running are already current
+     * in the index and are skipped when the (possibly older) loaded copy arrives. The loader is
+     * kept so that {@link #ensureReady} can run it again if this load fails.
+     */
+    void rebuild(Type type, EntryLoader loader) throws SQLException {
+        Table table = tables.get(type);
+        table.loader = loader;
+        table.loading.lock();
+        try {
+            table.load(loader);
+        } finally {
+            table.loading.unlock();
+        }
+        System.out.println("联想索引加载完成：" + type.name().toLowerCase() + "，条目数：" + table.items.size());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] normalizeKeys(String[] keys) {
+        List<String> normalized = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            String value = normalize(key);
+            if (!value.isEmpty() && !normalized.contains(value)) {
+                normalized.add(value);
+            }
+        }
+        return normalized.toArray(new String[0]);
+    }
+
+    private record Item(Suggestion suggestion, String[] keys) {
+    }
+
+    private record Key(String text, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byText = text.compareTo(other.text);
+            return byText != 0 ? byText : Integer.compare(id, other.id);
+        }
+    }
+
+    private static final class Table {
+        private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>();
+        private final ConcurrentHashMap<Integer, Item> items = new ConcurrentHashMap<>();
+        // 加载期间被写入过的ID；加载读到的旧值不能覆盖它们
+        private volatile Set<Integer> writtenDuringLoad;
+        private volatile boolean ready;
+        // 仓储层注册的全量加载；同一类型同时只跑一次加载
+        private volatile EntryLoader loader;
+        private final ReentrantLock loading = new ReentrantLock();
+        private volatile long lastAttempt;
+
+        // compute按ID串行化同一条记录的并发写入，键集合与条目始终一致
+        void write(int id, Item item) {
+            Set<Integer> written = writtenDuringLoad;
+            if (written != null) {
+                written.add(id);
+            }
+            items.compute(id, (key, old) -> replace(id, old, item));
+        }
+
+        void load(EntryLoader loader) throws SQLException {
+            lastAttempt = System.nanoTime();
+            Set<Integer> written = ConcurrentHashMap.newKeySet();
+            writtenDuringLoad = written;
+            try {
+                loader.load((id, name, detail, rowKeys) -> {
+                    Item item = new Item(new Suggestion(id, name, detail), normalizeKeys(rowKeys));
+                    items.compute(id, (key, old) -> written.contains(id) ? old : replace(id, old, item));
+                });
+                ready = true;
+            } finally {
+                writtenDuringLoad = null;
+            }
+        }
+
+        private Item replace(int id, Item old, Item item) {
+            if (old != null) {
+                for (String text : old.keys) {
+                    keys.remove(new Key(text, id));
+                }
+            }
+            if (item != null) {
+                for (String text : item.keys) {
+                    keys.add(new Key(text, id));
+                }
+            }
+            return item;
+        }
+
+        List<Suggestion> suggest(String prefix, int limit) {
+            List<Suggestion> result = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            for (Key key : keys.tailSet(new Key(prefix, Integer.MIN_VALUE))) {
+                if (result.size() >= limit || !key.text.startsWith(prefix)) {
+                    break;
+                }
+                Item item = items.get(key.id);
+                if (item != null && seen.add(key.id)) {
+                    result.add(item.suggestion);
+                }
+            }
+            return result;
+        }
+    }
+}
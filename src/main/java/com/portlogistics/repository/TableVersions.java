@@ -0,0 +1,46 @@
+package com.portlogistics.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory change counter per table, bumped by the repositories after every write. Controllers
+ * turn the counters into ETags, so checking whether a list changed is a map lookup instead of a
+ * query. Counters restart with the process; the startup epoch in the tag keeps old tags invalid.
+ */
+@Component
+public class TableVersions {
+    public static final String BERTH = "berth";
+    public static final String VOYAGE_PLAN = "voyage_plan";
+    public static final String SHIP = "ship";
+    public static final String PORT = "port";
+
+    private final long epoch = System.currentTimeMillis();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // 写操作完成（提交）之后调用；先于提交递增会让并发读取把旧数据标成新版本
+    public void bump(String table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long current(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Strong ETag over the given tables. Include every table whose data appears in the
+     * response, e.g. ship and port for lists that show ship and port names, and every table
+     * whose deletes reach the response's rows through ON DELETE CASCADE / SET NULL.
+     */
+    public String etag(String... tables) {
+        StringBuilder tag = new StringBuilder("\"").append(Long.toString(epoch, 36));
+        for (String table : tables) {
+            tag.append('-').append(current(table));
+        }
+        return tag.append('"').toString();
+    }
+}
@@ -1,9 +1,13 @@
 package com.portlogistics.repository;
 
 import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.TransportTask;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,7 +17,14 @@ public class TransportTaskRepository {
     private final DatabaseManager databaseManager;
 
     private static final String INSERT = "INSERT INTO transport_task (task_number, cargo_id, truck_license, driver_name, driver_phone, pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_ALL = "SELECT task_id, task_number, cargo_id, truck_license, driver_name, driver_phone, pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status, created_at FROM transport_task ORDER BY created_at DESC";
+    private static final String SELECT_BASE = "SELECT task_id, task_number, cargo_id, truck_license, driver_name, driver_phone, pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status, created_at FROM transport_task";
+    // 与idx_task_created(created_at, task_id)同序，倒序扫索引即可，不再整表排序
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY created_at DESC, task_id DESC";
+    // 归档表（按月分区）与热表列相同，历史查询时UNION ALL在一起
+    private static final String SELECT_ARCHIVE_BASE = "SELECT task_id, task_number, cargo_id, truck_license, driver_name, driver_phone, pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status, created_at FROM transport_task_archive";
+    private static final String SELECT_ARCHIVED_BY_ID = SELECT_ARCHIVE_BASE + " WHERE task_id = ?";
+    private static final String SELECT_EXPORT = SELECT_BASE + " ORDER BY task_id";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY task_id DESC LIMIT ?";
     private static final String SELECT_BY_ID = "SELECT task_id, task_number, cargo_id, truck_license, driver_name, driver_phone, pickup_location, delivery_location, planned_pickup, actual_pickup, planned_delivery, actual_delivery, status, created_at FROM transport_task WHERE task_id = ?";
     private static final String UPDATE = "UPDATE transport_task SET task_number = ?, cargo_id = ?, truck_license = ?, driver_name = ?, driver_phone = ?, pickup_location = ?, delivery_location = ?, planned_pickup = ?, actual_pickup = ?, planned_delivery = ?, actual_delivery = ?, status = ? WHERE task_id = ?";
     private static final String DELETE = "DELETE FROM transport_task WHERE task_id = ?";
@@ -64,13 +75,97 @@ public class TransportTaskRepository {
         return tasks;
     }
 
-    public TransportTask findById(int taskId) throws SQLException {
+    // 最近新增的前N条（总览页用）
+    public List<TransportTask> findRecent(int limit) throws SQLException {
+        List<TransportTask> tasks = new ArrayList<>();
         try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID)) {
-            stmt.setInt(1, taskId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return mapRow(rs);
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RECENT)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapRow(rs));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    // 流式读取全部运输任务（只读前向游标，MySQL逐行返回）
+    public void streamAll(RowHandler<TransportTask> handler) throws SQLException, IOException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_EXPORT,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapRow(rs));
+                }
+            }
+        }
+    }
+
+    // 分页查询：按(created_at, task_id)倒序游标，可按状态和创建时间范围过滤；includeArchived时合并归档表
+    public PageResult<TransportTask> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = pageQuery(SELECT_BASE, query);
+        if (query.isIncludeArchived()) {
+            // 归档表的created_at范围条件可裁剪到对应月份的分区
+            keyset = KeysetQuery.unionAll(keyset, pageQuery(SELECT_ARCHIVE_BASE, query),
+                    "created_at DESC, task_id DESC", query.getLimit());
+        }
+
+        List<TransportTask> tasks = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keyset.sql())) {
+            keyset.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapRow(rs));
+                }
+            }
+        }
+        return KeysetQuery.toPage(tasks, query.getLimit(),
+                task -> new PageCursor(task.getCreatedAt(), task.getTaskId()));
+    }
+
+    private static KeysetQuery pageQuery(String select, ListQuery query) {
+        KeysetQuery keyset = new KeysetQuery(select);
+        if (query.getStatus() != null) {
+            keyset.where("status = ?", query.getStatus());
+        }
+        if (query.getFrom() != null) {
+            keyset.where("created_at >= ?", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            keyset.where("created_at < ?", query.getTo());
+        }
+        PageCursor after = query.getAfter();
+        if (after != null) {
+            // 只带ID的游标来自按ID分页的列表，忽略它会让客户端反复拿到第一页
+            if (after.sortTime() == null) {
+                throw new IllegalArgumentException("分页游标无效：不是本列表返回的游标");
+            }
+            keyset.where("(created_at < ? OR (created_at = ? AND task_id < ?))",
+                    after.sortTime(), after.sortTime(), after.id());
+        }
+        return keyset.orderByLimit("created_at DESC, task_id DESC", query.getLimit());
+    }
+
+    public TransportTask findById(int taskId) throws SQLException {
+        return findById(taskId, false);
+    }
+
+    // 热表里没有且includeArchived时再查归档表
+    public TransportTask findById(int taskId, boolean includeArchived) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            for (String sql : includeArchived ? List.of(SELECT_BY_ID, SELECT_ARCHIVED_BY_ID) : List.of(SELECT_BY_ID)) {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, taskId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return mapRow(rs);
+                        }
+                    }
+                }
             }
         }
         return null;
@@ -1,26 +1,46 @@
 package com.portlogistics.repository;
 
 import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.VoyagePlan;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class VoyagePlanRepository {
     private final DatabaseManager databaseManager;
 
     private static final String INSERT = "INSERT INTO voyage_plan (voyage_number, ship_id, departure_port_id, arrival_port_id, assigned_berth_id, planned_departure, planned_arrival, actual_departure, actual_arrival, voyage_status, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_ALL = "SELECT vp.plan_id, vp.voyage_number, vp.ship_id, s.name as ship_name, vp.departure_port_id, vp.arrival_port_id, vp.assigned_berth_id, vp.planned_departure, vp.planned_arrival, vp.actual_departure, vp.actual_arrival, vp.voyage_status, vp.created_by, vp.created_at, dp.port_name as departure_port_name, ap.port_name as arrival_port_name FROM voyage_plan vp LEFT JOIN ship s ON vp.ship_id = s.ship_id LEFT JOIN port dp ON vp.departure_port_id = dp.port_id LEFT JOIN port ap ON vp.arrival_port_id = ap.port_id ORDER BY vp.planned_departure DESC";
-    private static final String SELECT_BY_ID = "SELECT vp.plan_id, vp.voyage_number, vp.ship_id, s.name as ship_name, vp.departure_port_id, vp.arrival_port_id, vp.assigned_berth_id, vp.planned_departure, vp.planned_arrival, vp.actual_departure, vp.actual_arrival, vp.voyage_status, vp.created_by, vp.created_at, dp.port_name as departure_port_name, ap.port_name as arrival_port_name FROM voyage_plan vp LEFT JOIN ship s ON vp.ship_id = s.ship_id LEFT JOIN port dp ON vp.departure_port_id = dp.port_id LEFT JOIN port ap ON vp.arrival_port_id = ap.port_id WHERE vp.plan_id = ?";
+    private static final String SELECT_BASE = "SELECT vp.plan_id, vp.voyage_number, vp.ship_id, vp.departure_port_id, vp.arrival_port_id, vp.assigned_berth_id, vp.planned_departure, vp.planned_arrival, vp.actual_departure, vp.actual_arrival, vp.voyage_status, vp.created_by, vp.created_at FROM voyage_plan vp";
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY vp.planned_departure DESC";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY vp.plan_id DESC LIMIT ?";
+    private static final String SELECT_BY_ID = "SELECT vp.plan_id, vp.voyage_number, vp.ship_id, vp.departure_port_id, vp.arrival_port_id, vp.assigned_berth_id, vp.planned_departure, vp.planned_arrival, vp.actual_departure, vp.actual_arrival, vp.voyage_status, vp.created_by, vp.created_at FROM voyage_plan vp WHERE vp.plan_id = ?";
     private static final String UPDATE = "UPDATE voyage_plan SET voyage_number = ?, ship_id = ?, departure_port_id = ?, arrival_port_id = ?, assigned_berth_id = ?, planned_departure = ?, planned_arrival = ?, actual_departure = ?, actual_arrival = ?, voyage_status = ? WHERE plan_id = ?";
     private static final String DELETE = "DELETE FROM voyage_plan WHERE plan_id = ?";
+    private static final String SELECT_ARRIVAL_PORT = "SELECT arrival_port_id FROM voyage_plan WHERE plan_id = ?";
     private static final String CHECK_VOYAGE_NUMBER = "SELECT plan_id FROM voyage_plan WHERE voyage_number = ? AND plan_id != ?";
 
-    public VoyagePlanRepository(DatabaseManager databaseManager) {
+    private final CargoStatsRollup cargoStatsRollup;
+    private final ShipRepository shipRepository;
+    private final PortRepository portRepository;
+    private final TableVersions tableVersions;
+
+    public VoyagePlanRepository(DatabaseManager databaseManager, CargoStatsRollup cargoStatsRollup,
+                                ShipRepository shipRepository, PortRepository portRepository,
+                                TableVersions tableVersions) {
         this.databaseManager = databaseManager;
+        this.cargoStatsRollup = cargoStatsRollup;
+        this.shipRepository = shipRepository;
+        this.portRepository = portRepository;
+        this.tableVersions = tableVersions;
     }
 
     public void save(VoyagePlan plan) throws SQLException {
@@ -52,6 +72,7 @@ public class VoyagePlanRepository {
                 plan.setPlanId(rs.getInt(1));
             }
         }
+        tableVersions.bump(TableVersions.VOYAGE_PLAN);
     }
 
     public List<VoyagePlan> findAll() throws SQLException {
@@ -63,24 +84,112 @@ public class VoyagePlanRepository {
                 plans.add(mapRow(rs));
             }
         }
-        return plans;
+        return withNames(plans);
+    }
+
+    // 最近新增的前N条（总览页用）
+    public List<VoyagePlan> findRecent(int limit) throws SQLException {
+        List<VoyagePlan> plans = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RECENT)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plans.add(mapRow(rs));
+                }
+            }
+        }
+        return withNames(plans);
+    }
+
+    // 分页查询：按(planned_departure, plan_id)倒序游标；portId匹配出发港或到达港，时间范围作用于计划出发时间
+    public PageResult<VoyagePlan> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = new KeysetQuery(SELECT_BASE);
+        if (query.getStatus() != null) {
+            keyset.where("vp.voyage_status = ?", query.getStatus());
+        }
+        if (query.getPortId() != null) {
+            keyset.where("(vp.departure_port_id = ? OR vp.arrival_port_id = ?)", query.getPortId(), query.getPortId());
+        }
+        if (query.getFrom() != null) {
+            keyset.where("vp.planned_departure >= ?", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            keyset.where("vp.planned_departure < ?", query.getTo());
+        }
+        PageCursor after = query.getAfter();
+        if (after != null) {
+            // 只带ID的游标来自按ID分页的列表，忽略它会让客户端反复拿到第一页
+            if (after.sortTime() == null) {
+                throw new IllegalArgumentException("分页游标无效：不是本列表返回的游标");
+            }
+            keyset.where("(vp.planned_departure < ? OR (vp.planned_departure = ? AND vp.plan_id < ?))",
+                    after.sortTime(), after.sortTime(), after.id());
+        }
+        keyset.orderByLimit("vp.planned_departure DESC, vp.plan_id DESC", query.getLimit());
+
+        List<VoyagePlan> plans = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keyset.sql())) {
+            keyset.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plans.add(mapRow(rs));
+                }
+            }
+        }
+        return KeysetQuery.toPage(withNames(plans), query.getLimit(),
+                plan -> new PageCursor(plan.getPlannedDeparture(), plan.getPlanId()));
+    }
+
+    // 泊位分配候选：指定ID的航次，或到达时间在[from, to)内、尚未分配泊位的计划中航次；portId按到达港过滤
+    public List<VoyagePlan> findAllocationCandidates(List<Integer> planIds, Integer portId,
+                                                    LocalDateTime from, LocalDateTime to) throws SQLException {
+        KeysetQuery query = new KeysetQuery(SELECT_BASE);
+        if (planIds != null && !planIds.isEmpty()) {
+            query.where("vp.plan_id IN (" + String.join(", ", Collections.nCopies(planIds.size(), "?")) + ")",
+                    planIds.toArray());
+        } else {
+            query.where("vp.voyage_status = ?", "SCHEDULED")
+                    .where("vp.assigned_berth_id IS NULL")
+                    .where("vp.planned_arrival >= ?", from)
+                    .where("vp.planned_arrival < ?", to);
+        }
+        if (portId != null) {
+            query.where("vp.arrival_port_id = ?", portId);
+        }
+
+        List<VoyagePlan> plans = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.sql() + " ORDER BY vp.planned_arrival, vp.plan_id")) {
+            query.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plans.add(mapRow(rs));
+                }
+            }
+        }
+        return withNames(plans);
     }
 
     public VoyagePlan findById(int planId) throws SQLException {
+        VoyagePlan plan = null;
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID)) {
             stmt.setInt(1, planId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return mapRow(rs);
+                plan = mapRow(rs);
             }
         }
-        return null;
+        // 归还连接后再补名称：持有一个连接时再借第二个，并发打满时会互相等待
+        return plan != null ? withNames(List.of(plan)).get(0) : null;
     }
 
     public void update(VoyagePlan plan) throws SQLException {
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
+            Integer previousArrivalPort = findArrivalPortId(conn, plan.getPlanId());
             stmt.setString(1, plan.getVoyageNumber());
             stmt.setInt(2, plan.getShipId());
             stmt.setInt(3, plan.getDeparturePortId());
@@ -97,6 +206,12 @@ public class VoyagePlanRepository {
             stmt.setString(10, plan.getVoyageStatus());
             stmt.setInt(11, plan.getPlanId());
             stmt.executeUpdate();
+            // 货物统计按航次的到达港归属，到达港变化后需要重建汇总
+            if (previousArrivalPort != null && previousArrivalPort != plan.getArrivalPortId()) {
+                cargoStatsRollup.markStale();
+            }
+        } finally {
+            tableVersions.bump(TableVersions.VOYAGE_PLAN);
         }
     }
 
@@ -104,7 +219,21 @@ public class VoyagePlanRepository {
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(DELETE)) {
             stmt.setInt(1, planId);
-            stmt.executeUpdate();
+            // 外键ON DELETE SET NULL会把该航次的货物改为未分配
+            if (stmt.executeUpdate() > 0) {
+                cargoStatsRollup.markStale();
+            }
+        } finally {
+            tableVersions.bump(TableVersions.VOYAGE_PLAN);
+        }
+    }
+
+    private Integer findArrivalPortId(Connection conn, int planId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_ARRIVAL_PORT)) {
+            stmt.setInt(1, planId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
         }
     }
 
@@ -136,11 +265,28 @@ public class VoyagePlanRepository {
         int createdBy = rs.getInt("created_by");
         plan.setCreatedBy(rs.wasNull() ? null : createdBy);
         plan.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        // 设置港口名称（来自JOIN查询）
-        plan.setDeparturePortName(rs.getString("departure_port_name"));
-        plan.setArrivalPortName(rs.getString("arrival_port_name"));
-        // 设置船舶名称（来自JOIN查询）
-        plan.setShipName(rs.getString("ship_name"));
         return plan;
     }
+
+    // 结果集关闭后统一填充船舶名称和出发/到达港名称（走引用数据缓存，不再JOIN）
+    private List<VoyagePlan> withNames(List<VoyagePlan> plans) throws SQLException {
+        if (plans.isEmpty()) {
+            return plans;
+        }
+        List<Integer> shipIds = new ArrayList<>(plans.size());
+        List<Integer> portIds = new ArrayList<>(plans.size() * 2);
+        for (VoyagePlan plan : plans) {
+            shipIds.add(plan.getShipId());
+            portIds.add(plan.getDeparturePortId());
+            portIds.add(plan.getArrivalPortId());
+        }
+        Map<Integer, String> shipNames = shipRepository.findNames(shipIds);
+        Map<Integer, String> portNames = portRepository.findNames(portIds);
+        for (VoyagePlan plan : plans) {
+            plan.setShipName(shipNames.get(plan.getShipId()));
+            plan.setDeparturePortName(portNames.get(plan.getDeparturePortId()));
+            plan.setArrivalPortName(portNames.get(plan.getArrivalPortId()));
+        }
+        return plans;
+    }
 }
@@ -1,27 +1,85 @@
 package com.portlogistics.repository;
 
 import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.Warehouse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class WarehouseRepository {
     private final DatabaseManager databaseManager;
 
     private static final String INSERT = "INSERT INTO warehouse (warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location) VALUES (?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_ALL = "SELECT warehouse_id, warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location, created_at FROM warehouse ORDER BY warehouse_id";
+    private static final String SELECT_BASE = "SELECT warehouse_id, warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location, created_at FROM warehouse";
+    private static final String SELECT_ALL = SELECT_BASE + " ORDER BY warehouse_id";
+    private static final String SELECT_RECENT = SELECT_BASE + " ORDER BY warehouse_id DESC LIMIT ?";
     private static final String SELECT_BY_ID = "SELECT warehouse_id, warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location, created_at FROM warehouse WHERE warehouse_id = ?";
     private static final String UPDATE = "UPDATE warehouse SET warehouse_name = ?, port_id = ?, warehouse_type = ?, total_capacity = ?, used_capacity = ?, location = ? WHERE warehouse_id = ?";
     private static final String DELETE = "DELETE FROM warehouse WHERE warehouse_id = ?";
+    private static final String SELECT_BY_IDS = SELECT_BASE + " WHERE warehouse_id IN (";
+    private static final String SELECT_SEARCH_FIELDS = "SELECT warehouse_id, warehouse_name, location FROM warehouse";
     private static final String SEARCH = "SELECT warehouse_id, warehouse_name, port_id, warehouse_type, total_capacity, used_capacity, location, created_at FROM warehouse WHERE LOWER(warehouse_name) LIKE ? OR LOWER(location) LIKE ? ORDER BY warehouse_id";
 
-    public WarehouseRepository(DatabaseManager databaseManager) {
+    private final SearchIndex searchIndex;
+    private final SuggestIndex suggestIndex;
+
+    public WarehouseRepository(DatabaseManager databaseManager, SearchIndex searchIndex, SuggestIndex suggestIndex) {
         this.databaseManager = databaseManager;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+    }
+
+    // 启动后加载仓库名称/位置的全文索引，加载完成前搜索退回LIKE查询
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchIndex() {
+        try {
+            rebuildSearchIndex();
+        } catch (SQLException e) {
+            System.out.println("仓库搜索索引加载失败：" + e.getMessage());
+        }
+    }
+
+    public void rebuildSearchIndex() throws SQLException {
+        searchIndex.rebuild(SearchIndex.Type.WAREHOUSE, sink -> {
+            try (Connection conn = databaseManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_SEARCH_FIELDS);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.add(rs.getInt(1), rs.getString(2), rs.getString(3));
+                }
+            }
+        });
+    }
+
+    // 表单联想：仓库名称前缀
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSuggestIndex() {
+        try {
+            suggestIndex.rebuild(SuggestIndex.Type.WAREHOUSE, sink -> {
+                try (Connection conn = databaseManager.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(SELECT_SEARCH_FIELDS);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString(2);
+                        sink.add(rs.getInt(1), name, rs.getString(3), name);
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("仓库联想索引加载失败，下次联想请求时重试：" + e.getMessage());
+        }
     }
 
     public void save(Warehouse warehouse) throws SQLException {
@@ -41,6 +99,7 @@ public class WarehouseRepository {
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
                 warehouse.setWarehouseId(rs.getInt(1));
+                indexWarehouse(warehouse);
             }
         }
     }
@@ -57,6 +116,45 @@ public class WarehouseRepository {
         return warehouses;
     }
 
+    // 最近新增的前N条（总览页用）
+    public List<Warehouse> findRecent(int limit) throws SQLException {
+        List<Warehouse> warehouses = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RECENT)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    warehouses.add(mapRow(rs));
+                }
+            }
+        }
+        return warehouses;
+    }
+
+
+    // 分页查询：按warehouse_id游标，可按所属港口过滤
+    public PageResult<Warehouse> findPage(ListQuery query) throws SQLException {
+        KeysetQuery keyset = new KeysetQuery(SELECT_BASE);
+        if (query.getPortId() != null) {
+            keyset.where("port_id = ?", query.getPortId());
+        }
+        if (query.getAfter() != null) {
+            keyset.where("warehouse_id > ?", query.getAfter().id());
+        }
+        keyset.orderByLimit("warehouse_id", query.getLimit());
+
+        List<Warehouse> warehouses = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keyset.sql())) {
+            keyset.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    warehouses.add(mapRow(rs));
+                }
+            }
+        }
+        return KeysetQuery.toPage(warehouses, query.getLimit(), warehouse -> PageCursor.ofId(warehouse.getWarehouseId()));
+    }
 
     public Warehouse findById(int warehouseId) throws SQLException {
         try (Connection conn = databaseManager.getConnection();
@@ -70,7 +168,23 @@ public class WarehouseRepository {
         return null;
     }
 
+    // 按相关度排序；索引就绪后只按主键取行，不再全表LIKE扫描。
+    // 索引只认整词和词首前缀，没有命中时再用LIKE查一次，保留原来的任意片段匹配
     public List<Warehouse> search(String keyword) throws SQLException {
+        if (searchIndex.isReady(SearchIndex.Type.WAREHOUSE)) {
+            List<Integer> ids = searchIndex.searchIds(SearchIndex.Type.WAREHOUSE, keyword);
+            if (!ids.isEmpty()) {
+                Map<Integer, Warehouse> found = findByIds(ids);
+                List<Warehouse> warehouses = new ArrayList<>(ids.size());
+                for (Integer id : ids) {
+                    Warehouse warehouse = found.get(id);
+                    if (warehouse != null) {
+                        warehouses.add(warehouse);
+                    }
+                }
+                return warehouses;
+            }
+        }
         List<Warehouse> warehouses = new ArrayList<>();
         String like = "%" + keyword.toLowerCase() + "%";
         try (Connection conn = databaseManager.getConnection();
@@ -100,7 +214,37 @@ public class WarehouseRepository {
             stmt.setString(6, warehouse.getLocation());
             stmt.setInt(7, warehouse.getWarehouseId());
             stmt.executeUpdate();
+            indexWarehouse(warehouse);
+        }
+    }
+
+    private void indexWarehouse(Warehouse warehouse) {
+        searchIndex.put(SearchIndex.Type.WAREHOUSE, warehouse.getWarehouseId(),
+                warehouse.getWarehouseName(), warehouse.getLocation());
+        suggestIndex.put(SuggestIndex.Type.WAREHOUSE, warehouse.getWarehouseId(),
+                warehouse.getWarehouseName(), warehouse.getLocation(), warehouse.getWarehouseName());
+    }
+
+    public Map<Integer, Warehouse> findByIds(List<Integer> warehouseIds) throws SQLException {
+        Map<Integer, Warehouse> found = new HashMap<>();
+        if (warehouseIds.isEmpty()) {
+            return found;
+        }
+        String sql = SELECT_BY_IDS + String.join(", ", Collections.nCopies(warehouseIds.size(), "?")) + ")";
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Integer warehouseId : warehouseIds) {
+                stmt.setInt(index++, warehouseId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Warehouse warehouse = mapRow(rs);
+                    found.put(warehouse.getWarehouseId(), warehouse);
+                }
+            }
         }
+        return found;
     }
 
     public void deleteById(int warehouseId) throws SQLException {
@@ -108,6 +252,8 @@ public class WarehouseRepository {
              PreparedStatement stmt = conn.prepareStatement(DELETE)) {
             stmt.setInt(1, warehouseId);
             stmt.executeUpdate();
+            searchIndex.remove(SearchIndex.Type.WAREHOUSE, warehouseId);
+            suggestIndex.remove(SuggestIndex.Type.WAREHOUSE, warehouseId);
         }
     }
 
@@ -0,0 +1,149 @@
+package com.portlogistics.service;
+
+import com.portlogistics.repository.ArchiveRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background archiver: on a fixed delay, moves DELIVERED/CANCELLED transport tasks and then
+ * cargo created more than db.archive.after-days ago into the archive tables in small batches,
+ * pausing between batches so the hot tables keep serving. Archive partitions older than
+ * db.archive.retention-months are dropped (0 keeps everything). The schedule is opt-in via
+ * db.archive.enabled; {@link #archive()} can always be run on demand.
+ */
+@Service
+public class ArchiveService {
+    private final ArchiveRepository archiveRepository;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final long intervalMinutes;
+    private final int retentionMonths;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public ArchiveService(ArchiveRepository archiveRepository,
+                          @Value("${db.archive.enabled:false}") boolean enabled,
+                          @Value("${db.archive.after-days:180}") int afterDays,
+                          @Value("${db.archive.batch-size:500}") int batchSize,
+                          @Value("${db.archive.batch-pause-ms:50}") long batchPauseMs,
+                          @Value("${db.archive.interval-minutes:60}") long intervalMinutes,
+                          @Value("${db.archive.retention-months:0}") int retentionMonths) {
+        if (afterDays <= 0 || batchSize <= 0 || intervalMinutes <= 0) {
+            throw new IllegalArgumentException("db.archive.after-days、batch-size、interval-minutes必须大于0");
+        }
+        this.archiveRepository = archiveRepository;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.intervalMinutes = intervalMinutes;
+        this.retentionMonths = retentionMonths;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archiver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // 启动完成后延迟一个周期再开始，避开启动时的索引加载
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (SQLException | RuntimeException e) {
+                System.out.println("归档失败，下个周期重试：" + e.getMessage());
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        System.out.println("归档任务已启动：每" + intervalMinutes + "分钟归档" + afterDays + "天前已结束的运输任务和货物");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // 执行一轮归档；定时任务和手动触发共用，同一时间只跑一轮
+    public synchronized Map<String, Object> archive() throws SQLException {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDate.now().minusDays(afterDays).atStartOfDay();
+        List<String> added = new ArrayList<>();
+        added.addAll(archiveRepository.ensurePartitions(ArchiveRepository.TRANSPORT_TASK_ARCHIVE, cutoff));
+        added.addAll(archiveRepository.ensurePartitions(ArchiveRepository.CARGO_ARCHIVE, cutoff));
+        // 先归档任务，它们引用的货物才能随后归档
+        int tasks = drain(() -> archiveRepository.archiveTasks(cutoff, batchSize));
+        int cargo = drain(() -> archiveRepository.archiveCargo(cutoff, batchSize));
+        List<String> dropped = new ArrayList<>();
+        if (retentionMonths > 0) {
+            LocalDate keepFrom = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+            dropped.addAll(archiveRepository.dropPartitionsBefore(ArchiveRepository.TRANSPORT_TASK_ARCHIVE, keepFrom));
+            dropped.addAll(archiveRepository.dropPartitionsBefore(ArchiveRepository.CARGO_ARCHIVE, keepFrom));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cutoff", cutoff.toString());
+        result.put("archivedTasks", tasks);
+        result.put("archivedCargo", cargo);
+        result.put("addedPartitions", added);
+        result.put("droppedPartitions", dropped);
+        result.put("durationMs", System.currentTimeMillis() - start);
+        result.put("finishedAt", LocalDateTime.now().toString());
+        lastRun = result;
+        if (tasks > 0 || cargo > 0 || !dropped.isEmpty()) {
+            System.out.println("归档完成：运输任务" + tasks + "条，货物" + cargo + "条，删除过期分区" + dropped.size() + "个");
+        }
+        return result;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("afterDays", afterDays);
+        status.put("intervalMinutes", intervalMinutes);
+        status.put("retentionMonths", retentionMonths);
+        status.put("lastRun", lastRun);
+        return status;
+    }
+
+    @FunctionalInterface
+    private interface Batch {
+        int run() throws SQLException;
+    }
+
+    // 一批一个短事务，批间停顿让出行锁和IO；某批没搬动任何行就结束
+    private int drain(Batch batch) throws SQLException {
+        int total = 0;
+        int moved;
+        while ((moved = batch.run()) > 0) {
+            total += moved;
+            if (batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,295 @@
+package com.portlogistics.service;
+
+import com.portlogistics.model.BerthAllocationRequest;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.Ship;
+import com.portlogistics.model.VoyagePlan;
+import com.portlogistics.repository.BerthScheduleRepository;
+import com.portlogistics.repository.BerthScheduleRepository.BerthSpec;
+import com.portlogistics.repository.BerthScheduleRepository.Occupancy;
+import com.portlogistics.repository.ShipRepository;
+import com.portlogistics.repository.VoyagePlanRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proposes conflict-free berth slots for incoming voyages with {@link BerthAllocator}, one port
+ * per task on a small CPU pool. Nothing is written: planners book the proposed slots through
+ * the normal berth endpoints, which still run the conflict check.
+ */
+@Service
+public class BerthAllocationService {
+    private static final long MAX_TIME_BUDGET_MS = 30_000;
+    private static final int DEFAULT_WINDOW_DAYS = 7;
+    // 候选航次最晚到达之后再留出的排程窗口，等待的船可能排到窗口之外
+    private static final int HORIZON_DAYS = 30;
+    // 一次靠泊的装卸量按船舶箱量的40%估算
+    private static final double EXCHANGE_RATIO = 0.4;
+
+    private final VoyagePlanRepository voyagePlanRepository;
+    private final BerthScheduleRepository berthScheduleRepository;
+    private final ShipRepository shipRepository;
+    private final ExecutorService solverPool;
+    private final int parallelism;
+    private final long defaultTimeBudgetMs;
+    private final double minDwellHours;
+    private final double teuPerHour;
+
+    public BerthAllocationService(VoyagePlanRepository voyagePlanRepository,
+                                  BerthScheduleRepository berthScheduleRepository,
+                                  ShipRepository shipRepository,
+                                  @Value("${berth.optimizer.parallelism:0}") int parallelism,
+                                  @Value("${berth.optimizer.time-budget-ms:2000}") long defaultTimeBudgetMs,
+                                  @Value("${berth.optimizer.min-dwell-hours:6}") double minDwellHours,
+                                  @Value("${berth.optimizer.teu-per-hour:150}") double teuPerHour) {
+        this.voyagePlanRepository = voyagePlanRepository;
+        this.berthScheduleRepository = berthScheduleRepository;
+        this.shipRepository = shipRepository;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.defaultTimeBudgetMs = defaultTimeBudgetMs;
+        this.minDwellHours = minDwellHours;
+        this.teuPerHour = teuPerHour;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.solverPool = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread thread = new Thread(r, "berth-optimizer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        solverPool.shutdownNow();
+    }
+
+    private record PortProblem(int portId, BerthAllocator allocator) {
+    }
+
+    public Map<String, Object> propose(BerthAllocationRequest request) throws SQLException {
+        long budgetMs = request.getTimeBudgetMs() != null ? request.getTimeBudgetMs() : defaultTimeBudgetMs;
+        if (budgetMs <= 0 || budgetMs > MAX_TIME_BUDGET_MS) {
+            throw new IllegalArgumentException("timeBudgetMs必须在1到" + MAX_TIME_BUDGET_MS + "之间");
+        }
+        ListQuery window = ListQuery.of(null, null, null, request.getPortId(), request.getFrom(), request.getTo());
+        LocalDateTime from = window.getFrom() != null ? window.getFrom() : LocalDateTime.now();
+        LocalDateTime to = window.getTo() != null ? window.getTo() : from.plusDays(DEFAULT_WINDOW_DAYS);
+
+        long started = System.nanoTime();
+        List<VoyagePlan> voyages = voyagePlanRepository.findAllocationCandidates(
+                request.getVoyagePlanIds(), window.getPortId(), from, to);
+        Map<Integer, Ship> ships = shipRepository.findByIds(voyages.stream().map(VoyagePlan::getShipId).toList());
+        Map<Integer, VoyagePlan> voyagesById = new HashMap<>();
+        Map<Integer, List<VoyagePlan>> voyagesByPort = new TreeMap<>();
+        for (VoyagePlan voyage : voyages) {
+            voyagesById.put(voyage.getPlanId(), voyage);
+            voyagesByPort.computeIfAbsent(voyage.getArrivalPortId(), k -> new ArrayList<>()).add(voyage);
+        }
+        Map<Integer, List<BerthSpec>> specsByPort = new HashMap<>();
+        for (BerthSpec spec : berthScheduleRepository.findBerthSpecs(voyagesByPort.keySet())) {
+            specsByPort.computeIfAbsent(spec.portId(), k -> new ArrayList<>()).add(spec);
+        }
+
+        List<Map<String, Object>> unassigned = new ArrayList<>();
+        List<PortProblem> problems = new ArrayList<>();
+        for (Map.Entry<Integer, List<VoyagePlan>> entry : voyagesByPort.entrySet()) {
+            int portId = entry.getKey();
+            List<BerthSpec> specs = specsByPort.getOrDefault(portId, List.of());
+            if (specs.isEmpty()) {
+                entry.getValue().forEach(voyage -> unassigned.add(unassignedRow(voyage, "到达港没有泊位记录")));
+                continue;
+            }
+            problems.add(new PortProblem(portId, buildAllocator(portId, specs, entry.getValue(), ships)));
+        }
+
+        // 时间预算从数据加载完成后开始计算：先并行跑完所有港口的首轮贪心，剩余时间按线程数平分给各港口做局部搜索
+        long solveStarted = System.nanoTime();
+        long deadline = solveStarted + budgetMs * 1_000_000;
+        List<Future<?>> futures = new ArrayList<>();
+        for (PortProblem problem : problems) {
+            futures.add(solverPool.submit(() -> problem.allocator().placeGreedy(deadline)));
+        }
+        awaitAll(futures);
+        long slice = problems.isEmpty() ? 0
+                : Math.max(0, deadline - System.nanoTime()) * Math.min(parallelism, problems.size()) / problems.size();
+        futures.clear();
+        for (PortProblem problem : problems) {
+            futures.add(solverPool.submit(() -> {
+                long searchDeadline = System.nanoTime() + slice;
+                problem.allocator().improve(searchDeadline - deadline > 0 ? deadline : searchDeadline, problem.portId());
+            }));
+        }
+        awaitAll(futures);
+        long solveMs = (System.nanoTime() - solveStarted) / 1_000_000;
+
+        List<Map<String, Object>> assignments = new ArrayList<>();
+        long totalWaitSeconds = 0;
+        long maxWaitSeconds = 0;
+        int iterations = 0;
+        boolean timedOut = false;
+        for (PortProblem problem : problems) {
+            BerthAllocator.Solution solution = problem.allocator().solution();
+            for (BerthAllocator.Assignment assignment : solution.assignments()) {
+                VoyagePlan voyage = voyagesById.get(assignment.voyageId());
+                long waitSeconds = assignment.start() - toEpochSecond(voyage.getPlannedArrival());
+                totalWaitSeconds += waitSeconds;
+                maxWaitSeconds = Math.max(maxWaitSeconds, waitSeconds);
+                assignments.add(assignmentRow(voyage, ships.get(voyage.getShipId()), assignment, waitSeconds));
+            }
+            solution.unfit().forEach(id -> unassigned.add(unassignedRow(voyagesById.get(id), "船舶尺寸超出所有泊位的长度/吃水限制")));
+            solution.unplanned().forEach(id -> unassigned.add(unassignedRow(voyagesById.get(id),
+                    solution.timedOut() ? "超出时间预算，未完成排程" : "可用泊位被离港时间未定的排程占用")));
+            iterations += solution.iterations();
+            timedOut |= solution.timedOut();
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("voyages", voyages.size());
+        summary.put("assigned", assignments.size());
+        summary.put("unassigned", unassigned.size());
+        summary.put("ports", voyagesByPort.size());
+        summary.put("totalWaitHours", hours(totalWaitSeconds));
+        summary.put("averageWaitHours", assignments.isEmpty() ? 0.0 : hours(totalWaitSeconds / assignments.size()));
+        summary.put("maxWaitHours", hours(maxWaitSeconds));
+        summary.put("searchIterations", iterations);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("timeBudgetMs", budgetMs);
+        result.put("solveMs", solveMs);
+        result.put("elapsedMs", (System.nanoTime() - started) / 1_000_000);
+        result.put("timedOut", timedOut);
+        result.put("summary", summary);
+        result.put("assignments", assignments);
+        result.put("unassigned", unassigned);
+        return result;
+    }
+
+    private BerthAllocator buildAllocator(int portId, List<BerthSpec> specs, List<VoyagePlan> voyages,
+                                          Map<Integer, Ship> ships) throws SQLException {
+        LocalDateTime earliest = voyages.get(0).getPlannedArrival();
+        LocalDateTime latest = earliest;
+        List<BerthAllocator.Vessel> vessels = new ArrayList<>(voyages.size());
+        for (VoyagePlan voyage : voyages) {
+            if (voyage.getPlannedArrival().isBefore(earliest)) {
+                earliest = voyage.getPlannedArrival();
+            }
+            if (voyage.getPlannedArrival().isAfter(latest)) {
+                latest = voyage.getPlannedArrival();
+            }
+            Ship ship = ships.get(voyage.getShipId());
+            int teu = ship != null ? ship.getCapacityTeu() : 0;
+            vessels.add(new BerthAllocator.Vessel(voyage.getPlanId(), toEpochSecond(voyage.getPlannedArrival()),
+                    dwellSeconds(teu), estimatedLength(teu), estimatedDraft(teu)));
+        }
+
+        Map<String, List<Occupancy>> occupancy =
+                berthScheduleRepository.findOccupancy(portId, earliest, latest.plusDays(HORIZON_DAYS));
+        List<BerthAllocator.Berth> berths = new ArrayList<>(specs.size());
+        for (BerthSpec spec : specs) {
+            List<long[]> busy = new ArrayList<>();
+            for (Occupancy booking : occupancy.getOrDefault(spec.berthNumber(), List.of())) {
+                busy.add(new long[]{toEpochSecond(booking.start()),
+                        booking.end() != null ? toEpochSecond(booking.end()) : Long.MAX_VALUE});
+            }
+            berths.add(new BerthAllocator.Berth(spec.berthNumber(),
+                    spec.maxLength() != null ? spec.maxLength() : Double.POSITIVE_INFINITY,
+                    spec.maxDraft() != null ? spec.maxDraft() : Double.POSITIVE_INFINITY, busy));
+        }
+        return new BerthAllocator(berths, vessels);
+    }
+
+    // 靠泊时长：按装卸量和码头效率估算，不少于最短靠泊时间
+    long dwellSeconds(int teu) {
+        double hours = Math.max(minDwellHours, teu * EXCHANGE_RATIO / teuPerHour);
+        return Math.max(1, Math.round(hours * 3600));
+    }
+
+    // 船舶表只有箱量：按常见集装箱船型由TEU估算船长（米）
+    static double estimatedLength(int teu) {
+        if (teu <= 1000) return 150;
+        if (teu <= 3000) return 215;
+        if (teu <= 5000) return 275;
+        if (teu <= 8000) return 300;
+        if (teu <= 12000) return 366;
+        return 400;
+    }
+
+    // 按TEU估算满载吃水（米）
+    static double estimatedDraft(int teu) {
+        if (teu <= 1000) return 8.5;
+        if (teu <= 3000) return 11.0;
+        if (teu <= 5000) return 12.5;
+        if (teu <= 8000) return 13.5;
+        if (teu <= 12000) return 15.2;
+        return 16.0;
+    }
+
+    private static Map<String, Object> assignmentRow(VoyagePlan voyage, Ship ship, BerthAllocator.Assignment assignment,
+                                                     long waitSeconds) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("voyagePlanId", voyage.getPlanId());
+        row.put("voyageNumber", voyage.getVoyageNumber());
+        row.put("shipId", voyage.getShipId());
+        row.put("shipName", ship != null ? ship.getName() : voyage.getShipName());
+        row.put("portId", voyage.getArrivalPortId());
+        row.put("portName", voyage.getArrivalPortName());
+        row.put("berthNumber", assignment.berthNumber());
+        row.put("plannedArrival", voyage.getPlannedArrival());
+        row.put("proposedArrival", toDateTime(assignment.start()));
+        row.put("proposedDeparture", toDateTime(assignment.end()));
+        row.put("waitMinutes", waitSeconds / 60);
+        return row;
+    }
+
+    private static Map<String, Object> unassignedRow(VoyagePlan voyage, String reason) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("voyagePlanId", voyage.getPlanId());
+        row.put("voyageNumber", voyage.getVoyageNumber());
+        row.put("portId", voyage.getArrivalPortId());
+        row.put("reason", reason);
+        return row;
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("泊位分配被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("泊位分配失败", e.getCause());
+        }
+    }
+
+    private static double hours(long seconds) {
+        return Math.round(seconds / 36.0) / 100.0;
+    }
+
+    // 与泊位占用索引一致：按UTC换算epoch秒
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
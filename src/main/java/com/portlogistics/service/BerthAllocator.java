@@ -0,0 +1,278 @@
+package com.portlogistics.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Berth allocation heuristic for one port. A greedy pass places vessels in priority order
+ * (planned arrival first), each at the earliest gap of any berth it fits, preferring the
+ * smallest such berth. A local search then moves waiting vessels forward in the priority order
+ * and keeps a move when it places no fewer vessels and the total waiting time drops. Times are
+ * epoch seconds. Both passes
+ * take a deadline and never run past it, so a caller solving many ports can run every first pass
+ * before sharing the remaining time out between the searches.
+ */
+public final class BerthAllocator {
+    // 局部搜索：等待中的船最多向前交换的位置数
+    private static final int SWAP_WINDOW = 8;
+    // 连续这么多次交换没有改进时提前结束
+    private static final int MAX_STALE_ITERATIONS = 500;
+
+    /**
+     * A berth with its limits (use {@link Double#POSITIVE_INFINITY} for none) and its existing
+     * busy intervals [start, end); an open departure is {@link Long#MAX_VALUE}.
+     */
+    public record Berth(String berthNumber, double maxLength, double maxDraft, List<long[]> busy) {
+    }
+
+    /**
+     * A voyage to place: planned arrival, time alongside, and vessel dimensions.
+     */
+    public record Vessel(int voyageId, long arrival, long duration, double length, double draft) {
+    }
+
+    public record Assignment(int voyageId, String berthNumber, long start, long end) {
+    }
+
+    /**
+     * Result for one port. {@code unfit} vessels fit no berth; {@code unplanned} ones were not
+     * placed because every fitting berth is blocked by an open-ended booking or the deadline cut
+     * the first pass short, which also sets {@code timedOut}.
+     */
+    public record Solution(List<Assignment> assignments, List<Integer> unfit, List<Integer> unplanned,
+                           long totalWaitSeconds, int iterations, boolean timedOut) {
+    }
+
+    private final List<Berth> berths;
+    private final List<TreeMap<Long, Long>> base = new ArrayList<>();
+    private final List<Vessel> placeable = new ArrayList<>();
+    private final List<int[]> candidates = new ArrayList<>();
+    private final List<Integer> unfit = new ArrayList<>();
+    private final int[] order;
+    private Plan best;
+    private int iterations;
+
+    public BerthAllocator(List<Berth> berths, List<Vessel> vessels) {
+        this.berths = new ArrayList<>(berths);
+        this.berths.sort(Comparator.comparingDouble(Berth::maxLength).thenComparingDouble(Berth::maxDraft));
+        for (Berth berth : this.berths) {
+            base.add(merge(berth.busy()));
+        }
+        for (Vessel vessel : vessels) {
+            int[] fitting = fittingBerths(this.berths, vessel);
+            if (fitting.length == 0) {
+                unfit.add(vessel.voyageId());
+            } else {
+                placeable.add(vessel);
+                candidates.add(fitting);
+            }
+        }
+        Integer[] boxed = new Integer[placeable.size()];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, Comparator.comparingLong((Integer i) -> placeable.get(i).arrival())
+                .thenComparingInt(i -> placeable.get(i).voyageId()));
+        order = new int[boxed.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = boxed[i];
+        }
+    }
+
+    // 首轮贪心；到截止时间时停下，未排到的船记为unplanned
+    public void placeGreedy(long deadlineNanos) {
+        best = place(order, deadlineNanos, true);
+    }
+
+    // 局部搜索直到searchDeadlineNanos、连续多次无改进或已无等待；首轮未完成时不做
+    public void improve(long searchDeadlineNanos, long seed) {
+        if (best == null || !best.complete) {
+            return;
+        }
+        Random random = new Random(seed);
+        int stale = 0;
+        List<Integer> waiting = waitingPositions(best);
+        while (!waiting.isEmpty() && stale < MAX_STALE_ITERATIONS && System.nanoTime() - searchDeadlineNanos < 0) {
+            int p = waiting.get(random.nextInt(waiting.size()));
+            int q = Math.max(0, p - 1 - random.nextInt(SWAP_WINDOW));
+            swap(order, p, q);
+            Plan candidate = place(order, searchDeadlineNanos, false);
+            iterations++;
+            if (candidate == null) {
+                swap(order, p, q);
+                return;
+            }
+            if (isBetter(candidate, best)) {
+                best = candidate;
+                waiting = waitingPositions(best);
+                stale = 0;
+            } else {
+                swap(order, p, q);
+                stale++;
+            }
+        }
+    }
+
+    // 先比排上的船数，少排一条船换来的等待时间下降不算改进
+    private static boolean isBetter(Plan candidate, Plan current) {
+        if (candidate.placed != current.placed) {
+            return candidate.placed > current.placed;
+        }
+        return candidate.totalWait < current.totalWait;
+    }
+
+    public Solution solution() {
+        List<Assignment> assignments = new ArrayList<>();
+        List<Integer> unplanned = new ArrayList<>();
+        for (int k = 0; k < placeable.size(); k++) {
+            Vessel vessel = placeable.get(k);
+            if (best == null || best.berth[k] < 0) {
+                unplanned.add(vessel.voyageId());
+                continue;
+            }
+            assignments.add(new Assignment(vessel.voyageId(), berths.get(best.berth[k]).berthNumber(),
+                    best.start[k], best.start[k] + vessel.duration()));
+        }
+        assignments.sort(Comparator.comparingLong(Assignment::start).thenComparing(Assignment::berthNumber));
+        return new Solution(assignments, unfit, unplanned, best == null ? 0 : best.totalWait, iterations,
+                best == null || !best.complete);
+    }
+
+    private static final class Plan {
+        final long[] start;
+        final int[] berth;
+        long totalWait;
+        int placed;
+        boolean complete = true;
+
+        Plan(int size) {
+            start = new long[size];
+            berth = new int[size];
+            Arrays.fill(berth, -1);
+        }
+    }
+
+    /**
+     * One greedy pass in the given order. With {@code partial} the pass stops at the deadline and
+     * returns what it has placed; otherwise it returns null when the deadline passes.
+     */
+    private Plan place(int[] order, long deadlineNanos, boolean partial) {
+        List<TreeMap<Long, Long>> lines = new ArrayList<>(base.size());
+        for (TreeMap<Long, Long> line : base) {
+            lines.add(new TreeMap<>(line));
+        }
+        Plan plan = new Plan(placeable.size());
+        for (int i = 0; i < order.length; i++) {
+            if ((i & 63) == 63 && System.nanoTime() - deadlineNanos >= 0) {
+                if (!partial) {
+                    return null;
+                }
+                plan.complete = false;
+                return plan;
+            }
+            int k = order[i];
+            Vessel vessel = placeable.get(k);
+            int bestBerth = -1;
+            long bestStart = Long.MAX_VALUE;
+            // 候选泊位按从小到大排列：同样的开始时间优先占用刚好够大的泊位
+            for (int b : candidates.get(k)) {
+                long start = earliestStart(lines.get(b), vessel.arrival(), vessel.duration());
+                if (start >= 0 && start < bestStart) {
+                    bestStart = start;
+                    bestBerth = b;
+                    if (start == vessel.arrival()) {
+                        break;
+                    }
+                }
+            }
+            if (bestBerth < 0) {
+                continue;
+            }
+            lines.get(bestBerth).put(bestStart, bestStart + vessel.duration());
+            plan.start[k] = bestStart;
+            plan.berth[k] = bestBerth;
+            plan.totalWait += bestStart - vessel.arrival();
+            plan.placed++;
+        }
+        return plan;
+    }
+
+    // 不早于arrival、长度为duration的第一个空档；被未定离港时间的占用挡住时返回-1
+    static long earliestStart(TreeMap<Long, Long> line, long arrival, long duration) {
+        long start = arrival;
+        Map.Entry<Long, Long> previous = line.floorEntry(start);
+        if (previous != null && previous.getValue() > start) {
+            start = previous.getValue();
+        }
+        while (start != Long.MAX_VALUE) {
+            Map.Entry<Long, Long> next = line.ceilingEntry(start);
+            if (next == null || next.getKey() - start >= duration) {
+                return start;
+            }
+            start = next.getValue();
+        }
+        return -1;
+    }
+
+    // 已有占用排序合并成互不重叠的区间
+    static TreeMap<Long, Long> merge(List<long[]> busy) {
+        List<long[]> sorted = new ArrayList<>(busy);
+        sorted.sort(Comparator.comparingLong(interval -> interval[0]));
+        TreeMap<Long, Long> line = new TreeMap<>();
+        long start = 0;
+        long end = Long.MIN_VALUE;
+        for (long[] interval : sorted) {
+            if (interval[1] <= interval[0]) {
+                continue;
+            }
+            if (end != Long.MIN_VALUE && interval[0] <= end) {
+                end = Math.max(end, interval[1]);
+            } else {
+                if (end != Long.MIN_VALUE) {
+                    line.put(start, end);
+                }
+                start = interval[0];
+                end = interval[1];
+            }
+        }
+        if (end != Long.MIN_VALUE) {
+            line.put(start, end);
+        }
+        return line;
+    }
+
+    private static int[] fittingBerths(List<Berth> berths, Vessel vessel) {
+        int[] fitting = new int[berths.size()];
+        int count = 0;
+        for (int b = 0; b < berths.size(); b++) {
+            Berth berth = berths.get(b);
+            if (vessel.length() <= berth.maxLength() && vessel.draft() <= berth.maxDraft()) {
+                fitting[count++] = b;
+            }
+        }
+        return Arrays.copyOf(fitting, count);
+    }
+
+    // 等待过的船在优先顺序中的位置；排在第一位的船再往前换也没有意义
+    private List<Integer> waitingPositions(Plan plan) {
+        List<Integer> positions = new ArrayList<>();
+        for (int p = 1; p < order.length; p++) {
+            int k = order[p];
+            if (plan.berth[k] >= 0 && plan.start[k] > placeable.get(k).arrival()) {
+                positions.add(p);
+            }
+        }
+        return positions;
+    }
+
+    private static void swap(int[] order, int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+}
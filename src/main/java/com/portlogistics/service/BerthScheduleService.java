@@ -5,24 +5,45 @@ import com.portlogistics.exception.InvalidTimeFormatException;
 import com.portlogistics.exception.ScheduleConflictException;
 import com.portlogistics.exception.ShipNotFoundException;
 import com.portlogistics.model.BerthSchedule;
+import com.portlogistics.model.ImportReport;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.repository.BerthScheduleRepository;
 import com.portlogistics.repository.ShipRepository;
 import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class BerthScheduleService {
+    // 单次导入的行数上限
+    private static final int MAX_IMPORT_ROWS = 20000;
+    // 空闲时段查询：默认与最长的时间范围（天）、默认最短时长
+    private static final int DEFAULT_SLOT_HORIZON_DAYS = 30;
+    private static final int MAX_SLOT_HORIZON_DAYS = 180;
+    private static final Duration DEFAULT_MIN_SLOT = Duration.ofHours(1);
+
     private final BerthScheduleRepository scheduleRepository;
     private final ShipRepository shipRepository;
+    private final ChangeEventBus changeEventBus;
 
-    public BerthScheduleService(BerthScheduleRepository scheduleRepository, ShipRepository shipRepository) {
+    public BerthScheduleService(BerthScheduleRepository scheduleRepository, ShipRepository shipRepository,
+                                ChangeEventBus changeEventBus) {
         this.scheduleRepository = scheduleRepository;
         this.shipRepository = shipRepository;
+        this.changeEventBus = changeEventBus;
     }
 
     // 创建排程（带全量校验+日志）
@@ -63,8 +84,114 @@ public class BerthScheduleService {
         BerthSchedule schedule = new BerthSchedule(
                 0, shipId, portId > 0 ? portId : 1, berthNumber, arrivalTime, departureTime, finalStatus
         );
-        scheduleRepository.save(schedule);
+        // 事务内的数据库复查兜底：内存索引与数据库不一致时以数据库为准
+        int scheduleId = scheduleRepository.save(schedule);
+        if (scheduleId < 0) {
+            throw new ScheduleConflictException("泊位[" + berthNumber + "]时间段冲突");
+        }
         System.out.println("Service保存排程成功：" + schedule);
+        changeEventBus.publish(ChangeEventBus.BERTH, ChangeEventBus.CREATED, scheduleId, new BerthSchedule(
+                scheduleId, schedule.getShipId(), schedule.getPortId(), berthNumber, arrivalTime, departureTime, finalStatus));
+    }
+
+    /**
+     * Bulk import of berth windows. Rows are validated individually, then swept per berth in
+     * arrival order so that windows overlapping an earlier window in the same file are rejected,
+     * and the rest are checked against existing bookings and inserted in one transaction.
+     */
+    public ImportReport importSchedules(List<BerthSchedule> rows) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("导入内容为空");
+        }
+        if (rows.size() > MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException("单次导入不能超过" + MAX_IMPORT_ROWS + "行");
+        }
+        String[] errors = new String[rows.size()];
+
+        // 1. 逐行字段校验，船舶存在性用一次查询批量确认
+        Set<Integer> shipIds = new HashSet<>();
+        for (BerthSchedule row : rows) {
+            if (row != null && row.getShipId() > 0) {
+                shipIds.add(row.getShipId());
+            }
+        }
+        Set<Integer> existingShips = shipRepository.findExistingIds(shipIds);
+        for (int i = 0; i < rows.size(); i++) {
+            BerthSchedule row = rows.get(i);
+            if (row == null || row.getShipId() <= 0 || row.getBerthNumber() == null
+                    || row.getBerthNumber().isBlank() || row.getArrivalTime() == null) {
+                errors[i] = "船舶ID、泊位编号、到港时间为必填项";
+            } else if (row.getDepartureTime() != null && row.getArrivalTime().isAfter(row.getDepartureTime())) {
+                errors[i] = "到港时间不能晚于离港时间";
+            } else if (!existingShips.contains(row.getShipId())) {
+                errors[i] = "船舶ID不存在：" + row.getShipId();
+            }
+        }
+
+        // 2. 文件内互查：按泊位分组、按到港时间排序扫描，与更早窗口重叠的行被拒绝
+        Map<String, List<Integer>> byBerth = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] == null) {
+                BerthSchedule row = rows.get(i);
+                String key = (row.getPortId() > 0 ? row.getPortId() : 1) + "/" + row.getBerthNumber().trim();
+                byBerth.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+        for (List<Integer> group : byBerth.values()) {
+            group.sort(Comparator.comparing((Integer i) -> rows.get(i).getArrivalTime()).thenComparing(i -> i));
+            LocalDateTime occupiedUntil = null;
+            int occupiedBy = -1;
+            for (int i : group) {
+                BerthSchedule row = rows.get(i);
+                if (occupiedBy >= 0 && (occupiedUntil == null || row.getArrivalTime().isBefore(occupiedUntil))) {
+                    errors[i] = "与第" + (occupiedBy + 1) + "行时间段冲突";
+                    continue;
+                }
+                // 已接受的窗口互不重叠，最后一个的离港时间就是当前占用结束时间；为空表示一直占用
+                occupiedUntil = row.getDepartureTime();
+                occupiedBy = i;
+            }
+        }
+
+        // 3. 与已有排程比对并批量写入
+        List<Integer> candidates = new ArrayList<>();
+        List<BerthSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] == null) {
+                BerthSchedule row = rows.get(i);
+                candidates.add(i);
+                // 未填状态时与单条创建、仓储层写入一致，默认AVAILABLE
+                schedules.add(new BerthSchedule(0, row.getShipId(), row.getPortId() > 0 ? row.getPortId() : 1,
+                        row.getBerthNumber().trim(), row.getArrivalTime(), row.getDepartureTime(),
+                        row.getStatus() != null && !row.getStatus().isBlank() ? row.getStatus() : "AVAILABLE"));
+            }
+        }
+        Integer[] ids = new Integer[rows.size()];
+        if (!schedules.isEmpty()) {
+            List<Integer> savedIds = scheduleRepository.saveAllIfFree(schedules);
+            for (int k = 0; k < candidates.size(); k++) {
+                int i = candidates.get(k);
+                ids[i] = savedIds.get(k);
+                if (ids[i] == null) {
+                    errors[i] = "泊位[" + schedules.get(k).getBerthNumber() + "]时间段与已有排程冲突";
+                } else {
+                    BerthSchedule saved = schedules.get(k);
+                    changeEventBus.publish(ChangeEventBus.BERTH, ChangeEventBus.CREATED, ids[i], new BerthSchedule(
+                            ids[i], saved.getShipId(), saved.getPortId(), saved.getBerthNumber(),
+                            saved.getArrivalTime(), saved.getDepartureTime(), saved.getStatus()));
+                }
+            }
+        }
+
+        ImportReport report = new ImportReport();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] != null) {
+                report.reject(i + 1, errors[i]);
+            } else {
+                report.accept(i + 1, ids[i]);
+            }
+        }
+        return report;
     }
 
     // 按日期查询
@@ -75,6 +202,9 @@ public class BerthScheduleService {
     // 更新状态
     public void updateScheduleStatus(int scheduleId, String newStatus) throws SQLException {
         scheduleRepository.updateStatus(scheduleId, newStatus);
+        // 只推送变化的字段，客户端合并到已有行
+        changeEventBus.publish(ChangeEventBus.BERTH, ChangeEventBus.UPDATED, scheduleId,
+                Map.of("id", scheduleId, "status", newStatus));
     }
 
     // 即将到来的排程
@@ -87,6 +217,103 @@ public class BerthScheduleService {
         return scheduleRepository.findAll();
     }
 
+    // 分页查询排程
+    public PageResult<BerthSchedule> getSchedulePage(ListQuery query) throws SQLException {
+        return scheduleRepository.findPage(query);
+    }
+
+    /**
+     * Free windows of at least {@code minDuration} on every berth of a port within [from, to),
+     * ranked by earliest start. Each berth's bookings are swept once in start order; an open
+     * departure blocks the rest of the horizon.
+     */
+    public Map<String, Object> findFreeSlots(Integer portId, String from, String to, String minDuration) throws SQLException {
+        if (portId == null || portId <= 0) {
+            throw new IllegalArgumentException("portId为必填项");
+        }
+        ListQuery window = ListQuery.of(null, null, null, portId, from, to);
+        LocalDateTime start = window.getFrom() != null ? window.getFrom() : LocalDateTime.now().withSecond(0).withNano(0);
+        LocalDateTime end = window.getTo() != null ? window.getTo() : start.plusDays(DEFAULT_SLOT_HORIZON_DAYS);
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("结束时间必须晚于开始时间");
+        }
+        if (end.isAfter(start.plusDays(MAX_SLOT_HORIZON_DAYS))) {
+            throw new IllegalArgumentException("查询范围不能超过" + MAX_SLOT_HORIZON_DAYS + "天");
+        }
+        Duration min = parseMinDuration(minDuration);
+
+        List<BerthScheduleRepository.BerthSpec> berths = scheduleRepository.findBerthSpecs(List.of(portId));
+        Map<String, List<BerthScheduleRepository.Occupancy>> occupancy = scheduleRepository.findOccupancy(portId, start, end);
+        List<Map<String, Object>> slots = new ArrayList<>();
+        for (BerthScheduleRepository.BerthSpec berth : berths) {
+            List<BerthScheduleRepository.Occupancy> bookings = occupancy.getOrDefault(berth.berthNumber(), List.of());
+            LocalDateTime cursor = start;
+            for (BerthScheduleRepository.Occupancy booking : bookings) {
+                if (booking.start().isAfter(cursor)) {
+                    addSlot(slots, berth, cursor, booking.start(), min);
+                }
+                if (booking.end() == null) {
+                    cursor = null;
+                    break;
+                }
+                if (booking.end().isAfter(cursor)) {
+                    cursor = booking.end();
+                }
+            }
+            if (cursor != null && end.isAfter(cursor)) {
+                addSlot(slots, berth, cursor, end, min);
+            }
+        }
+        slots.sort(Comparator.comparing((Map<String, Object> slot) -> (LocalDateTime) slot.get("start"))
+                .thenComparing(slot -> (String) slot.get("berthNumber")));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("portId", portId);
+        result.put("from", start);
+        result.put("to", end);
+        result.put("minDurationMinutes", min.toMinutes());
+        result.put("berths", berths.size());
+        result.put("count", slots.size());
+        result.put("slots", slots);
+        return result;
+    }
+
+    private static void addSlot(List<Map<String, Object>> slots, BerthScheduleRepository.BerthSpec berth,
+                                LocalDateTime start, LocalDateTime end, Duration min) {
+        Duration length = Duration.between(start, end);
+        if (length.compareTo(min) < 0) {
+            return;
+        }
+        Map<String, Object> slot = new LinkedHashMap<>();
+        slot.put("berthNumber", berth.berthNumber());
+        slot.put("start", start);
+        slot.put("end", end);
+        slot.put("durationMinutes", length.toMinutes());
+        slot.put("maxLength", berth.maxLength());
+        slot.put("maxDraft", berth.maxDraft());
+        slots.add(slot);
+    }
+
+    // 最短时长：纯数字按分钟，也接受ISO-8601格式（如PT4H）
+    private static Duration parseMinDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_MIN_SLOT;
+        }
+        Duration duration;
+        try {
+            String trimmed = value.trim();
+            duration = trimmed.chars().allMatch(Character::isDigit)
+                    ? Duration.ofMinutes(Long.parseLong(trimmed))
+                    : Duration.parse(trimmed.toUpperCase());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("minDuration格式错误，请使用分钟数或ISO-8601时长（如PT4H）");
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("minDuration必须大于0");
+        }
+        return duration;
+    }
+
     // 更新排程（带全量校验）
     public void updateSchedule(int scheduleId, int shipId, int portId, String berthNumber, String arrivalTimeStr, String departureTimeStr, String status) throws SQLException {
         System.out.println("Service更新排程：scheduleId=" + scheduleId + ", shipId=" + shipId + ", portId=" + portId + ", berthNumber=" + berthNumber + ", status=" + status);
@@ -125,8 +352,11 @@ public class BerthScheduleService {
         BerthSchedule schedule = new BerthSchedule(
                 scheduleId, shipId, portId > 0 ? portId : 1, berthNumber, arrivalTime, departureTime, finalStatus
         );
-        scheduleRepository.update(schedule);
+        if (!scheduleRepository.update(schedule)) {
+            throw new ScheduleConflictException("泊位[" + berthNumber + "]时间段冲突");
+        }
         System.out.println("Service更新排程成功：" + schedule);
+        changeEventBus.publish(ChangeEventBus.BERTH, ChangeEventBus.UPDATED, scheduleId, schedule);
     }
 
     // 删除排程
@@ -134,5 +364,6 @@ public class BerthScheduleService {
         System.out.println("Service删除排程：scheduleId=" + scheduleId);
         scheduleRepository.deleteById(scheduleId);
         System.out.println("Service删除排程成功");
+        changeEventBus.publish(ChangeEventBus.BERTH, ChangeEventBus.DELETED, scheduleId, null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.portlogistics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portlogistics.model.Cargo;
+import com.portlogistics.model.ImportReport;
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.ShipRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk cargo ingestion for EDI manifests: parses a JSON array or NDJSON body, validates each
+ * line, and inserts the valid ones in JDBC batches inside a single transaction.
+ */
+@Service
+public class CargoIngestService {
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int MAX_MANIFEST_LINES = 50000;
+
+    private final CargoRepository cargoRepository;
+    private final ShipRepository shipRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cargo.batch.size:1000}")
+    private int defaultBatchSize;
+
+    public CargoIngestService(CargoRepository cargoRepository, ShipRepository shipRepository, ObjectMapper objectMapper) {
+        this.cargoRepository = cargoRepository;
+        this.shipRepository = shipRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // 清单中的一行：解析成功时cargo非空，否则error记录原因
+    private record ManifestLine(int line, Cargo cargo, String error) {
+    }
+
+    /**
+     * Ingests a manifest. Lines that fail parsing, validation or the insert itself are reported
+     * and skipped; in strict mode any failing line rejects the whole manifest and nothing is written.
+     */
+    public ImportReport ingest(InputStream body, boolean ndjson, Integer batchSize, boolean strict)
+            throws IOException, SQLException {
+        int size = batchSize != null ? batchSize : defaultBatchSize;
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize必须在1到" + MAX_BATCH_SIZE + "之间");
+        }
+        List<ManifestLine> lines = ndjson ? parseNdjson(body) : parseArray(body);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("货物清单为空");
+        }
+
+        List<Cargo> valid = new ArrayList<>();
+        boolean anyInvalid = false;
+        for (ManifestLine line : lines) {
+            if (line.error() == null) {
+                valid.add(line.cargo());
+            } else {
+                anyInvalid = true;
+            }
+        }
+
+        ImportReport report = new ImportReport();
+        if (strict && anyInvalid) {
+            // 严格模式：存在无效行时整单不写入
+            for (ManifestLine line : lines) {
+                report.reject(line.line(), line.error() != null ? line.error() : "严格模式：清单中存在无效行，整单未写入");
+            }
+            return report;
+        }
+
+        CargoRepository.BatchInsertResult result = valid.isEmpty()
+                ? new CargoRepository.BatchInsertResult(List.of(), List.of(), false)
+                : cargoRepository.saveAll(valid, size, strict);
+
+        int next = 0;
+        Set<Integer> loadingShips = new LinkedHashSet<>();
+        for (ManifestLine line : lines) {
+            if (line.error() != null) {
+                report.reject(line.line(), line.error());
+                continue;
+            }
+            int k = next++;
+            String error = result.errors().get(k);
+            Integer id = result.ids().get(k);
+            if (error != null) {
+                report.reject(line.line(), error);
+            } else if (result.rolledBack() || id == null) {
+                report.reject(line.line(), "严格模式：清单中存在写入失败的行，整单已回滚");
+            } else {
+                report.accept(line.line(), id);
+                if (line.cargo().getShipId() != null) {
+                    loadingShips.add(line.cargo().getShipId());
+                }
+            }
+        }
+        // 与单条创建保持一致：关联的船舶标记为装货中，每个ID只更新一次
+        for (Integer shipId : loadingShips) {
+            shipRepository.updateStatus(shipId, "LOADING");
+        }
+        return report;
+    }
+
+    private List<ManifestLine> parseArray(InputStream body) throws IOException {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("货物清单不是合法的JSON数组：" + e.getMessage());
+        }
+        if (root == null || !root.isArray()) {
+            throw new IllegalArgumentException("货物清单必须是JSON数组");
+        }
+        checkLineCount(root.size());
+        List<ManifestLine> lines = new ArrayList<>(root.size());
+        for (int i = 0; i < root.size(); i++) {
+            lines.add(toLine(i + 1, root.get(i)));
+        }
+        return lines;
+    }
+
+    // NDJSON按行读取解析，空行跳过但计入行号
+    private List<ManifestLine> parseNdjson(InputStream body) throws IOException {
+        List<ManifestLine> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String text;
+        int lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            checkLineCount(lines.size() + 1);
+            try {
+                lines.add(toLine(lineNumber, objectMapper.readTree(text)));
+            } catch (IOException e) {
+                lines.add(new ManifestLine(lineNumber, null, "JSON解析失败：" + e.getMessage()));
+            }
+        }
+        return lines;
+    }
+
+    private ManifestLine toLine(int lineNumber, JsonNode node) {
+        Cargo cargo;
+        try {
+            cargo = objectMapper.treeToValue(node, Cargo.class);
+        } catch (IOException | IllegalArgumentException e) {
+            return new ManifestLine(lineNumber, null, "字段格式错误：" + e.getMessage());
+        }
+        String error = validate(cargo);
+        return new ManifestLine(lineNumber, error == null ? cargo : null, error);
+    }
+
+    // 与cargo表约束保持一致的字段校验
+    private static String validate(Cargo cargo) {
+        if (cargo == null) {
+            return "空记录";
+        }
+        if (cargo.getDescription() == null || cargo.getDescription().isBlank()) {
+            return "货物描述不能为空";
+        }
+        if (cargo.getDescription().length() > 255) {
+            return "货物描述不能超过255个字符";
+        }
+        if (cargo.getDestination() == null || cargo.getDestination().isBlank()) {
+            return "目的地不能为空";
+        }
+        if (cargo.getDestination().length() > 100) {
+            return "目的地不能超过100个字符";
+        }
+        if (!(cargo.getWeight() > 0) || cargo.getWeight() >= 1e8) {
+            return "重量必须大于0且小于100000000";
+        }
+        return null;
+    }
+
+    private static void checkLineCount(int count) {
+        if (count > MAX_MANIFEST_LINES) {
+            throw new IllegalArgumentException("单个货物清单不能超过" + MAX_MANIFEST_LINES + "行");
+        }
+    }
+}
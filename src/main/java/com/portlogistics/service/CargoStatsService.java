@@ -0,0 +1,108 @@
+package com.portlogistics.service;
+
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.CargoStatsRollup;
+import com.portlogistics.repository.CargoStatsRollup.Granularity;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cargo statistics read from {@link CargoStatsRollup}: each period is one lookup, so the cost
+ * depends on the number of periods asked for rather than on the size of the cargo table.
+ */
+@Service
+public class CargoStatsService {
+    // 单次查询的时间桶数量上限
+    private static final int MAX_BUCKETS = 1000;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final CargoRepository cargoRepository;
+    private final CargoStatsRollup statsRollup;
+
+    public CargoStatsService(CargoRepository cargoRepository, CargoStatsRollup statsRollup) {
+        this.cargoRepository = cargoRepository;
+        this.statsRollup = statsRollup;
+    }
+
+    // 近12个月的月度统计（含当月），只返回有货物的月份，字段与原接口一致
+    public List<Map<String, Object>> getMonthlyStats() throws SQLException {
+        cargoRepository.refreshStatsRollupIfStale();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        LocalDate month = LocalDate.now().minusMonths(11).withDayOfMonth(1);
+        for (int i = 0; i < 12; i++, month = month.plusMonths(1)) {
+            CargoStatsRollup.Totals totals = statsRollup.get(Granularity.MONTH, month, null, null);
+            if (totals.cargoCount() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("month", month.format(MONTH_FORMAT));
+            row.put("totalWeight", totals.totalWeight());
+            row.put("assignedWeight", totals.assignedWeight());
+            stats.add(row);
+        }
+        return stats;
+    }
+
+    /**
+     * One row per period between {@code from} and {@code to} inclusive, empty periods included.
+     * portId 0 selects cargo without a voyage; null port or destination aggregates over it.
+     */
+    public List<Map<String, Object>> getStats(String granularityParam, String fromParam, String toParam,
+                                              Integer portId, String destination) throws SQLException {
+        Granularity granularity = Granularity.parse(granularityParam);
+        LocalDate to = parseDate(toParam, LocalDate.now());
+        LocalDate from = parseDate(fromParam, switch (granularity) {
+            case DAY -> to.minusDays(29);
+            case WEEK -> to.minusWeeks(11);
+            case MONTH -> to.minusMonths(11);
+        });
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        String dest = destination != null && !destination.isBlank() ? destination.trim() : null;
+
+        cargoRepository.refreshStatsRollupIfStale();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        LocalDate last = granularity.bucketOf(to);
+        for (LocalDate bucket = granularity.bucketOf(from); !bucket.isAfter(last); bucket = granularity.next(bucket)) {
+            if (stats.size() >= MAX_BUCKETS) {
+                throw new IllegalArgumentException("查询区间过大，最多返回" + MAX_BUCKETS + "个时间段");
+            }
+            CargoStatsRollup.Totals totals = statsRollup.get(granularity, bucket, portId, dest);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("period", bucket.toString());
+            row.put("cargoCount", totals.cargoCount());
+            row.put("totalWeight", totals.totalWeight());
+            row.put("assignedWeight", totals.assignedWeight());
+            stats.add(row);
+        }
+        return stats;
+    }
+
+    // 手动全量重建（数据修复或直接改库之后使用）
+    public Map<String, Object> rebuild() throws SQLException {
+        long start = System.currentTimeMillis();
+        cargoRepository.rebuildStatsRollup();
+        long elapsed = System.currentTimeMillis() - start;
+        return Map.of("cells", statsRollup.cellCount(), "elapsedMs", elapsed);
+    }
+
+    private static LocalDate parseDate(String value, LocalDate defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("日期格式错误（需yyyy-MM-dd）：" + value);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.portlogistics.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fan-out of row-level changes to live subscribers (the /api/events stream).
+ * Publishing never blocks: every subscriber has a bounded buffer, and a subscriber whose
+ * buffer is full is dropped and told to reload instead of slowing down the writers.
+ */
+@Component
+public class ChangeEventBus {
+    public static final String BERTH = "berth";
+    public static final String VOYAGE = "voyage";
+    public static final String TRANSPORT_TASK = "transportTask";
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    /**
+     * One committed change. {@code row} is the written row for created/updated (for partial
+     * updates only the changed fields plus the id) and null for deleted.
+     */
+    public record ChangeEvent(long seq, String entity, String action, int id, Object row, LocalDateTime at) {
+    }
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder droppedSubscribers = new LongAdder();
+
+    public ChangeEventBus(@Value("${events.subscriber-buffer-size:256}") int bufferSize,
+                          @Value("${events.max-subscribers:2000}") int maxSubscribers) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Registers a subscriber for the given entities (empty = all). Throws
+     * IllegalStateException when the node already serves the configured maximum.
+     */
+    public Subscription subscribe(Set<String> entities) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("订阅数已达上限：" + maxSubscribers);
+        }
+        Subscription subscription = new Subscription(entities, bufferSize);
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    // 写操作提交之后调用；没有订阅者时直接返回
+    public void publish(String entity, String action, int id, Object row) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        ChangeEvent event = new ChangeEvent(sequence.incrementAndGet(), entity, action, id, row, LocalDateTime.now());
+        published.increment();
+        for (Subscription subscription : subscribers) {
+            if (!subscription.accepts(entity)) {
+                continue;
+            }
+            if (subscription.buffer.offer(event)) {
+                delivered.increment();
+            } else {
+                // 缓冲区满说明客户端跟不上：摘除订阅，由客户端重新全量加载
+                subscription.dropped = true;
+                subscribers.remove(subscription);
+                droppedSubscribers.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("bufferSize", bufferSize);
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("droppedSubscribers", droppedSubscribers.sum());
+        return stats;
+    }
+
+    /**
+     * A subscriber's buffer. The reader polls it; once {@link #isDropped()} turns true no more
+     * events arrive and the client has to resynchronise.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Set<String> entities;
+        private final BlockingQueue<ChangeEvent> buffer;
+        private volatile boolean dropped;
+
+        private Subscription(Set<String> entities, int bufferSize) {
+            this.entities = Set.copyOf(entities);
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean accepts(String entity) {
+            return entities.isEmpty() || entities.contains(entity);
+        }
+
+        public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return buffer.poll(timeout, unit);
+        }
+
+        public boolean isDropped() {
+            return dropped;
+        }
+
+        @Override
+        public void close() {
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.portlogistics.service;
+
+import com.portlogistics.repository.BerthScheduleRepository;
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.DashboardRepository;
+import com.portlogistics.repository.DashboardRepository.Breakdown;
+import com.portlogistics.repository.PortRepository;
+import com.portlogistics.repository.ShipRepository;
+import com.portlogistics.repository.TransportTaskRepository;
+import com.portlogistics.repository.VoyagePlanRepository;
+import com.portlogistics.repository.WarehouseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Everything the overview page shows, computed server-side: per-entity totals, status
+ * breakdowns and the most recent rows. The sections are queried in parallel on virtual
+ * threads and the assembled summary is cached for a few seconds.
+ */
+@Service
+public class DashboardService {
+    // 每类实体返回的最近记录条数，与前端表格显示条数一致
+    private static final int RECENT_ROWS = 10;
+
+    private final DashboardRepository dashboardRepository;
+    private final ShipRepository shipRepository;
+    private final CargoRepository cargoRepository;
+    private final BerthScheduleRepository berthScheduleRepository;
+    private final VoyagePlanRepository voyagePlanRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final TransportTaskRepository transportTaskRepository;
+    private final PortRepository portRepository;
+
+    @Value("${dashboard.summary.cache-ttl-ms:5000}")
+    private long cacheTtlMs;
+
+    private record Snapshot(Map<String, Object> summary, long createdAt) {
+    }
+
+    private volatile Snapshot snapshot;
+    // 不用synchronized：虚拟线程在synchronized块内等待数据库会占住载体线程
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    @FunctionalInterface
+    private interface Section {
+        Map<String, Object> load() throws SQLException;
+    }
+
+    public DashboardService(DashboardRepository dashboardRepository, ShipRepository shipRepository,
+                            CargoRepository cargoRepository, BerthScheduleRepository berthScheduleRepository,
+                            VoyagePlanRepository voyagePlanRepository, WarehouseRepository warehouseRepository,
+                            TransportTaskRepository transportTaskRepository, PortRepository portRepository) {
+        this.dashboardRepository = dashboardRepository;
+        this.shipRepository = shipRepository;
+        this.cargoRepository = cargoRepository;
+        this.berthScheduleRepository = berthScheduleRepository;
+        this.voyagePlanRepository = voyagePlanRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.transportTaskRepository = transportTaskRepository;
+        this.portRepository = portRepository;
+    }
+
+    public Map<String, Object> getSummary() throws SQLException {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current.summary();
+        }
+        // 缓存过期时只让一个请求去查库，其余请求等它完成后直接复用结果
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current.summary();
+            }
+            Map<String, Object> summary = load();
+            snapshot = new Snapshot(summary, System.currentTimeMillis());
+            return summary;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && System.currentTimeMillis() - current.createdAt() < cacheTtlMs;
+    }
+
+    private Map<String, Object> load() throws SQLException {
+        Map<String, Section> sections = new LinkedHashMap<>();
+        sections.put("ships", () -> section("byStatus", dashboardRepository.countBy(Breakdown.SHIP_STATUS),
+                shipRepository.findRecent(RECENT_ROWS)));
+        sections.put("cargo", () -> {
+            Map<String, Object> cargo = section("byStatus", dashboardRepository.countBy(Breakdown.CARGO_STATUS),
+                    cargoRepository.findRecent(RECENT_ROWS));
+            cargo.put("unassigned", dashboardRepository.countUnassignedCargo());
+            return cargo;
+        });
+        sections.put("berths", () -> section("byStatus", dashboardRepository.countBy(Breakdown.BERTH_STATUS),
+                berthScheduleRepository.findRecent(RECENT_ROWS)));
+        sections.put("voyages", () -> section("byStatus", dashboardRepository.countBy(Breakdown.VOYAGE_STATUS),
+                voyagePlanRepository.findRecent(RECENT_ROWS)));
+        sections.put("warehouses", () -> {
+            Map<String, Object> warehouses = section("byType", dashboardRepository.countBy(Breakdown.WAREHOUSE_TYPE),
+                    warehouseRepository.findRecent(RECENT_ROWS));
+            double[] capacity = dashboardRepository.sumWarehouseCapacity();
+            warehouses.put("totalCapacity", capacity[0]);
+            warehouses.put("usedCapacity", capacity[1]);
+            return warehouses;
+        });
+        sections.put("transportTasks", () -> section("byStatus", dashboardRepository.countBy(Breakdown.TASK_STATUS),
+                transportTaskRepository.findRecent(RECENT_ROWS)));
+        sections.put("ports", () -> {
+            Map<String, Object> ports = new LinkedHashMap<>();
+            ports.put("total", dashboardRepository.countPorts());
+            ports.put("recent", portRepository.findRecent(RECENT_ROWS));
+            return ports;
+        });
+
+        // 各部分互不依赖，每部分一个虚拟线程并行查询
+        Map<String, Future<Map<String, Object>>> futures = new LinkedHashMap<>();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            sections.forEach((name, section) -> futures.put(name, executor.submit(section::load)));
+            for (Map.Entry<String, Future<Map<String, Object>>> entry : futures.entrySet()) {
+                summary.put(entry.getKey(), await(entry.getValue()));
+            }
+        }
+        summary.put("generatedAt", LocalDateTime.now());
+        return summary;
+    }
+
+    // 总数由分组计数求和得到，省去一次COUNT(*)
+    private static Map<String, Object> section(String breakdownName, Map<String, Long> breakdown, List<?> recent) {
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("total", breakdown.values().stream().mapToLong(Long::longValue).sum());
+        section.put(breakdownName, breakdown);
+        section.put("recent", recent);
+        return section;
+    }
+
+    private static Map<String, Object> await(Future<Map<String, Object>> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("生成总览汇总被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException("生成总览汇总失败", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.portlogistics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portlogistics.model.Cargo;
+import com.portlogistics.model.TransportTask;
+import com.portlogistics.repository.CargoRepository;
+import com.portlogistics.repository.RowHandler;
+import com.portlogistics.repository.TransportTaskRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Writes full-table exports row by row straight from a streaming result set, so memory use
+ * stays flat no matter how many rows are exported.
+ */
+@Service
+public class ExportService {
+    // 每写出这么多行刷新一次，客户端能尽早收到数据
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CARGO_CSV_HEADER =
+            "cargo_id,description,weight,destination,voyage_plan_id,warehouse_id,cargo_type,status,created_at";
+    private static final String TASK_CSV_HEADER =
+            "task_id,task_number,cargo_id,truck_license,driver_name,driver_phone,pickup_location,delivery_location," +
+            "planned_pickup,actual_pickup,planned_delivery,actual_delivery,status,created_at";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的导出格式：" + value + "（可选 ndjson、csv）");
+            }
+        }
+    }
+
+    private final CargoRepository cargoRepository;
+    private final TransportTaskRepository transportTaskRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(CargoRepository cargoRepository,
+                         TransportTaskRepository transportTaskRepository,
+                         ObjectMapper objectMapper) {
+        this.cargoRepository = cargoRepository;
+        this.transportTaskRepository = transportTaskRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportCargo(Format format, OutputStream out) throws SQLException, IOException {
+        Writer writer = open(out);
+        if (format == Format.CSV) {
+            writeCsvHeader(writer, CARGO_CSV_HEADER);
+            cargoRepository.streamAll(new RowSink<>(writer, this::writeCargoCsv));
+        } else {
+            cargoRepository.streamAll(new RowSink<>(writer, this::writeJsonLine));
+        }
+        writer.flush();
+    }
+
+    public void exportTransportTasks(Format format, OutputStream out) throws SQLException, IOException {
+        Writer writer = open(out);
+        if (format == Format.CSV) {
+            writeCsvHeader(writer, TASK_CSV_HEADER);
+            transportTaskRepository.streamAll(new RowSink<>(writer, this::writeTaskCsv));
+        } else {
+            transportTaskRepository.streamAll(new RowSink<>(writer, this::writeJsonLine));
+        }
+        writer.flush();
+    }
+
+    private Writer open(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    private static void writeCsvHeader(Writer writer, String header) throws IOException {
+        // 带BOM，Excel直接打开时中文不乱码
+        writer.write('\uFEFF');
+        writer.write(header);
+        writer.write("\r\n");
+    }
+
+    private void writeJsonLine(Writer writer, Object row) throws IOException {
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private void writeCargoCsv(Writer writer, Cargo cargo) throws IOException {
+        writer.write(Integer.toString(cargo.getCargoId()));
+        csvField(writer, cargo.getDescription());
+        csvField(writer, cargo.getWeight());
+        csvField(writer, cargo.getDestination());
+        csvField(writer, cargo.getVoyagePlanId());
+        csvField(writer, cargo.getWarehouseId());
+        csvField(writer, cargo.getCargoType());
+        csvField(writer, cargo.getStatus());
+        csvField(writer, cargo.getCreatedAt());
+        writer.write("\r\n");
+    }
+
+    private void writeTaskCsv(Writer writer, TransportTask task) throws IOException {
+        writer.write(Integer.toString(task.getTaskId()));
+        csvField(writer, task.getTaskNumber());
+        csvField(writer, task.getCargoId());
+        csvField(writer, task.getTruckLicense());
+        csvField(writer, task.getDriverName());
+        csvField(writer, task.getDriverPhone());
+        csvField(writer, task.getPickupLocation());
+        csvField(writer, task.getDeliveryLocation());
+        csvField(writer, task.getPlannedPickup());
+        csvField(writer, task.getActualPickup());
+        csvField(writer, task.getPlannedDelivery());
+        csvField(writer, task.getActualDelivery());
+        csvField(writer, task.getStatus());
+        csvField(writer, task.getCreatedAt());
+        writer.write("\r\n");
+    }
+
+    // RFC 4180：含逗号、引号或换行的字段用双引号包裹，内部引号写两次
+    private static void csvField(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof LocalDateTime time ? time.toString() : String.valueOf(value);
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface LineWriter<T> {
+        void write(Writer writer, T row) throws IOException;
+    }
+
+    /**
+     * Adapts a line writer to the repository callback; the blocking write is what throttles
+     * the cursor, so a slow client simply slows down row fetching.
+     */
+    private static final class RowSink<T> implements RowHandler<T> {
+        private final Writer writer;
+        private final LineWriter<? super T> lineWriter;
+        private long rows;
+
+        RowSink(Writer writer, LineWriter<? super T> lineWriter) {
+            this.writer = writer;
+            this.lineWriter = lineWriter;
+        }
+
+        @Override
+        public void handle(T row) throws IOException {
+            lineWriter.write(writer, row);
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+    }
+}
@@ -3,24 +3,37 @@ import org.springframework.stereotype.Service;
 
 import com.portlogistics.model.BerthSchedule;
 import com.portlogistics.model.Cargo;
+import com.portlogistics.model.CargoAssignment;
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.Ship;
+import com.portlogistics.model.VoyagePlan;
 import com.portlogistics.repository.BerthScheduleRepository;
 import com.portlogistics.repository.CargoRepository;
 import com.portlogistics.repository.ShipRepository;
+import com.portlogistics.repository.VoyagePlanRepository;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class PortLogisticsService {
     private final ShipRepository shipRepository;
     private final CargoRepository cargoRepository;
     private final BerthScheduleRepository berthScheduleRepository;
+    private final VoyagePlanRepository voyagePlanRepository;
 
-    public PortLogisticsService(ShipRepository shipRepository,CargoRepository cargoRepository,BerthScheduleRepository berthScheduleRepository) {
+    // 单次按ID分配的货物数量上限
+    private static final int MAX_ASSIGN_IDS = 20000;
+
+    public PortLogisticsService(ShipRepository shipRepository,CargoRepository cargoRepository,BerthScheduleRepository berthScheduleRepository,
+                                VoyagePlanRepository voyagePlanRepository) {
         this.shipRepository = shipRepository;
         this.cargoRepository = cargoRepository;
         this.berthScheduleRepository = berthScheduleRepository;
+        this.voyagePlanRepository = voyagePlanRepository;
     }
 
     public List<Ship> listShips(String keyword) throws SQLException {
@@ -41,6 +54,10 @@ public class PortLogisticsService {
         return cargoRepository.findPendingCargo();
     }
 
+    public PageResult<Cargo> listCargoPage(ListQuery query) throws SQLException {
+        return cargoRepository.findPage(query);
+    }
+
     public void createCargo(Cargo cargo) throws SQLException {
         cargoRepository.save(cargo);
         if (cargo.getShipId() != null) {
@@ -56,15 +73,50 @@ public class PortLogisticsService {
         cargoRepository.delete(cargoId);
     }
 
-    public List<java.util.Map<String, Object>> getCargoMonthlyStats() throws SQLException {
-        return cargoRepository.getMonthlyStats();
-    }
-
     public void assignCargoToShip(int cargoId, int shipId) throws SQLException {
         cargoRepository.assignToShip(cargoId, shipId);
         shipRepository.updateStatus(shipId, "LOADING");
     }
 
+    // 批量把货物分配到航次：按ID列表或按目的地/状态条件，一个事务内完成
+    public Map<String, Object> assignCargoToVoyage(CargoAssignment request) throws SQLException {
+        if (request.getVoyagePlanId() == null) {
+            throw new IllegalArgumentException("航次计划ID不能为空");
+        }
+        int voyagePlanId = request.getVoyagePlanId();
+        VoyagePlan plan = voyagePlanRepository.findById(voyagePlanId);
+        if (plan == null) {
+            throw new IllegalArgumentException("航次计划不存在：" + voyagePlanId);
+        }
+        String destination = blankToNull(request.getDestination());
+        String status = blankToNull(request.getStatus());
+
+        CargoRepository.AssignmentResult result;
+        if (request.getCargoIds() != null && !request.getCargoIds().isEmpty()) {
+            if (request.getCargoIds().size() > MAX_ASSIGN_IDS) {
+                throw new IllegalArgumentException("单次分配的货物不能超过" + MAX_ASSIGN_IDS + "条");
+            }
+            List<Integer> cargoIds = request.getCargoIds().stream().filter(Objects::nonNull).distinct().toList();
+            result = cargoRepository.assignToVoyage(voyagePlanId, cargoIds);
+        } else if (destination != null || status != null) {
+            result = cargoRepository.assignToVoyageByFilter(voyagePlanId, destination, status, request.isUnassignedOnly());
+        } else {
+            throw new IllegalArgumentException("请提供货物ID列表，或目的地/状态筛选条件");
+        }
+        // 与单条分配一致：有货物装上航次时把执行船舶标记为装货中
+        if (result.affected() > 0 && plan.getShipId() > 0) {
+            shipRepository.updateStatus(plan.getShipId(), "LOADING");
+        }
+        return Map.of(
+                "voyagePlanId", voyagePlanId,
+                "affected", result.affected(),
+                "totalAssignedWeight", result.totalAssignedWeight());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     public void scheduleBerth(BerthSchedule schedule) throws SQLException {
         berthScheduleRepository.save(schedule);
     }
@@ -1,5 +1,7 @@
 package com.portlogistics.service;
 
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.Port;
 import com.portlogistics.repository.PortRepository;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,10 @@ public class PortService {
         return portRepository.findAll();
     }
 
+    public PageResult<Port> getPortPage(ListQuery query) throws SQLException {
+        return portRepository.findPage(query);
+    }
+
     public Port getPortById(int portId) throws SQLException {
         return portRepository.findById(portId);
     }
@@ -0,0 +1,70 @@
+package com.portlogistics.service;
+
+import com.portlogistics.repository.SearchIndex;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cross-entity keyword search served from {@link SearchIndex}; the database is not touched.
+ */
+@Service
+public class SearchService {
+    private static final int MAX_LIMIT = 100;
+
+    private final SearchIndex searchIndex;
+
+    public SearchService(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    // types为逗号分隔的cargo/ship/warehouse，不传则全部；索引未加载完成的类型会被跳过
+    public List<Map<String, Object>> search(String query, String types, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("搜索关键字不能为空");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit必须在1到" + MAX_LIMIT + "之间");
+        }
+        Set<SearchIndex.Type> wanted = parseTypes(types);
+        wanted.removeIf(type -> !searchIndex.isReady(type));
+        if (wanted.isEmpty()) {
+            throw new IllegalStateException("搜索索引正在加载，请稍后重试");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (SearchIndex.Hit hit : searchIndex.search(wanted, query, limit)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("type", hit.type().name().toLowerCase());
+            row.put("id", hit.id());
+            row.put("score", Math.round(hit.score() * 1000) / 1000.0);
+            row.put("title", hit.fields().get(0));
+            row.put("detail", hit.fields().size() > 1 ? hit.fields().get(1) : null);
+            results.add(row);
+        }
+        return results;
+    }
+
+    public Map<String, Object> getStats() {
+        return searchIndex.stats();
+    }
+
+    private static Set<SearchIndex.Type> parseTypes(String types) {
+        Set<SearchIndex.Type> wanted = EnumSet.noneOf(SearchIndex.Type.class);
+        if (types == null || types.isBlank()) {
+            wanted.addAll(EnumSet.allOf(SearchIndex.Type.class));
+            return wanted;
+        }
+        for (String type : types.split(",")) {
+            if (!type.isBlank()) {
+                wanted.add(SearchIndex.Type.parse(type.trim()));
+            }
+        }
+        return wanted;
+    }
+}
@@ -1,5 +1,7 @@
 package com.portlogistics.service;
 
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.TransportTask;
 import com.portlogistics.repository.TransportTaskRepository;
 import com.portlogistics.repository.CargoRepository;
@@ -15,35 +17,50 @@ import java.util.List;
 public class TransportTaskService {
     private final TransportTaskRepository transportTaskRepository;
     private final CargoRepository cargoRepository;
+    private final ChangeEventBus changeEventBus;
 
-    public TransportTaskService(TransportTaskRepository transportTaskRepository, CargoRepository cargoRepository) {
+    public TransportTaskService(TransportTaskRepository transportTaskRepository, CargoRepository cargoRepository,
+                                ChangeEventBus changeEventBus) {
         this.transportTaskRepository = transportTaskRepository;
         this.cargoRepository = cargoRepository;
+        this.changeEventBus = changeEventBus;
     }
 
     public List<TransportTask> getAllTasks() throws SQLException {
         return transportTaskRepository.findAll();
     }
 
+    public PageResult<TransportTask> getTaskPage(ListQuery query) throws SQLException {
+        return transportTaskRepository.findPage(query);
+    }
+
     public TransportTask getTaskById(int taskId) throws SQLException {
         return transportTaskRepository.findById(taskId);
     }
 
+    // includeArchived时热表查不到再查归档表（只读）
+    public TransportTask getTaskById(int taskId, boolean includeArchived) throws SQLException {
+        return transportTaskRepository.findById(taskId, includeArchived);
+    }
+
     public void createTask(TransportTask task) throws SQLException {
         validateTask(task, 0);
         if (task.getStatus() == null || task.getStatus().isEmpty()) {
             task.setStatus("PENDING");
         }
         transportTaskRepository.save(task);
+        changeEventBus.publish(ChangeEventBus.TRANSPORT_TASK, ChangeEventBus.CREATED, task.getTaskId(), task);
     }
 
     public void updateTask(TransportTask task) throws SQLException {
         validateTask(task, task.getTaskId());
         transportTaskRepository.update(task);
+        changeEventBus.publish(ChangeEventBus.TRANSPORT_TASK, ChangeEventBus.UPDATED, task.getTaskId(), task);
     }
 
     public void deleteTask(int taskId) throws SQLException {
         transportTaskRepository.deleteById(taskId);
+        changeEventBus.publish(ChangeEventBus.TRANSPORT_TASK, ChangeEventBus.DELETED, taskId, null);
     }
 
     public void updateStatus(int taskId, String newStatus) throws SQLException {
@@ -62,6 +79,7 @@ public class TransportTaskService {
         }
         
         transportTaskRepository.update(task);
+        changeEventBus.publish(ChangeEventBus.TRANSPORT_TASK, ChangeEventBus.UPDATED, taskId, task);
     }
 
 
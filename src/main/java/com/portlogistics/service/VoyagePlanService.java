@@ -1,5 +1,7 @@
 package com.portlogistics.service;
 
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.VoyagePlan;
 import com.portlogistics.repository.VoyagePlanRepository;
 import com.portlogistics.repository.ShipRepository;
@@ -15,16 +17,23 @@ import java.util.List;
 public class VoyagePlanService {
     private final VoyagePlanRepository voyagePlanRepository;
     private final ShipRepository shipRepository;
+    private final ChangeEventBus changeEventBus;
 
-    public VoyagePlanService(VoyagePlanRepository voyagePlanRepository, ShipRepository shipRepository) {
+    public VoyagePlanService(VoyagePlanRepository voyagePlanRepository, ShipRepository shipRepository,
+                             ChangeEventBus changeEventBus) {
         this.voyagePlanRepository = voyagePlanRepository;
         this.shipRepository = shipRepository;
+        this.changeEventBus = changeEventBus;
     }
 
     public List<VoyagePlan> getAllPlans() throws SQLException {
         return voyagePlanRepository.findAll();
     }
 
+    public PageResult<VoyagePlan> getPlanPage(ListQuery query) throws SQLException {
+        return voyagePlanRepository.findPage(query);
+    }
+
     public VoyagePlan getPlanById(int planId) throws SQLException {
         return voyagePlanRepository.findById(planId);
     }
@@ -35,15 +44,18 @@ public class VoyagePlanService {
             plan.setVoyageStatus("SCHEDULED");
         }
         voyagePlanRepository.save(plan);
+        changeEventBus.publish(ChangeEventBus.VOYAGE, ChangeEventBus.CREATED, plan.getPlanId(), plan);
     }
 
     public void updatePlan(VoyagePlan plan) throws SQLException {
         validatePlan(plan, plan.getPlanId());
         voyagePlanRepository.update(plan);
+        changeEventBus.publish(ChangeEventBus.VOYAGE, ChangeEventBus.UPDATED, plan.getPlanId(), plan);
     }
 
     public void deletePlan(int planId) throws SQLException {
         voyagePlanRepository.deleteById(planId);
+        changeEventBus.publish(ChangeEventBus.VOYAGE, ChangeEventBus.DELETED, planId, null);
     }
 
     private void validatePlan(VoyagePlan plan, int excludeId) throws SQLException {
@@ -1,5 +1,7 @@
 package com.portlogistics.service;
 
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageResult;
 import com.portlogistics.model.Warehouse;
 import com.portlogistics.repository.WarehouseRepository;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,10 @@ public class WarehouseService {
         return warehouseRepository.findAll();
     }
 
+    public PageResult<Warehouse> getWarehousePage(ListQuery query) throws SQLException {
+        return warehouseRepository.findPage(query);
+    }
+
     public Warehouse getWarehouseById(int warehouseId) throws SQLException {
         return warehouseRepository.findById(warehouseId);
     }
@@ -0,0 +1,11 @@
+-- 泊位预订锁表：每个(港口, 泊位号)一行，预订/改期时先 SELECT ... FOR UPDATE 锁住对应行，
+-- 冲突检查和写入在同一事务内串行执行，避免并发重复预订
+CREATE TABLE IF NOT EXISTS berth_lock (
+    port_id INT NOT NULL COMMENT '港口ID',
+    berth_number VARCHAR(20) NOT NULL COMMENT '泊位编号',
+    PRIMARY KEY (port_id, berth_number)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT '泊位预订锁表';
+
+-- 为已有泊位预先建好锁行（新泊位在首次预订时由程序 INSERT IGNORE 补齐）
+INSERT IGNORE INTO berth_lock (port_id, berth_number)
+SELECT DISTINCT port_id, berth_number FROM berth;
@@ -14,7 +14,10 @@ ALTER DATABASE port_logistics CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 SET FOREIGN_KEY_CHECKS = 0;
 
 -- 删除现有表（包括旧表名）
+DROP TABLE IF EXISTS transport_task_archive;  -- 迁移V2建的归档表
+DROP TABLE IF EXISTS cargo_archive;
 DROP TABLE IF EXISTS transport_task;
+DROP TABLE IF EXISTS berth_lock;
 DROP TABLE IF EXISTS cargo;
 DROP TABLE IF EXISTS voyage_plan;
 DROP TABLE IF EXISTS warehouse;
@@ -23,6 +26,7 @@ DROP TABLE IF EXISTS berth_schedule;  -- 旧表名
 DROP TABLE IF EXISTS ship;
 DROP TABLE IF EXISTS port;
 DROP TABLE IF EXISTS user;
+DROP TABLE IF EXISTS schema_migration;  -- 迁移台账随库重建，启动时重新执行 sql/migration 下的脚本
 
 -- 重新启用外键检查
 SET FOREIGN_KEY_CHECKS = 1;
@@ -193,6 +197,15 @@ CREATE INDEX idx_task_number ON transport_task(task_number);
 CREATE INDEX idx_task_cargo ON transport_task(cargo_id);
 CREATE INDEX idx_task_status ON transport_task(status);
 
+-- =====================================================
+-- 9. 泊位预订锁表 (Berth_Locks) - 每个(港口, 泊位号)一行，预订时行锁串行化
+-- =====================================================
+CREATE TABLE berth_lock (
+    port_id INT NOT NULL COMMENT '港口ID',
+    berth_number VARCHAR(20) NOT NULL COMMENT '泊位编号',
+    PRIMARY KEY (port_id, berth_number)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT '泊位预订锁表';
+
 -- =====================================================
 -- 插入示例数据
 -- =====================================================
@@ -0,0 +1,45 @@
+-- =====================================================
+-- V1：热点查询的组合覆盖索引
+-- 在 complete_schema.sql 建好的库上执行；各语句均为在线加索引（INPLACE，不锁读写）
+-- 索引都以等值列在前、范围列在后，并把查询还要读的列放进索引，省掉回表
+-- =====================================================
+
+-- 泊位冲突检查、批量导入冲突复查：port_id、berth_number 等值，arrival_time 范围，
+-- departure_time、status 在索引内判断（InnoDB 二级索引自带主键 berth_id，整条查询只读索引）
+ALTER TABLE berth
+    ADD INDEX idx_berth_slot (port_id, berth_number, arrival_time, departure_time, status),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 港口占用（空闲时段、泊位分配）：port_id 等值，按 arrival_time 有序读出，无需排序；
+-- 分页列表按港口加到港时间范围过滤时也走这条索引
+ALTER TABLE berth
+    ADD INDEX idx_berth_port_arrival (port_id, arrival_time, departure_time, status, berth_number),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 即将到港、按天查询（到港时间的半开区间）
+ALTER TABLE berth
+    ADD INDEX idx_berth_arrival (arrival_time, status),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 航次列表按 (planned_departure, plan_id) 倒序游标翻页；按状态过滤时同样有序
+ALTER TABLE voyage_plan
+    ADD INDEX idx_voyage_departure_time (planned_departure, plan_id),
+    ADD INDEX idx_voyage_status_departure (voyage_status, planned_departure, plan_id),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 泊位分配候选：SCHEDULED 且未分配泊位、计划到港时间在窗口内
+ALTER TABLE voyage_plan
+    ADD INDEX idx_voyage_allocation (voyage_status, assigned_berth_id, planned_arrival),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 货物按创建时间范围查询与统计；航次已配货物重量求和只读索引
+ALTER TABLE cargo
+    ADD INDEX idx_cargo_created (created_at),
+    ADD INDEX idx_cargo_voyage_weight (voyage_plan_id, weight),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 运输任务列表按 (created_at, task_id) 倒序游标翻页，可按状态过滤
+ALTER TABLE transport_task
+    ADD INDEX idx_task_created (created_at, task_id),
+    ADD INDEX idx_task_status_created (status, created_at, task_id),
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,61 @@
+-- =====================================================
+-- V2：已结束的运输任务与货物的归档表
+-- 热表（transport_task、cargo）之间以及与航次、仓库之间有外键，MySQL 的分区表不支持外键，
+-- 所以热表保持不分区，由归档任务把 DELIVERED/CANCELLED 且超过保留天数的行搬到这里；
+-- 归档表按 created_at 月分区（RANGE COLUMNS，分区裁剪、整月删除），压缩行格式，无外键
+-- 月分区由归档任务按需追加；p_history 只是起点，第一次追加的分区覆盖到最早一批归档行所在月份
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS transport_task_archive (
+    task_id INT NOT NULL,
+    task_number VARCHAR(50) NOT NULL,
+    cargo_id INT NOT NULL,
+    truck_license VARCHAR(20) NOT NULL,
+    driver_name VARCHAR(50) NOT NULL,
+    driver_phone VARCHAR(20) NULL,
+    pickup_location VARCHAR(200) NOT NULL,
+    delivery_location VARCHAR(200) NOT NULL,
+    planned_pickup DATETIME NULL,
+    actual_pickup DATETIME NULL,
+    planned_delivery DATETIME NULL,
+    actual_delivery DATETIME NULL,
+    status VARCHAR(30) NOT NULL,
+    created_at DATETIME NOT NULL,
+    archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- 分区列必须包含在主键里
+    PRIMARY KEY (task_id, created_at),
+    KEY idx_task_archive_created (created_at, task_id),
+    KEY idx_task_archive_status_created (status, created_at, task_id),
+    KEY idx_task_archive_number (task_number),
+    KEY idx_task_archive_cargo (cargo_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+  ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT '运输任务归档表（按月分区）'
+PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p_history VALUES LESS THAN ('2000-01-01')
+);
+
+CREATE TABLE IF NOT EXISTS cargo_archive (
+    cargo_id INT NOT NULL,
+    description VARCHAR(255) NOT NULL,
+    weight DECIMAL(10, 2) NOT NULL,
+    destination VARCHAR(100) NOT NULL,
+    voyage_plan_id INT NULL,
+    warehouse_id INT NULL,
+    cargo_type VARCHAR(50) NULL,
+    status VARCHAR(30) NOT NULL,
+    created_at DATETIME NOT NULL,
+    archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (cargo_id, created_at),
+    KEY idx_cargo_archive_created (created_at),
+    KEY idx_cargo_archive_status (status, cargo_id),
+    KEY idx_cargo_archive_voyage (voyage_plan_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+  ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT '货物归档表（按月分区）'
+PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p_history VALUES LESS THAN ('2000-01-01')
+);
+
+-- 归档任务按 status 等值、created_at 范围挑选并锁定候选行；只锁真正要搬的行，不锁同状态的新数据
+ALTER TABLE cargo
+    ADD INDEX idx_cargo_status_created (status, created_at),
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,10 @@
+-- =====================================================
+-- V3：允许同一泊位有多次靠泊
+-- berth 表每行是一次靠泊预订，complete_schema.sql 里的唯一键 uk_port_berth (port_id, berth_number)
+-- 让同一泊位的第二个时间窗插入时报 1062，排程保存和批量导入整体回滚；时间窗是否重叠由泊位锁加冲突复查保证
+-- 按泊位查询走 V1 的 idx_berth_slot，外键 fk_berth_port 由 idx_berth_port 支撑，删除唯一键后不用补普通索引
+-- =====================================================
+
+ALTER TABLE berth
+    DROP INDEX uk_port_berth,
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -25,6 +25,106 @@ function initAuthUI() {
 // 页面加载时初始化认证UI
 document.addEventListener('DOMContentLoaded', initAuthUI);
 
+// ========== 实时变更推送（/api/events） ==========
+// 订阅指定实体的行级变更；断线重连或服务端要求重新同步（缓冲区溢出）时调用onResync重新全量加载
+function subscribeChanges(entities, onChange, onResync) {
+    if (!window.EventSource) return null;
+    const source = new EventSource(`/api/events?entities=${entities.join(',')}`);
+    let connected = false;
+    source.addEventListener('open', () => {
+        // 首次连接前的数据由页面自己加载；重连期间可能漏掉事件
+        if (connected) onResync();
+        connected = true;
+    });
+    entities.forEach(entity => {
+        source.addEventListener(entity, (e) => onChange(JSON.parse(e.data)));
+    });
+    source.addEventListener('resync', () => onResync());
+    return source;
+}
+
+function isLive(source) {
+    return source != null && source.readyState === EventSource.OPEN;
+}
+
+// 按ID把一条变更合并进本地列表：新增/修改合并字段，删除则移除
+function applyRowChange(rows, change, idOf) {
+    const index = rows.findIndex(row => idOf(row) === change.id);
+    if (change.action === 'deleted') {
+        if (index >= 0) rows.splice(index, 1);
+    } else if (index >= 0) {
+        rows[index] = { ...rows[index], ...change.row };
+    } else {
+        rows.push(change.row);
+    }
+}
+
+// ========== 输入联想（/api/suggest） ==========
+async function fetchSuggestions(type, prefix, limit = 20) {
+    const response = await fetch(`/api/suggest?type=${type}&prefix=${encodeURIComponent(prefix)}&limit=${limit}`);
+    if (!response.ok) throw new Error('联想查询失败');
+    return response.json();
+}
+
+// 按ID取联想条目（回显已选中项、列表显示名称），每次请求最多200个ID
+async function lookupSuggestions(type, ids) {
+    const unique = [...new Set(ids.filter(id => id != null && id !== ''))];
+    const result = [];
+    for (let i = 0; i < unique.length; i += 200) {
+        const response = await fetch(`/api/suggest/lookup?type=${type}&ids=${unique.slice(i, i + 200).join(',')}`);
+        if (!response.ok) throw new Error('联想查询失败');
+        result.push(...await response.json());
+    }
+    return result;
+}
+
+// 给下拉框加一个前缀输入框：输入时从服务端取前20条刷新选项，不再一次加载全表；当前选中项始终保留
+function attachSuggest(select, type, { emptyLabel = null, label = s => s.name, value = s => String(s.id) } = {}) {
+    if (!select || select.dataset.suggest) return;
+    select.dataset.suggest = type;
+    const input = document.createElement('input');
+    input.type = 'search';
+    input.className = 'form-control form-control-sm mb-1';
+    input.placeholder = '输入名称前缀筛选';
+    select.parentNode.insertBefore(input, select);
+
+    let seq = 0;
+    let timer = null;
+    const refresh = async () => {
+        const current = ++seq;
+        try {
+            const items = await fetchSuggestions(type, input.value.trim());
+            if (current !== seq) return;  // 只采用最后一次输入的结果
+            const selected = select.selectedOptions[0];
+            const selectedValue = select.value;
+            select.innerHTML = '';
+            if (emptyLabel != null) select.add(new Option(emptyLabel, ''));
+            if (selected && selectedValue !== '' && !items.some(s => value(s) === selectedValue)) {
+                select.add(new Option(selected.textContent, selectedValue));
+            }
+            items.forEach(s => select.add(new Option(label(s), value(s))));
+            select.value = selectedValue;
+        } catch (error) {
+            console.error(error);
+        }
+    };
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        timer = setTimeout(refresh, 150);
+    });
+    refresh();
+}
+
+// 设置联想下拉框的选中值；选项里没有时先补上
+function setSuggestValue(select, value, text) {
+    if (!select) return;
+    const v = value == null ? '' : String(value);
+    if (v !== '' && ![...select.options].some(option => option.value === v)) {
+        select.add(new Option(text ?? v, v));
+    }
+    select.value = v;
+}
+
 // 限制显示条数
 const MAX_DISPLAY_ROWS = 10;
 
@@ -40,6 +140,8 @@ let voyages = [];
 let warehouses = [];
 let transportTasks = [];
 let ports = [];
+// 后端汇总的总数和状态分布（/api/dashboard/summary）
+let summary = null;
 
 // 初始化DOM元素引用
 function initDOMElements() {
@@ -69,42 +171,21 @@ function initDOMElements() {
 
 async function loadAll() {
     try {
-        const [shipsResp, cargoResp, berthsResp, voyagesResp, warehousesResp, transportTasksResp, portsResp] = await Promise.all([
-            fetch('/api/ships'),
-            fetch('/api/cargo'),
-            fetch('/api/berths'),
-            fetch('/api/voyages'),
-            fetch('/api/warehouses'),
-            fetch('/api/transport-tasks'),
-            fetch('/api/ports')
-        ]);
-        if (!shipsResp.ok || !cargoResp.ok || !berthsResp.ok) {
+        // 一次请求取齐各实体的总数、状态分布和最近记录，不再拉取全表
+        const response = await fetch('/api/dashboard/summary');
+        if (!response.ok) {
             throw new Error('加载数据失败');
         }
-        ships = await shipsResp.json();
-        cargo = await cargoResp.json();
-        berths = await berthsResp.json();
-        voyages = voyagesResp.ok ? await voyagesResp.json() : [];
-        warehouses = warehousesResp.ok ? await warehousesResp.json() : [];
-        
-        // 加载运输任务数据
-        if (transportTasksResp.ok) {
-            transportTasks = await transportTasksResp.json();
-            console.log('运输任务数据加载成功:', transportTasks.length, '条');
-        } else {
-            transportTasks = [];
-            console.warn('运输任务API响应失败:', transportTasksResp.status);
-        }
-        
-        // 加载港口数据
-        if (portsResp.ok) {
-            ports = await portsResp.json();
-            console.log('港口数据加载成功:', ports.length, '条');
-        } else {
-            ports = [];
-            console.warn('港口API响应失败:', portsResp.status);
-        }
-        
+        summary = await response.json();
+        ships = summary.ships?.recent ?? [];
+        cargo = summary.cargo?.recent ?? [];
+        berths = summary.berths?.recent ?? [];
+        voyages = summary.voyages?.recent ?? [];
+        warehouses = summary.warehouses?.recent ?? [];
+        transportTasks = summary.transportTasks?.recent ?? [];
+        ports = summary.ports?.recent ?? [];
+        console.log('总览数据加载成功，生成时间:', summary.generatedAt);
+
         renderAll();
     } catch (error) {
         console.error('加载数据出错:', error);
@@ -331,22 +412,24 @@ function warehouseTypeLabel(type) {
 }
 
 function renderStats() {
-    if (statShips) statShips.textContent = ships.length.toString();
+    if (!summary) return;
+    const shipStatus = summary.ships?.byStatus ?? {};
+    const berthStatus = summary.berths?.byStatus ?? {};
+
+    if (statShips) statShips.textContent = (summary.ships?.total ?? 0).toString();
     if (statShipsDetail) {
-        const inPort = ships.filter((s) => s.status === 'ARRIVED' || s.status === 'CONFIRMED').length;
+        const inPort = (shipStatus.ARRIVED ?? 0) + (shipStatus.CONFIRMED ?? 0);
         statShipsDetail.textContent = `${inPort} 艘在港/已确认`;
     }
 
     if (statCargo) {
-        const pendingCargo = cargo.filter((c) => !c.shipId).length;
-        statCargo.textContent = cargo.length.toString();
-        if (statCargoDetail) statCargoDetail.textContent = `${pendingCargo} 件待分配`;
+        statCargo.textContent = (summary.cargo?.total ?? 0).toString();
+        if (statCargoDetail) statCargoDetail.textContent = `${summary.cargo?.unassigned ?? 0} 件待分配`;
     }
 
     if (statBerths) {
-        const confirmed = berths.filter((b) => b.status === 'CONFIRMED').length;
-        statBerths.textContent = berths.length.toString();
-        if (statBerthsDetail) statBerthsDetail.textContent = `${confirmed} 条已确认`;
+        statBerths.textContent = (summary.berths?.total ?? 0).toString();
+        if (statBerthsDetail) statBerthsDetail.textContent = `${berthStatus.CONFIRMED ?? 0} 条已确认`;
     }
 }
 
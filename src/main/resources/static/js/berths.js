@@ -8,7 +8,7 @@ const PortManager = {
     async loadPorts() {
         if (this.loaded) return this.ports;
         try {
-            const response = await fetch('/api/ports');
+            const response = await fetch('/api/ports?all=true');
             if (!response.ok) throw new Error('加载港口失败');
             this.ports = await response.json();
             this.loaded = true;
@@ -201,6 +201,9 @@ class BerthTable {
         this.selector = selector;
         this.tableBody = document.querySelector(`${selector} tbody`);
         this.allSchedules = []; // 缓存所有数据用于筛选
+        this.loading = false;
+        this.pendingChanges = []; // 加载期间收到的变更，加载完成后再合并
+        this.changeSource = null;
         if (!this.tableBody) {
             return;
         }
@@ -208,15 +211,21 @@ class BerthTable {
 
     async loadSchedules() {
         this.showLoading();
+        this.loading = true;
+        this.pendingChanges = [];
         try {
-            const response = await fetch(this.endpoint);
+            const response = await fetch(`${this.endpoint}?all=true`);
             if (!response.ok) {
                 throw new Error(`加载泊位数据失败：${response.status}`);
             }
             const schedules = await response.json();
             this.allSchedules = schedules;
-            this.render(schedules);
+            this.loading = false;
+            this.pendingChanges.forEach(change => applyRowChange(this.allSchedules, change, item => item.id));
+            this.pendingChanges = [];
+            this.render(this.allSchedules);
         } catch (error) {
+            this.loading = false;
             console.error(error);
             this.tableBody.innerHTML = `
                 <tr>
@@ -226,6 +235,27 @@ class BerthTable {
         }
     }
 
+    // 订阅排程变更：收到推送只更新对应的行，不再重新拉取整表
+    subscribe() {
+        this.changeSource = subscribeChanges(['berth'],
+            (change) => this.applyChange(change),
+            () => this.loadSchedules());
+    }
+
+    applyChange(change) {
+        if (this.loading) {
+            this.pendingChanges.push(change);
+            return;
+        }
+        applyRowChange(this.allSchedules, change, item => item.id);
+        this.render(this.allSchedules);
+    }
+
+    // 推送连接正常时表格由推送更新，否则操作后需要手动重新加载
+    needsReload() {
+        return !isLive(this.changeSource);
+    }
+
     // 显示加载中
     showLoading() {
         this.tableBody.innerHTML = `
@@ -442,7 +472,7 @@ async function saveBerthSchedule() {
             ShipManager.populateSelector('#createBerthModal select[name="shipId"]');
             // 刷新表格
             if (berthTableInstance) {
-                await berthTableInstance.loadSchedules();
+                if (berthTableInstance.needsReload()) await berthTableInstance.loadSchedules();
             }
         } else {
             alert('保存失败：' + result);
@@ -502,7 +532,7 @@ async function updateBerthSchedule() {
             modal.hide();
             // 刷新表格
             if (berthTableInstance) {
-                await berthTableInstance.loadSchedules();
+                if (berthTableInstance.needsReload()) await berthTableInstance.loadSchedules();
             }
         } else {
             alert('更新失败：' + result);
@@ -542,7 +572,7 @@ async function deleteBerthSchedule(scheduleId) {
             alert('泊位排程已撤销！');
             // 刷新表格
             if (berthTableInstance) {
-                await berthTableInstance.loadSchedules();
+                if (berthTableInstance.needsReload()) await berthTableInstance.loadSchedules();
             }
         } else {
             alert('撤销失败：' + result);
@@ -562,6 +592,8 @@ document.addEventListener('DOMContentLoaded', async () => {
     // 初始化表格并显示加载状态
     berthTableInstance = new BerthTable('#berthManagementTable');
     berthTableInstance.showLoading();
+    // 先订阅再加载：加载期间发生的变更会在加载完成后合并
+    berthTableInstance.subscribe();
     
     // 并行加载港口、船舶数据和排程数据
     await Promise.all([
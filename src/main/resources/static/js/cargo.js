@@ -1,5 +1,7 @@
 let currentEditingCargoId = null;
 let tables = [];
+// 表格中勾选的货物ID（用于批量分配航次）
+const selectedCargoIds = new Set();
 
 class CargoTable {
     constructor(selector) {
@@ -17,7 +19,7 @@ class CargoTable {
         if (typeof searchTerm === 'string') {
             this.searchTerm = searchTerm.trim();
         }
-        const query = this.searchTerm ? `?q=${encodeURIComponent(this.searchTerm)}` : '';
+        const query = this.searchTerm ? `?q=${encodeURIComponent(this.searchTerm)}` : '?all=true';
         try {
             const response = await fetch(`${this.endpoint}${query}`);
             if (!response.ok) {
@@ -30,7 +32,7 @@ class CargoTable {
             console.error(error);
             this.tableBody.innerHTML = `
                 <tr>
-                    <td colspan="7" class="text-danger">无法加载货物数据，请稍后重试</td>
+                    <td colspan="8" class="text-danger">无法加载货物数据，请稍后重试</td>
                 </tr>
             `;
         }
@@ -100,6 +102,7 @@ class CargoTable {
         items.forEach((item) => {
             const row = document.createElement('tr');
             row.innerHTML = `
+                <td><input type="checkbox" class="form-check-input cargo-select" ${selectedCargoIds.has(item.id) ? 'checked' : ''}></td>
                 <td class="text-muted">${item.id ?? '-'}</td>
                 <td class="fw-semibold">${item.description ?? '-'}</td>
                 <td>${this.formatWeight(item.weight)}</td>
@@ -122,6 +125,15 @@ class CargoTable {
             const deleteBtn = actionCell.querySelector('.btn-outline-danger');
             deleteBtn.addEventListener('click', () => handleDeleteCargo(item.id));
 
+            const checkbox = row.querySelector('.cargo-select');
+            checkbox.addEventListener('change', () => {
+                if (checkbox.checked) {
+                    selectedCargoIds.add(item.id);
+                } else {
+                    selectedCargoIds.delete(item.id);
+                }
+            });
+
             this.tableBody.appendChild(row);
         });
     }
@@ -155,30 +167,30 @@ class CargoTable {
     }
 }
 
+function shipOptionLabel(ship) {
+    return `#${ship.id} · ${ship.name}`;
+}
+
+// 船舶下拉框按输入前缀联想（/api/suggest），不再加载全部船舶；编辑时按ID回显当前船舶
 async function populateShipOptions(select, selectedShipId) {
     if (!select) {
         return;
     }
-    select.innerHTML = '<option value=\"\">暂不分配</option>';
+    attachSuggest(select, 'ship', { emptyLabel: '暂不分配', label: shipOptionLabel });
+    if (selectedShipId == null) {
+        setSuggestValue(select, '');
+        return;
+    }
+    let text = `#${selectedShipId}`;
     try {
-        const resp = await fetch('/api/ships');
-        if (!resp.ok) {
-            throw new Error('加载船舶列表失败');
+        const [ship] = await lookupSuggestions('ship', [selectedShipId]);
+        if (ship) {
+            text = shipOptionLabel(ship);
         }
-        const ships = await resp.json();
-        ships.forEach((ship) => {
-            const option = document.createElement('option');
-            option.value = ship.id;
-            option.textContent = `#${ship.id} · ${ship.name}`;
-            if (selectedShipId != null && Number(selectedShipId) === ship.id) {
-                option.selected = true;
-            }
-            select.appendChild(option);
-        });
     } catch (error) {
         console.error(error);
-        select.innerHTML = '<option value=\"\">无法获取船舶列表</option>';
     }
+    setSuggestValue(select, selectedShipId, text);
 }
 
 function setupCreateCargoForm(tablesRef) {
@@ -349,28 +361,104 @@ async function handleDeleteCargo(cargoId) {
     }
 }
 
-// 填充筛选面板的船舶选择器
+// 批量分配航次：一次请求完成，不再逐条调用更新接口
+function setupAssignVoyage(tablesRef) {
+    const form = document.getElementById('assignVoyageForm');
+    const modalElement = document.getElementById('assignVoyageModal');
+    const selectAll = document.getElementById('cargoSelectAll');
+    if (selectAll) {
+        selectAll.addEventListener('change', () => {
+            document.querySelectorAll('#cargoManagementTable .cargo-select').forEach((checkbox) => {
+                if (checkbox.checked !== selectAll.checked) {
+                    checkbox.checked = selectAll.checked;
+                    checkbox.dispatchEvent(new Event('change'));
+                }
+            });
+        });
+    }
+    if (!form || !modalElement) {
+        return;
+    }
+
+    modalElement.addEventListener('show.bs.modal', async () => {
+        document.getElementById('assignSelectedCount').textContent = selectedCargoIds.size;
+        const select = form.elements.voyagePlanId;
+        select.innerHTML = '<option value="">请选择航次</option>';
+        try {
+            const resp = await fetch('/api/voyages?all=true');
+            if (!resp.ok) {
+                throw new Error('加载航次列表失败');
+            }
+            const voyages = await resp.json();
+            voyages.forEach((voyage) => {
+                const option = document.createElement('option');
+                option.value = voyage.planId;
+                option.textContent = `#${voyage.planId} · ${voyage.voyageNumber ?? ''}${voyage.shipName ? ' · ' + voyage.shipName : ''}`;
+                select.appendChild(option);
+            });
+        } catch (error) {
+            console.error(error);
+            select.innerHTML = '<option value="">无法获取航次列表</option>';
+        }
+    });
+
+    form.addEventListener('submit', async (event) => {
+        event.preventDefault();
+        const voyagePlanId = Number(form.elements.voyagePlanId.value);
+        if (!voyagePlanId) {
+            alert('请选择目标航次');
+            return;
+        }
+        const payload = { voyagePlanId };
+        if (form.elements.assignMode.value === 'selected') {
+            if (selectedCargoIds.size === 0) {
+                alert('请先在表格中勾选货物');
+                return;
+            }
+            payload.cargoIds = Array.from(selectedCargoIds);
+        } else {
+            payload.destination = form.elements.destination.value.trim() || null;
+            payload.status = form.elements.status.value || null;
+            payload.unassignedOnly = form.elements.unassignedOnly.checked;
+            if (!payload.destination && !payload.status) {
+                alert('请至少填写目的地或货物状态');
+                return;
+            }
+        }
+
+        try {
+            const response = await fetch('/api/cargo/assign', {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify(payload)
+            });
+            const result = await response.json();
+            if (!response.ok) {
+                throw new Error(result.error || '分配失败');
+            }
+            alert(`已分配 ${result.affected} 条货物，该航次货物总重量 ${Number(result.totalAssignedWeight).toFixed(2)} 吨`);
+            selectedCargoIds.clear();
+            if (selectAll) {
+                selectAll.checked = false;
+            }
+            bootstrap.Modal.getInstance(modalElement)?.hide();
+            await Promise.all(tablesRef.map((table) => table.loadCargo()));
+        } catch (error) {
+            console.error(error);
+            alert(`批量分配失败：${error.message}`);
+        }
+    });
+}
+
+// 填充筛选面板的船舶选择器（按输入前缀联想）
 function populateFilterShipOptions() {
     const select = document.getElementById('filterShipSelect');
     if (!select) {
         console.log('筛选船舶选择器未找到');
         return;
     }
-    
-    select.innerHTML = '<option value="">全部</option>';
-    
-    if (!window.ships || window.ships.length === 0) {
-        console.log('船舶数据为空，无法填充筛选选择器');
-        return;
-    }
-    
-    console.log('填充筛选船舶选择器，船舶数量：', window.ships.length);
-    window.ships.forEach(ship => {
-        const option = document.createElement('option');
-        option.value = ship.id;
-        option.textContent = `#${ship.id} · ${ship.name}`;
-        select.appendChild(option);
-    });
+    attachSuggest(select, 'ship', { emptyLabel: '全部', label: shipOptionLabel });
+    setSuggestValue(select, '');
 }
 
 // 设置筛选功能
@@ -447,30 +535,18 @@ function setupCargoFilter(tablesRef) {
 document.addEventListener('DOMContentLoaded', async () => {
     console.log('货物管理页面初始化开始...');
     
-    // 先加载船舶数据到全局变量
-    try {
-        const resp = await fetch('/api/ships');
-        if (resp.ok) {
-            window.ships = await resp.json();
-            console.log('船舶数据加载成功，数量：', window.ships.length);
-        }
-    } catch (e) {
-        console.error('加载船舶列表失败', e);
-        window.ships = [];
-    }
-    
     tables = ['#cargoManagementTable', '#cargoTable']
         .map((selector) => new CargoTable(selector))
         .filter((table) => table.isActive);
     
     console.log('活动表格数量：', tables.length);
     
-    // 船舶数据加载完成后，再加载货物数据
     await Promise.all(tables.map((table) => table.loadCargo()));
     
     setupCreateCargoForm(tables);
     setupEditCargoForm(tables);
     setupCargoSearch(tables);
+    setupAssignVoyage(tables);
     
     // 设置筛选功能 - 确保在DOM完全加载后执行
     console.log('开始设置筛选功能...');
@@ -38,15 +38,10 @@ async function loadShipStatusChart() {
     if (!shipStatusChart) return;
     
     try {
-        const response = await fetch('/api/ships');
-        const ships = await response.json();
-        
-        // 统计各状态数量
-        const statusCount = {};
-        ships.forEach(ship => {
-            const status = ship.status || 'UNKNOWN';
-            statusCount[status] = (statusCount[status] || 0) + 1;
-        });
+        // 状态分布由后端汇总接口统计（与app.js共用，服务端短时缓存）
+        const response = await fetch('/api/dashboard/summary');
+        const summary = await response.json();
+        const statusCount = summary.ships?.byStatus ?? {};
 
         // 状态名称映射
         const statusNames = {
@@ -106,7 +101,7 @@ async function loadWarehouseUsageChart() {
     if (!warehouseUsageChart) return;
     
     try {
-        const response = await fetch('/api/warehouses');
+        const response = await fetch('/api/warehouses?all=true');
         const warehouses = await response.json();
         
         // 提取仓库名称和使用率
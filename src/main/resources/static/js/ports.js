@@ -24,7 +24,7 @@
     // 加载港口列表
     async function loadPorts() {
         try {
-            const response = await fetch(API_BASE);
+            const response = await fetch(`${API_BASE}?all=true`);
             if (!response.ok) throw new Error('加载失败');
             allPorts = await response.json();
             renderPorts(allPorts);// 渲染港口列表
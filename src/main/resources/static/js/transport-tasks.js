@@ -1,12 +1,10 @@
 // 运输任务管理模块
 (function() {
     const API_BASE = '/api/transport-tasks';
-    const CARGO_API = '/api/cargo';
-    const WAREHOUSE_API = '/api/warehouses';
     
     let allTasks = [];
-    let allCargos = [];
-    let allWarehouses = [];
+    // 列表中关联货物的描述和重量：cargoId -> {id, name, detail}，按ID从联想索引取
+    let cargoInfo = new Map();
     let editingTaskId = null;
 
     // 状态映射
@@ -20,8 +18,7 @@
     // 初始化
     document.addEventListener('DOMContentLoaded', function() {
         loadTasks();
-        loadCargos();
-        loadWarehouses();
+        setupSuggestSelects();
         bindEvents();
     });
 
@@ -49,9 +46,10 @@
     // 加载任务列表
     async function loadTasks() {
         try {
-            const response = await fetch(API_BASE);
+            const response = await fetch(`${API_BASE}?all=true`);
             if (!response.ok) throw new Error('加载失败');
             allTasks = await response.json();
+            await loadCargoInfo(allTasks);
             renderTasks(allTasks);
         } catch (error) {
             console.error('加载运输任务失败:', error);
@@ -59,66 +57,38 @@
         }
     }
 
-    // 加载货物列表
-    async function loadCargos() {
+    // 取列表中关联货物的描述和重量（内存联想索引，只查本页用到的ID）
+    async function loadCargoInfo(tasks) {
         try {
-            const response = await fetch(CARGO_API);
-            if (!response.ok) throw new Error('加载失败');
-            allCargos = await response.json();
-            populateCargoSelects();
+            const cargos = await lookupSuggestions('cargo', tasks.map(task => task.cargoId));
+            cargoInfo = new Map(cargos.map(cargo => [cargo.id, cargo]));
         } catch (error) {
-            console.error('加载货物列表失败:', error);
+            console.error('加载货物信息失败:', error);
         }
     }
 
-    // 填充货物下拉框
-    function populateCargoSelects() {
-        const selects = document.querySelectorAll('select[name="cargoId"]');
-        selects.forEach(select => {
-            const currentValue = select.value;
-            select.innerHTML = '<option value="">不关联货物</option>';
-            allCargos.forEach(cargo => {
-                const option = document.createElement('option');
-                option.value = cargo.cargoId || cargo.id;
-                option.textContent = `${cargo.cargoId || cargo.id} - ${cargo.description} (${cargo.weight}吨)`;
-                select.appendChild(option);
-            });
-            if (currentValue) select.value = currentValue;
-        });
+    function cargoLabel(cargo) {
+        return `${cargo.id} - ${cargo.name} (${cargo.detail}吨)`;
     }
 
-    // 加载仓库列表
-    async function loadWarehouses() {
-        try {
-            const response = await fetch(WAREHOUSE_API);
-            if (!response.ok) throw new Error('加载失败');
-            allWarehouses = await response.json();
-            populateWarehouseSelects();
-        } catch (error) {
-            console.error('加载仓库列表失败:', error);
-        }
-    }
-
-    // 填充仓库下拉框（取货地点）
-    function populateWarehouseSelects() {
-        const selects = document.querySelectorAll('select[name="pickupLocation"]');
-        selects.forEach(select => {
-            const currentValue = select.value;
-            select.innerHTML = '<option value="">请选择仓库</option>';
-            allWarehouses.forEach(warehouse => {
-                const option = document.createElement('option');
-                option.value = warehouse.warehouseName;
-                option.textContent = `${warehouse.warehouseName} (${warehouse.location || '未知位置'})`;
-                select.appendChild(option);
+    // 货物和仓库（取货地点）下拉框按输入前缀联想，不再一次加载全部货物和仓库
+    function setupSuggestSelects() {
+        document.querySelectorAll('select[name="cargoId"]').forEach(select => {
+            attachSuggest(select, 'cargo', { emptyLabel: '不关联货物', label: cargoLabel });
+        });
+        document.querySelectorAll('select[name="pickupLocation"]').forEach(select => {
+            attachSuggest(select, 'warehouse', {
+                emptyLabel: '请选择仓库',
+                label: warehouse => `${warehouse.name} (${warehouse.detail || '未知位置'})`,
+                value: warehouse => warehouse.name
             });
-            if (currentValue) select.value = currentValue;
         });
     }
 
     // 根据货物ID获取货物信息
     function getCargoInfo(cargoId) {
         if (!cargoId) return null;
-        return allCargos.find(c => (c.cargoId || c.id) === cargoId);
+        return cargoInfo.get(cargoId);
     }
 
 
@@ -138,7 +108,7 @@
             const status = statusMap[task.status] || { text: task.status, class: 'bg-secondary' };
             const cargo = getCargoInfo(task.cargoId);
             const cargoDisplay = cargo 
-                ? `<span class="badge bg-info-subtle text-info">${cargo.description}</span><br><small class="text-muted">${cargo.weight}吨</small>`
+                ? `<span class="badge bg-info-subtle text-info">${cargo.name}</span><br><small class="text-muted">${cargo.detail}吨</small>`
                 : '<span class="text-muted">-</span>';
             const driverDisplay = task.driverName 
                 ? `${task.driverName}${task.driverPhone ? '<br><small class="text-muted">' + task.driverPhone + '</small>' : ''}`
@@ -233,30 +203,17 @@
         editingTaskId = taskId;
         const form = document.getElementById('editTaskForm');
         
-        // 先填充下拉框选项
-        populateCargoSelects();
-        populateWarehouseSelects();
-        
         form.querySelector('[name="taskId"]').value = task.taskId;
         form.querySelector('[name="taskNumber"]').value = task.taskNumber || '';
-        form.querySelector('[name="cargoId"]').value = task.cargoId || '';
+        const cargo = getCargoInfo(task.cargoId);
+        setSuggestValue(form.querySelector('[name="cargoId"]'), task.cargoId,
+            cargo ? cargoLabel(cargo) : task.cargoId);
         form.querySelector('[name="truckLicense"]').value = task.truckLicense || '';
         form.querySelector('[name="driverName"]').value = task.driverName || '';
         form.querySelector('[name="driverPhone"]').value = task.driverPhone || '';
         
-        // 设置取货地点（仓库选择）
-        const pickupSelect = form.querySelector('[name="pickupLocation"]');
-        if (pickupSelect) {
-            // 尝试精确匹配，如果没有则添加一个临时选项
-            const existingOption = Array.from(pickupSelect.options).find(opt => opt.value === task.pickupLocation);
-            if (!existingOption && task.pickupLocation) {
-                const tempOption = document.createElement('option');
-                tempOption.value = task.pickupLocation;
-                tempOption.textContent = task.pickupLocation + ' (历史数据)';
-                pickupSelect.appendChild(tempOption);
-            }
-            pickupSelect.value = task.pickupLocation || '';
-        }
+        // 设置取货地点（仓库选择）；联想选项里没有时补一个同名选项
+        setSuggestValue(form.querySelector('[name="pickupLocation"]'), task.pickupLocation, task.pickupLocation);
         
         form.querySelector('[name="deliveryLocation"]').value = task.deliveryLocation || '';
         form.querySelector('[name="plannedPickup"]').value = formatDateTimeForInput(task.plannedPickup);
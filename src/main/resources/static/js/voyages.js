@@ -50,7 +50,7 @@ const BerthManager = {
     async loadBerths() {
         if (this.loaded) return this.berths;
         try {
-            const response = await fetch('/api/berths');
+            const response = await fetch('/api/berths?all=true');
             if (!response.ok) throw new Error('加载泊位失败');
             this.berths = await response.json();
             this.loaded = true;
@@ -84,7 +84,7 @@ const PortManager = {
     async loadPorts() {
         if (this.loaded) return this.ports;
         try {
-            const response = await fetch('/api/ports');
+            const response = await fetch('/api/ports?all=true');
             if (!response.ok) throw new Error('加载港口失败');
             this.ports = await response.json();
             this.loaded = true;
@@ -123,24 +123,54 @@ class VoyageTable {
         this.endpoint = '/api/voyages';
         this.tableBody = document.querySelector(`${selector} tbody`);
         this.allVoyages = [];
+        this.loading = false;
+        this.pendingChanges = []; // 加载期间收到的变更，加载完成后再合并
+        this.changeSource = null;
         if (!this.tableBody) return;
     }
 
     async loadVoyages() {
         this.showLoading();
+        this.loading = true;
+        this.pendingChanges = [];
         try {
-            const response = await fetch(this.endpoint);
+            const response = await fetch(`${this.endpoint}?all=true`);
             if (!response.ok) throw new Error('加载航次数据失败');
             const voyages = await response.json();
             console.log('航次数据:', voyages); // 调试：打印后端返回的数据
             this.allVoyages = voyages;
-            this.render(voyages);
+            this.loading = false;
+            this.pendingChanges.forEach(change => applyRowChange(this.allVoyages, change, item => item.planId));
+            this.pendingChanges = [];
+            this.render(this.allVoyages);
         } catch (error) {
+            this.loading = false;
             console.error(error);
             this.tableBody.innerHTML = '<tr><td colspan="9" class="text-danger">无法加载航次数据，请稍后重试</td></tr>';
         }
     }
 
+    // 订阅航次变更：收到推送只更新对应的行
+    subscribe() {
+        this.changeSource = subscribeChanges(['voyage'],
+            (change) => this.applyChange(change),
+            () => this.loadVoyages());
+    }
+
+    applyChange(change) {
+        if (this.loading) {
+            this.pendingChanges.push(change);
+            return;
+        }
+        applyRowChange(this.allVoyages, change, item => item.planId);
+        this.render(this.allVoyages);
+    }
+
+    // 推送连接不可用时，操作后回退为重新加载整表
+    needsReload() {
+        return !isLive(this.changeSource);
+    }
+
     showLoading() {
         this.tableBody.innerHTML = '<tr><td colspan="9" class="text-center text-muted"><div class="spinner-border spinner-border-sm me-2"></div>正在加载...</td></tr>';
     }
@@ -302,7 +332,7 @@ async function saveVoyage() {
             PortManager.populateSelector('#createVoyageModal select[name="departurePortId"]');
             PortManager.populateSelector('#createVoyageModal select[name="arrivalPortId"]');
             BerthManager.populateSelector('#createVoyageModal select[name="assignedBerthId"]');
-            if (voyageTableInstance) await voyageTableInstance.loadVoyages();
+            if (voyageTableInstance && voyageTableInstance.needsReload()) await voyageTableInstance.loadVoyages();
         } else {
             alert('创建失败：' + result.message);
         }
@@ -365,7 +395,7 @@ async function updateVoyage() {
             const modal = bootstrap.Modal.getInstance(document.getElementById('editVoyageModal'));
             modal.hide();
             currentEditingId = null;
-            if (voyageTableInstance) await voyageTableInstance.loadVoyages();
+            if (voyageTableInstance && voyageTableInstance.needsReload()) await voyageTableInstance.loadVoyages();
         } else {
             alert('更新失败：' + result.message);
         }
@@ -385,7 +415,7 @@ async function deleteVoyage(voyageId) {
         const result = await response.json();
         if (result.success) {
             alert('航次计划已删除！');
-            if (voyageTableInstance) await voyageTableInstance.loadVoyages();
+            if (voyageTableInstance && voyageTableInstance.needsReload()) await voyageTableInstance.loadVoyages();
         } else {
             alert('删除失败：' + result.message);
         }
@@ -403,6 +433,8 @@ document.addEventListener('DOMContentLoaded', async () => {
     // 初始化表格
     voyageTableInstance = new VoyageTable('#voyageTable');
     voyageTableInstance.showLoading();
+    // 先订阅再加载，避免漏掉加载期间的变更
+    voyageTableInstance.subscribe();
     
     // 并行加载数据
     await Promise.all([
@@ -10,7 +10,7 @@ const PortManager = {
     async loadPorts() {
         if (this.loaded) return this.ports;
         try {
-            const response = await fetch('/api/ports');
+            const response = await fetch('/api/ports?all=true');
             if (!response.ok) throw new Error('加载港口失败');
             this.ports = await response.json();
             this.loaded = true;
@@ -55,7 +55,7 @@ class WarehouseTable {
     async loadWarehouses() {
         this.showLoading();
         try {
-            const response = await fetch(this.endpoint);
+            const response = await fetch(`${this.endpoint}?all=true`);
             if (!response.ok) throw new Error('加载仓库数据失败');
             const warehouses = await response.json();
             this.allWarehouses = warehouses;
@@ -0,0 +1,88 @@
+package com.portlogistics.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaMigratorTest {
+
+    @Test
+    void splitsOnSemicolonsAndDropsEmptyStatements() {
+        List<String> statements = SchemaMigrator.split("CREATE TABLE a (id INT);\n;\n  ALTER TABLE a ADD COLUMN b INT ;  ");
+
+        assertThat(statements).containsExactly("CREATE TABLE a (id INT)", "ALTER TABLE a ADD COLUMN b INT");
+    }
+
+    @Test
+    void lastStatementNeedsNoSemicolon() {
+        assertThat(SchemaMigrator.split("SELECT 1")).containsExactly("SELECT 1");
+        assertThat(SchemaMigrator.split("  \n-- 只有注释\n")).isEmpty();
+    }
+
+    @Test
+    void semicolonsInsideQuotesDoNotSplit() {
+        List<String> statements = SchemaMigrator.split(
+                "INSERT INTO t VALUES ('a;b', \"c;d\");\nALTER TABLE `x;y` COMMENT 'e''s;f';");
+
+        assertThat(statements).containsExactly(
+                "INSERT INTO t VALUES ('a;b', \"c;d\")",
+                "ALTER TABLE `x;y` COMMENT 'e''s;f'");
+    }
+
+    @Test
+    void backslashEscapedQuoteStaysInsideString() {
+        List<String> statements = SchemaMigrator.split("COMMENT 'it\\'s; fine';SELECT \"a\\\";b\";SELECT 'c\\\\';SELECT 2");
+
+        assertThat(statements).containsExactly(
+                "COMMENT 'it\\'s; fine'",
+                "SELECT \"a\\\";b\"",
+                "SELECT 'c\\\\'",
+                "SELECT 2");
+    }
+
+    @Test
+    void commentsAreStrippedIncludingSemicolonsInThem() {
+        List<String> statements = SchemaMigrator.split("""
+                -- 第一句; 不是语句
+                CREATE TABLE a (id INT); # 行尾注释; 也不是
+                /* 块注释; 跨
+                   多行 */ ALTER TABLE a ADD INDEX i (id);
+                """);
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0)).isEqualTo("CREATE TABLE a (id INT)");
+        assertThat(statements.get(1)).isEqualTo("ALTER TABLE a ADD INDEX i (id)");
+    }
+
+    @Test
+    void commentMarkersInsideQuotesAreKept() {
+        List<String> statements = SchemaMigrator.split("COMMENT '-- not a comment # nor /* this */';SELECT 1");
+
+        assertThat(statements).containsExactly("COMMENT '-- not a comment # nor /* this */'", "SELECT 1");
+    }
+
+    @Test
+    void doubleDashWithoutWhitespaceIsMinusMinus() {
+        assertThat(SchemaMigrator.split("SELECT 1--1;SELECT 2 -- 注释\n;")).containsExactly("SELECT 1--1", "SELECT 2");
+        assertThat(SchemaMigrator.split("SELECT 3 --")).containsExactly("SELECT 3");
+    }
+
+    @Test
+    void shippedMigrationsSplitIntoAlterStatements() throws Exception {
+        for (String script : new String[]{"V1__composite_indexes.sql", "V2__archive_tables.sql", "V3__berth_multiple_bookings.sql"}) {
+            String content;
+            try (InputStream in = SchemaMigratorTest.class.getResourceAsStream("/sql/migration/" + script)) {
+                content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            List<String> statements = SchemaMigrator.split(content);
+
+            assertThat(statements).as(script).isNotEmpty()
+                    .allSatisfy(sql -> assertThat(sql).matches("(?s)(ALTER|CREATE) TABLE .*").doesNotContain("--"));
+        }
+    }
+}
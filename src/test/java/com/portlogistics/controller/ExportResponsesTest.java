@@ -0,0 +1,71 @@
+package com.portlogistics.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportResponsesTest {
+
+    @Test
+    void gzipIsContentEncodingAndFilenameKeepsPlainExtension() {
+        ResponseEntity<?> response = ExportResponses.stream("cargo", "ndjson", true, null, (format, out) -> {
+        });
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"cargo.ndjson\"");
+    }
+
+    @Test
+    void plainResponseHasNoContentEncoding() {
+        ResponseEntity<?> response = ExportResponses.stream("cargo", "csv", false, "gzip", (format, out) -> {
+        });
+
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"cargo.csv\"");
+    }
+
+    @Test
+    void flushDuringCompressedExportReachesTheClient() throws IOException {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        int[] sentBeforeEnd = new int[1];
+        ResponseEntity<?> response = ExportResponses.stream("cargo", "ndjson", true, null, (format, out) -> {
+            out.write("{\"cargoId\":1}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sentBeforeEnd[0] = client.size();
+            out.write("{\"cargoId\":2}\n".getBytes(StandardCharsets.UTF_8));
+        });
+
+        ((StreamingResponseBody) response.getBody()).writeTo(client);
+
+        // 首行在导出结束前已能解压出来
+        assertThat(inflate(client.toByteArray(), sentBeforeEnd[0])).isEqualTo("{\"cargoId\":1}\n");
+        assertThat(inflate(client.toByteArray(), client.size())).isEqualTo("{\"cargoId\":1}\n{\"cargoId\":2}\n");
+    }
+
+    // 只解压前length个字节；数据不完整时返回已解出的部分
+    private static String inflate(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data, 0, length))) {
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                text.write(buffer, 0, read);
+            }
+        } catch (EOFException e) {
+            // 流还没结束
+        }
+        return text.toString(StandardCharsets.UTF_8);
+    }
+}
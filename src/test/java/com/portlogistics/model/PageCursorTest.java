@@ -0,0 +1,75 @@
+package com.portlogistics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void timeAndIdRoundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2025, 6, 1, 13, 45, 30), 123_456);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void idOnlyRoundTrip() {
+        PageCursor cursor = PageCursor.ofId(42);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(PageCursor.decode(cursor.encode()).sortTime()).isNull();
+    }
+
+    @Test
+    void timesBeforeEpochRoundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59), 7);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenIsUrlSafeWithoutPadding() {
+        for (int id = 0; id < 500; id++) {
+            String token = new PageCursor(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(id * 7_919L), id).encode();
+
+            assertThat(token).matches("[A-Za-z0-9_-]+");
+        }
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+        assertThat(PageCursor.decode("   ")).isNull();
+    }
+
+    @Test
+    void surroundingWhitespaceIsIgnored() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2025, 6, 1, 0, 0), 9);
+
+        assertThat(PageCursor.decode(" " + cursor.encode() + "\n")).isEqualTo(cursor);
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String notBase64 = "%%%";
+        String notNumbers = encodeRaw("yesterday:5");
+        String missingId = encodeRaw("1700000000:");
+
+        for (String token : new String[]{notBase64, notNumbers, missingId, encodeRaw("abc")}) {
+            assertThatThrownBy(() -> PageCursor.decode(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("分页游标无效");
+        }
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.BerthSchedule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BerthBookingConcurrencyTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 3, 1, 0, 0);
+    private static final int BOOKINGS = 400;
+    private static final int THREADS = 16;
+
+    private TestDatabase db;
+    private int portId;
+    private int shipId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new TestDatabase();
+        db.migrate("V3__berth_multiple_bookings.sql");
+        portId = db.insertPort("CNSHA");
+        shipId = db.insertShip("IMO9000001");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    // 几百个时间窗挤在一周内同时预订同一泊位：每个请求都通过了各自的冲突检查，只有泊位锁能防止重叠
+    @Test
+    void parallelBookingsOfOneBerthNeverOverlap() throws Exception {
+        Random random = new Random(42);
+        List<BerthSchedule> requests = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime arrival = T0.plusHours(random.nextInt(24 * 7));
+            requests.add(new BerthSchedule(0, shipId, portId, "B1", arrival,
+                    arrival.plusHours(1 + random.nextInt(12)), "SCHEDULED"));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (BerthSchedule request : requests) {
+                Callable<Integer> booking = () -> {
+                    start.await();
+                    return db.berths.save(request);
+                };
+                results.add(pool.submit(booking));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int accepted = 0;
+        for (Future<Integer> result : results) {
+            if (result.get() > 0) {
+                accepted++;
+            }
+        }
+        List<LocalDateTime[]> booked = bookedWindows();
+        assertThat(accepted).isPositive().isLessThan(BOOKINGS);
+        assertThat(booked).hasSize(accepted);
+        for (int i = 1; i < booked.size(); i++) {
+            assertThat(booked.get(i)[0])
+                    .as("预订%d与前一个预订重叠", i)
+                    .isAfterOrEqualTo(booked.get(i - 1)[1]);
+        }
+    }
+
+    private List<LocalDateTime[]> bookedWindows() throws SQLException {
+        List<LocalDateTime[]> windows = new ArrayList<>();
+        try (Connection conn = db.databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT arrival_time, departure_time FROM berth WHERE port_id = ? AND berth_number = 'B1' ORDER BY arrival_time")) {
+            stmt.setInt(1, portId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    windows.add(new LocalDateTime[]{
+                            rs.getTimestamp(1).toLocalDateTime(), rs.getTimestamp(2).toLocalDateTime()});
+                }
+            }
+        }
+        return windows;
+    }
+}
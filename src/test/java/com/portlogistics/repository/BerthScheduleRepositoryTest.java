@@ -0,0 +1,72 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.BerthSchedule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BerthScheduleRepositoryTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 3, 1, 8, 0);
+
+    private TestDatabase db;
+    private int portId;
+    private int shipId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new TestDatabase();
+        portId = db.insertPort("CNSHA");
+        shipId = db.insertShip("IMO9000001");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void shippedUniqueKeyRejectsSecondWindowOnSameBerth() throws SQLException {
+        assertThat(db.berths.save(booking(T0, T0.plusHours(6)))).isPositive();
+
+        assertThatThrownBy(() -> db.berths.saveAllIfFree(List.of(booking(T0.plusHours(12), T0.plusHours(18)))))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("uk_port_berth");
+    }
+
+    @Test
+    void importsTwoNonOverlappingWindowsOnOneBerthAfterMigration() throws Exception {
+        db.migrate("V3__berth_multiple_bookings.sql");
+
+        List<Integer> ids = db.berths.saveAllIfFree(List.of(
+                booking(T0, T0.plusHours(6)),
+                booking(T0.plusHours(12), T0.plusHours(18))));
+
+        assertThat(ids).hasSize(2).doesNotContainNull();
+        assertThat(db.berths.findAll()).hasSize(2);
+    }
+
+    @Test
+    void importRejectsOnlyTheRowOverlappingAnExistingBooking() throws Exception {
+        db.migrate("V3__berth_multiple_bookings.sql");
+        assertThat(db.berths.save(booking(T0, T0.plusHours(6)))).isPositive();
+
+        List<Integer> ids = db.berths.saveAllIfFree(List.of(
+                booking(T0.plusHours(3), T0.plusHours(9)),
+                booking(T0.plusHours(6), T0.plusHours(12))));
+
+        assertThat(ids.get(0)).isNull();
+        assertThat(ids.get(1)).isNotNull();
+        assertThat(db.berths.save(booking(T0.plusHours(24), T0.plusHours(30)))).isPositive();
+    }
+
+    private BerthSchedule booking(LocalDateTime arrival, LocalDateTime departure) {
+        return new BerthSchedule(0, shipId, portId, "B1", arrival, departure, "SCHEDULED");
+    }
+}
@@ -0,0 +1,82 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.Cargo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CargoRepositoryTest {
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new TestDatabase();
+        db.cargo.save(cargo("冷冻海鲜", 12.5, "上海"));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void statsRollupRebuildsFromHotTableWhenArchiveTableIsMissing() throws SQLException {
+        db.cargo.rebuildStatsRollup();
+
+        assertThat(monthTotals().cargoCount()).isEqualTo(1);
+        assertThat(monthTotals().totalWeight()).isEqualTo(12.5);
+    }
+
+    @Test
+    void statsRollupIncludesArchivedCargoOnceArchiveTableExists() throws SQLException {
+        db.cargo.rebuildStatsRollup();
+        // V2迁移建的归档表，去掉了H2不支持的分区和压缩选项
+        db.execute("CREATE TABLE cargo_archive (cargo_id INT PRIMARY KEY, description VARCHAR(255) NOT NULL, "
+                + "weight DECIMAL(10, 2) NOT NULL, destination VARCHAR(100) NOT NULL, voyage_plan_id INT NULL, "
+                + "warehouse_id INT NULL, cargo_type VARCHAR(50) NULL, status VARCHAR(30) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL)");
+        db.execute("INSERT INTO cargo_archive (cargo_id, description, weight, destination, status, created_at) "
+                + "VALUES (1000, '钢材', 30, '上海', 'DELIVERED', CURRENT_TIMESTAMP)");
+
+        db.cargo.rebuildStatsRollup();
+
+        assertThat(monthTotals().cargoCount()).isEqualTo(2);
+        assertThat(monthTotals().totalWeight()).isEqualTo(42.5);
+    }
+
+    @Test
+    void updateOfUnknownCargoLeavesIndexesUntouched() throws SQLException {
+        db.cargo.update(999, cargo("电子产品", 3, "深圳"));
+
+        assertThat(db.searchIndex.searchIds(SearchIndex.Type.CARGO, "电子")).isEmpty();
+        assertThat(db.suggestIndex.lookup(SuggestIndex.Type.CARGO, List.of(999))).isEmpty();
+    }
+
+    @Test
+    void updateOfExistingCargoIsReindexed() throws SQLException {
+        int cargoId = db.cargo.findRecent(1).get(0).getCargoId();
+
+        db.cargo.update(cargoId, cargo("电子产品", 3, "深圳"));
+
+        assertThat(db.searchIndex.searchIds(SearchIndex.Type.CARGO, "电子")).containsExactly(cargoId);
+        assertThat(db.searchIndex.searchIds(SearchIndex.Type.CARGO, "海鲜")).isEmpty();
+    }
+
+    private CargoStatsRollup.Totals monthTotals() {
+        return db.statsRollup.get(CargoStatsRollup.Granularity.MONTH, LocalDate.now(), null, null);
+    }
+
+    private static Cargo cargo(String description, double weight, String destination) {
+        Cargo cargo = new Cargo();
+        cargo.setDescription(description);
+        cargo.setWeight(weight);
+        cargo.setDestination(destination);
+        return cargo;
+    }
+}
@@ -0,0 +1,126 @@
+package com.portlogistics.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntervalTreeTest {
+
+    @Test
+    void ascendingAndDescendingInsertsStayBalanced() {
+        IntervalTree ascending = new IntervalTree();
+        IntervalTree descending = new IntervalTree();
+        for (int i = 0; i < 1023; i++) {
+            ascending.insert(new IntervalTree.Interval(i, i * 10L, i * 10L + 5));
+            descending.insert(new IntervalTree.Interval(i, (1022 - i) * 10L, (1022 - i) * 10L + 5));
+        }
+
+        // 1023个节点的完全平衡树高10；只做单旋转而不平衡时会退化成链表
+        assertThat(ascending.height()).isEqualTo(10);
+        assertThat(descending.height()).isEqualTo(10);
+    }
+
+    @Test
+    void doubleRotationsKeepOrderAndHeight() {
+        IntervalTree leftRight = new IntervalTree();
+        leftRight.insert(new IntervalTree.Interval(3, 30, 35));
+        leftRight.insert(new IntervalTree.Interval(1, 10, 15));
+        leftRight.insert(new IntervalTree.Interval(2, 20, 25));
+        IntervalTree rightLeft = new IntervalTree();
+        rightLeft.insert(new IntervalTree.Interval(1, 10, 15));
+        rightLeft.insert(new IntervalTree.Interval(3, 30, 35));
+        rightLeft.insert(new IntervalTree.Interval(2, 20, 25));
+
+        for (IntervalTree tree : List.of(leftRight, rightLeft)) {
+            assertThat(tree.height()).isEqualTo(2);
+            List<IntervalTree.Interval> all = new ArrayList<>();
+            tree.collectOverlaps(0, 100, all);
+            assertThat(all).extracting(IntervalTree.Interval::id).containsExactly(1, 2, 3);
+        }
+    }
+
+    // 最早开始的长区间被旋转到深处后，祖先节点的maxEnd必须仍然覆盖它，否则查找会把它剪掉
+    @Test
+    void maxEndFollowsLongIntervalThroughRotations() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(0, 0, 10_000));
+        for (int i = 1; i <= 100; i++) {
+            tree.insert(new IntervalTree.Interval(i, i * 10L, i * 10L + 1));
+        }
+
+        // [995, 999) 只和长区间重叠
+        assertThat(tree.findOverlap(995, 999, -1)).isEqualTo(0);
+        assertThat(tree.findOverlap(995, 999, 0)).isEqualTo(-1);
+        assertThat(tree.findOverlap(10_000, 20_000, -1)).isEqualTo(-1);
+
+        tree.remove(0, 0);
+        assertThat(tree.findOverlap(995, 999, -1)).isEqualTo(-1);
+        assertThat(tree.size()).isEqualTo(100);
+    }
+
+    @Test
+    void halfOpenBoundsDoNotOverlap() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(1, 100, 200));
+
+        assertThat(tree.findOverlap(200, 300, -1)).isEqualTo(-1);
+        assertThat(tree.findOverlap(0, 100, -1)).isEqualTo(-1);
+        assertThat(tree.findOverlap(199, 300, -1)).isEqualTo(1);
+    }
+
+    @Test
+    void removeOfUnknownIntervalChangesNothing() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(new IntervalTree.Interval(1, 100, 200));
+
+        assertThat(tree.remove(1, 101)).isFalse();
+        assertThat(tree.remove(2, 100)).isFalse();
+        assertThat(tree.remove(1, 100)).isTrue();
+        assertThat(tree.size()).isZero();
+    }
+
+    // 随机插入删除后与逐个比对的结果一致，且高度始终在AVL上界内
+    @Test
+    void matchesLinearScanUnderRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<IntervalTree.Interval> live = new ArrayList<>();
+        for (int id = 1; id <= 5_000; id++) {
+            long start = random.nextInt(100_000);
+            IntervalTree.Interval interval = new IntervalTree.Interval(id, start, start + 1 + random.nextInt(2_000));
+            tree.insert(interval);
+            live.add(interval);
+            if (random.nextInt(3) == 0) {
+                IntervalTree.Interval removed = live.remove(random.nextInt(live.size()));
+                assertThat(tree.remove(removed.id(), removed.start())).isTrue();
+            }
+        }
+        assertThat(tree.size()).isEqualTo(live.size());
+        assertThat((double) tree.height()).isLessThanOrEqualTo(1.45 * Math.log(live.size() + 2) / Math.log(2));
+
+        for (int probe = 0; probe < 2_000; probe++) {
+            long from = random.nextInt(102_000);
+            long to = from + 1 + random.nextInt(500);
+            List<Integer> expected = new ArrayList<>();
+            for (IntervalTree.Interval interval : live) {
+                if (interval.start() < to && interval.end() > from) {
+                    expected.add(interval.id());
+                }
+            }
+            List<IntervalTree.Interval> found = new ArrayList<>();
+            tree.collectOverlaps(from, to, found);
+            assertThat(found).extracting(IntervalTree.Interval::id).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(found).isSortedAccordingTo((a, b) -> Long.compare(a.start(), b.start()));
+            int any = tree.findOverlap(from, to, -1);
+            if (expected.isEmpty()) {
+                assertThat(any).isEqualTo(-1);
+            } else {
+                assertThat(expected).contains(any);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.portlogistics.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    @Test
+    void latinTextSplitsIntoLowerCaseWords() {
+        assertThat(tokens("MSC-Oscar, Shanghai  Port!")).containsExactly("msc", "oscar", "shanghai", "port");
+    }
+
+    @Test
+    void mixedLettersAndDigitsAlsoYieldTheirParts() {
+        assertThat(tokens("IMO9321483")).containsExactly("imo9321483", "imo", "9321483");
+        assertThat(tokens("a1b2")).containsExactly("a1b2", "a", "1", "b", "2");
+        // 纯数字或纯字母的词不再重复拆分
+        assertThat(tokens("2024 abc")).containsExactly("2024", "abc");
+    }
+
+    @Test
+    void chineseRunsYieldUnigramsAndBigrams() {
+        assertThat(tokens("上海港")).containsExactly("上", "海", "上海", "港", "海港");
+        assertThat(tokens("港")).containsExactly("港");
+    }
+
+    @Test
+    void chineseAndLatinRunsAreSeparated() {
+        assertThat(tokens("冷藏container箱")).containsExactly("冷", "藏", "冷藏", "container", "箱");
+        assertThat(tokens("宁波 Ningbo")).containsExactly("宁", "波", "宁波", "ningbo");
+    }
+
+    @Test
+    void supplementaryIdeographsAreWholeCharacters() {
+        String a = new String(Character.toChars(0x20000));
+        String b = new String(Character.toChars(0x20001));
+
+        assertThat(tokens(a + b)).containsExactly(a, b, a + b);
+    }
+
+    @Test
+    void nullAndPunctuationOnlyYieldNothing() {
+        assertThat(tokens(null)).isEmpty();
+        assertThat(tokens(" -,;/ ")).isEmpty();
+    }
+
+    @Test
+    void fieldNumberIsPassedThrough() {
+        List<Integer> fields = new ArrayList<>();
+        SearchIndex.tokenize("a b", 1, (term, field) -> fields.add(field));
+
+        assertThat(fields).containsExactly(1, 1);
+    }
+
+    @Test
+    void lastQueryWordMatchesAsPrefixUntilFollowedBySpace() {
+        SearchIndex index = new SearchIndex(100);
+        index.put(SearchIndex.Type.SHIP, 1, "Eastern Star", "IMO9000001");
+        index.put(SearchIndex.Type.SHIP, 2, "East Wind", "IMO9000002");
+
+        assertThat(index.searchIds(SearchIndex.Type.SHIP, "east")).containsExactly(2, 1);
+        assertThat(index.searchIds(SearchIndex.Type.SHIP, "east ")).containsExactly(2);
+        assertThat(index.searchIds(SearchIndex.Type.SHIP, "9000001")).containsExactly(1);
+        // 词中间的片段不在索引里，由仓储层退回LIKE查询
+        assertThat(index.searchIds(SearchIndex.Type.SHIP, "stern")).isEmpty();
+    }
+
+    @Test
+    void chineseQueryMatchesSingleCharacterAndBigrams() {
+        SearchIndex index = new SearchIndex(100);
+        index.put(SearchIndex.Type.CARGO, 1, "冷冻海鲜", "上海");
+        index.put(SearchIndex.Type.CARGO, 2, "电子产品", "深圳");
+
+        assertThat(index.searchIds(SearchIndex.Type.CARGO, "海")).containsExactly(1);
+        assertThat(index.searchIds(SearchIndex.Type.CARGO, "海鲜")).containsExactly(1);
+        assertThat(index.searchIds(SearchIndex.Type.CARGO, "冻鲜")).isEmpty();
+
+        index.remove(SearchIndex.Type.CARGO, 1);
+        assertThat(index.searchIds(SearchIndex.Type.CARGO, "海")).isEmpty();
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        SearchIndex.tokenize(text, 0, (term, field) -> tokens.add(term));
+        return tokens;
+    }
+}
@@ -0,0 +1,40 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.Ship;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShipRepositoryTest {
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new TestDatabase();
+        db.ships.save(new Ship(0, "Eastern Star", "IMO9321483", 8000, "AT_SEA"));
+        db.ships.save(new Ship(0, "East Wind", "IMO9000002", 6000, "DOCKED"));
+        db.ships.rebuildSearchIndex();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void keywordSearchUsesIndexRanking() throws SQLException {
+        assertThat(db.ships.searchByKeyword("east")).extracting(Ship::getName)
+                .containsExactly("East Wind", "Eastern Star");
+    }
+
+    @Test
+    void keywordSearchFallsBackToInfixLikeWhenIndexHasNoHit() throws SQLException {
+        assertThat(db.ships.searchByKeyword("stern")).extracting(Ship::getName).containsExactly("Eastern Star");
+        assertThat(db.ships.searchByKeyword("321")).extracting(Ship::getName).containsExactly("Eastern Star");
+        assertThat(db.ships.searchByKeyword("nothing")).isEmpty();
+    }
+}
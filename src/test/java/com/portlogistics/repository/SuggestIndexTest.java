@@ -0,0 +1,53 @@
+package com.portlogistics.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SuggestIndexTest {
+
+    @Test
+    void failedStartupLoadIsRetriedOnLaterRequest() throws SQLException {
+        SuggestIndex index = new SuggestIndex(0);
+        AtomicInteger attempts = new AtomicInteger();
+        SuggestIndex.EntryLoader loader = sink -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("连接超时");
+            }
+            sink.add(1, "Eastern Star", "IMO9321483", "Eastern Star", "IMO9321483");
+        };
+
+        assertThatThrownBy(() -> index.rebuild(SuggestIndex.Type.SHIP, loader)).isInstanceOf(SQLException.class);
+        assertThat(index.isReady(SuggestIndex.Type.SHIP)).isFalse();
+
+        assertThat(index.ensureReady(SuggestIndex.Type.SHIP)).isTrue();
+        assertThat(index.suggest(SuggestIndex.Type.SHIP, "east", 10))
+                .extracting(SuggestIndex.Suggestion::name).containsExactly("Eastern Star");
+        // 已就绪后不再加载
+        assertThat(index.ensureReady(SuggestIndex.Type.SHIP)).isTrue();
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void retryWaitsForIntervalAfterFailure() {
+        SuggestIndex index = new SuggestIndex(60_000_000_000L);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> index.rebuild(SuggestIndex.Type.PORT, sink -> {
+            attempts.incrementAndGet();
+            throw new SQLException("连接超时");
+        })).isInstanceOf(SQLException.class);
+
+        assertThat(index.ensureReady(SuggestIndex.Type.PORT)).isFalse();
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void typeNeverLoadedByItsRepositoryIsNotReady() {
+        assertThat(new SuggestIndex(0).ensureReady(SuggestIndex.Type.CARGO)).isFalse();
+    }
+}
@@ -0,0 +1,123 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.config.DatabaseManager;
+import com.portlogistics.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded H2 database in MySQL mode with the schema of complete_schema.sql, plus the
+ * repositories wired the way Spring wires them. Every instance gets its own in-memory database.
+ */
+final class TestDatabase implements AutoCloseable {
+    private static final AtomicInteger NEXT_DATABASE = new AtomicInteger();
+
+    final DatabaseManager databaseManager;
+    final TableVersions versions = new TableVersions();
+    final BerthOccupancyIndex occupancyIndex = new BerthOccupancyIndex();
+    final SearchIndex searchIndex = new SearchIndex(500);
+    final SuggestIndex suggestIndex = new SuggestIndex();
+    final ShipRepository ships;
+    final PortRepository ports;
+    final BerthScheduleRepository berths;
+    final CargoStatsRollup statsRollup = new CargoStatsRollup();
+    final CargoRepository cargo;
+
+    TestDatabase() throws Exception {
+        String url = "jdbc:h2:mem:test" + NEXT_DATABASE.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DAY,MONTH,YEAR,VALUE,USER;DB_CLOSE_DELAY=-1";
+        databaseManager = new DatabaseManager(new MetricsRegistry(null));
+        set(databaseManager, "url", url);
+        set(databaseManager, "username", "sa");
+        set(databaseManager, "password", "");
+        set(databaseManager, "poolEnabled", true);
+        set(databaseManager, "maxPoolSize", 20);
+        set(databaseManager, "minIdle", 2);
+        set(databaseManager, "borrowTimeoutMs", 10_000L);
+        set(databaseManager, "idleTimeoutMs", 600_000L);
+        set(databaseManager, "maxLifetimeMs", 1_800_000L);
+        set(databaseManager, "validationTimeoutSeconds", 2);
+        set(databaseManager, "statementCacheSize", 64);
+        databaseManager.init();
+        runScript("/test-schema.sql");
+
+        ships = new ShipRepository(databaseManager, versions, searchIndex, suggestIndex, 1_000);
+        ports = new PortRepository(databaseManager, versions, suggestIndex, 1_000);
+        berths = new BerthScheduleRepository(databaseManager, occupancyIndex, ships, ports, versions);
+        cargo = new CargoRepository(databaseManager, statsRollup, ships, searchIndex, suggestIndex);
+    }
+
+    // 执行src/main/resources/sql/migration下的迁移脚本；H2不认识ALGORITHM/LOCK子句，先去掉
+    void migrate(String script) throws SQLException, IOException {
+        runScript("/sql/migration/" + script);
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Connection conn = databaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    int insertPort(String code) throws SQLException {
+        return insert("INSERT INTO port (port_code, port_name, country, total_berths) VALUES (?, ?, '中国', 10)", code, "港口" + code);
+    }
+
+    int insertShip(String imo) throws SQLException {
+        return insert("INSERT INTO ship (name, imo, capacity_teu, status) VALUES (?, ?, 1000, 'AT_SEA')", "船舶" + imo, imo);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection conn = databaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        } finally {
+            databaseManager.shutdown();
+        }
+    }
+
+    private int insert(String sql, String first, String second) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, first);
+            stmt.setString(2, second);
+            stmt.executeUpdate();
+            try (var keys = stmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private void runScript(String resource) throws SQLException, IOException {
+        String script;
+        try (InputStream in = TestDatabase.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("找不到脚本：" + resource);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        script = script.replaceAll("(?m)^--.*$", "").replaceAll("(?i),?\\s*\\b(?:ALGORITHM|LOCK)\\s*=\\s*\\w+", "");
+        try (Connection conn = databaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    // DatabaseManager的配置平时由Spring按@Value注入
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
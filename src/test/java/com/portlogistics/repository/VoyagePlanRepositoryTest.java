@@ -0,0 +1,57 @@
+package com.portlogistics.repository;
+
+import com.portlogistics.model.ListQuery;
+import com.portlogistics.model.PageCursor;
+import com.portlogistics.model.PageResult;
+import com.portlogistics.model.VoyagePlan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VoyagePlanRepositoryTest {
+    private TestDatabase db;
+    private VoyagePlanRepository voyages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new TestDatabase();
+        int portId = db.insertPort("CNSHA");
+        int shipId = db.insertShip("IMO9000001");
+        for (int day = 1; day <= 3; day++) {
+            db.execute("INSERT INTO voyage_plan (voyage_number, ship_id, departure_port_id, arrival_port_id, "
+                    + "planned_departure, planned_arrival) VALUES ('V00" + day + "', " + shipId + ", " + portId + ", "
+                    + portId + ", '2030-03-0" + day + " 08:00:00', '2030-03-0" + day + " 20:00:00')");
+        }
+        voyages = new VoyagePlanRepository(db.databaseManager, db.statsRollup, db.ships, db.ports, db.versions);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void pagesFollowTheReturnedCursor() throws SQLException {
+        PageResult<VoyagePlan> first = voyages.findPage(ListQuery.of(null, 2, null, null, null, null));
+        PageResult<VoyagePlan> second = voyages.findPage(ListQuery.of(first.getNextCursor(), 2, null, null, null, null));
+
+        assertThat(first.getItems()).extracting(VoyagePlan::getVoyageNumber).containsExactly("V003", "V002");
+        assertThat(second.getItems()).extracting(VoyagePlan::getVoyageNumber).containsExactly("V001");
+        assertThat(second.isHasMore()).isFalse();
+    }
+
+    @Test
+    void idOnlyCursorFromAnotherListingIsRejected() {
+        // 货物、港口等按ID分页的列表返回的游标不带排序时间
+        String cargoCursor = PageCursor.ofId(2).encode();
+
+        assertThatThrownBy(() -> voyages.findPage(ListQuery.of(cargoCursor, 2, null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("分页游标无效");
+    }
+}
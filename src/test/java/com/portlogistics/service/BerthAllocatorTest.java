@@ -0,0 +1,124 @@
+package com.portlogistics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BerthAllocatorTest {
+
+    @Test
+    void mergeSortsAndJoinsOverlappingAndTouchingIntervals() {
+        TreeMap<Long, Long> line = BerthAllocator.merge(List.of(
+                new long[]{50, 60},
+                new long[]{10, 20},
+                new long[]{15, 30},
+                new long[]{30, 40},
+                new long[]{70, 80},
+                new long[]{72, 75}));
+
+        assertThat(line).containsExactly(Map.entry(10L, 40L), Map.entry(50L, 60L), Map.entry(70L, 80L));
+    }
+
+    @Test
+    void mergeSkipsEmptyAndInvertedIntervals() {
+        TreeMap<Long, Long> line = BerthAllocator.merge(List.of(
+                new long[]{10, 10},
+                new long[]{30, 20},
+                new long[]{40, 50}));
+
+        assertThat(line).containsExactly(Map.entry(40L, 50L));
+        assertThat(BerthAllocator.merge(List.of())).isEmpty();
+    }
+
+    @Test
+    void mergeKeepsOpenEndedBookingOpen() {
+        TreeMap<Long, Long> line = BerthAllocator.merge(List.of(
+                new long[]{100, Long.MAX_VALUE},
+                new long[]{150, 200}));
+
+        assertThat(line).containsExactly(Map.entry(100L, Long.MAX_VALUE));
+    }
+
+    @Test
+    void earliestStartOnEmptyBerthIsArrival() {
+        assertThat(BerthAllocator.earliestStart(new TreeMap<>(), 100, 50)).isEqualTo(100);
+    }
+
+    @Test
+    void earliestStartWaitsForBookingCoveringArrival() {
+        TreeMap<Long, Long> line = line(new long[]{50, 120});
+
+        assertThat(BerthAllocator.earliestStart(line, 100, 10)).isEqualTo(120);
+        // 已有占用恰好在到港时刻开始或结束都按半开区间处理
+        assertThat(BerthAllocator.earliestStart(line, 50, 10)).isEqualTo(120);
+        assertThat(BerthAllocator.earliestStart(line, 120, 10)).isEqualTo(120);
+    }
+
+    @Test
+    void earliestStartSkipsGapsTooShortAndTakesExactFit() {
+        TreeMap<Long, Long> line = line(new long[]{110, 130}, new long[]{145, 160}, new long[]{180, 200});
+
+        // [100,110) 只有10秒，[130,145) 15秒，[160,180) 正好20秒
+        assertThat(BerthAllocator.earliestStart(line, 100, 20)).isEqualTo(160);
+        assertThat(BerthAllocator.earliestStart(line, 100, 10)).isEqualTo(100);
+        assertThat(BerthAllocator.earliestStart(line, 100, 21)).isEqualTo(200);
+    }
+
+    @Test
+    void earliestStartIsBlockedByOpenEndedBooking() {
+        TreeMap<Long, Long> line = line(new long[]{100, 110}, new long[]{120, Long.MAX_VALUE});
+
+        assertThat(BerthAllocator.earliestStart(line, 90, 10)).isEqualTo(90);
+        assertThat(BerthAllocator.earliestStart(line, 90, 20)).isEqualTo(-1);
+        assertThat(BerthAllocator.earliestStart(line, 130, 1)).isEqualTo(-1);
+    }
+
+    @Test
+    void greedyPrefersSmallestFittingBerthAndReportsUnfitVessels() {
+        BerthAllocator allocator = new BerthAllocator(
+                List.of(new BerthAllocator.Berth("BIG", 400, 16, List.of()),
+                        new BerthAllocator.Berth("SMALL", 200, 10, List.of())),
+                List.of(new BerthAllocator.Vessel(1, 0, 100, 180, 9),
+                        new BerthAllocator.Vessel(2, 0, 100, 300, 12),
+                        new BerthAllocator.Vessel(3, 0, 100, 500, 12)));
+
+        allocator.placeGreedy(System.nanoTime() + 1_000_000_000L);
+        BerthAllocator.Solution solution = allocator.solution();
+
+        assertThat(solution.assignments()).containsExactlyInAnyOrder(
+                new BerthAllocator.Assignment(1, "SMALL", 0, 100),
+                new BerthAllocator.Assignment(2, "BIG", 0, 100));
+        assertThat(solution.unfit()).containsExactly(3);
+        assertThat(solution.totalWaitSeconds()).isZero();
+        assertThat(solution.timedOut()).isFalse();
+    }
+
+    @Test
+    void localSearchNeverDropsAPlacedVesselToCutWaiting() {
+        // 泊位从100起被未定离港的占用挡住：先排1再排2两条都能排下（2等待60秒），
+        // 交换顺序后2不用等，但1已放不进剩下的空档
+        BerthAllocator allocator = new BerthAllocator(
+                List.of(new BerthAllocator.Berth("B1", 400, 16, List.<long[]>of(new long[]{100, Long.MAX_VALUE}))),
+                List.of(new BerthAllocator.Vessel(1, 0, 70, 200, 10),
+                        new BerthAllocator.Vessel(2, 10, 30, 200, 10)));
+
+        allocator.placeGreedy(System.nanoTime() + 1_000_000_000L);
+        allocator.improve(System.nanoTime() + 1_000_000_000L, 7);
+        BerthAllocator.Solution solution = allocator.solution();
+
+        assertThat(solution.assignments()).containsExactly(
+                new BerthAllocator.Assignment(1, "B1", 0, 70),
+                new BerthAllocator.Assignment(2, "B1", 70, 100));
+        assertThat(solution.unplanned()).isEmpty();
+        assertThat(solution.totalWaitSeconds()).isEqualTo(60);
+        assertThat(solution.iterations()).isPositive();
+    }
+
+    private static TreeMap<Long, Long> line(long[]... busy) {
+        return BerthAllocator.merge(List.of(busy));
+    }
+}
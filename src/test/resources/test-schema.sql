@@ -0,0 +1,102 @@
+-- 仓储层测试用表结构：取自 complete_schema.sql，去掉外键、表选项和注释，可直接在H2的MySQL兼容模式下执行
+-- berth表保留上线时的唯一键 uk_port_berth，测试里按需执行迁移脚本把它删掉
+
+CREATE TABLE port (
+    port_id INT AUTO_INCREMENT PRIMARY KEY,
+    port_code VARCHAR(20) NOT NULL UNIQUE,
+    port_name VARCHAR(100) NOT NULL,
+    country VARCHAR(50) NOT NULL,
+    city VARCHAR(50) NULL,
+    latitude DECIMAL(10, 7) NULL,
+    longitude DECIMAL(10, 7) NULL,
+    total_berths INT NOT NULL DEFAULT 0,
+    max_vessel_size DECIMAL(10, 2) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_port_code ON port(port_code);
+CREATE INDEX idx_port_country ON port(country);
+
+CREATE TABLE ship (
+    ship_id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    imo VARCHAR(20) NOT NULL UNIQUE,
+    capacity_teu INT NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_ship_imo ON ship(imo);
+CREATE INDEX idx_ship_status ON ship(status);
+
+CREATE TABLE berth (
+    berth_id INT AUTO_INCREMENT PRIMARY KEY,
+    berth_number VARCHAR(20) NOT NULL,
+    port_id INT NOT NULL,
+    current_vessel_id INT NULL,
+    berth_type VARCHAR(30) NULL,
+    max_length DECIMAL(10, 2) NULL,
+    max_draft DECIMAL(10, 2) NULL,
+    status VARCHAR(30) NOT NULL DEFAULT 'AVAILABLE',
+    arrival_time DATETIME NULL,
+    departure_time DATETIME NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_port_berth (port_id, berth_number)
+);
+CREATE INDEX idx_berth_port ON berth(port_id);
+CREATE INDEX idx_berth_status ON berth(status);
+CREATE INDEX idx_berth_vessel ON berth(current_vessel_id);
+
+CREATE TABLE warehouse (
+    warehouse_id INT AUTO_INCREMENT PRIMARY KEY,
+    warehouse_name VARCHAR(100) NOT NULL,
+    port_id INT NOT NULL,
+    warehouse_type VARCHAR(50) NOT NULL,
+    total_capacity DECIMAL(12, 2) NOT NULL,
+    used_capacity DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    location VARCHAR(200) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_warehouse_port ON warehouse(port_id);
+CREATE INDEX idx_warehouse_type ON warehouse(warehouse_type);
+
+CREATE TABLE voyage_plan (
+    plan_id INT AUTO_INCREMENT PRIMARY KEY,
+    voyage_number VARCHAR(50) NOT NULL UNIQUE,
+    ship_id INT NOT NULL,
+    departure_port_id INT NOT NULL,
+    arrival_port_id INT NOT NULL,
+    assigned_berth_id INT NULL,
+    planned_departure DATETIME NOT NULL,
+    planned_arrival DATETIME NOT NULL,
+    actual_departure DATETIME NULL,
+    actual_arrival DATETIME NULL,
+    voyage_status VARCHAR(30) NOT NULL DEFAULT 'SCHEDULED',
+    created_by INT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_voyage_number ON voyage_plan(voyage_number);
+CREATE INDEX idx_voyage_ship ON voyage_plan(ship_id);
+CREATE INDEX idx_voyage_departure_port ON voyage_plan(departure_port_id);
+CREATE INDEX idx_voyage_arrival_port ON voyage_plan(arrival_port_id);
+CREATE INDEX idx_voyage_status ON voyage_plan(voyage_status);
+
+CREATE TABLE cargo (
+    cargo_id INT AUTO_INCREMENT PRIMARY KEY,
+    description VARCHAR(255) NOT NULL,
+    weight DECIMAL(10, 2) NOT NULL,
+    destination VARCHAR(100) NOT NULL,
+    voyage_plan_id INT NULL,
+    warehouse_id INT NULL,
+    cargo_type VARCHAR(50) NULL,
+    status VARCHAR(30) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_cargo_voyage ON cargo(voyage_plan_id);
+CREATE INDEX idx_cargo_warehouse ON cargo(warehouse_id);
+CREATE INDEX idx_cargo_destination ON cargo(destination);
+CREATE INDEX idx_cargo_status ON cargo(status);
+
+CREATE TABLE berth_lock (
+    port_id INT NOT NULL,
+    berth_number VARCHAR(20) NOT NULL,
+    PRIMARY KEY (port_id, berth_number)
+);